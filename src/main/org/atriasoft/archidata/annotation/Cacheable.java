@@ -0,0 +1,57 @@
+package org.atriasoft.archidata.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks an entity as cached by the second-level cache shared by all the connections of the node.
+ *
+ * <p>The documents read by primary key ({@code getById} and the relationships loading the entity) are kept, and
+ * served again without request until they expire, are evicted by size, or are invalidated:
+ * <ul>
+ * <li>by any write of the collection through this node;</li>
+ * <li>by the update and delete events of the collection received by the {@code ChangeNotificationManager}
+ * (writes of the other nodes), when it is started.</li>
+ * </ul>
+ * The caches are kept per database. Coherence across the nodes of a cluster requires the
+ * {@code ChangeNotificationManager} to be started on the database of the cached entities: otherwise a warning is
+ * logged when the cache is created, and the entries of another node's writes stay stale at most {@link #ttl()}.
+ *
+ * <p>Meant for small, hot and rarely written entities (users, configuration, categories...).
+ *
+ * <p>
+ * Example:
+ * <pre>{@code
+ * @Cacheable(ttl = 5, unit = TimeUnit.MINUTES, maxSize = 500)
+ * public class Category extends OIDGenericData {
+ *     public String name;
+ * }
+ * }</pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+	/**
+	 * Time an entry is served after it was read.
+	 *
+	 * @return The time to live, in {@link #unit()}
+	 */
+	long ttl() default 60;
+
+	/**
+	 * Unit of {@link #ttl()}.
+	 *
+	 * @return The time unit
+	 */
+	TimeUnit unit() default TimeUnit.SECONDS;
+
+	/**
+	 * Maximum number of entries: the least recently used entries are evicted first.
+	 *
+	 * @return The maximum number of cached entities
+	 */
+	int maxSize() default 1000;
+}
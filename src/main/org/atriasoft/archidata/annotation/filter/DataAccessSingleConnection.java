@@ -53,4 +53,13 @@ public @interface DataAccessSingleConnection {
 	 * @return true if the request should be wrapped in a transaction
 	 */
 	boolean transactional() default false;
+
+	/**
+	 * When set to {@code true}, the connection of the request keeps the entities it reads by primary key and
+	 * serves them again without request (see {@code IdentityMap}). Any write of the request drops the entries it
+	 * may have made stale.
+	 *
+	 * @return true if the request uses a first-level entity cache
+	 */
+	boolean identityMap() default false;
 }
@@ -1,16 +1,11 @@
 package org.atriasoft.archidata.api;
 
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -18,10 +13,9 @@ import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
-import javax.imageio.ImageIO;
-
 import org.atriasoft.archidata.annotation.apiGenerator.ApiInputOptional;
 import org.atriasoft.archidata.annotation.apiGenerator.ApiTypeScriptProgress;
 import org.atriasoft.archidata.annotation.filter.DataAccessSingleConnection;
@@ -34,6 +28,10 @@ import org.atriasoft.archidata.filter.GenericContext;
 import org.atriasoft.archidata.model.Data;
 import org.atriasoft.archidata.tools.ConfigBaseVariable;
 import org.atriasoft.archidata.tools.DataTools;
+import org.atriasoft.archidata.tools.HttpCacheTools;
+import org.atriasoft.archidata.tools.HttpRangeTools;
+import org.atriasoft.archidata.tools.HttpRangeTools.ByteRange;
+import org.atriasoft.archidata.tools.ThumbnailTools;
 import org.bson.types.ObjectId;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataParam;
@@ -54,11 +52,12 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.CacheControl;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
-import jakarta.ws.rs.core.StreamingOutput;
 
 // https://stackoverflow.com/questions/35367113/jersey-webservice-scalable-approach-to-download-file-and-reply-to-client
 // https://gist.github.com/aitoroses/4f7a2b197b732a6a691d
@@ -245,12 +244,14 @@ public class DataResource {
 		final String mediaPath = getFileData(injectedData.getOid());
 		LOGGER.info("src = {}", tmpPath);
 		LOGGER.info("dst = {}", mediaPath);
+		ThumbnailTools.deleteThumbnails(injectedData.getOid());
 		try {
 			Files.move(Paths.get(tmpPath), Paths.get(mediaPath), StandardCopyOption.ATOMIC_MOVE);
 		} catch (final AtomicMoveNotSupportedException ex) {
 			Files.move(Paths.get(tmpPath), Paths.get(mediaPath), StandardCopyOption.REPLACE_EXISTING);
 		}
 		LOGGER.info("Move done");
+		ThumbnailTools.generateAsync(injectedData.getOid(), mimeType);
 		return injectedData;
 	}
 
@@ -267,6 +268,7 @@ public class DataResource {
 		LOGGER.info("dst = {}", mediaDestPath);
 		if (Files.exists(Paths.get(mediaCurentPath))) {
 			LOGGER.info("move: {} ==> {}", mediaCurentPath, mediaDestPath);
+			ThumbnailTools.deleteThumbnails(oid);
 			try {
 				Files.move(Paths.get(mediaCurentPath), Paths.get(mediaDestPath), StandardCopyOption.ATOMIC_MOVE);
 				LOGGER.info("Atomic-move done");
@@ -418,7 +420,12 @@ public class DataResource {
 
 	/**
 	 * Retrieves data by its ObjectId, supporting HTTP range requests for streaming.
+	 *
+	 * <p>The content of a data never changes: its ETag is its SHA-512, and the conditional requests are answered
+	 * 304 without reading the file.</p>
 	 * @param sc The security context.
+	 * @param request The request (conditional headers).
+	 * @param headers The headers of the request ({@code If-Range}).
 	 * @param token Optional authorization token from query parameter.
 	 * @param range The HTTP Range header value for partial content requests.
 	 * @param oid The ObjectId of the data to retrieve.
@@ -433,6 +440,8 @@ public class DataResource {
 	@Operation(description = "Get back some data from the data environment", tags = "SYSTEM")
 	public Response retrieveDataId(
 			@Context final SecurityContext sc,
+			@Context final Request request,
+			@Context final HttpHeaders headers,
 			@QueryParam(HttpHeaders.AUTHORIZATION) final String token,
 			@HeaderParam("Range") final String range,
 			@PathParam("oid") final ObjectId oid) throws FailException {
@@ -444,9 +453,16 @@ public class DataResource {
 		if (value == null) {
 			return Response.status(404).entity("media NOT FOUND: " + oid).type("text/plain").build();
 		}
+		final EntityTag etag = HttpCacheTools.strongTag(value.getSha512());
+		final Response notModified = buildNotModified(request, etag, value.getCreatedAt(), getDataCacheControl());
+		if (notModified != null) {
+			return notModified;
+		}
 		try {
-			return buildStream(getFileData(oid), range,
-					value.getMimeType() == null ? "application/octet-stream" : value.getMimeType());
+			return buildStream(getFileData(oid),
+					HttpCacheTools.rangeApplies(headers, value.getCreatedAt(), etag) ? range : null,
+					value.getMimeType() == null ? "application/octet-stream" : value.getMimeType(), etag,
+					value.getCreatedAt(), getDataCacheControl());
 		} catch (final Exception ex) {
 			throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to build output stream", ex);
 		}
@@ -454,10 +470,17 @@ public class DataResource {
 
 	/**
 	 * Retrieves a thumbnail of the data identified by the given ObjectId, resizing images if possible.
+	 *
+	 * <p>The thumbnails are stored next to the data (see {@link ThumbnailTools}): they are generated at upload, or
+	 * on the first request, then streamed like the data. Their ETag derives from the SHA-512 of the data.</p>
 	 * @param sc The security context.
+	 * @param request The request (conditional headers).
+	 * @param headers The headers of the request ({@code If-Range}).
 	 * @param token Optional authorization token from query parameter.
 	 * @param range The HTTP Range header value for partial content requests.
 	 * @param oid The ObjectId of the data to thumbnail.
+	 * @param width The requested width: the smallest configured width large enough is served (default width if
+	 *        absent).
 	 * @return A response containing the thumbnail image or the original stream.
 	 * @throws FailException If the data is not found or processing fails.
 	 */
@@ -470,9 +493,12 @@ public class DataResource {
 	// @CacheMaxAge(time = 10, unit = TimeUnit.DAYS)
 	public Response retrieveDataThumbnailId(
 			@Context final SecurityContext sc,
+			@Context final Request request,
+			@Context final HttpHeaders headers,
 			@QueryParam(HttpHeaders.AUTHORIZATION) final String token,
 			@HeaderParam("Range") final String range,
-			@PathParam("oid") final ObjectId oid) throws FailException {
+			@PathParam("oid") final ObjectId oid,
+			@ApiInputOptional @QueryParam("width") final Integer width) throws FailException {
 		final GenericContext gc = (GenericContext) sc.getUserPrincipal();
 		LOGGER.info("===================================================");
 		LOGGER.info("== DATA retrieveDataThumbnailId ? {}", (gc == null ? "null" : gc.userByToken));
@@ -481,69 +507,42 @@ public class DataResource {
 		if (value == null) {
 			return Response.status(404).entity("media NOT FOUND: " + oid).type("text/plain").build();
 		}
+		final boolean thumbnail = ThumbnailTools.isSupported(value.getMimeType());
+		final int thumbnailWidth = ThumbnailTools.selectWidth(width);
+		final EntityTag etag = HttpCacheTools.strongTag(value.getSha512() == null ? null
+				: thumbnail ? value.getSha512() + "-" + thumbnailWidth + "." + ConfigBaseVariable.getThumbnailFormat()
+						: value.getSha512());
+		final Response notModified = buildNotModified(request, etag, value.getCreatedAt(), getThumbnailCacheControl());
+		if (notModified != null) {
+			return notModified;
+		}
 		final String filePathName = getFileData(oid);
 		final File inputFile = new File(filePathName);
 		if (!inputFile.exists()) {
 			return Response.status(404).entity("{\"error\":\"media Does not exist: " + oid + "\"}")
 					.type("application/json").build();
 		}
-		if (value.getMimeType().contentEquals("image/jpeg") || value.getMimeType().contentEquals("image/png")
-		// || value.mimeType.contentEquals("image/webp")
-		) {
-			// reads input image
-			BufferedImage inputImage;
+		final String streamRange = HttpCacheTools.rangeApplies(headers, value.getCreatedAt(), etag) ? range : null;
+		if (thumbnail) {
+			final String thumbnailPath;
 			try {
-				inputImage = ImageIO.read(inputFile);
+				thumbnailPath = ThumbnailTools.getOrGenerate(oid, thumbnailWidth);
 			} catch (final IOException ex) {
-				throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to READ the image", ex);
-			}
-			LOGGER.info("input size image: {}x{} type={}", inputImage.getWidth(), inputImage.getHeight(),
-					inputImage.getType());
-			final int scaledWidth = ConfigBaseVariable.getThumbnailWidth();
-			final int scaledHeight = (int) ((float) inputImage.getHeight() / (float) inputImage.getWidth()
-					* scaledWidth);
-			// creates output image
-			final BufferedImage outputImage = new BufferedImage(scaledWidth, scaledHeight, inputImage.getType());
-
-			// scales the input image to the output image
-			final Graphics2D g2d = outputImage.createGraphics();
-			LOGGER.info("output size image: {}x{}", scaledWidth, scaledHeight);
-			g2d.drawImage(inputImage, 0, 0, scaledWidth, scaledHeight, null);
-			g2d.dispose();
-			// create the output stream:
-			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			try {
-				ImageIO.write(outputImage, ConfigBaseVariable.getThumbnailFormat(), baos);
-			} catch (final IOException e) {
-				LOGGER.error("Failed to write thumbnail image: {}", e.getMessage(), e);
-				return Response.status(500).entity("Internal Error: thumbnail generation failed").type("text/plain")
-						.build();
-			}
-			final byte[] imageData = baos.toByteArray();
-			LOGGER.info("output length {}", imageData.length);
-			if (imageData.length == 0) {
-				LOGGER.error("Fail to convert image... Availlable format:");
-				for (final String data : ImageIO.getWriterFormatNames()) {
-					LOGGER.error("    - {}", data);
-				}
+				throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to generate the thumbnail", ex);
 			}
-			final Response.ResponseBuilder out = Response.ok(imageData).header(HttpHeaders.CONTENT_LENGTH,
-					imageData.length);
+			final String thumbnailMimeType;
 			try {
-				out.type(getMimeType(ConfigBaseVariable.getThumbnailFormat()));
+				thumbnailMimeType = getMimeType(ConfigBaseVariable.getThumbnailFormat());
 			} catch (final IOException ex) {
 				throw new FailException(Response.Status.INTERNAL_SERVER_ERROR,
 						"Fail to convert mime type of " + ConfigBaseVariable.getThumbnailFormat(), ex);
 			}
-			// TODO: move this in a decorator !!!
-			final CacheControl cc = new CacheControl();
-			cc.setMaxAge(3600);
-			cc.setNoCache(false);
-			out.cacheControl(cc);
-			return out.build();
+			return buildStream(thumbnailPath, streamRange, thumbnailMimeType, etag, value.getCreatedAt(),
+					getThumbnailCacheControl());
 		}
 		try {
-			return buildStream(filePathName, range, value.getMimeType());
+			return buildStream(filePathName, streamRange, value.getMimeType(), etag, value.getCreatedAt(),
+					getThumbnailCacheControl());
 		} catch (final Exception ex) {
 			throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to build output stream", ex);
 		}
@@ -552,6 +551,8 @@ public class DataResource {
 	/**
 	 * Retrieves data by its ObjectId with a user-friendly file name in the URL path (for browser downloads).
 	 * @param sc The security context.
+	 * @param request The request (conditional headers).
+	 * @param headers The headers of the request ({@code If-Range}).
 	 * @param token Optional authorization token from query parameter.
 	 * @param range The HTTP Range header value for partial content requests.
 	 * @param oid The ObjectId of the data to retrieve.
@@ -567,6 +568,8 @@ public class DataResource {
 	@Operation(description = "Get back some data from the data environment (with a beautiful name (permit download with basic name)", tags = "SYSTEM")
 	public Response retrieveDataFull(
 			@Context final SecurityContext sc,
+			@Context final Request request,
+			@Context final HttpHeaders headers,
 			@QueryParam(HttpHeaders.AUTHORIZATION) final String token,
 			@ApiInputOptional @HeaderParam("Range") final String range,
 			@PathParam("oid") final ObjectId oid,
@@ -579,18 +582,69 @@ public class DataResource {
 		if (value == null) {
 			return Response.status(404).entity("media NOT FOUND: " + oid).type("text/plain").build();
 		}
-		return buildStream(getFileData(oid), range,
-				value.getMimeType() == null ? "application/octet-stream" : value.getMimeType());
+		final EntityTag etag = HttpCacheTools.strongTag(value.getSha512());
+		final Response notModified = buildNotModified(request, etag, value.getCreatedAt(), getDataCacheControl());
+		if (notModified != null) {
+			return notModified;
+		}
+		return buildStream(getFileData(oid),
+				HttpCacheTools.rangeApplies(headers, value.getCreatedAt(), etag) ? range : null,
+				value.getMimeType() == null ? "application/octet-stream" : value.getMimeType(), etag,
+				value.getCreatedAt(), getDataCacheControl());
+	}
+
+	/**
+	 * Returns the cache policy of the data endpoints ({@code /data/{oid}} and {@code /data/{oid}/{name}}).
+	 * Override to change it: the responses also carry an ETag and a Last-Modified, so an expired response is
+	 * revalidated with a 304.
+	 * @return The Cache-Control of the data (default: 1 hour).
+	 */
+	protected CacheControl getDataCacheControl() {
+		return HttpCacheTools.maxAge(3600);
+	}
+
+	/**
+	 * Returns the cache policy of the thumbnail endpoint. Override to change it.
+	 * @return The Cache-Control of the thumbnails (default: 1 hour).
+	 */
+	protected CacheControl getThumbnailCacheControl() {
+		return HttpCacheTools.maxAge(3600);
+	}
+
+	/**
+	 * Answers the conditional requests ({@code If-None-Match}, {@code If-Modified-Since}...) without touching the
+	 * file.
+	 * @return The 304 (or 412) response, or {@code null} if the content must be sent.
+	 */
+	private static Response buildNotModified(
+			final Request request,
+			final EntityTag etag,
+			final Date lastModified,
+			final CacheControl cacheControl) {
+		final Response.ResponseBuilder out = HttpCacheTools.evaluatePreconditions(request, lastModified, etag);
+		if (out == null) {
+			return null;
+		}
+		return out.cacheControl(cacheControl).build();
 	}
 
 	/** Adapted from http://stackoverflow.com/questions/12768812/video-streaming-to-ipad-does-not-work-with-tapestry5/12829541#12829541
 	 *
-	 * @param range range header
+	 * @param range range header (null when an {@code If-Range} does not match): single, multiple
+	 *        ({@code multipart/byteranges}) and suffix ranges, 416 when none is satisfiable
+	 * @param etag The entity tag of the content, or null
+	 * @param lastModified The modification date of the content, or null for the date of the file
+	 * @param cacheControl The cache policy of the response
 	 * @return Streaming output
 	 * @throws FileNotFoundException
 	 * @throws Exception IOException if an error occurs in streaming. */
-	private Response buildStream(final String filename, final String range, final String inputMimeType)
-			throws FailException {
+	private Response buildStream(
+			final String filename,
+			final String range,
+			final String inputMimeType,
+			final EntityTag etag,
+			final Date lastModified,
+			final CacheControl cacheControl) throws FailException {
 		// Browsers don't support video/x-matroska or audio/x-matroska, serve as webm instead
 		final String mimeType;
 		if ("video/x-matroska".equals(inputMimeType)) {
@@ -601,72 +655,63 @@ public class DataResource {
 			mimeType = inputMimeType;
 		}
 		final File file = new File(filename);
+		if (!file.isFile()) {
+			// The streamers open the file once the response is committed: check it first
+			throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to find the required file.");
+		}
+		final Date modified = HttpCacheTools
+				.toHttpDate(lastModified != null ? lastModified : new Date(file.lastModified()));
+		final long size = file.length();
 		// logger.info("request range : {}", range);
-		// range not requested : Firefox does not send range headers
-		if (range == null) {
-			final StreamingOutput output = new StreamingOutput() {
-				@Override
-				public void write(final OutputStream out) {
-					try (FileInputStream in = new FileInputStream(file)) {
-						final byte[] buf = new byte[1024 * 1024];
-						int len;
-						while ((len = in.read(buf)) != -1) {
-							try {
-								out.write(buf, 0, len);
-								out.flush();
-								// logger.info("---- wrote {} bytes file ----", len);
-							} catch (final IOException ex) {
-								LOGGER.info("remote close connection");
-								break;
-							}
-						}
-					} catch (final IOException ex) {
-						throw new InternalServerErrorException(ex);
-					}
-				}
-			};
-			final Response.ResponseBuilder out = Response.ok(output).header(HttpHeaders.CONTENT_LENGTH, file.length())
-					.header("Accept-Ranges", "bytes");
+		// range not requested (Firefox does not send range headers), or ignored (invalid, too many ranges)
+		final List<ByteRange> ranges = HttpRangeTools.parse(range, size);
+		if (ranges == null) {
+			final MediaStreamer output;
+			try {
+				output = new MediaStreamer(file, 0, size);
+			} catch (final IOException ex) {
+				throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to access to the required file.",
+						ex);
+			}
+			final Response.ResponseBuilder out = Response.ok(output).header(HttpHeaders.CONTENT_LENGTH, size)
+					.header("Accept-Ranges", "bytes").lastModified(modified).cacheControl(cacheControl);
+			if (etag != null) {
+				out.tag(etag);
+			}
 			if (mimeType != null) {
 				out.type(mimeType);
 			}
 			return out.build();
-
 		}
-
-		final String[] ranges = range.split("=")[1].split("-");
-		final long from = Long.parseLong(ranges[0]);
-
-		// Determine the end byte position
-		long to;
-		if (ranges.length == 2 && !ranges[1].isEmpty()) {
-			// Explicit end specified: "bytes=start-end"
-			to = Long.parseLong(ranges[1]);
-		} else {
-			// Open-ended: "bytes=start-" — serve the rest of the file
-			to = file.length() - 1;
+		if (ranges.isEmpty()) {
+			return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE).header("Accept-Ranges", "bytes")
+					.header("Content-Range", "bytes */" + size).build();
 		}
-		if (to >= file.length()) {
-			to = file.length() - 1;
+		if (ranges.size() > 1) {
+			final MultiRangeStreamer streamer = new MultiRangeStreamer(file, ranges, mimeType);
+			final Response.ResponseBuilder out = Response.ok(streamer).status(Response.Status.PARTIAL_CONTENT)
+					.header("Accept-Ranges", "bytes").header(HttpHeaders.CONTENT_LENGTH, streamer.getLength())
+					.type(streamer.getContentType()).lastModified(modified).cacheControl(cacheControl);
+			if (etag != null) {
+				out.tag(etag);
+			}
+			return out.build();
 		}
-		final String responseRange = String.format("bytes %d-%d/%d", from, to, file.length());
-		// LOGGER.info("responseRange: {}", responseRange);
+		final ByteRange part = ranges.get(0);
+		// LOGGER.info("responseRange: {}", part.toContentRange(size));
 		try {
-			final RandomAccessFile raf = new RandomAccessFile(file, "r");
-			raf.seek(from);
-
-			final long len = to - from + 1;
-			final MediaStreamer streamer = new MediaStreamer(len, raf);
+			final MediaStreamer streamer = new MediaStreamer(file, part.from(), part.length());
 			final Response.ResponseBuilder out = Response.ok(streamer).status(Response.Status.PARTIAL_CONTENT)
-					.header("Accept-Ranges", "bytes").header("Content-Range", responseRange)
-					.header(HttpHeaders.CONTENT_LENGTH, streamer.getLenth())
-					.header(HttpHeaders.LAST_MODIFIED, new Date(file.lastModified()));
+					.header("Accept-Ranges", "bytes").header("Content-Range", part.toContentRange(size))
+					.header(HttpHeaders.CONTENT_LENGTH, streamer.getLenth()).lastModified(modified)
+					.cacheControl(cacheControl);
+			if (etag != null) {
+				out.tag(etag);
+			}
 			if (mimeType != null) {
 				out.type(mimeType);
 			}
 			return out.build();
-		} catch (final FileNotFoundException ex) {
-			throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to find the required file.", ex);
 		} catch (final IOException ex) {
 			throw new FailException(Response.Status.INTERNAL_SERVER_ERROR, "Fail to access to the required file.", ex);
 		}
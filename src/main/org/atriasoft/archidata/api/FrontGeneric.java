@@ -1,8 +1,11 @@
 package org.atriasoft.archidata.api;
 
 import java.io.File;
+import java.util.Date;
 import java.util.List;
+import java.util.regex.Pattern;
 
+import org.atriasoft.archidata.tools.HttpCacheTools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,7 +17,10 @@ import jakarta.ws.rs.NotSupportedException;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.PathSegment;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.ResponseBuilder;
 
@@ -22,12 +28,29 @@ import jakarta.ws.rs.core.Response.ResponseBuilder;
  * JAX-RS resource that serves static front-end files (HTML, JS, CSS, images, etc.) from a configurable folder.
  *
  * <p>Subclass this resource and set {@link #baseFrontFolder} to point to your front-end build output directory.</p>
+ *
+ * <p>The files are sent with an ETag (size and modification time) and a Last-Modified, and the conditional requests
+ * are answered 304. The cache policy depends on the file, see {@link #getCacheControl(String, String)}.</p>
  */
 public class FrontGeneric {
 	private static final Logger LOGGER = LoggerFactory.getLogger(FrontGeneric.class);
 
 	/** Base directory path from which front-end static files are served. */
 	protected String baseFrontFolder = "/data/front";
+	/** Cache duration (seconds) of the files that are neither HTML pages nor hashed bundles. */
+	protected int defaultMaxAge = 60;
+	/**
+	 * File names of the bundles holding a hash of their content, served as immutable: a lowercase hexadecimal
+	 * fingerprint of 8 characters or more ({@code main.3f2a9b1c.js}) or an uppercase one of 8 characters
+	 * ({@code chunk-5XK3UQ2D.css}), both with letters and digits. Names like {@code img-background2.png} do not
+	 * match; a subclass whose bundler uses another fingerprint sets its own pattern.
+	 */
+	protected Pattern hashedBundlePattern = Pattern.compile("^.+[.-]((?=[0-9a-f]*[0-9])(?=[0-9a-f]*[a-f])[0-9a-f]{8,}"
+			+ "|(?=[A-Z0-9]*[0-9])(?=[A-Z0-9]*[A-Z])[A-Z0-9]{8})\\.(js|css|json|png|jpe?g|gif|svg|webp|ico)$");
+
+	/** The current request (conditional headers). */
+	@Context
+	protected Request request;
 
 	private String getExtension(final String filename) {
 		if (filename.contains(".")) {
@@ -88,18 +111,46 @@ public class FrontGeneric {
 		if (!download.exists()) {
 			throw new NotFoundException("Not Found: '" + fileName + "' extension='" + extention + "'");
 		}
+		final CacheControl cc = getCacheControl(filePathName, mineType);
+		final EntityTag etag = HttpCacheTools.fileTag(download);
+		final Date lastModified = HttpCacheTools.toHttpDate(new Date(download.lastModified()));
+		final ResponseBuilder notModified = HttpCacheTools.evaluatePreconditions(this.request, lastModified, etag);
+		if (notModified != null) {
+			return notModified.cacheControl(cc).build();
+		}
 		final ResponseBuilder response = Response.ok(download);
 		// use this if I want to download the file:
 		// response.header("Content-Disposition", "attachment; filename=" + fileName);
-		final CacheControl cc = new CacheControl();
-		cc.setMaxAge(60);
-		cc.setNoCache(false);
 		response.cacheControl(cc);
+		response.tag(etag);
+		response.lastModified(lastModified);
 		response.type(mineType);
 
 		return response.build();
 	}
 
+	/**
+	 * Returns the cache policy of a file:
+	 * <ul>
+	 * <li>the HTML pages are revalidated at each use ({@code no-cache}), so a new deployment is seen at once;</li>
+	 * <li>the hashed bundles ({@link #hashedBundlePattern}) never change: {@code max-age} of one year and
+	 * {@code immutable};</li>
+	 * <li>the other files are kept {@link #defaultMaxAge} seconds.</li>
+	 * </ul>
+	 * @param filePathName The path of the served file.
+	 * @param mimeType The MIME type of the served file.
+	 * @return The Cache-Control of the response.
+	 */
+	protected CacheControl getCacheControl(final String filePathName, final String mimeType) {
+		if ("text/html".equals(mimeType)) {
+			return HttpCacheTools.revalidate();
+		}
+		if (this.hashedBundlePattern.matcher(new File(filePathName).getName()).matches()) {
+			return HttpCacheTools.immutable();
+		}
+		return HttpCacheTools.maxAge(this.defaultMaxAge);
+	}
+
 	/**
 	 * Serves the index.html page for root GET requests.
 	 * @return A response containing the index.html file.
@@ -1,8 +1,13 @@
 package org.atriasoft.archidata.api;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,58 +17,143 @@ import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.StreamingOutput;
 
 /**
- * {@link StreamingOutput} implementation that streams a range of bytes from a {@link RandomAccessFile}.
+ * {@link StreamingOutput} implementation that streams a range of bytes of a file through its {@link FileChannel}.
  *
- * <p>Used by {@link DataResource} to serve partial content (HTTP 206) responses for media streaming.</p>
+ * <p>Used by {@link DataResource} to serve the full (HTTP 200) and partial content (HTTP 206) responses for media
+ * streaming. The bytes are copied with positional reads through small buffers shared by all the streams, instead of
+ * one large buffer per response. Created from a {@link File}, the streamer only opens it when the body is written:
+ * a response never written (HEAD request, error before the body) holds no file descriptor.</p>
  */
 public class MediaStreamer implements StreamingOutput {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MediaStreamer.class);
-	private final int CHUNK_SIZE = 1024 * 1024; // 1MB chunks
-	final byte[] buf = new byte[this.CHUNK_SIZE];
+	/** Size of the copy buffers. */
+	private static final int CHUNK_SIZE = 64 * 1024;
+	/** Maximum number of idle buffers kept in the pool (4 MiB). */
+	private static final int POOL_SIZE = 64;
+	private static final ArrayBlockingQueue<ByteBuffer> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+	private final File file;
+	private FileChannel channel;
+	private long position;
 	private long length;
-	private final RandomAccessFile raf;
 
 	/**
 	 * Creates a new media streamer for the given byte range.
+	 * @param channel The channel of the file (closed at the end of the stream).
+	 * @param position The position of the first byte to stream.
 	 * @param length The number of bytes to stream.
-	 * @param raf The random access file positioned at the start of the range.
-	 * @throws IOException If the specified length is negative.
+	 * @throws IOException If the specified position or length is negative.
 	 */
-	public MediaStreamer(final long length, final RandomAccessFile raf) throws IOException {
-		// logger.info("request stream of {} data", length / 1024);
+	public MediaStreamer(final FileChannel channel, final long position, final long length) throws IOException {
+		this(null, channel, position, length);
+	}
+
+	/**
+	 * Creates a new media streamer for the given byte range of a file, opened when the body is written.
+	 * @param file The file to stream.
+	 * @param position The position of the first byte to stream.
+	 * @param length The number of bytes to stream.
+	 * @throws IOException If the specified position or length is negative.
+	 */
+	public MediaStreamer(final File file, final long position, final long length) throws IOException {
+		this(file, null, position, length);
+	}
+
+	private MediaStreamer(final File file, final FileChannel channel, final long position, final long length)
+			throws IOException {
 		if (length < 0) {
 			throw new IOException("Wrong size of the file to stream: " + length);
 		}
+		if (position < 0) {
+			throw new IOException("Wrong position in the file to stream: " + position);
+		}
+		this.file = file;
+		this.channel = channel;
+		this.position = position;
 		this.length = length;
-		this.raf = raf;
+	}
+
+	/**
+	 * Creates a new media streamer for the given byte range.
+	 * @param length The number of bytes to stream.
+	 * @param raf The random access file positioned at the start of the range.
+	 * @throws IOException If the specified length is negative.
+	 */
+	public MediaStreamer(final long length, final RandomAccessFile raf) throws IOException {
+		this(raf.getChannel(), raf.getFilePointer(), length);
+	}
+
+	private static ByteBuffer acquireBuffer() {
+		final ByteBuffer buffer = POOL.poll();
+		if (buffer != null) {
+			return buffer;
+		}
+		return ByteBuffer.allocate(CHUNK_SIZE);
+	}
+
+	private static void releaseBuffer(final ByteBuffer buffer) {
+		buffer.clear();
+		POOL.offer(buffer);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void write(final OutputStream outputStream) {
+		stream(outputStream);
+	}
+
+	/**
+	 * Writes the range to the output, as {@link #write(OutputStream)}, and tells whether the client is still
+	 * connected: the parts of a multipart body are not sent to a closed connection.
+	 * @param outputStream The output of the response.
+	 * @return {@code false} if the client closed the connection before the end of the range.
+	 */
+	public boolean stream(final OutputStream outputStream) {
+		try {
+			if (this.channel == null) {
+				this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ);
+			}
+			return copy(outputStream);
+		} catch (final IOException ex) {
+			throw new InternalServerErrorException(ex);
+		} catch (final WebApplicationException ex) {
+			throw new InternalServerErrorException(ex);
+		} finally {
+			if (this.channel != null) {
+				try {
+					this.channel.close();
+				} catch (final IOException ex) {
+					LOGGER.error("Failed to close FileChannel: {}", ex.getMessage(), ex);
+					throw new InternalServerErrorException(ex);
+				}
+			}
+		}
+	}
+
+	/** Copies the range through a pooled buffer, with positional reads of the channel (false on disconnect). */
+	private boolean copy(final OutputStream outputStream) throws IOException {
+		final ByteBuffer buffer = acquireBuffer();
 		try {
 			while (this.length != 0) {
-				final int read = this.raf.read(this.buf, 0,
-						this.buf.length > this.length ? (int) this.length : this.buf.length);
+				buffer.clear();
+				if (buffer.capacity() > this.length) {
+					buffer.limit((int) this.length);
+				}
+				final int read = this.channel.read(buffer, this.position);
+				if (read < 0) {
+					throw new IOException("File truncated while streaming: " + this.length + " bytes missing");
+				}
 				try {
-					outputStream.write(this.buf, 0, read);
+					outputStream.write(buffer.array(), 0, read);
 				} catch (final IOException ex) {
 					LOGGER.info("remote close connection");
-					break;
+					return false;
 				}
+				this.position += read;
 				this.length -= read;
 			}
-		} catch (final IOException ex) {
-			throw new InternalServerErrorException(ex);
-		} catch (final WebApplicationException ex) {
-			throw new InternalServerErrorException(ex);
+			return true;
 		} finally {
-			try {
-				this.raf.close();
-			} catch (final IOException ex) {
-				LOGGER.error("Failed to close RandomAccessFile: {}", ex.getMessage(), ex);
-				throw new InternalServerErrorException(ex);
-			}
+			releaseBuffer(buffer);
 		}
 	}
 
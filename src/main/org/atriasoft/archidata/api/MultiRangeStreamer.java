@@ -0,0 +1,98 @@
+package org.atriasoft.archidata.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.atriasoft.archidata.tools.HttpRangeTools.ByteRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.ws.rs.InternalServerErrorException;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * {@link StreamingOutput} implementation that streams several byte ranges of a file as a
+ * {@code multipart/byteranges} body (RFC 7233), each part being sent by a {@link MediaStreamer}.
+ */
+public class MultiRangeStreamer implements StreamingOutput {
+	private static final Logger LOGGER = LoggerFactory.getLogger(MultiRangeStreamer.class);
+	private final File file;
+	private final List<ByteRange> ranges;
+	private final String boundary;
+	private final List<byte[]> partHeaders = new ArrayList<>();
+	private final byte[] closeDelimiter;
+	private final long length;
+
+	/**
+	 * Creates a new multi-range streamer.
+	 * @param file The file to stream.
+	 * @param ranges The satisfiable ranges of the file, sorted and not overlapping.
+	 * @param mimeType The MIME type of the file (Content-Type of each part).
+	 */
+	public MultiRangeStreamer(final File file, final List<ByteRange> ranges, final String mimeType) {
+		this.file = file;
+		this.ranges = List.copyOf(ranges);
+		this.boundary = UUID.randomUUID().toString().replace("-", "");
+		final long size = file.length();
+		final String type = mimeType == null ? "application/octet-stream" : mimeType;
+		long total = 0;
+		for (final ByteRange range : this.ranges) {
+			final byte[] header = ("\r\n--" + this.boundary + "\r\nContent-Type: " + type + "\r\nContent-Range: "
+					+ range.toContentRange(size) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+			this.partHeaders.add(header);
+			total += header.length + range.length();
+		}
+		this.closeDelimiter = ("\r\n--" + this.boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		this.length = total + this.closeDelimiter.length;
+	}
+
+	/**
+	 * Returns the Content-Type of the response, holding the boundary of the parts.
+	 * @return The {@code multipart/byteranges} media type.
+	 */
+	public String getContentType() {
+		return "multipart/byteranges; boundary=" + this.boundary;
+	}
+
+	/**
+	 * Returns the number of bytes of the body.
+	 * @return The Content-Length of the response.
+	 */
+	public long getLength() {
+		return this.length;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void write(final OutputStream outputStream) {
+		for (int iii = 0; iii < this.ranges.size(); iii++) {
+			final ByteRange range = this.ranges.get(iii);
+			try {
+				outputStream.write(this.partHeaders.get(iii));
+			} catch (final IOException ex) {
+				LOGGER.info("remote close connection");
+				return;
+			}
+			final MediaStreamer part;
+			try {
+				part = new MediaStreamer(this.file, range.from(), range.length());
+			} catch (final IOException ex) {
+				throw new InternalServerErrorException(ex);
+			}
+			if (!part.stream(outputStream)) {
+				// Client gone: do not open the files of the next parts
+				return;
+			}
+		}
+		try {
+			outputStream.write(this.closeDelimiter);
+		} catch (final IOException ex) {
+			LOGGER.info("remote close connection");
+		}
+	}
+}
@@ -26,6 +26,8 @@ public class DataAccessConnectionContext implements AutoCloseable {
 	private static long created = 0L;
 	private static final ThreadLocal<DBAccessMongo> threadLocalConnection = new ThreadLocal<>();
 	private final boolean isOwner;
+	/** This context enabled the identity map of the connection, and disables it when closed. */
+	private final boolean enabledIdentityMap;
 
 	/**
 	 * Initializes the connection context. If a connection already exists in the
@@ -37,6 +39,21 @@ public class DataAccessConnectionContext implements AutoCloseable {
 	 * @throws DataAccessException if the database access configuration is invalid
 	 */
 	public DataAccessConnectionContext() throws InternalServerErrorException, IOException, DataAccessException {
+		this(false);
+	}
+
+	/**
+	 * Initializes the connection context, optionally enabling the first-level entity cache of the connection
+	 * (see {@link DBAccessMongo#enableIdentityMap()}). The cache lives as long as the context that enabled it:
+	 * it is dropped when this context is closed, unless an enclosing context already enabled it.
+	 *
+	 * @param identityMap true to enable the identity map of the connection
+	 * @throws InternalServerErrorException if the database interface creation fails internally
+	 * @throws IOException if an I/O error occurs during connection creation
+	 * @throws DataAccessException if the database access configuration is invalid
+	 */
+	public DataAccessConnectionContext(final boolean identityMap)
+			throws InternalServerErrorException, IOException, DataAccessException {
 		if (threadLocalConnection.get() == null) {
 			final DBAccessMongo db = DBAccessMongo.createInterface();
 			threadLocalConnection.set(db);
@@ -45,6 +62,11 @@ public class DataAccessConnectionContext implements AutoCloseable {
 		} else {
 			this.isOwner = false;
 		}
+		final DBAccessMongo db = threadLocalConnection.get();
+		this.enabledIdentityMap = identityMap && db.getIdentityMap() == null;
+		if (this.enabledIdentityMap) {
+			db.enableIdentityMap();
+		}
 		created++;
 	}
 
@@ -79,22 +101,29 @@ public class DataAccessConnectionContext implements AutoCloseable {
 	}
 
 	/**
-	 * Closes the {@link DBAccessMongo} connection if this context is the owner.
+	 * Closes the {@link DBAccessMongo} connection if this context is the owner, and disables the identity map
+	 * this context enabled.
 	 *
 	 * @throws IOException if closing the connection fails
 	 */
 	@Override
 	public void close() throws IOException {
-		if (this.isOwner) {
-			final DBAccessMongo db = threadLocalConnection.get();
-			if (db != null) {
-				try {
-					db.close();
-					//System.out.println("connection the DB: real=" + createdReal + " requested=" + created);
-				} finally {
-					threadLocalConnection.remove();
-				}
+		final DBAccessMongo db = threadLocalConnection.get();
+		if (db == null) {
+			return;
+		}
+		if (!this.isOwner) {
+			if (this.enabledIdentityMap) {
+				db.disableIdentityMap();
 			}
+			return;
+		}
+		try {
+			db.disableIdentityMap();
+			db.close();
+			//System.out.println("connection the DB: real=" + createdReal + " requested=" + created);
+		} finally {
+			threadLocalConnection.remove();
 		}
 	}
 
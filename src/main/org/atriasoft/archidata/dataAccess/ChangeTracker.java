@@ -0,0 +1,154 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.model.DbFieldAction;
+import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Keeps the values read from the database for entities loaded with
+ * {@link org.atriasoft.archidata.dataAccess.options.TrackChanges}.
+ *
+ * <p>Snapshots are stored per entity instance (identity, not {@code equals}) and per
+ * {@link DbPropertyDescriptor}, as BSON values so they can be compared with the values the update would write.
+ * Entities are weakly referenced: a snapshot disappears with its entity.
+ */
+public final class ChangeTracker {
+	private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+	private static final Map<IdentityKey, Map<DbPropertyDescriptor, BsonValue>> SNAPSHOTS = new HashMap<>();
+
+	private ChangeTracker() {
+		// Utility class
+	}
+
+	/** Weak reference compared by identity of its referent. */
+	private static final class IdentityKey extends WeakReference<Object> {
+		private final int hash;
+
+		IdentityKey(final Object referent, final ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.hash = System.identityHashCode(referent);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof final IdentityKey other)) {
+				return false;
+			}
+			final Object referent = get();
+			return referent != null && referent == other.get();
+		}
+	}
+
+	/**
+	 * Records the values of the fields read from a document for an entity.
+	 *
+	 * @param entity   The entity created from the document
+	 * @param model    The class model of the entity
+	 * @param doc      The document read from the database
+	 * @param options  Query options used for the read (field renaming, read all columns)
+	 * @param registry Codec registry used to convert the values to BSON
+	 */
+	public static void snapshot(
+			final Object entity,
+			final DbClassModel model,
+			final Document doc,
+			final QueryOptions options,
+			final CodecRegistry registry) {
+		final boolean readAllfields = QueryOptions.readAllColumn(options);
+		final BsonDocument bson = doc.toBsonDocument(BsonDocument.class, registry);
+		final Map<DbPropertyDescriptor, BsonValue> values = new HashMap<>();
+		for (final DbPropertyDescriptor desc : model.getAllFields()) {
+			if (!readAllfields && desc.isNotRead()) {
+				continue;
+			}
+			if (desc.getAction() == DbFieldAction.ADDON ? !desc.canRetrieve() : desc.getCodec() == null) {
+				continue;
+			}
+			// A field read but missing in the document is null in the database
+			values.put(desc, bson.get(desc.getFieldName(options).inTable()));
+		}
+		synchronized (SNAPSHOTS) {
+			expungeStaleEntries();
+			SNAPSHOTS.put(new IdentityKey(entity, QUEUE), values);
+		}
+	}
+
+	/**
+	 * Returns the snapshot of an entity.
+	 *
+	 * @param entity The entity
+	 * @return The values read per field (null value for a missing field), or null if the entity is not tracked
+	 */
+	public static Map<DbPropertyDescriptor, BsonValue> get(final Object entity) {
+		synchronized (SNAPSHOTS) {
+			expungeStaleEntries();
+			return SNAPSHOTS.get(new IdentityKey(entity, null));
+		}
+	}
+
+	/**
+	 * Replaces the snapshot values of the fields written by an update.
+	 *
+	 * @param entity  The tracked entity
+	 * @param written The values written per field (null value for an unset field)
+	 */
+	public static void refresh(final Object entity, final Map<DbPropertyDescriptor, BsonValue> written) {
+		synchronized (SNAPSHOTS) {
+			final Map<DbPropertyDescriptor, BsonValue> values = SNAPSHOTS.get(new IdentityKey(entity, null));
+			if (values != null) {
+				values.putAll(written);
+			}
+		}
+	}
+
+	/**
+	 * Stops tracking an entity.
+	 *
+	 * @param entity The entity
+	 */
+	public static void forget(final Object entity) {
+		synchronized (SNAPSHOTS) {
+			SNAPSHOTS.remove(new IdentityKey(entity, null));
+		}
+	}
+
+	/**
+	 * Converts the value written for a field to BSON, to compare it with a snapshot.
+	 *
+	 * @param docSet    The document the value has been written in
+	 * @param fieldName The database field name
+	 * @param registry  Codec registry used to convert the value
+	 * @return The BSON value, or null if the field has not been set
+	 */
+	public static BsonValue encode(final Document docSet, final String fieldName, final CodecRegistry registry) {
+		if (!docSet.containsKey(fieldName)) {
+			return null;
+		}
+		return new Document(fieldName, docSet.get(fieldName)).toBsonDocument(BsonDocument.class, registry)
+				.get(fieldName);
+	}
+
+	private static void expungeStaleEntries() {
+		Object ref;
+		while ((ref = QUEUE.poll()) != null) {
+			SNAPSHOTS.remove(ref);
+		}
+	}
+}
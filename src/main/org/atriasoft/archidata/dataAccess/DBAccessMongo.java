@@ -9,9 +9,27 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import org.atriasoft.archidata.annotation.AnnotationTools;
 import org.atriasoft.archidata.annotation.AnnotationTools.FieldName;
@@ -24,27 +42,42 @@ import org.atriasoft.archidata.dataAccess.addOn.AddOnManyToManyDoc;
 import org.atriasoft.archidata.dataAccess.addOn.AddOnManyToOneDoc;
 import org.atriasoft.archidata.dataAccess.addOn.AddOnOneToManyDoc;
 import org.atriasoft.archidata.dataAccess.addOn.DataAccessAddOn;
+import org.atriasoft.archidata.dataAccess.model.AddOnFieldContext;
 import org.atriasoft.archidata.dataAccess.model.DbClassModel;
 import org.atriasoft.archidata.dataAccess.model.DbFieldAction;
 import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.atriasoft.archidata.dataAccess.model.codec.EntityCodec;
 import org.atriasoft.archidata.dataAccess.model.codec.MongoCodecFactory;
 import org.atriasoft.archidata.dataAccess.model.codec.MongoFieldCodec;
 import org.atriasoft.archidata.dataAccess.model.codec.MongoTypeReader;
+import org.atriasoft.archidata.dataAccess.mongo.LinkOperationBuffer;
+import org.atriasoft.archidata.dataAccess.mongo.MongoLinkManager;
 import org.atriasoft.archidata.dataAccess.options.AccessDeletedItems;
+import org.atriasoft.archidata.dataAccess.options.AllowDiskUse;
+import org.atriasoft.archidata.dataAccess.options.BatchSize;
 import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.CountMode;
 import org.atriasoft.archidata.dataAccess.options.DirectData;
 import org.atriasoft.archidata.dataAccess.options.DirectPrimaryKey;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
 import org.atriasoft.archidata.dataAccess.options.FilterOmit;
 import org.atriasoft.archidata.dataAccess.options.FilterValue;
 import org.atriasoft.archidata.dataAccess.options.ForceHardDelete;
-import org.atriasoft.archidata.dataAccess.options.ForceReadOnlyField;
+import org.atriasoft.archidata.dataAccess.options.JoinStrategy;
 import org.atriasoft.archidata.dataAccess.options.Limit;
+import org.atriasoft.archidata.dataAccess.options.NoReadBack;
+import org.atriasoft.archidata.dataAccess.options.Offset;
+import org.atriasoft.archidata.dataAccess.options.OptionRenameColumn;
 import org.atriasoft.archidata.dataAccess.options.OptionSpecifyType;
 import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.OrderItem;
 import org.atriasoft.archidata.dataAccess.options.OverrideTableName;
+import org.atriasoft.archidata.dataAccess.options.PageAfter;
 import org.atriasoft.archidata.dataAccess.options.QueryOption;
 import org.atriasoft.archidata.dataAccess.options.ReadAllColumn;
+import org.atriasoft.archidata.dataAccess.options.TrackChanges;
 import org.atriasoft.archidata.dataAccess.options.TransmitKey;
+import org.atriasoft.archidata.dataAccess.options.UseCache;
 import org.atriasoft.archidata.db.DbConfig;
 import org.atriasoft.archidata.db.DbIo;
 import org.atriasoft.archidata.db.DbIoFactory;
@@ -52,23 +85,44 @@ import org.atriasoft.archidata.db.DbIoMongo;
 import org.atriasoft.archidata.exception.DataAccessException;
 import org.atriasoft.archidata.tools.TypeUtils;
 import org.atriasoft.archidata.tools.UuidUtils;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
 import org.bson.json.JsonWriterSettings;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
@@ -85,49 +139,79 @@ public class DBAccessMongo implements Closeable {
 
 	/**
 	 * Tracks MongoDB operation statistics for monitoring and debugging purposes.
+	 *
+	 * <p>The counters are atomic: they are updated by all the request threads and by the relationship loaders.</p>
 	 */
 	public static class MongoDbStatistic {
 		/** Creates a new MongoDbStatistic with all counters initialized to zero. */
 		public MongoDbStatistic() {}
 
 		/** Number of countDocuments operations executed. */
-		public long countCountDocuments = 0L;
+		public final AtomicLong countCountDocuments = new AtomicLong();
+		/** Number of estimatedDocumentCount operations executed. */
+		public final AtomicLong countEstimatedDocumentCount = new AtomicLong();
 		/** Number of deleteMany operations executed. */
-		public long countDeleteMany = 0L;
+		public final AtomicLong countDeleteMany = new AtomicLong();
 		/** Number of drop operations executed. */
-		public long countDrop = 0L;
+		public final AtomicLong countDrop = new AtomicLong();
 		/** Number of find operations executed. */
-		public long countFind = 0L;
+		public final AtomicLong countFind = new AtomicLong();
+		/** Number of aggregate operations executed. */
+		public final AtomicLong countAggregate = new AtomicLong();
 		/** Number of findOneAndUpdate operations executed. */
-		public long countFindOneAndUpdate = 0L;
+		public final AtomicLong countFindOneAndUpdate = new AtomicLong();
 		/** Number of insertOne operations executed. */
-		public long countInsertOne = 0L;
+		public final AtomicLong countInsertOne = new AtomicLong();
+		/** Number of insertMany operations executed. */
+		public final AtomicLong countInsertMany = new AtomicLong();
+		/** Number of bulkWrite operations executed. */
+		public final AtomicLong countBulkWrite = new AtomicLong();
 		/** Number of updateMany operations executed. */
-		public long countUpdateMany = 0L;
+		public final AtomicLong countUpdateMany = new AtomicLong();
 		/** Number of runCommand operations executed. */
-		public long countRunCommand = 0L;
+		public final AtomicLong countRunCommand = new AtomicLong();
+		/** Number of entities served by an {@link IdentityMap} instead of a request. */
+		public final AtomicLong countIdentityMapHit = new AtomicLong();
+		/** Number of documents served by an {@link EntityCache} instead of a request. */
+		public final AtomicLong countEntityCacheHit = new AtomicLong();
+		/** Number of gets and counts served by the {@link QueryCache} instead of a request. */
+		public final AtomicLong countQueryCacheHit = new AtomicLong();
 
 		/** Logs all accumulated statistics at INFO level. */
 		public void display() {
 			LOGGER.info("""
 					statistic on access on DB:
 					    - insertOne        = {}
+					    - insertMany       = {}
 					    - updateMany       = {}
+					    - bulkWrite        = {}
 					    - find             = {}
+					    - aggregate        = {}
 					    - findOneAndUpdate = {}
 					    - countDocuments   = {}
+					    - estimatedCount   = {}
 					    - deleteMany       = {}
 					    - drop             = {}
 					    - runCommand       = {}
+					    - identityMapHit   = {}
+					    - entityCacheHit   = {}
+					    - queryCacheHit    = {}
 					""", //
-					String.format("%10d", this.countInsertOne), //
-					String.format("%10d", this.countUpdateMany), //
-					String.format("%10d", this.countFind), //
-					String.format("%10d", this.countFindOneAndUpdate), //
-					String.format("%10d", this.countCountDocuments), //
-					String.format("%10d", this.countDeleteMany), //
-					String.format("%10d", this.countDrop), //
-					String.format("%10d", this.countRunCommand)); //
+					String.format("%10d", this.countInsertOne.get()), //
+					String.format("%10d", this.countInsertMany.get()), //
+					String.format("%10d", this.countUpdateMany.get()), //
+					String.format("%10d", this.countBulkWrite.get()), //
+					String.format("%10d", this.countFind.get()), //
+					String.format("%10d", this.countAggregate.get()), //
+					String.format("%10d", this.countFindOneAndUpdate.get()), //
+					String.format("%10d", this.countCountDocuments.get()), //
+					String.format("%10d", this.countEstimatedDocumentCount.get()), //
+					String.format("%10d", this.countDeleteMany.get()), //
+					String.format("%10d", this.countDrop.get()), //
+					String.format("%10d", this.countRunCommand.get()), //
+					String.format("%10d", this.countIdentityMapHit.get()), //
+					String.format("%10d", this.countEntityCacheHit.get()), //
+					String.format("%10d", this.countQueryCacheHit.get())); //
 		}
 	};
 
@@ -213,6 +297,14 @@ public class DBAccessMongo implements Closeable {
 
 	private final DbIoMongo db;
 	private ClientSession session = null;
+	/** Collections written in the current transaction, invalidated again once it is committed or aborted. */
+	private final Set<String> transactionWrites = new LinkedHashSet<>();
+	/** Link operations of the current write (see {@link #runWriteActions(List)}). */
+	private LinkOperationBuffer linkBuffer = null;
+	/** Entities to delete in cascade, collected per target entity by {@link #actionOnDelete}. */
+	private Map<Class<?>, Set<Object>> cascadeDeletes = null;
+	/** First-level cache of the connection (null when disabled). */
+	private IdentityMap identityMap = null;
 
 	/**
 	 * Constructs a new DBAccessMongo instance with the specified MongoDB I/O interface.
@@ -252,6 +344,7 @@ public class DBAccessMongo implements Closeable {
 			} finally {
 				this.session.close();
 				this.session = null;
+				invalidateTransactionWrites();
 			}
 		}
 		this.db.close();
@@ -306,6 +399,7 @@ public class DBAccessMongo implements Closeable {
 		} finally {
 			this.session.close();
 			this.session = null;
+			invalidateTransactionWrites();
 		}
 	}
 
@@ -324,6 +418,19 @@ public class DBAccessMongo implements Closeable {
 		} finally {
 			this.session.close();
 			this.session = null;
+			invalidateTransactionWrites();
+		}
+	}
+
+	/**
+	 * Drops again the cached entities of the collections written in the transaction: until the commit, the other
+	 * connections of the node read (and may cache) the documents as they were before the transaction.
+	 */
+	private void invalidateTransactionWrites() {
+		final List<String> collectionNames = new ArrayList<>(this.transactionWrites);
+		this.transactionWrites.clear();
+		for (final String collectionName : collectionNames) {
+			invalidateCaches(collectionName);
 		}
 	}
 
@@ -350,6 +457,64 @@ public class DBAccessMongo implements Closeable {
 		return this.session != null;
 	}
 
+	/**
+	 * Enables the first-level cache of this connection: the entities read by primary key (directly or as
+	 * relationships) are kept until the connection is closed, and served without request. See
+	 * {@link IdentityMap}.
+	 *
+	 * <p>Does nothing if the cache is already enabled.
+	 */
+	public void enableIdentityMap() {
+		if (this.identityMap == null) {
+			this.identityMap = new IdentityMap();
+		}
+	}
+
+	/** Disables the first-level cache of this connection and drops its entries. */
+	public void disableIdentityMap() {
+		this.identityMap = null;
+	}
+
+	/**
+	 * Returns the first-level cache of this connection.
+	 *
+	 * @return The identity map, or null when disabled
+	 */
+	public IdentityMap getIdentityMap() {
+		return this.identityMap;
+	}
+
+	/**
+	 * Returns the name of the database of this connection, the scope of the shared caches.
+	 *
+	 * @return The database name
+	 */
+	private String getDatabaseName() {
+		return this.db.getDatabase().getName();
+	}
+
+	/**
+	 * Drops the cached entities a write to a collection may have made stale, in the {@link IdentityMap} of this
+	 * connection and in the {@link EntityCache} and {@link QueryCache} of the node. Called by every write of this
+	 * connection, and by the link managers writing collections directly, before and after the write: a read
+	 * running between the first call and the write sees the old documents, and the second call drops what it
+	 * cached (or makes its generation stale). Inside a transaction, the collection is invalidated again when the
+	 * transaction is committed or aborted.
+	 *
+	 * @param collectionName The written collection
+	 */
+	public void invalidateCaches(final String collectionName) {
+		if (this.session != null) {
+			this.transactionWrites.add(collectionName);
+		}
+		final IdentityMap map = this.identityMap;
+		if (map != null) {
+			map.invalidate(collectionName);
+		}
+		EntityCache.invalidate(getDatabaseName(), collectionName);
+		QueryCache.invalidate(getDatabaseName(), collectionName);
+	}
+
 	/**
 	 * Generates a query condition for matching an entity by its primary key ID.
 	 *
@@ -413,12 +578,15 @@ public class DBAccessMongo implements Closeable {
 		return Filters.eq(fieldName.inTable(), idKey);
 	}
 
+	/** Default number of documents sent in one {@code insertMany} request. */
+	public static final int DEFAULT_INSERT_BATCH_SIZE = 1000;
+
 	/**
 	 * Inserts multiple entities into the database.
 	 *
 	 * <p>
-	 * Each entity is inserted individually and returned with its generated ID.
-	 * The order of insertion is maintained in the returned list.
+	 * Entities are sent with unordered {@code insertMany} requests (see {@link #insertMultipleKeys}), then read
+	 * back with one grouped query per batch. The order of insertion is maintained in the returned list.
 	 * </p>
 	 *
 	 * <p>
@@ -430,21 +598,202 @@ public class DBAccessMongo implements Closeable {
 	 * ObjectId firstUserId = insertedUsers.get(0).id;
 	 * </pre>
 	 *
-	 * @param <T>     The type of the entities
-	 * @param data    List of entities to insert
-	 * @param options Optional query options (e.g., table selection)
+	 * @param <T>    The type of the entities
+	 * @param data   List of entities to insert
+	 * @param option Optional query options (e.g., table selection, {@link BatchSize})
 	 * @return List of inserted entities with generated IDs
 	 * @throws Exception if insertion operation fails
 	 */
-	public <T> List<T> insertMultiple(final List<T> data, final QueryOption... options) throws Exception {
-		final List<T> out = new ArrayList<>();
-		for (final T elem : data) {
-			final T tmp = insert(elem, options);
-			out.add(tmp);
+	@SuppressWarnings("unchecked")
+	public <T> List<T> insertMultiple(final List<T> data, final QueryOption... option) throws Exception {
+		final List<Object> ids = insertMultipleKeys(data, option);
+		final QueryOptions options = new QueryOptions(option);
+		final QueryOptions readOptions = readBackOptions(options);
+		final int batchSize = BatchSize.getOrDefault(options, DEFAULT_INSERT_BATCH_SIZE);
+		final List<T> out = new ArrayList<>(data.size());
+		int start = 0;
+		while (start < data.size()) {
+			final Class<?> clazz = data.get(start).getClass();
+			final int end = nextBatchEnd(data, start, batchSize);
+			final DbClassModel model = DbClassModel.of(clazz);
+			final DbPropertyDescriptor pkDesc = model.getPrimaryKey();
+			final String pkColumn = pkDesc.getFieldName(options).inTable();
+			final List<Object> batchIds = ids.subList(start, end);
+			final QueryOptions batchOptions = new QueryOptions(readOptions.getAllArray());
+			batchOptions.add(new Condition(Filters.in(pkColumn, batchIds)));
+			final Map<Object, Object> index = new HashMap<>();
+			for (final Object elem : getsRaw(clazz, batchOptions)) {
+				index.put(pkDesc.getProperty().getValue(elem), elem);
+			}
+			for (final Object id : batchIds) {
+				out.add((T) index.get(id));
+			}
+			start = end;
+		}
+		return out;
+	}
+
+	/**
+	 * Inserts multiple entities into the database with bulk requests and returns their primary keys.
+	 *
+	 * <p>
+	 * Documents are built with the same rules as {@link #insert} (primary key generation, timestamps, default
+	 * values, add-on fields) and sent with unordered {@code insertMany} requests of {@link BatchSize} documents
+	 * (default {@value #DEFAULT_INSERT_BATCH_SIZE}). For {@code Long} keys, the sequence is reserved once per
+	 * batch. The link maintenance of the add-on fields is executed once per batch, and no entity is read back.
+	 * </p>
+	 *
+	 * <p>
+	 * When some documents of a batch are rejected (duplicate key...), the others are inserted: their link
+	 * maintenance is executed before the {@link DataAccessException} is thrown, and the following batches are not
+	 * sent. Inside a transaction, the failure aborts the whole transaction instead.
+	 * </p>
+	 *
+	 * <p>
+	 * Example usage:
+	 * </p>
+	 * <pre>
+	 * List&lt;Object&gt; ids = db.insertMultipleKeys(events, new BatchSize(5000));
+	 * </pre>
+	 *
+	 * @param <T>    The type of the entities
+	 * @param data   List of entities to insert
+	 * @param option Optional query options (e.g., table selection, {@link BatchSize})
+	 * @return The generated primary keys, in the same order as {@code data}
+	 * @throws Exception if insertion operation fails
+	 */
+	public <T> List<Object> insertMultipleKeys(final List<T> data, final QueryOption... option) throws Exception {
+		final List<Object> out = new ArrayList<>(data.size());
+		final QueryOptions options = new QueryOptions(option);
+		final int batchSize = BatchSize.getOrDefault(options, DEFAULT_INSERT_BATCH_SIZE);
+		int start = 0;
+		while (start < data.size()) {
+			final int end = nextBatchEnd(data, start, batchSize);
+			out.addAll(insertBatch(data.subList(start, end), options));
+			start = end;
 		}
 		return out;
 	}
 
+	/**
+	 * Computes the end (exclusive) of the batch starting at {@code start}: a batch holds at most
+	 * {@code batchSize} consecutive elements of the same class (they share the same collection).
+	 */
+	private static <T> int nextBatchEnd(final List<T> data, final int start, final int batchSize) {
+		final Class<?> clazz = data.get(start).getClass();
+		int end = start + 1;
+		while (end < data.size() && end - start < batchSize && data.get(end).getClass() == clazz) {
+			end++;
+		}
+		return end;
+	}
+
+	private <T> List<Object> insertBatch(final List<T> batch, final QueryOptions options) throws Exception {
+		final Class<?> clazz = batch.get(0).getClass();
+		final DbClassModel model = DbClassModel.of(clazz);
+		final String collectionName = model.getTableName(options);
+		final List<Object> ids = new ArrayList<>(batch.size());
+		// Indexes of the documents rejected by a partially failed insertMany (the others are inserted)
+		final Set<Integer> rejected = new HashSet<>();
+		MongoBulkWriteException partialFailure = null;
+		try {
+			// Reserve the whole range of Long keys in one counter update
+			PrimitiveIterator.OfLong reservedSequence = null;
+			final DbPropertyDescriptor pkDesc = model.getPrimaryKey();
+			if (pkDesc != null && !options.exist(DirectData.class) && !options.exist(DirectPrimaryKey.class)) {
+				final Class<?> pkType = pkDesc.getProperty().getType();
+				if (pkType == Long.class || pkType == long.class) {
+					final long last = getNextSequenceLongValue(collectionName, pkDesc.getFieldName(options).inTable(),
+							batch.size());
+					reservedSequence = LongStream.rangeClosed(last - batch.size() + 1, last).iterator();
+				}
+			}
+			final List<Document> documents = new ArrayList<>(batch.size());
+			for (final T elem : batch) {
+				final InsertDocument prepared = buildInsertDocument(elem, model, collectionName, options,
+						reservedSequence);
+				ids.add(prepared.uniqueId());
+				documents.add(prepared.docSet());
+			}
+			final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
+			invalidateCaches(collectionName);
+			final InsertManyOptions insertOptions = new InsertManyOptions().ordered(false);
+			statistic.countInsertMany.incrementAndGet();
+			try {
+				if (this.session != null) {
+					collection.insertMany(this.session, documents, insertOptions);
+				} else {
+					collection.insertMany(documents, insertOptions);
+				}
+			} catch (final MongoBulkWriteException ex) {
+				if (this.session != null) {
+					// The transaction is aborted: nothing was inserted
+					throw ex;
+				}
+				partialFailure = ex;
+				for (final BulkWriteError error : ex.getWriteErrors()) {
+					rejected.add(error.getIndex());
+				}
+			} finally {
+				invalidateCaches(collectionName);
+			}
+		} catch (final Exception ex) {
+			LOGGER.error("Fail Mongo request: {} ({})", ex.getMessage(), ex.getClass().getSimpleName(), ex);
+			throw new DataAccessException("Fail to Insert data in DB : " + ex.getMessage(), ex);
+		}
+		// Collect the link maintenance of the whole batch (of its inserted documents) and run it once
+		final List<LazyGetter> asyncActions = new ArrayList<>();
+		for (int iii = 0; iii < batch.size(); iii++) {
+			if (rejected.contains(iii)) {
+				continue;
+			}
+			final T elem = batch.get(iii);
+			for (final DbPropertyDescriptor desc : model.getAsyncInsertFields()) {
+				final Object fieldValue = desc.getProperty().getValue(elem);
+				desc.getAddOn().asyncInsert(this, clazz, ids.get(iii), desc, fieldValue, asyncActions, options);
+			}
+		}
+		if (partialFailure != null) {
+			// The links of the documents inserted before the failure are written before reporting it
+			LOGGER.error("Fail Mongo request: {} ({} of {} documents rejected)", partialFailure.getMessage(),
+					rejected.size(), batch.size(), partialFailure);
+			final DataAccessException error = new DataAccessException(
+					"Fail to Insert data in DB : " + partialFailure.getMessage(), partialFailure);
+			try {
+				runWriteActions(asyncActions);
+			} catch (final Exception ex) {
+				error.addSuppressed(ex);
+			}
+			throw error;
+		}
+		runWriteActions(asyncActions);
+		return ids;
+	}
+
+	/**
+	 * Extracts from the insert options those that must be transmitted to the read-back request.
+	 */
+	private static QueryOptions readBackOptions(final QueryOptions options) {
+		final QueryOptions injectedOptions = new QueryOptions();
+		final List<OverrideTableName> override = options.get(OverrideTableName.class);
+		if (override.size() != 0) {
+			injectedOptions.add(override.get(0));
+		}
+		final List<OptionSpecifyType> typeOptions = options.get(OptionSpecifyType.class);
+		for (final OptionSpecifyType elem : typeOptions) {
+			injectedOptions.add(elem);
+		}
+		final List<ReadAllColumn> readAllColumnOptions = options.get(ReadAllColumn.class);
+		for (final ReadAllColumn elem : readAllColumnOptions) {
+			injectedOptions.add(elem);
+		}
+		final List<AccessDeletedItems> accessDeletedItemsOptions = options.get(AccessDeletedItems.class);
+		for (final AccessDeletedItems elem : accessDeletedItemsOptions) {
+			injectedOptions.add(elem);
+		}
+		return injectedOptions;
+	}
+
 	/**
 	 * Inserts a single entity into the database.
 	 *
@@ -467,36 +816,77 @@ public class DBAccessMongo implements Closeable {
 	 * Timestamp created = insertedUser.createdAt; // Auto-generated timestamp
 	 * </pre>
 	 *
+	 * <p>
+	 * With the {@link NoReadBack} option the entity is not read back: the generated ID, timestamps and
+	 * default values are set on {@code data}, which is returned.
+	 * </p>
+	 *
 	 * @param <T>    The type of the entity
 	 * @param data   Entity to insert
-	 * @param option Optional query options (e.g., table selection, field filtering)
+	 * @param option Optional query options (e.g., table selection, field filtering, NoReadBack)
 	 * @return The inserted entity with generated ID and auto-populated fields
 	 * @throws Exception if insertion operation fails
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T insert(final T data, final QueryOption... option) throws Exception {
-		final Object insertedId = insertPrimaryKey(data, option);
 		final QueryOptions options = new QueryOptions(option);
-		final QueryOptions injectedOptions = new QueryOptions();
-		final List<OverrideTableName> override = options.get(OverrideTableName.class);
-		if (override.size() != 0) {
-			injectedOptions.add(override.get(0));
-		}
-		final List<OptionSpecifyType> typeOptions = options.get(OptionSpecifyType.class);
-		for (final OptionSpecifyType elem : typeOptions) {
-			injectedOptions.add(elem);
-		}
-		final List<ReadAllColumn> readAllColumnOptions = options.get(ReadAllColumn.class);
-		for (final ReadAllColumn elem : readAllColumnOptions) {
-			injectedOptions.add(elem);
-		}
-		final List<AccessDeletedItems> accessDeletedItemsOptions = options.get(AccessDeletedItems.class);
-		for (final AccessDeletedItems elem : accessDeletedItemsOptions) {
-			injectedOptions.add(elem);
+		if (options.exist(NoReadBack.class)) {
+			final DbClassModel model = DbClassModel.of(data.getClass());
+			final InsertDocument inserted = insertDocument(data, model, options);
+			fillFromInsertDocument(data, model, inserted.docSet(), options);
+			return data;
 		}
+		final Object insertedId = insertPrimaryKey(data, option);
+		final QueryOptions injectedOptions = readBackOptions(options);
 		return (T) getById(data.getClass(), insertedId, injectedOptions.getAllArray());
 	}
 
+	/**
+	 * Copies the values generated during the insert (primary key, timestamps, default values) from the
+	 * inserted document into the caller's object.
+	 *
+	 * <p>Fields already set by the caller are kept as-is; add-on fields are not touched. The default values are
+	 * set from their {@code @DefaultValue} (the inserted document holds raw Java values, not BSON ones).
+	 *
+	 * @param data    The inserted entity (updated in place)
+	 * @param model   The class model of the entity
+	 * @param docSet  The document sent to the database
+	 * @param options Query options used for the insert (field renaming)
+	 * @throws Exception if a value cannot be converted back to its Java type
+	 */
+	private void fillFromInsertDocument(
+			final Object data,
+			final DbClassModel model,
+			final Document docSet,
+			final QueryOptions options) throws Exception {
+		for (final DbPropertyDescriptor desc : model.getAllFields()) {
+			final DbFieldAction action = desc.getAction();
+			if (action == DbFieldAction.ADDON) {
+				continue;
+			}
+			final MongoFieldCodec codec = desc.getCodec();
+			if (codec == null || !codec.canSetValue()) {
+				continue;
+			}
+			final String fieldName = desc.getFieldName(options).inTable();
+			if (!docSet.containsKey(fieldName)) {
+				continue;
+			}
+			final boolean generated = action == DbFieldAction.PRIMARY_KEY || action == DbFieldAction.CREATION_TIMESTAMP
+					|| action == DbFieldAction.UPDATE_TIMESTAMP;
+			if (generated) {
+				codec.readFromDoc(docSet, fieldName, data);
+			} else if (desc.getProperty().getValue(data) == null) {
+				final String defVal = desc.getDefaultValue();
+				if (defVal != null) {
+					desc.getProperty().setValue(data, convertDefaultField(defVal, desc.getProperty().getField()));
+				} else {
+					codec.readFromDoc(docSet, fieldName, data);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Updates an entity identified by its ID with the provided data.
 	 *
@@ -507,6 +897,11 @@ public class DBAccessMongo implements Closeable {
 	 * </p>
 	 *
 	 * <p>
+	 * When {@code data} has been read with {@link TrackChanges}, only the fields whose value differs from the
+	 * read are sent, and no request is done when nothing changed (returns 0).
+	 * </p>
+	 *
+	 * <p>
 	 * Example usage with ObjectId:
 	 * </p>
 	 * <pre>
@@ -758,9 +1153,30 @@ public class DBAccessMongo implements Closeable {
 	 * @return The entity with the specified ID or null if not found
 	 * @throws Exception if retrieval operation fails
 	 */
+	@SuppressWarnings("unchecked")
 	public <T, ID_TYPE> T getById(final Class<T> clazz, final ID_TYPE id, final QueryOption... option)
 			throws Exception {
 		final QueryOptions options = new QueryOptions(option);
+		if (id != null && IdentityMap.isCacheable(options)) {
+			final DbClassModel model = DbClassModel.of(clazz);
+			final IdentityMap map = this.identityMap;
+			if (map != null || EntityCache.of(getDatabaseName(), model) != null) {
+				final String collectionName = model.getTableName(options);
+				final FetchPlan plan = FetchPlan.get(options);
+				if (map != null) {
+					final Object cached = map.get(collectionName, id, plan);
+					if (cached != null) {
+						return (T) cached;
+					}
+				}
+				final List<Object> found = getsRawByIds(clazz, List.of(id), options);
+				final T out = found.isEmpty() ? null : (T) found.get(0);
+				if (map != null) {
+					map.put(model, collectionName, id, plan, out);
+				}
+				return out;
+			}
+		}
 		options.add(new Condition(getTableIdCondition(clazz, id, options)));
 		return get(clazz, options.getAllArray());
 	}
@@ -812,6 +1228,11 @@ public class DBAccessMongo implements Closeable {
 	public <ID_TYPE> boolean existsById(final Class<?> clazz, final ID_TYPE id, final QueryOption... option)
 			throws Exception {
 		final QueryOptions options = new QueryOptions(option);
+		final IdentityMap map = this.identityMap;
+		if (map != null && id != null && options.getAll().isEmpty()
+				&& map.contains(DbClassModel.of(clazz).getTableName(options), id)) {
+			return true;
+		}
 		options.add(new Condition(getTableIdCondition(clazz, id, options)));
 		return count(clazz, options) > 0;
 	}
@@ -971,8 +1392,15 @@ public class DBAccessMongo implements Closeable {
 	 */
 	public void renameCollection(final String source, final String destination) {
 		final MongoCollection<Document> previousCollection = this.db.getDatabase().getCollection(source);
-		previousCollection
-				.renameCollection(new com.mongodb.MongoNamespace(this.db.getDatabase().getName(), destination));
+		invalidateCaches(source);
+		invalidateCaches(destination);
+		try {
+			previousCollection
+					.renameCollection(new com.mongodb.MongoNamespace(this.db.getDatabase().getName(), destination));
+		} finally {
+			invalidateCaches(source);
+			invalidateCaches(destination);
+		}
 	}
 
 	/**
@@ -996,6 +1424,11 @@ public class DBAccessMongo implements Closeable {
 	public boolean deleteDatabase(final String name) {
 		final MongoDatabase database = this.db.getClient().getDatabase(name);
 		database.drop();
+		if (this.identityMap != null) {
+			this.identityMap.clear();
+		}
+		EntityCache.invalidateAll(name);
+		QueryCache.invalidateAll(name);
 		return true;
 	}
 
@@ -1039,7 +1472,7 @@ public class DBAccessMongo implements Closeable {
 		final Document command = new Document("collMod", collection)//
 				.append("validator", new Document())//
 				.append("validationLevel", "off");
-		statistic.countRunCommand++;
+		statistic.countRunCommand.incrementAndGet();
 		this.db.getDatabase().runCommand(command);
 	}
 
@@ -1058,7 +1491,7 @@ public class DBAccessMongo implements Closeable {
 		final Document command = new Document("collMod", collection)//
 				.append("validator", schema)//
 				.append("validationLevel", "strict");
-		statistic.countRunCommand++;
+		statistic.countRunCommand.incrementAndGet();
 		this.db.getDatabase().runCommand(command);
 	}
 
@@ -1150,7 +1583,22 @@ public class DBAccessMongo implements Closeable {
 	 * @param fieldName      The field name for the sequence (defaults to "sequence_id" if null or empty)
 	 * @return The next sequence value
 	 */
-	public long getNextSequenceLongValue(final String collectionName, String fieldName) {
+	public long getNextSequenceLongValue(final String collectionName, final String fieldName) {
+		return getNextSequenceLongValue(collectionName, fieldName, 1);
+	}
+
+	/**
+	 * Atomically reserves a range of {@code count} sequence values for generating unique Long IDs.
+	 *
+	 * <p>The reserved range is {@code [returned - count + 1, returned]}; it costs a single counter update
+	 * whatever the size of the range.
+	 *
+	 * @param collectionName The collection name used as the counter key
+	 * @param fieldName      The field name for the sequence (defaults to "sequence_id" if null or empty)
+	 * @param count          The number of values to reserve (must be strictly positive)
+	 * @return The last value of the reserved range
+	 */
+	public long getNextSequenceLongValue(final String collectionName, String fieldName, final long count) {
 		if (fieldName == null || fieldName.isEmpty()) {
 			fieldName = "sequence_id";
 		}
@@ -1160,15 +1608,15 @@ public class DBAccessMongo implements Closeable {
 		// Filter to find the specific counter for the collections
 		final Document filter = new Document("_id", collectionName);
 
-		// Update the field <fieldName> of 1
-		final Document update = new Document("$inc", new Document(fieldName, 1L));
+		// Update the field <fieldName> of count
+		final Document update = new Document("$inc", new Document(fieldName, count));
 
 		// get the value after updated it
 		final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)
 				.upsert(true); // create field if not exist
 
 		// Real creation of the unique counter.
-		statistic.countFindOneAndUpdate++;
+		statistic.countFindOneAndUpdate.incrementAndGet();
 		final Document updatedCounter = this.session != null
 				? countersCollection.findOneAndUpdate(this.session, filter, update, options)
 				: countersCollection.findOneAndUpdate(filter, update, options);
@@ -1225,9 +1673,14 @@ public class DBAccessMongo implements Closeable {
 			}
 
 			final MongoCollection<T> collection = this.db.getDatabase().getCollection(collectionName, (Class<T>) clazz);
-			statistic.countInsertOne++;
-			final InsertOneResult res = this.session != null ? collection.insertOne(this.session, data)
-					: collection.insertOne(data);
+			invalidateCaches(collectionName);
+			statistic.countInsertOne.incrementAndGet();
+			final InsertOneResult res;
+			try {
+				res = this.session != null ? collection.insertOne(this.session, data) : collection.insertOne(data);
+			} finally {
+				invalidateCaches(collectionName);
+			}
 			if (primaryKey != null) {
 				return primaryKey;
 			}
@@ -1251,139 +1704,179 @@ public class DBAccessMongo implements Closeable {
 	 * @return The generated primary key
 	 * @throws Exception if insertion fails
 	 */
-	@SuppressWarnings("unchecked")
 	public <T> Object insertPrimaryKey(final T data, final QueryOption... option) throws Exception {
-		final Class<?> clazz = data.getClass();
 		final QueryOptions options = new QueryOptions(option);
-		final boolean directdata = options.exist(DirectData.class);
-		final boolean directPrimaryKey = options.exist(DirectPrimaryKey.class);
-		final DbClassModel model = DbClassModel.of(clazz);
+		return insertDocument(data, DbClassModel.of(data.getClass()), options).uniqueId();
+	}
 
+	/**
+	 * Inserts an entity with a single {@code insertOne} request and runs its asynchronous link updates.
+	 *
+	 * @param data    The entity to insert
+	 * @param model   The class model of the entity
+	 * @param options Query options (e.g., DirectData, DirectPrimaryKey)
+	 * @return The generated primary key and the document sent to the database
+	 * @throws Exception if insertion fails
+	 */
+	private <T> InsertDocument insertDocument(final T data, final DbClassModel model, final QueryOptions options)
+			throws Exception {
+		final Class<?> clazz = data.getClass();
 		final String collectionName = model.getTableName(options);
-		Object uniqueId = null;
+		final InsertDocument prepared;
 		// real add in the BDD:
 		try {
 			final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-			final Document docSet = new Document();
-			final Document docUnSet = new Document();
+			invalidateCaches(collectionName);
+			prepared = buildInsertDocument(data, model, collectionName, options, null);
+			statistic.countInsertOne.incrementAndGet();
+			try {
+				if (this.session != null) {
+					collection.insertOne(this.session, prepared.docSet());
+				} else {
+					collection.insertOne(prepared.docSet());
+				}
+			} finally {
+				invalidateCaches(collectionName);
+			}
+		} catch (final Exception ex) {
+			LOGGER.error("Fail Mongo request: {} ({})", ex.getMessage(), ex.getClass().getSimpleName(), ex);
+			throw new DataAccessException("Fail to Insert data in DB : " + ex.getMessage(), ex);
+		}
+		final Object uniqueId = prepared.uniqueId();
+		final List<LazyGetter> asyncActions = new ArrayList<>();
+		for (final DbPropertyDescriptor desc : model.getAsyncInsertFields()) {
+			final Object fieldValue = desc.getProperty().getValue(data);
+			desc.getAddOn().asyncInsert(this, clazz, uniqueId, desc, fieldValue, asyncActions, options);
+		}
+		runWriteActions(asyncActions);
+		return prepared;
+	}
 
-			// Iterate all fields in declaration order to preserve Document field ordering
-			for (final DbPropertyDescriptor desc : model.getAllFields()) {
-				final DbFieldAction action = desc.getAction();
-				final FieldName fieldName = desc.getFieldName(options);
-				final PropertyDescriptor prop = desc.getProperty();
-				final Field field = prop.getField();
-
-				switch (action) {
-					case PRIMARY_KEY: {
-						if (!directdata && !directPrimaryKey) {
-							if (prop.getValue(data) != null) {
-								throw new DataAccessException(
-										"Unexpected comportment, try to add an object with a primary key. use option 'DirectPrimaryKey.class' to do that");
-							}
-							final Class<?> pkType = prop.getType();
-							if (pkType == ObjectId.class) {
-								uniqueId = new ObjectId();
-								docSet.append(fieldName.inTable(), uniqueId);
-							} else if (pkType == UUID.class) {
-								uniqueId = UuidUtils.nextUUID();
-								docSet.append(fieldName.inTable(), uniqueId);
-							} else if (pkType == Long.class || pkType == long.class) {
-								final long id = getNextSequenceLongValue(collectionName, fieldName.inTable());
-								uniqueId = id;
-								docSet.append(fieldName.inTable(), id);
-							} else {
-								throw new DataAccessException("TODO: Manage the ID primary key for type: "
-										+ clazz.getCanonicalName() + " => " + pkType);
-							}
+	/** Document ready to be inserted with the primary key generated for it. */
+	private record InsertDocument(
+			Object uniqueId,
+			Document docSet) {}
+
+	/**
+	 * Builds the BSON document to insert for an entity (primary key, timestamps, default values, add-ons).
+	 *
+	 * @param data             The entity to insert
+	 * @param model            The class model of the entity
+	 * @param collectionName   The target collection name
+	 * @param options          Query options (DirectData, DirectPrimaryKey, renames...)
+	 * @param reservedSequence Pre-reserved Long keys to use (null to request one key from the sequence)
+	 * @return The generated key and the document to insert
+	 */
+	private <T> InsertDocument buildInsertDocument(
+			final T data,
+			final DbClassModel model,
+			final String collectionName,
+			final QueryOptions options,
+			final PrimitiveIterator.OfLong reservedSequence) throws Exception {
+		final Class<?> clazz = data.getClass();
+		final boolean directdata = options.exist(DirectData.class);
+		final boolean directPrimaryKey = options.exist(DirectPrimaryKey.class);
+		Object uniqueId = null;
+		final Document docSet = new Document();
+		final Document docUnSet = new Document();
+
+		// Iterate all fields in declaration order to preserve Document field ordering
+		for (final DbPropertyDescriptor desc : model.getAllFields()) {
+			final DbFieldAction action = desc.getAction();
+			final FieldName fieldName = desc.getFieldName(options);
+			final PropertyDescriptor prop = desc.getProperty();
+			final Field field = prop.getField();
+
+			switch (action) {
+				case PRIMARY_KEY: {
+					if (!directdata && !directPrimaryKey) {
+						if (prop.getValue(data) != null) {
+							throw new DataAccessException(
+									"Unexpected comportment, try to add an object with a primary key. use option 'DirectPrimaryKey.class' to do that");
+						}
+						final Class<?> pkType = prop.getType();
+						if (pkType == ObjectId.class) {
+							uniqueId = new ObjectId();
+							docSet.append(fieldName.inTable(), uniqueId);
+						} else if (pkType == UUID.class) {
+							uniqueId = UuidUtils.nextUUID();
+							docSet.append(fieldName.inTable(), uniqueId);
+						} else if (pkType == Long.class || pkType == long.class) {
+							final long id = reservedSequence != null ? reservedSequence.nextLong()
+									: getNextSequenceLongValue(collectionName, fieldName.inTable());
+							uniqueId = id;
+							docSet.append(fieldName.inTable(), id);
 						} else {
-							final Object primaryKeyValue = prop.getValue(data);
-							if (primaryKeyValue == null) {
-								throw new DataAccessException(
-										"Fail to Insert data in DB.. when use 'DirectData.class' or 'DirectPrimaryKey.class' you need to provide a primary key...");
-							}
-							uniqueId = primaryKeyValue;
-							docSet.append(fieldName.inTable(), primaryKeyValue);
+							throw new DataAccessException("TODO: Manage the ID primary key for type: "
+									+ clazz.getCanonicalName() + " => " + pkType);
 						}
-						break;
-					}
-					case CREATION_TIMESTAMP:
-					case UPDATE_TIMESTAMP: {
-						if (!directdata) {
-							docSet.append(fieldName.inTable(), Date.from(Instant.now()));
+					} else {
+						final Object primaryKeyValue = prop.getValue(data);
+						if (primaryKeyValue == null) {
+							throw new DataAccessException(
+									"Fail to Insert data in DB.. when use 'DirectData.class' or 'DirectPrimaryKey.class' you need to provide a primary key...");
 						}
-						break;
+						uniqueId = primaryKeyValue;
+						docSet.append(fieldName.inTable(), primaryKeyValue);
 					}
-					case DELETED: {
-						if (!directdata) {
-							final String defVal = desc.getDefaultValue();
-							if (defVal != null) {
-								final Object defaultValue = convertDefaultField(defVal, field);
-								docSet.append(fieldName.inTable(), defaultValue);
-							}
+					break;
+				}
+				case CREATION_TIMESTAMP:
+				case UPDATE_TIMESTAMP: {
+					if (!directdata) {
+						docSet.append(fieldName.inTable(), Date.from(Instant.now()));
+					}
+					break;
+				}
+				case DELETED: {
+					if (!directdata) {
+						final String defVal = desc.getDefaultValue();
+						if (defVal != null) {
+							final Object defaultValue = convertDefaultField(defVal, field);
+							docSet.append(fieldName.inTable(), defaultValue);
 						}
+					}
+					break;
+				}
+				case ADDON: {
+					if (!desc.canInsert()) {
 						break;
 					}
-					case ADDON: {
-						if (!desc.canInsert()) {
-							break;
-						}
-						desc.getAddOn().insertData(this, desc, data, options, docSet, docUnSet);
+					desc.getAddOn().insertData(this, desc, data, options, docSet, docUnSet);
+					break;
+				}
+				case NOT_READ:
+				case NORMAL:
+				default: {
+					final MongoFieldCodec codec = desc.getCodec();
+					if (codec == null) {
 						break;
 					}
-					case NOT_READ:
-					case NORMAL:
-					default: {
-						final MongoFieldCodec codec = desc.getCodec();
-						if (codec == null) {
-							break;
-						}
-						Object currentInsertValue = prop.getValue(data);
+					Object currentInsertValue = prop.getValue(data);
 
-						if (currentInsertValue == null && field != null && !field.getClass().isPrimitive()) {
-							final String defVal = desc.getDefaultValue();
-							if (defVal == null) {
-								break;
-							}
-							currentInsertValue = convertDefaultField(defVal, field);
+					if (currentInsertValue == null && field != null && !field.getClass().isPrimitive()) {
+						final String defVal = desc.getDefaultValue();
+						if (defVal == null) {
+							break;
 						}
+						currentInsertValue = convertDefaultField(defVal, field);
+					}
 
-						final Class<?> type = prop.getType();
-						if (!type.isPrimitive()) {
-							if (prop.getValue(data) == null) {
-								if (currentInsertValue != null) {
-									docSet.append(fieldName.inTable(), currentInsertValue);
-								}
-								break;
+					final Class<?> type = prop.getType();
+					if (!type.isPrimitive()) {
+						if (prop.getValue(data) == null) {
+							if (currentInsertValue != null) {
+								docSet.append(fieldName.inTable(), currentInsertValue);
 							}
+							break;
 						}
-						codec.writeToDoc(null, fieldName.inTable(), data, docSet, null);
-						break;
 					}
+					codec.writeToDoc(null, fieldName.inTable(), data, docSet, null);
+					break;
 				}
 			}
-
-			statistic.countInsertOne++;
-			final InsertOneResult result = this.session != null ? collection.insertOne(this.session, docSet)
-					: collection.insertOne(docSet);
-		} catch (final Exception ex) {
-			LOGGER.error("Fail Mongo request: {} ({})", ex.getMessage(), ex.getClass().getSimpleName(), ex);
-			throw new DataAccessException("Fail to Insert data in DB : " + ex.getMessage(), ex);
 		}
-		final List<LazyGetter> asyncActions = new ArrayList<>();
-		for (final DbPropertyDescriptor desc : model.getAsyncInsertFields()) {
-			final Object fieldValue = desc.getProperty().getValue(data);
-			desc.getAddOn().asyncInsert(this, clazz, uniqueId, desc, fieldValue, asyncActions, options);
-		}
-		List<LazyGetter> actionsAsync = asyncActions;
-		for (int kkk = 0; kkk < 500 && actionsAsync.size() != 0; kkk++) {
-			final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
-			for (final LazyGetter action : actionsAsync) {
-				action.doRequest(actionsAsyncNew);
-			}
-			actionsAsync = actionsAsyncNew;
-		}
-		return uniqueId;
+		return new InsertDocument(uniqueId, docSet);
 	}
 
 	/**
@@ -1406,272 +1899,1374 @@ public class DBAccessMongo implements Closeable {
 	 * @throws Exception if update operation fails or FilterValue is missing
 	 */
 	public <T> long update(final T data, QueryOptions options) throws Exception {
-		final Class<?> clazz = data.getClass();
 		if (options == null) {
 			options = new QueryOptions();
 		}
-		final boolean directdata = options.exist(DirectData.class);
-		final boolean forceReadOnlyField = options.exist(ForceReadOnlyField.class);
 		final Condition condition = conditionFusionOrEmpty(options, true);
-		final List<FilterValue> filterKeys = options != null ? options.get(FilterValue.class) : new ArrayList<>();
-		if (filterKeys.size() != 1) {
-			throw new DataAccessException("request a gets without/or with more 1 FilterValue of values");
-		}
-		final FilterValue filterKey = filterKeys.get(0);
-		final List<FilterOmit> filterOmitKeys = options != null ? options.get(FilterOmit.class) : new ArrayList<>();
-		FilterOmit filterOmitKey = null;
-		if (filterOmitKeys.size() > 1) {
-			throw new DataAccessException("request a gets without/or with more 1 FilterOmit of values");
-		} else if (filterOmitKeys.size() == 1) {
-			filterOmitKey = filterOmitKeys.get(0);
-		}
+		final PreparedUpdate<?> plan = PreparedUpdate.plan(data.getClass(), options);
+		final List<TransmitKey> transmitKey = options.get(TransmitKey.class);
+		final Object primaryKey = transmitKey.size() == 1 ? transmitKey.get(0).getKey() : null;
+		final Bson filters = condition.getFilter(plan.getCollectionName(), options, plan.getDeletedFieldName());
+		return executeUpdate(data, plan, options, filters, primaryKey);
+	}
 
-		final DbClassModel model = DbClassModel.of(clazz);
-		final List<LazyGetter> asyncActions = new ArrayList<>();
+	/**
+	 * Updates entities matching a filter with a prepared write plan.
+	 *
+	 * @param <T>    The type of the entity
+	 * @param plan   The write plan (fields, collection...)
+	 * @param data   The entity data containing the update values
+	 * @param filter The filter selecting the entities to update (soft-deleted entities are excluded)
+	 * @return Number of entities updated
+	 * @throws Exception if the update fails
+	 */
+	public <T> long update(final PreparedUpdate<T> plan, final T data, final Bson filter) throws Exception {
+		final Bson filters = new Condition(filter).getFilter(plan.getCollectionName(), plan.getOptions(),
+				plan.getDeletedFieldName());
+		return executeUpdate(data, plan, plan.getOptions(), filters, null);
+	}
 
+	/**
+	 * Updates an entity identified by its primary key with a prepared write plan.
+	 *
+	 * @param <T>  The type of the entity
+	 * @param plan The write plan (fields, collection...)
+	 * @param data The entity data containing the update values
+	 * @param id   The primary key of the entity to update
+	 * @return Number of entities updated (0 or 1)
+	 * @throws Exception if the update fails
+	 */
+	public <T> long updateById(final PreparedUpdate<T> plan, final T data, final Object id) throws Exception {
+		final Bson filters = new Condition(getTableIdCondition(plan.getEntityClass(), id, plan.getOptions()))
+				.getFilter(plan.getCollectionName(), plan.getOptions(), plan.getDeletedFieldName());
+		return executeUpdate(data, plan, plan.getOptions(), filters, id);
+	}
+
+	/**
+	 * Executes an update: builds the $set/$unset document from the plan and sends it with {@code updateMany}.
+	 *
+	 * @param data       The entity data containing the update values
+	 * @param plan       The write plan
+	 * @param options    Query options of the request
+	 * @param filters    The filter selecting the entities to update
+	 * @param primaryKey The key of the updated entity (null when updating by condition)
+	 * @return Number of entities updated
+	 * @throws Exception if the update fails
+	 */
+	private <T> long executeUpdate(
+			final T data,
+			final PreparedUpdate<?> plan,
+			final QueryOptions options,
+			final Bson filters,
+			final Object primaryKey) throws Exception {
+		final List<LazyGetter> asyncActions = new ArrayList<>();
 		// Some mode need to get the previous data to perform a correct update...
 		Object previousData = null;
-		if (model.needsPreviousDataForUpdate()) {
-			final List<TransmitKey> transmitKey = options.get(TransmitKey.class);
-			previousData = this.getById(data.getClass(), transmitKey.get(0).getKey(), new AccessDeletedItems(),
-					new ReadAllColumn());
+		if (plan.getModel().needsPreviousDataForUpdate()) {
+			previousData = this.getById(data.getClass(), primaryKey, new AccessDeletedItems(), new ReadAllColumn());
 		}
 
 		// real add in the BDD:
 		try {
-			final String collectionName = model.getTableName(options);
-			final String deletedFieldName = model.getDeletedFieldName();
-			final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
-			final Document docSet = new Document();
-			final Document docUnSet = new Document();
+			final UpdateDocument update = buildUpdateDocument(data, plan, options, primaryKey, previousData,
+					asyncActions);
+			if (update.actions() == null) {
+				// Nothing changed since the read: no write at all
+				runWriteActions(asyncActions);
+				return 0;
+			}
 
-			// --- Handle update timestamp (unconditionally, not subject to filter) ---
-			final DbPropertyDescriptor updateTsDesc = model.getUpdateTimestamp();
-			if (updateTsDesc != null && !directdata) {
-				final FieldName fieldName = updateTsDesc.getFieldName(options);
-				docSet.append(fieldName.inTable(), Date.from(Instant.now()));
+			// Do the query ...
+			final MongoCollection<Document> collection = this.db.getCollection(plan.getCollectionName());
+			invalidateCaches(plan.getCollectionName());
+			statistic.countUpdateMany.incrementAndGet();
+			final UpdateResult ret;
+			try {
+				ret = this.session != null ? collection.updateMany(this.session, filters, update.actions())
+						: collection.updateMany(filters, update.actions());
+			} finally {
+				invalidateCaches(plan.getCollectionName());
+			}
+			if (update.written() != null) {
+				ChangeTracker.refresh(data, update.written());
 			}
+			runWriteActions(asyncActions);
+			return ret.getModifiedCount();
+		} catch (final Exception ex) {
+			LOGGER.error("Error in update: {}", ex.getMessage(), ex);
+			throw ex;
+		}
+	}
 
-			// --- Handle addon fields ---
-			for (final DbPropertyDescriptor desc : model.getAddonFields()) {
-				final FieldName fieldName = desc.getFieldName(options);
-				// Apply filter/omit logic
-				if (filterOmitKey != null && filterOmitKey.getValues().contains(fieldName.inStruct())) {
-					continue;
-				}
-				if (!filterKey.getValues().contains(fieldName.inStruct())) {
-					continue;
+	/** Default number of updates sent in one {@code bulkWrite} request. */
+	public static final int DEFAULT_UPDATE_BATCH_SIZE = 1000;
+
+	/**
+	 * Updates multiple entities, each one identified by its own primary key, with its own values.
+	 *
+	 * <p>
+	 * The updated fields are selected as in {@link #updateById(Object, Object, QueryOption...)} (all editable
+	 * fields by default, or {@link FilterValue}). Updates are sent with unordered {@code bulkWrite} requests of
+	 * {@link BatchSize} entities (default {@value #DEFAULT_UPDATE_BATCH_SIZE}); when link fields need the previous
+	 * values, they are read with one grouped query per batch.
+	 * </p>
+	 *
+	 * <pre>
+	 * List&lt;User&gt; users = db.gets(User.class, new Condition(Filters.eq("team", teamId)));
+	 * users.forEach(user -&gt; user.rank = computeRank(user));
+	 * db.updateMultiple(users, new FilterValue(List.of("rank")));
+	 * </pre>
+	 *
+	 * @param <T>    The type of the entities
+	 * @param data   Entities to update (primary key must be set)
+	 * @param option Optional query options (e.g., FilterValue, OverrideTableName, BatchSize)
+	 * @return Number of entities modified
+	 * @throws Exception if an entity has no primary key or the update fails
+	 */
+	public <T> long updateMultiple(final List<T> data, final QueryOption... option) throws Exception {
+		final QueryOptions options = new QueryOptions(option);
+		final int batchSize = BatchSize.getOrDefault(options, DEFAULT_UPDATE_BATCH_SIZE);
+		long modified = 0;
+		int start = 0;
+		while (start < data.size()) {
+			final int end = nextBatchEnd(data, start, batchSize);
+			modified += updateBatch(data.subList(start, end), options);
+			start = end;
+		}
+		return modified;
+	}
+
+	/**
+	 * Updates a batch of entities of the same class with a single {@code bulkWrite}.
+	 *
+	 * @param batch   Entities of the same class
+	 * @param options Query options
+	 * @return Number of entities modified
+	 * @throws Exception if an entity has no primary key or the update fails
+	 */
+	private <T> long updateBatch(final List<T> batch, final QueryOptions options) throws Exception {
+		final Class<?> clazz = batch.get(0).getClass();
+		final DbClassModel model = DbClassModel.of(clazz);
+		final QueryOptions batchOptions = new QueryOptions(options.getAllArray());
+		// Same default as updateById: update ALL editable fields
+		if (!batchOptions.exist(FilterValue.class)) {
+			batchOptions.add(FilterValue.getEditableFieldsNames(clazz));
+		}
+		final PreparedUpdate<?> plan = PreparedUpdate.plan(clazz, batchOptions);
+		final String collectionName = plan.getCollectionName();
+		final String deletedFieldName = plan.getDeletedFieldName();
+		final PropertyDescriptor pkProperty = model.getPrimaryKey().getProperty();
+		final List<Object> ids = new ArrayList<>(batch.size());
+		for (final T elem : batch) {
+			final Object id = pkProperty.getValue(elem);
+			if (id == null) {
+				throw new DataAccessException("Fail to update multiple: an entity has no primary key");
+			}
+			ids.add(id);
+		}
+		// Previous values needed by the link fields: one grouped read
+		final Map<Object, Object> previousIndex = new HashMap<>();
+		if (model.needsPreviousDataForUpdate()) {
+			final QueryOptions readOptions = readBackOptions(batchOptions);
+			readOptions.add(new Condition(Filters.in(model.getPrimaryKey().getFieldName(batchOptions).inTable(), ids)));
+			readOptions.add(new AccessDeletedItems());
+			readOptions.add(new ReadAllColumn());
+			for (final Object previous : getsRaw(clazz, readOptions)) {
+				previousIndex.put(pkProperty.getValue(previous), previous);
+			}
+		}
+		final List<LazyGetter> asyncActions = new ArrayList<>();
+		final List<WriteModel<Document>> requests = new ArrayList<>(batch.size());
+		final List<T> tracked = new ArrayList<>();
+		final List<Map<DbPropertyDescriptor, BsonValue>> trackedWritten = new ArrayList<>();
+		try {
+			for (int iii = 0; iii < batch.size(); iii++) {
+				final T elem = batch.get(iii);
+				final Object id = ids.get(iii);
+				final UpdateDocument update = buildUpdateDocument(elem, plan, batchOptions, id, previousIndex.get(id),
+						asyncActions);
+				if (update.written() != null) {
+					tracked.add(elem);
+					trackedWritten.add(update.written());
 				}
-				if (!forceReadOnlyField && desc.isApiReadOnly()) {
+				if (update.actions() == null) {
 					continue;
 				}
-				if (desc.isAsyncUpdate()) {
-					final List<TransmitKey> transmitKey = options.get(TransmitKey.class);
-					if (transmitKey.size() != 1) {
-						throw new DataAccessException(
-								"Fail to transmit Key to update the async update... (must have only 1)");
-					}
-					desc.getAddOn().asyncUpdate(this, previousData, transmitKey.get(0).getKey(), desc,
-							desc.getProperty().getValue(data), asyncActions, options);
+				final Bson filter = new Condition(getTableIdCondition(clazz, id, batchOptions))
+						.getFilter(collectionName, batchOptions, deletedFieldName);
+				requests.add(new UpdateOneModel<>(filter, update.actions()));
+			}
+			long modified = 0;
+			if (!requests.isEmpty()) {
+				final MongoCollection<Document> collection = this.db.getCollection(collectionName);
+				invalidateCaches(collectionName);
+				final BulkWriteOptions bulkOptions = new BulkWriteOptions().ordered(false);
+				statistic.countBulkWrite.incrementAndGet();
+				try {
+					final BulkWriteResult ret = this.session != null
+							? collection.bulkWrite(this.session, requests, bulkOptions)
+							: collection.bulkWrite(requests, bulkOptions);
+					modified = ret.getModifiedCount();
+				} finally {
+					invalidateCaches(collectionName);
 				}
-				if (!desc.canInsert()) {
-					continue;
+			}
+			for (int iii = 0; iii < tracked.size(); iii++) {
+				ChangeTracker.refresh(tracked.get(iii), trackedWritten.get(iii));
+			}
+			runWriteActions(asyncActions);
+			return modified;
+		} catch (final Exception ex) {
+			LOGGER.error("Error in updateMultiple: {}", ex.getMessage(), ex);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Update request generated for one entity.
+	 *
+	 * @param actions The $set/$unset document, null when the tracked entity did not change
+	 * @param written The values written per field for a tracked entity, null when the entity is not tracked
+	 */
+	private record UpdateDocument(
+			Document actions,
+			Map<DbPropertyDescriptor, BsonValue> written) {}
+
+	/**
+	 * Builds the $set/$unset document of an entity (fields selected by {@link FilterValue}/{@link FilterOmit},
+	 * update timestamp) and enqueues the asynchronous link updates.
+	 *
+	 * @param data         The entity data containing the update values
+	 * @param plan         The write plan matching the options
+	 * @param options      Query options of the request
+	 * @param primaryKey   The key of the updated entity (null when updating by condition)
+	 * @param previousData The entity before update (when the model needs it), or null
+	 * @param asyncActions Collects the asynchronous link updates
+	 * @return The update request
+	 * @throws Exception if FilterValue is missing or a field cannot be encoded
+	 */
+	private <T> UpdateDocument buildUpdateDocument(
+			final T data,
+			final PreparedUpdate<?> plan,
+			final QueryOptions options,
+			final Object primaryKey,
+			final Object previousData,
+			final List<LazyGetter> asyncActions) throws Exception {
+		final Document docSet = new Document();
+		final Document docUnSet = new Document();
+		// Entity read with TrackChanges and updated by id: only send the fields that differ from the snapshot
+		final Map<DbPropertyDescriptor, BsonValue> snapshot = !plan.isDirectData() && primaryKey != null
+				? ChangeTracker.get(data)
+				: null;
+		final Map<DbPropertyDescriptor, BsonValue> written = new HashMap<>();
+		final CodecRegistry registry = this.db.getDatabase().getCodecRegistry();
+
+		// --- Handle addon fields (already filtered by the plan) ---
+		for (final PreparedUpdate.WriteField field : plan.getAddonFields()) {
+			final DbPropertyDescriptor desc = field.desc();
+			if (desc.isAsyncUpdate()) {
+				if (primaryKey == null) {
+					throw new DataAccessException(
+							"Fail to transmit Key to update the async update... (must have only 1)");
 				}
+				desc.getAddOn().asyncUpdate(this, previousData, primaryKey, desc, desc.getProperty().getValue(data),
+						asyncActions, options);
+			}
+			if (!desc.canInsert()) {
+				continue;
+			}
+			if (snapshot == null) {
 				desc.getAddOn().insertData(this, desc, data, options, docSet, docUnSet);
+				continue;
 			}
+			final Document fieldSet = new Document();
+			final Document fieldUnSet = new Document();
+			desc.getAddOn().insertData(this, desc, data, options, fieldSet, fieldUnSet);
+			mergeChangedField(desc, field.fieldName(), fieldSet, fieldUnSet, snapshot, written, registry, docSet,
+					docUnSet);
+		}
 
-			// --- Handle regular fields (via pre-compiled codecs) ---
-			for (final DbPropertyDescriptor desc : model.getRegularFields()) {
-				final FieldName fieldName = desc.getFieldName(options);
-				// Apply filter/omit logic
-				if (filterOmitKey != null && filterOmitKey.getValues().contains(fieldName.inStruct())) {
+		// --- Handle regular fields (via pre-compiled codecs, already filtered by the plan) ---
+		for (final PreparedUpdate.WriteField field : plan.getRegularFields()) {
+			final DbPropertyDescriptor desc = field.desc();
+			final MongoFieldCodec codec = desc.getCodec();
+			final PropertyDescriptor prop = desc.getProperty();
+			if (!prop.getType().isPrimitive()) {
+				final Object tmp = prop.getValue(data);
+				if (tmp == null && desc.getDefaultValue() != null) {
 					continue;
 				}
-				if (!filterKey.getValues().contains(fieldName.inStruct())) {
-					continue;
+			}
+			if (snapshot == null) {
+				codec.writeToDoc(null, field.fieldName(), data, docSet, docUnSet);
+				continue;
+			}
+			final Document fieldSet = new Document();
+			final Document fieldUnSet = new Document();
+			codec.writeToDoc(null, field.fieldName(), data, fieldSet, fieldUnSet);
+			mergeChangedField(desc, field.fieldName(), fieldSet, fieldUnSet, snapshot, written, registry, docSet,
+					docUnSet);
+		}
+		if (snapshot != null && docSet.isEmpty() && docUnSet.isEmpty()) {
+			return new UpdateDocument(null, written);
+		}
+
+		// --- Handle update timestamp (unconditionally, not subject to filter) ---
+		if (plan.getUpdateTimestampField() != null) {
+			docSet.append(plan.getUpdateTimestampField(), Date.from(Instant.now()));
+		}
+		final Document actions = new Document();
+		if (!docSet.isEmpty()) {
+			actions.append("$set", docSet);
+		}
+		if (!docUnSet.isEmpty()) {
+			actions.append("$unset", docUnSet);
+		}
+		return new UpdateDocument(actions, snapshot != null ? written : null);
+	}
+
+	/**
+	 * Appends a field to the update documents if its value differs from the snapshot taken at read time.
+	 *
+	 * @param desc       The field descriptor
+	 * @param fieldName  The database field name
+	 * @param fieldSet   The $set generated for this field only
+	 * @param fieldUnSet The $unset generated for this field only
+	 * @param snapshot   The values read for the entity
+	 * @param written    Collects the new values of the changed fields
+	 * @param registry   Codec registry used to compare values
+	 * @param docSet     The $set document of the update
+	 * @param docUnSet   The $unset document of the update
+	 */
+	private static void mergeChangedField(
+			final DbPropertyDescriptor desc,
+			final String fieldName,
+			final Document fieldSet,
+			final Document fieldUnSet,
+			final Map<DbPropertyDescriptor, BsonValue> snapshot,
+			final Map<DbPropertyDescriptor, BsonValue> written,
+			final CodecRegistry registry,
+			final Document docSet,
+			final Document docUnSet) {
+		final BsonValue current = ChangeTracker.encode(fieldSet, fieldName, registry);
+		if (snapshot.containsKey(desc) && Objects.equals(snapshot.get(desc), current)) {
+			return;
+		}
+		docSet.putAll(fieldSet);
+		docUnSet.putAll(fieldUnSet);
+		written.put(desc, current);
+	}
+
+	/**
+	 * Generates the list of field names to include in a MongoDB projection.
+	 *
+	 * @param clazz   The entity class
+	 * @param options Query options that may affect field selection
+	 * @return List of database field names to include in the query projection
+	 * @throws Exception if class introspection fails
+	 */
+	public List<String> generateSelectField(final Class<?> clazz, final QueryOptions options) throws Exception {
+		final boolean readAllFields = QueryOptions.readAllColumn(options);
+		final DbClassModel dbModel = DbClassModel.of(clazz);
+		return dbModel.generateSelectFields(readAllFields, options);
+	}
+
+	/**
+	 * Merges all {@link Condition} options into a single condition using logical AND.
+	 *
+	 * <p>If no conditions are present and {@code throwIfEmpty} is true, throws an exception.
+	 * Otherwise returns an empty condition.
+	 *
+	 * @param options      The query options containing zero or more conditions
+	 * @param throwIfEmpty If true, throws a {@link DataAccessException} when no conditions are provided
+	 * @return The merged condition
+	 * @throws DataAccessException if throwIfEmpty is true and no conditions are present
+	 */
+	public Condition conditionFusionOrEmpty(final QueryOptions options, final boolean throwIfEmpty)
+			throws DataAccessException {
+		if (options == null) {
+			return new Condition();
+		}
+		final List<Condition> conditions = options.get(Condition.class);
+		if (conditions.size() == 0) {
+			if (throwIfEmpty) {
+				throw new DataAccessException("request a gets without any condition");
+			} else {
+				return new Condition();
+			}
+		}
+		Condition condition = null;
+		if (conditions.size() == 1) {
+			condition = conditions.get(0);
+		} else {
+			condition = new Condition(Filters.and(conditions.stream().map(Condition::getFilter).toList()));
+		}
+		return condition;
+	}
+
+	/**
+	 * Retrieves all entities of the specified type matching the conditions (raw QueryOptions variant).
+	 *
+	 * @param clazz   The class of the entity
+	 * @param options Query options including conditions, filters, limits, etc.
+	 * @return List of matching entities as Objects
+	 * @throws DataAccessException if a data access error occurs
+	 * @throws IOException         if an I/O error occurs
+	 */
+	public List<Object> getsRaw(final Class<?> clazz, final QueryOptions options)
+			throws DataAccessException, IOException {
+		try {
+			if (this.linkBuffer != null) {
+				// Read the links written by the current write
+				this.linkBuffer.flush();
+			}
+			final UseCache useCache = UseCache.get(options);
+			if (useCache != null && this.session == null && !JoinStrategy.isLookup(options)) {
+				return getsCached(clazz, options, useCache);
+			}
+			if (isDirectDecodable(clazz, options)) {
+				// No link nor option needing the Document: the driver decodes the entities directly
+				final List<Object> outs = new ArrayList<>();
+				prepareFind(clazz, options, null, clazz).into(outs);
+				return outs;
+			}
+			if (JoinStrategy.isLookup(options)) {
+				// One aggregation joining the linked documents
+				return readDocuments(prepareLookup(clazz, options), clazz, options);
+			}
+			final FindIterable<Document> retFind = prepareFind(clazz, options, null, Document.class);
+			LOGGER.trace("GetsWhere ...");
+			return readDocuments(retFind, clazz, options);
+		} catch (final Exception ex) {
+			LOGGER.error("Failed to retrieve data: {}", ex.getMessage(), ex);
+			throw new DataAccessException("Catch an Exception: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Serves a gets from the {@link QueryCache}, or runs it and stores its documents.
+	 *
+	 * @param clazz    The class of the entity
+	 * @param options  Query options including conditions, filters, limits, etc.
+	 * @param useCache The cache option of the request
+	 * @return List of matching entities as Objects
+	 * @throws Exception if the request fails
+	 */
+	private List<Object> getsCached(final Class<?> clazz, final QueryOptions options, final UseCache useCache)
+			throws Exception {
+		final FindRequest request = buildFind(clazz, options, null);
+		final String key = fingerprint("gets", request.collectionName(), request.filter(), request.sort(),
+				request.offset(), request.limit(), request.fields());
+		List<RawBsonDocument> raws = QueryCache.getDocuments(key);
+		if (raws == null) {
+			final long generation = QueryCache.generation(getDatabaseName(), request.collectionName());
+			raws = new ArrayList<>();
+			prepareFind(request, RawBsonDocument.class).into(raws);
+			QueryCache.putDocuments(getDatabaseName(), request.collectionName(), key, raws, useCache.getTtl(),
+					generation);
+		}
+		final CodecRegistry registry = this.db.getDatabase().getCodecRegistry();
+		if (isDirectDecodable(clazz, options)) {
+			final Codec<?> codec = registry.get(clazz);
+			final List<Object> outs = new ArrayList<>(raws.size());
+			for (final RawBsonDocument raw : raws) {
+				outs.add(raw.decode(codec));
+			}
+			return outs;
+		}
+		final Codec<Document> documentCodec = registry.get(Document.class);
+		final List<Document> documents = new ArrayList<>(raws.size());
+		for (final RawBsonDocument raw : raws) {
+			documents.add(raw.decode(documentCodec));
+		}
+		return readDocuments(documents.iterator(), clazz, options);
+	}
+
+	/**
+	 * Generates the key of a request in the {@link QueryCache}: the canonical extended JSON of its database and
+	 * parameters.
+	 * The field keys of the filter are sorted (their order does not change the result), as are the ones of the
+	 * conditions of its {@code $and}, {@code $or} and {@code $nor}; the values are kept as is (the key order of an
+	 * embedded document matters to an equality). The sort keeps its order and the projection is sorted.
+	 *
+	 * @param kind           The kind of result ("gets", "count")
+	 * @param collectionName The requested collection
+	 * @param filter         The filter of the request, or null
+	 * @param sort           The sort of the request, or null
+	 * @param offset         The offset of the request, or null
+	 * @param limit          The limit of the request, or null
+	 * @param fields         The projected fields, or null
+	 * @return The fingerprint of the request
+	 */
+	private String fingerprint(
+			final String kind,
+			final String collectionName,
+			final Bson filter,
+			final Bson sort,
+			final Integer offset,
+			final Integer limit,
+			final List<String> fields) {
+		final CodecRegistry registry = this.db.getDatabase().getCodecRegistry();
+		final BsonDocument key = new BsonDocument("kind", new BsonString(kind))
+				.append("database", new BsonString(getDatabaseName()))
+				.append("collection", new BsonString(collectionName));
+		if (filter != null) {
+			key.append("filter", canonicalFilter(filter.toBsonDocument(BsonDocument.class, registry)));
+		}
+		if (sort != null) {
+			key.append("sort", sort.toBsonDocument(BsonDocument.class, registry));
+		}
+		if (offset != null) {
+			key.append("offset", new BsonInt32(offset));
+		}
+		if (limit != null) {
+			key.append("limit", new BsonInt32(limit));
+		}
+		if (fields != null) {
+			final BsonArray projection = new BsonArray();
+			fields.stream().sorted().distinct().forEach(field -> projection.add(new BsonString(field)));
+			key.append("fields", projection);
+		}
+		return key.toJson(JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build());
+	}
+
+	/** Operators whose value is a list of filters. */
+	private static final Set<String> LOGICAL_OPERATORS = Set.of("$and", "$or", "$nor");
+
+	/**
+	 * Sorts the top-level keys of a filter, and the ones of the conditions of its logical operators (the order of
+	 * the conditions and all the other values are kept).
+	 */
+	private static BsonDocument canonicalFilter(final BsonDocument filter) {
+		final BsonDocument sorted = new BsonDocument();
+		filter.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+			BsonValue value = entry.getValue();
+			if (value.isArray() && LOGICAL_OPERATORS.contains(entry.getKey())) {
+				final BsonArray conditions = new BsonArray();
+				for (final BsonValue condition : value.asArray()) {
+					conditions.add(condition.isDocument() ? canonicalFilter(condition.asDocument()) : condition);
 				}
-				if (!forceReadOnlyField && desc.isApiReadOnly()) {
-					continue;
+				value = conditions;
+			}
+			sorted.append(entry.getKey(), value);
+		});
+		return sorted;
+	}
+
+	/**
+	 * Retrieves the entities having the given primary keys, in no particular order.
+	 *
+	 * <p>
+	 * When the entity is marked with {@link org.atriasoft.archidata.annotation.Cacheable} and the options hold
+	 * nothing other than a {@link FetchPlan}, the documents are served from the {@link EntityCache} of the node
+	 * and only the missing ones are requested (outside transactions: a transaction may read uncommitted data).
+	 * </p>
+	 *
+	 * @param clazz   The class of the entity
+	 * @param ids     The primary keys of the entities
+	 * @param options Query options (not modified)
+	 * @return The existing entities
+	 * @throws DataAccessException if a data access error occurs
+	 * @throws IOException         if an I/O error occurs
+	 */
+	public List<Object> getsRawByIds(final Class<?> clazz, final Collection<?> ids, final QueryOptions options)
+			throws DataAccessException, IOException {
+		try {
+			final DbClassModel model = getModel(clazz);
+			final String pkColumn = model.getPrimaryKey().getDbFieldName();
+			final EntityCache cache = this.session == null && IdentityMap.isCacheable(options)
+					? EntityCache.of(getDatabaseName(), model)
+					: null;
+			if (cache == null) {
+				final QueryOptions query = new QueryOptions(options.getAllArray());
+				query.add(new Condition(Filters.in(pkColumn, ids)));
+				return getsRaw(clazz, query);
+			}
+			if (this.linkBuffer != null) {
+				// Read the links written by the current write
+				this.linkBuffer.flush();
+			}
+			final Codec<Document> documentCodec = this.db.getDatabase().getCodecRegistry().get(Document.class);
+			final List<Document> documents = new ArrayList<>();
+			final List<Object> missingIds = new ArrayList<>();
+			for (final Object id : ids) {
+				final RawBsonDocument cached = cache.get(id);
+				if (cached != null) {
+					documents.add(cached.decode(documentCodec));
+				} else {
+					missingIds.add(id);
 				}
-				final MongoFieldCodec codec = desc.getCodec();
-				if (codec == null) {
-					continue;
+			}
+			if (!missingIds.isEmpty()) {
+				final long generation = cache.generation();
+				final QueryOptions query = new QueryOptions(options.getAllArray());
+				query.add(new Condition(Filters.in(pkColumn, missingIds)));
+				for (final RawBsonDocument raw : prepareFind(clazz, query, null, RawBsonDocument.class)) {
+					final Document document = raw.decode(documentCodec);
+					cache.put(document.get(pkColumn), raw, generation);
+					documents.add(document);
 				}
-				final PropertyDescriptor prop = desc.getProperty();
-				if (!prop.getType().isPrimitive()) {
-					final Object tmp = prop.getValue(data);
-					if (tmp == null && desc.getDefaultValue() != null) {
-						continue;
-					}
+			}
+			return readDocuments(documents.iterator(), clazz, options);
+		} catch (final Exception ex) {
+			LOGGER.error("Failed to retrieve data: {}", ex.getMessage(), ex);
+			throw new DataAccessException("Catch an Exception: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Runs an aggregation pipeline on the collection of an entity and decodes the results.
+	 *
+	 * <p>
+	 * A first {@code $match} stage is added with the {@link Condition} options and the soft-delete filter of the
+	 * source entity (unless {@link AccessDeletedItems} is given), so the pipeline only sees the visible entities.
+	 * The collection follows {@link OverrideTableName}; {@link AllowDiskUse} and {@link BatchSize} are forwarded
+	 * to the server.
+	 * </p>
+	 *
+	 * <p>
+	 * Results are decoded as {@link Document} when requested, through the record codec for records, and as an
+	 * entity (with its links resolved) otherwise:
+	 * </p>
+	 *
+	 * <pre>
+	 * public record TeamCount(&#64;Column(name = "_id") ObjectId team, Long count) {}
+	 *
+	 * List&lt;TeamCount&gt; counts = db.aggregate(User.class,
+	 * 		List.of(Aggregates.group("$teamId", Accumulators.sum("count", 1))), TeamCount.class);
+	 * </pre>
+	 *
+	 * @param <R>        The type of the results
+	 * @param source     The entity whose collection is aggregated
+	 * @param pipeline   The aggregation stages
+	 * @param resultType The class of the results
+	 * @param option     Query options (Condition, OverrideTableName, AccessDeletedItems, AllowDiskUse, BatchSize)
+	 * @return The decoded results
+	 * @throws DataAccessException if the aggregation or the decoding fails
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> List<R> aggregate(
+			final Class<?> source,
+			final List<? extends Bson> pipeline,
+			final Class<R> resultType,
+			final QueryOption... option) throws DataAccessException {
+		final QueryOptions options = new QueryOptions(option);
+		final List<R> outs = new ArrayList<>();
+		try {
+			final DbClassModel model = DbClassModel.of(source);
+			final String collectionName = model.getTableName(options);
+			final Bson filters = conditionFusionOrEmpty(options, false).getFilter(collectionName, options,
+					model.getDeletedFieldName());
+			final List<Bson> stages = new ArrayList<>(pipeline.size() + 1);
+			if (filters != null) {
+				stages.add(Aggregates.match(filters));
+			}
+			stages.addAll(pipeline);
+			final MongoCollection<Document> collection = this.db.getCollection(collectionName);
+			statistic.countAggregate.incrementAndGet();
+			AggregateIterable<Document> retAggregate = this.session != null ? collection.aggregate(this.session, stages)
+					: collection.aggregate(stages);
+			if (options.exist(AllowDiskUse.class)) {
+				retAggregate = retAggregate.allowDiskUse(true);
+			}
+			final List<BatchSize> batchSizes = options.get(BatchSize.class);
+			if (batchSizes.size() == 1) {
+				retAggregate = retAggregate.batchSize(batchSizes.get(0).getValue());
+			}
+			if (resultType == Document.class) {
+				retAggregate.into((List<Document>) outs);
+				return outs;
+			}
+			if (resultType.isRecord()) {
+				final MongoTypeReader reader = MongoCodecFactory.buildReader(TypeInfo.ofRaw(resultType));
+				for (final Document doc : retAggregate) {
+					outs.add((R) reader.fromMongo(doc));
 				}
-				codec.writeToDoc(null, fieldName.inTable(), data, docSet, docUnSet);
+				return outs;
+			}
+			final List<LazyGetter> lazyCall = new ArrayList<>();
+			final LazyGetterCollector batchCollector = new LazyGetterCollector();
+			for (final Document doc : retAggregate) {
+				outs.add((R) createObjectFromDocument(doc, resultType, options, lazyCall, batchCollector));
 			}
+			if (!batchCollector.isEmpty()) {
+				lazyCall.addAll(batchCollector.buildLazyGetters(this));
+			}
+			resolveLazyGetters(lazyCall);
+		} catch (final Exception ex) {
+			LOGGER.error("Failed to aggregate: {}", ex.getMessage(), ex);
+			throw new DataAccessException("Catch an Exception: " + ex.getMessage());
+		}
+		return outs;
+	}
+
+	/**
+	 * Checks if the entities of a request can be decoded by the {@link EntityCodec} registered in the driver,
+	 * without the intermediate {@link Document}.
+	 *
+	 * @param clazz   The class of the entity
+	 * @param options The query options
+	 * @return {@code true} when the class has a direct codec and no option needs the raw document
+	 */
+	private boolean isDirectDecodable(final Class<?> clazz, final QueryOptions options) {
+		if (options.exist(ReadAllColumn.class) || options.exist(OptionSpecifyType.class)
+				|| options.exist(OptionRenameColumn.class) || options.exist(TrackChanges.class)
+				|| options.exist(PageAfter.class)) {
+			return false;
+		}
+		try {
+			return this.db.getDatabase().getCodecRegistry().get(clazz) instanceof EntityCodec;
+		} catch (final CodecConfigurationException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Retrieves the entities matching a filter with a prepared read plan.
+	 *
+	 * @param <T>    The type of the entity
+	 * @param plan   The read plan (projection, sort, limit...)
+	 * @param filter The filter of the request, or null to read all entities (soft-deleted entities are excluded)
+	 * @return List of matching entities
+	 * @throws DataAccessException if a data access error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> gets(final PreparedQuery<T> plan, final Bson filter) throws DataAccessException {
+		try {
+			final MongoCollection<Document> collection = this.db.getCollection(plan.getCollectionName());
+			final Bson filters = plan.filter(filter);
+			statistic.countFind.incrementAndGet();
+			FindIterable<Document> retFind;
+			if (filters != null) {
+				retFind = this.session != null ? collection.find(this.session, filters) : collection.find(filters);
+			} else {
+				retFind = this.session != null ? collection.find(this.session) : collection.find();
+			}
+			if (plan.getSort() != null) {
+				retFind = retFind.sort(plan.getSort());
+			}
+			if (plan.getSkip() != 0) {
+				retFind = retFind.skip(plan.getSkip());
+			}
+			if (plan.getLimit() != 0) {
+				retFind = retFind.limit(plan.getLimit());
+			}
+			retFind = retFind.projection(plan.getProjection());
+			return (List<T>) readDocuments(retFind, plan.getEntityClass(), plan.getOptions());
+		} catch (final Exception ex) {
+			LOGGER.error("Failed to retrieve data: {}", ex.getMessage(), ex);
+			throw new DataAccessException("Catch an Exception: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Retrieves the first entity matching a filter with a prepared read plan.
+	 *
+	 * @param <T>    The type of the entity
+	 * @param plan   The read plan (projection, sort...)
+	 * @param filter The filter of the request, or null
+	 * @return The first matching entity, or null if none
+	 * @throws DataAccessException if a data access error occurs
+	 */
+	public <T> T get(final PreparedQuery<T> plan, final Bson filter) throws DataAccessException {
+		final List<T> values = gets(plan, filter);
+		if (values.isEmpty()) {
+			return null;
+		}
+		return values.get(0);
+	}
+
+	/**
+	 * Decodes the documents of a find (or lookup aggregation) request and resolves their relationships.
+	 *
+	 * @param retFind The request
+	 * @param clazz   The class of the entity
+	 * @param options Query options used to decode the documents (and filled with the {@link PageAfter} token)
+	 * @return The decoded entities
+	 * @throws Exception if a document cannot be decoded
+	 */
+	private List<Object> readDocuments(
+			final MongoIterable<Document> retFind,
+			final Class<?> clazz,
+			final QueryOptions options) throws Exception {
+		try (MongoCursor<Document> cursor = retFind.iterator()) {
+			return readDocuments(cursor, clazz, options);
+		}
+	}
+
+	private List<Object> readDocuments(
+			final Iterator<Document> documents,
+			final Class<?> clazz,
+			final QueryOptions options) throws Exception {
+		final List<LazyGetter> lazyCall = new ArrayList<>();
+		final List<Object> outs = new ArrayList<>();
+		final LazyGetterCollector batchCollector = new LazyGetterCollector();
+		Document lastDoc = null;
+		while (documents.hasNext()) {
+			final Document doc = documents.next();
+			LOGGER.trace(" - receive data from DB: {}", doc.toJson(JsonWriterSettings.builder().indent(true).build()));
+			final Object data = createObjectFromDocument(doc, clazz, options, lazyCall, batchCollector);
+			outs.add(data);
+			lastDoc = doc;
+		}
+		updatePageAfter(options, outs.size(), lastDoc);
+		// Add batched lazy getters (entity-reference fields grouped by target entity)
+		if (!batchCollector.isEmpty()) {
+			lazyCall.addAll(batchCollector.buildLazyGetters(this));
+		}
+		// LOGGER.trace("Async calls: {}", lazyCall.size());
+		resolveLazyGetters(lazyCall);
+		return outs;
+	}
+
+	/**
+	 * Fills the next page token of the {@link PageAfter} option of a request, if any.
+	 *
+	 * @param options The query options
+	 * @param count   The number of documents returned
+	 * @param lastDoc The last document returned, or null
+	 * @throws DataAccessException if the request has several PageAfter options
+	 */
+	private static void updatePageAfter(final QueryOptions options, final int count, final Document lastDoc)
+			throws DataAccessException {
+		final PageAfter pageAfter = getPageAfter(options);
+		if (pageAfter == null) {
+			return;
+		}
+		// A next page may exist only if the page is full
+		final List<Limit> limits = options.get(Limit.class);
+		final boolean fullPage = limits.size() == 1 && count == limits.get(0).getValue();
+		pageAfter.updateNextToken(PageAfter.keysetOrder(options.get(OrderBy.class)), fullPage ? lastDoc : null);
+	}
+
+	/**
+	 * Retrieves the entities matching the conditions decoded into a view holding a subset of the entity fields.
+	 *
+	 * <p>
+	 * The view is a record or a class whose property names match fields of the entity. Only these fields are
+	 * requested from the database and decoded, without building the entity nor loading its links:
+	 * </p>
+	 *
+	 * <pre>
+	 * public record UserRow(ObjectId id, String name, String email) {}
+	 *
+	 * List&lt;UserRow&gt; rows = db.getsAs(User.class, UserRow.class, OrderBy.asc(User::getName), new Limit(50));
+	 * </pre>
+	 *
+	 * @param <E>    The type of the entity
+	 * @param <R>    The type of the view
+	 * @param entity The class of the entity (collection, field names, soft-delete)
+	 * @param view   The class of the view
+	 * @param option Query options (Condition, OrderBy, Limit, Offset, PageAfter...)
+	 * @return List of views of the matching entities
+	 * @throws DataAccessException if a view property does not match an entity field or the read fails
+	 */
+	public <E, R> List<R> getsAs(final Class<E> entity, final Class<R> view, final QueryOption... option)
+			throws DataAccessException {
+		final QueryOptions options = new QueryOptions(option);
+		final ViewReader<R> reader = ViewReader.of(entity, view);
+		final List<String> fieldNames = reader.selectFields(options);
+		final List<R> outs = new ArrayList<>();
+		try {
+			final FindIterable<Document> retFind = prepareFind(entity, options, fieldNames, Document.class);
+			try (MongoCursor<Document> cursor = retFind.iterator()) {
+				Document lastDoc = null;
+				while (cursor.hasNext()) {
+					lastDoc = cursor.next();
+					outs.add(reader.read(lastDoc, fieldNames));
+				}
+				updatePageAfter(options, outs.size(), lastDoc);
+			}
+		} catch (final Exception ex) {
+			LOGGER.error("Failed to retrieve view: {}", ex.getMessage(), ex);
+			throw new DataAccessException("Catch an Exception: " + ex.getMessage());
+		}
+		return outs;
+	}
+
+	/**
+	 * Builds the find request of a gets: filter (with soft-delete), sort, limit and projection.
+	 *
+	 * @param clazz        The class of the entity
+	 * @param options      Query options including conditions, filters, limits, etc.
+	 * @param selectFields The fields to read, or null to read the fields of the entity
+	 * @param resultClass  The class the driver decodes the documents into
+	 * @return The find request, not yet executed
+	 * @throws Exception if the options are inconsistent or the class cannot be introspected
+	 */
+	private <R> FindIterable<R> prepareFind(
+			final Class<?> clazz,
+			final QueryOptions options,
+			final List<String> selectFields,
+			final Class<R> resultClass) throws Exception {
+		return prepareFind(buildFind(clazz, options, selectFields), resultClass);
+	}
+
+	/**
+	 * Parameters of a find request, generated from the query options.
+	 *
+	 * @param collectionName The requested collection
+	 * @param filter         The filter, or null to read all the documents
+	 * @param sort           The sort, or null
+	 * @param offset         The number of documents to skip, or null
+	 * @param limit          The maximum number of documents, or null
+	 * @param fields         The projected fields
+	 */
+	private record FindRequest(
+			String collectionName,
+			Bson filter,
+			Document sort,
+			Integer offset,
+			Integer limit,
+			List<String> fields) {}
+
+	/**
+	 * Generates the parameters of a find request (filter with soft-delete and keyset pagination, sort, offset,
+	 * limit and projection).
+	 */
+	private FindRequest buildFind(final Class<?> clazz, final QueryOptions options, final List<String> selectFields)
+			throws Exception {
+		final DbClassModel model = getModel(clazz);
+		final String collectionName = model.getTableName(options);
+		final PageAfter pageAfter = getPageAfter(options);
+		final List<OrderItem> keysetOrder = pageAfter != null ? PageAfter.keysetOrder(options.get(OrderBy.class))
+				: null;
+		// Generate the filtering of the data:
+		final Bson filters = generateReadFilter(model, collectionName, options, pageAfter, keysetOrder);
+		return new FindRequest(collectionName, filters, generateReadSort(options, keysetOrder), getReadOffset(options),
+				getReadLimit(options), generateReadFields(clazz, options, selectFields, keysetOrder));
+	}
+
+	/**
+	 * Creates the find request (not yet executed) of prepared parameters.
+	 */
+	private <R> FindIterable<R> prepareFind(final FindRequest request, final Class<R> resultClass) {
+		final MongoCollection<Document> collection = this.db.getCollection(request.collectionName());
+		final Bson filters = request.filter();
+		FindIterable<R> retFind = null;
+		statistic.countFind.incrementAndGet();
+		if (filters != null) {
+			retFind = this.session != null ? collection.find(this.session, filters, resultClass)
+					: collection.find(filters, resultClass);
+		} else {
+			retFind = this.session != null ? collection.find(this.session, resultClass) : collection.find(resultClass);
+		}
+		if (request.sort() != null) {
+			retFind = retFind.sort(request.sort());
+		}
+		if (request.offset() != null) {
+			retFind = retFind.skip(request.offset());
+		}
+		if (request.limit() != null) {
+			retFind = retFind.limit(request.limit());
+		}
+		// Select values to read
+		return retFind.projection(Projections.include(request.fields().toArray(new String[0])));
+	}
+
+	/**
+	 * Builds the aggregation of a gets with the {@link JoinStrategy#LOOKUP} strategy: the stages of the find
+	 * request ({@code $match}, {@code $sort}, {@code $skip}, {@code $limit}, {@code $project}) followed by one
+	 * {@code $lookup} per link field to load. The joined documents are stored in
+	 * {@link JoinStrategy#joinedFieldName(String)} and decoded by the add-ons with {@link #readJoined}.
+	 *
+	 * @param clazz   The class of the entity
+	 * @param options Query options including conditions, filters, limits, etc.
+	 * @return The aggregation, not yet executed
+	 * @throws Exception if the options are inconsistent or the class cannot be introspected
+	 */
+	private AggregateIterable<Document> prepareLookup(final Class<?> clazz, final QueryOptions options)
+			throws Exception {
+		final DbClassModel model = getModel(clazz);
+		final String collectionName = model.getTableName(options);
+		final PageAfter pageAfter = getPageAfter(options);
+		final List<OrderItem> keysetOrder = pageAfter != null ? PageAfter.keysetOrder(options.get(OrderBy.class))
+				: null;
+		final List<Bson> stages = new ArrayList<>();
+		final Bson filters = generateReadFilter(model, collectionName, options, pageAfter, keysetOrder);
+		if (filters != null) {
+			stages.add(Aggregates.match(filters));
+		}
+		final Document sorts = generateReadSort(options, keysetOrder);
+		if (sorts != null) {
+			stages.add(Aggregates.sort(sorts));
+		}
+		final Integer offset = getReadOffset(options);
+		if (offset != null) {
+			stages.add(Aggregates.skip(offset));
+		}
+		final Integer limit = getReadLimit(options);
+		if (limit != null) {
+			stages.add(Aggregates.limit(limit));
+		}
+		stages.add(Aggregates.project(Projections.include(generateReadFields(clazz, options, null, keysetOrder))));
+		// Join the linked documents (after the limit: only the returned entities are joined)
+		final boolean readAllfields = QueryOptions.readAllColumn(options);
+		final FetchPlan fetchPlan = FetchPlan.get(options);
+		for (final DbPropertyDescriptor desc : model.getAllFields()) {
+			final AddOnFieldContext ctx = desc.getAddonContext();
+			if (desc.getAction() != DbFieldAction.ADDON || ctx == null || !ctx.isEntityReference()
+					|| !desc.canRetrieve() || (!readAllfields && desc.isNotRead())) {
+				continue;
+			}
+			if (fetchPlan != null && !fetchPlan.expands(desc.getProperty().getName())) {
+				continue;
+			}
+			final String fieldName = desc.getFieldName(options).inTable();
+			stages.add(Aggregates.lookup(DbClassModel.of(ctx.getTargetEntity()).getTableName(), fieldName,
+					ctx.getTargetPkColumn(), JoinStrategy.joinedFieldName(fieldName)));
+		}
+		final MongoCollection<Document> collection = this.db.getCollection(collectionName);
+		statistic.countAggregate.incrementAndGet();
+		AggregateIterable<Document> retAggregate = this.session != null ? collection.aggregate(this.session, stages)
+				: collection.aggregate(stages);
+		final List<BatchSize> batchSizes = options.get(BatchSize.class);
+		if (batchSizes.size() == 1) {
+			retAggregate = retAggregate.batchSize(batchSizes.get(0).getValue());
+		}
+		return retAggregate;
+	}
+
+	/**
+	 * Decodes the documents joined for a link field by a {@link JoinStrategy#LOOKUP} request.
+	 *
+	 * <p>
+	 * Soft-deleted documents are dropped (as the batched read would not return them) and the links of the
+	 * joined entities are registered in the collector, to be loaded in batch with the next level.
+	 * </p>
+	 *
+	 * @param doc            The document of the entity holding the link
+	 * @param fieldName      The name of the link field in the collection
+	 * @param ctx            The context of the link field
+	 * @param fetchPlan      The fetch plan of the joined entities (null: all their links are loaded)
+	 * @param lazyCall       List to collect deferred entity-reference loading actions
+	 * @param batchCollector Collector for batching entity-reference loads across rows
+	 * @return The joined entities by primary key, or null if the field was not joined
+	 * @throws Exception if a joined document cannot be decoded
+	 */
+	public Map<Object, Object> readJoined(
+			final Document doc,
+			final String fieldName,
+			final AddOnFieldContext ctx,
+			final FetchPlan fetchPlan,
+			final List<LazyGetter> lazyCall,
+			final LazyGetterCollector batchCollector) throws Exception {
+		final List<Document> joined = doc.getList(JoinStrategy.joinedFieldName(fieldName), Document.class);
+		if (joined == null) {
+			return null;
+		}
+		final Class<?> targetEntity = ctx.getTargetEntity();
+		final DbClassModel targetModel = DbClassModel.of(targetEntity);
+		final String deletedFieldName = targetModel.getDeletedFieldName();
+		final QueryOptions joinedOptions = fetchPlan == null ? new QueryOptions() : new QueryOptions(fetchPlan);
+		final DbPropertyDescriptor pkDesc = targetModel.getPrimaryKey();
+		final Map<Object, Object> out = new HashMap<>();
+		for (final Document joinedDoc : joined) {
+			if (deletedFieldName != null && Boolean.TRUE.equals(joinedDoc.get(deletedFieldName))) {
+				continue;
+			}
+			final Object entity = createObjectFromDocument(joinedDoc, targetEntity, joinedOptions, lazyCall,
+					batchCollector);
+			out.put(pkDesc.getProperty().getValue(entity), entity);
+		}
+		return out;
+	}
+
+	private static DbClassModel getModel(final Class<?> clazz) throws DataAccessException {
+		try {
+			return DbClassModel.of(clazz);
+		} catch (final IntrospectionException e) {
+			throw new DataAccessException("Failed to introspect class: " + clazz.getSimpleName(), e);
+		}
+	}
+
+	/**
+	 * Generates the filter of a read: conditions, soft-delete and keyset pagination.
+	 */
+	private Bson generateReadFilter(
+			final DbClassModel model,
+			final String collectionName,
+			final QueryOptions options,
+			final PageAfter pageAfter,
+			final List<OrderItem> keysetOrder) throws DataAccessException {
+		final Condition condition = conditionFusionOrEmpty(options, false);
+		Bson filters = condition.getFilter(collectionName, options, model.getDeletedFieldName());
+		if (pageAfter != null) {
+			final Bson keysetFilter = pageAfter.generateFilter(keysetOrder);
+			if (keysetFilter != null) {
+				filters = filters != null ? Filters.and(filters, keysetFilter) : keysetFilter;
+			}
+		}
+		if (filters != null) {
+			LOGGER.trace("filter = {}",
+					filters.toBsonDocument().toJson(JsonWriterSettings.builder().indent(true).build()));
+		} else {
+			LOGGER.trace("filter = None");
+		}
+		return filters;
+	}
+
+	/**
+	 * Generates the sort of a read, or null when the read is not sorted.
+	 */
+	private static Document generateReadSort(final QueryOptions options, final List<OrderItem> keysetOrder) {
+		if (keysetOrder != null) {
+			final Document sorts = new Document();
+			for (final OrderItem item : keysetOrder) {
+				sorts.append(item.value, item.order == OrderItem.Order.ASC ? 1 : -1);
+			}
+			return sorts;
+		}
+		final List<OrderBy> orders = options.get(OrderBy.class);
+		if (orders.isEmpty()) {
+			return null;
+		}
+		final Document sorts = new Document();
+		for (final OrderBy order : orders) {
+			order.generateSort(sorts);
+		}
+		return sorts;
+	}
+
+	private static Integer getReadOffset(final QueryOptions options) throws DataAccessException {
+		final List<Offset> offsets = options.get(Offset.class);
+		if (offsets.size() > 1) {
+			throw new DataAccessException("Request with multiple 'offset'...");
+		}
+		return offsets.size() == 1 ? (int) offsets.get(0).getValue() : null;
+	}
 
-			// Do the query ...
-			final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-			final Document actions = new Document();
-			if (!docSet.isEmpty()) {
-				actions.append("$set", docSet);
-			}
-			if (!docUnSet.isEmpty()) {
-				actions.append("$unset", docUnSet);
-			}
+	private static Integer getReadLimit(final QueryOptions options) throws DataAccessException {
+		final List<Limit> limits = options.get(Limit.class);
+		if (limits.size() > 1) {
+			throw new DataAccessException("Request with multiple 'limit'...");
+		}
+		return limits.size() == 1 ? (int) limits.get(0).getValue() : null;
+	}
 
-			statistic.countUpdateMany++;
-			final UpdateResult ret = this.session != null ? collection.updateMany(this.session, filters, actions)
-					: collection.updateMany(filters, actions);
-			List<LazyGetter> actionsAsync = asyncActions;
-			for (int kkk = 0; kkk < 500 && actionsAsync.size() != 0; kkk++) {
-				final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
-				for (final LazyGetter action : actionsAsync) {
-					action.doRequest(actionsAsyncNew);
+	/**
+	 * Generates the fields projected by a read (with the primary key and the keyset pagination keys).
+	 */
+	private List<String> generateReadFields(
+			final Class<?> clazz,
+			final QueryOptions options,
+			final List<String> selectFields,
+			final List<OrderItem> keysetOrder) throws Exception {
+		final List<String> listFields = selectFields != null ? new ArrayList<>(selectFields)
+				: generateSelectField(clazz, options);
+		if (!listFields.contains("_id")) {
+			listFields.add("_id");
+		}
+		if (keysetOrder != null) {
+			// The sort keys are needed to generate the next page token
+			for (final OrderItem item : keysetOrder) {
+				if (!listFields.contains(item.value)) {
+					listFields.add(item.value);
 				}
-				actionsAsync = actionsAsyncNew;
 			}
-			return ret.getModifiedCount();
-		} catch (final Exception ex) {
-			LOGGER.error("Error in update: {}", ex.getMessage(), ex);
-			throw ex;
 		}
+		return listFields;
 	}
 
 	/**
-	 * Generates the list of field names to include in a MongoDB projection.
+	 * Returns the keyset pagination option of the request.
 	 *
-	 * @param clazz   The entity class
-	 * @param options Query options that may affect field selection
-	 * @return List of database field names to include in the query projection
-	 * @throws Exception if class introspection fails
+	 * @param options Query options
+	 * @return The PageAfter option, or null if the request is not paginated by keyset
+	 * @throws DataAccessException if multiple PageAfter options are given
 	 */
-	public List<String> generateSelectField(final Class<?> clazz, final QueryOptions options) throws Exception {
-		final boolean readAllFields = QueryOptions.readAllColumn(options);
-		final DbClassModel dbModel = DbClassModel.of(clazz);
-		return dbModel.generateSelectFields(readAllFields, options);
+	private static PageAfter getPageAfter(final QueryOptions options) throws DataAccessException {
+		final List<PageAfter> pages = options.get(PageAfter.class);
+		if (pages.size() > 1) {
+			throw new DataAccessException("Request with multiple 'PageAfter'...");
+		}
+		return pages.size() == 1 ? pages.get(0) : null;
 	}
 
+	/** Maximum number of ids of one cascade delete request. */
+	public static final int MAX_CASCADE_DELETE_BATCH = 10_000;
+	/** Maximum number of relationship loaders of one read running at the same time. */
+	public static final int MAX_PARALLEL_LAZY_GETTERS = 8;
+	private static final ExecutorService LAZY_GETTER_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+	/** Set in the loader threads: the loaders they trigger run serially (no nested fan-out). */
+	private static final ThreadLocal<Boolean> IN_LAZY_GETTER_WORKER = ThreadLocal.withInitial(() -> false);
+
 	/**
-	 * Merges all {@link Condition} options into a single condition using logical AND.
+	 * Executes the relationship loaders of a read until none is left.
 	 *
-	 * <p>If no conditions are present and {@code throwIfEmpty} is true, throws an exception.
-	 * Otherwise returns an empty condition.
+	 * <p>
+	 * The loaders of a level (one batched query per target entity) are independent: they run concurrently on
+	 * virtual threads, at most {@value #MAX_PARALLEL_LAZY_GETTERS} at a time for this call (other requests have
+	 * their own limit), and the next level starts when all of them are done. They run serially on the calling
+	 * thread inside a transaction ({@link #getSession()} non-null: a session can not be shared between threads),
+	 * during a write ({@link #getLinkBuffer()} non-null: the buffer is not thread-safe), and when called from a
+	 * loader.
+	 * </p>
 	 *
-	 * @param options      The query options containing zero or more conditions
-	 * @param throwIfEmpty If true, throws a {@link DataAccessException} when no conditions are provided
-	 * @return The merged condition
-	 * @throws DataAccessException if throwIfEmpty is true and no conditions are present
+	 * @param actions The first level of loaders to execute
+	 * @throws Exception if one of the loaders fails
 	 */
-	public Condition conditionFusionOrEmpty(final QueryOptions options, final boolean throwIfEmpty)
-			throws DataAccessException {
-		if (options == null) {
-			return new Condition();
+	public void resolveLazyGetters(final List<LazyGetter> actions) throws Exception {
+		if (this.session != null || this.linkBuffer != null || IN_LAZY_GETTER_WORKER.get()) {
+			runLazyGetters(actions);
+			return;
 		}
-		final List<Condition> conditions = options.get(Condition.class);
-		if (conditions.size() == 0) {
-			if (throwIfEmpty) {
-				throw new DataAccessException("request a gets without any condition");
-			} else {
-				return new Condition();
+		final Semaphore permits = new Semaphore(MAX_PARALLEL_LAZY_GETTERS);
+		List<LazyGetter> actionsAsync = actions;
+		for (int kkk = 0; kkk < 500 && actionsAsync.size() != 0; kkk++) {
+			if (actionsAsync.size() == 1) {
+				final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
+				actionsAsync.get(0).doRequest(actionsAsyncNew);
+				actionsAsync = actionsAsyncNew;
+				continue;
 			}
+			final List<Future<List<LazyGetter>>> futures = new ArrayList<>(actionsAsync.size());
+			for (final LazyGetter action : actionsAsync) {
+				futures.add(LAZY_GETTER_EXECUTOR.submit(() -> {
+					final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
+					permits.acquire();
+					IN_LAZY_GETTER_WORKER.set(true);
+					try {
+						action.doRequest(actionsAsyncNew);
+					} finally {
+						IN_LAZY_GETTER_WORKER.set(false);
+						permits.release();
+					}
+					return actionsAsyncNew;
+				}));
+			}
+			// Wait for the whole level, keeping the order of the follow-up loaders
+			final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
+			Exception failure = null;
+			for (final Future<List<LazyGetter>> future : futures) {
+				try {
+					actionsAsyncNew.addAll(future.get());
+				} catch (final ExecutionException ex) {
+					if (failure == null) {
+						failure = ex.getCause() instanceof final Exception cause ? cause
+								: new DataAccessException("Relationship loading failed", ex.getCause());
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			actionsAsync = actionsAsyncNew;
 		}
-		Condition condition = null;
-		if (conditions.size() == 1) {
-			condition = conditions.get(0);
-		} else {
-			condition = new Condition(Filters.and(conditions.stream().map(Condition::getFilter).toList()));
-		}
-		return condition;
 	}
 
 	/**
-	 * Retrieves all entities of the specified type matching the conditions (raw QueryOptions variant).
+	 * Returns the buffer collecting the link operations of the current write, if any.
 	 *
-	 * @param clazz   The class of the entity
-	 * @param options Query options including conditions, filters, limits, etc.
-	 * @return List of matching entities as Objects
-	 * @throws DataAccessException if a data access error occurs
-	 * @throws IOException         if an I/O error occurs
+	 * @return The buffer used by {@link MongoLinkManager}, or null outside a write
 	 */
-	public List<Object> getsRaw(final Class<?> clazz, final QueryOptions options)
-			throws DataAccessException, IOException {
-		final Condition condition = conditionFusionOrEmpty(options, false);
-		final List<LazyGetter> lazyCall = new ArrayList<>();
-		final DbClassModel model;
-		try {
-			model = DbClassModel.of(clazz);
-		} catch (final IntrospectionException e) {
-			throw new DataAccessException("Failed to introspect class: " + clazz.getSimpleName(), e);
+	public LinkOperationBuffer getLinkBuffer() {
+		return this.linkBuffer;
+	}
+
+	/**
+	 * Executes the deferred actions of a write (link maintenance, cascades) level by level.
+	 *
+	 * <p>
+	 * The link operations of the actions are collected in a {@link LinkOperationBuffer} and sent grouped by
+	 * collection at the end of each level, so the next level sees them. Nested writes (cascade deletes) share
+	 * the buffer of the outer write.
+	 * </p>
+	 *
+	 * @param actions The first level of actions to execute
+	 * @throws Exception if one of the actions or a link operation fails
+	 */
+	void runWriteActions(final List<LazyGetter> actions) throws Exception {
+		if (actions.isEmpty()) {
+			return;
+		}
+		final boolean owner = this.linkBuffer == null;
+		if (owner) {
+			this.linkBuffer = new LinkOperationBuffer(this);
 		}
-		final String deletedFieldName = model.getDeletedFieldName();
-		final String collectionName = model.getTableName(options);
-		final List<Object> outs = new ArrayList<>();
-		final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
 		try {
-			// Generate the filtering of the data:
-			final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
-			if (filters != null) {
-				LOGGER.trace("filter = {}",
-						filters.toBsonDocument().toJson(JsonWriterSettings.builder().indent(true).build()));
-			} else {
-				LOGGER.trace("filter = None");
-			}
-			FindIterable<Document> retFind = null;
-			statistic.countFind++;
-			if (filters != null) {
-				// LOGGER.debug("getsWhere Find filter: {}", filters.toBsonDocument().toJson());
-				retFind = this.session != null ? collection.find(this.session, filters) : collection.find(filters);
-			} else {
-				retFind = this.session != null ? collection.find(this.session) : collection.find();
-			}
-			final List<OrderBy> orders = options.get(OrderBy.class);
-			if (orders.size() != 0) {
-				final Document sorts = new Document();
-				for (final OrderBy order : orders) {
-					order.generateSort(sorts);
+			List<LazyGetter> actionsAsync = actions;
+			for (int kkk = 0; kkk < 500 && actionsAsync.size() != 0; kkk++) {
+				final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
+				for (final LazyGetter action : actionsAsync) {
+					action.doRequest(actionsAsyncNew);
 				}
-				retFind = retFind.sort(sorts);
+				this.linkBuffer.flush();
+				actionsAsync = actionsAsyncNew;
 			}
-
-			final List<Limit> limits = options.get(Limit.class);
-			if (limits.size() == 1) {
-				retFind = retFind.limit((int) limits.get(0).getValue());
-			} else if (limits.size() > 1) {
-				throw new DataAccessException("Request with multiple 'limit'...");
+		} finally {
+			if (owner) {
+				this.linkBuffer = null;
 			}
-			// Select values to read
-			final List<String> listFields = generateSelectField(clazz, options);
-			listFields.add("_id");
-			retFind = retFind.projection(Projections.include(listFields.toArray(new String[0])));
+		}
+	}
 
-			LOGGER.trace("GetsWhere ...");
-			final LazyGetterCollector batchCollector = new LazyGetterCollector();
-			final MongoCursor<Document> cursor = retFind.iterator();
-			try (cursor) {
-				while (cursor.hasNext()) {
-					final Document doc = cursor.next();
-					LOGGER.trace(" - receive data from DB: {}",
-							doc.toJson(JsonWriterSettings.builder().indent(true).build()));
-					final Object data = createObjectFromDocument(doc, clazz, options, lazyCall, batchCollector);
-					outs.add(data);
-				}
-				// Add batched lazy getters (entity-reference fields grouped by target entity)
-				if (!batchCollector.isEmpty()) {
-					lazyCall.addAll(batchCollector.buildLazyGetters(this));
-				}
-				// LOGGER.trace("Async calls: {}", lazyCall.size());
-				List<LazyGetter> actionsAsync = lazyCall;
-				for (int kkk = 0; kkk < 500 && actionsAsync.size() != 0; kkk++) {
-					final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
-					for (final LazyGetter action : actionsAsync) {
-						action.doRequest(actionsAsyncNew);
-					}
-					actionsAsync = actionsAsyncNew;
-				}
+	/**
+	 * Executes deferred actions serially until none is left (each action may enqueue follow-up actions).
+	 *
+	 * @param actions The first level of actions to execute
+	 * @throws Exception if one of the actions fails
+	 */
+	static void runLazyGetters(final List<LazyGetter> actions) throws Exception {
+		List<LazyGetter> actionsAsync = actions;
+		for (int kkk = 0; kkk < 500 && actionsAsync.size() != 0; kkk++) {
+			final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
+			for (final LazyGetter action : actionsAsync) {
+				action.doRequest(actionsAsyncNew);
 			}
-		} catch (final Exception ex) {
-			LOGGER.error("Failed to retrieve data: {}", ex.getMessage(), ex);
-			throw new DataAccessException("Catch an Exception: " + ex.getMessage());
+			actionsAsync = actionsAsyncNew;
 		}
-		return outs;
+	}
+
+	/** Default number of documents read per window by {@link #stream(Class, QueryOption...)}. */
+	public static final int DEFAULT_STREAM_BATCH_SIZE = 500;
+
+	/**
+	 * Iterates over the entities matching the conditions without loading the whole result in memory.
+	 *
+	 * <p>
+	 * Documents are read from the cursor by windows of {@link BatchSize} rows (default
+	 * {@value #DEFAULT_STREAM_BATCH_SIZE}); relationships of a window are resolved with grouped queries before
+	 * its entities are returned. The iterator must be closed to release the server cursor.
+	 * </p>
+	 *
+	 * <pre>
+	 * try (DataStreamIterator&lt;User&gt; it = db.iterate(User.class, new BatchSize(1000))) {
+	 *     while (it.hasNext()) {
+	 *         export(it.next());
+	 *     }
+	 * }
+	 * </pre>
+	 *
+	 * @param <T>    The type of the entity
+	 * @param clazz  The class of the entity
+	 * @param option Query options including conditions, order, limit and batch size
+	 * @return A closeable iterator over the matching entities
+	 * @throws Exception if the request cannot be created
+	 */
+	public <T> DataStreamIterator<T> iterate(final Class<T> clazz, final QueryOption... option) throws Exception {
+		final QueryOptions options = new QueryOptions(option);
+		final int batchSize = BatchSize.getOrDefault(options, DEFAULT_STREAM_BATCH_SIZE);
+		final FindIterable<Document> retFind = prepareFind(clazz, options, null, Document.class).batchSize(batchSize);
+		return new DataStreamIterator<>(this, retFind.iterator(), clazz, options, batchSize);
+	}
+
+	/**
+	 * Streams the entities matching the conditions without loading the whole result in memory.
+	 *
+	 * <p>
+	 * Same behavior as {@link #iterate(Class, QueryOption...)}; the stream must be closed (try-with-resources)
+	 * to release the server cursor.
+	 * </p>
+	 *
+	 * @param <T>    The type of the entity
+	 * @param clazz  The class of the entity
+	 * @param option Query options including conditions, order, limit and batch size
+	 * @return A closeable sequential stream over the matching entities
+	 * @throws Exception if the request cannot be created
+	 */
+	public <T> Stream<T> stream(final Class<T> clazz, final QueryOption... option) throws Exception {
+		return iterate(clazz, option).stream();
 	}
 
 	/**
@@ -1756,6 +3351,9 @@ public class DBAccessMongo implements Closeable {
 				}
 			}
 		}
+		if (options.exist(TrackChanges.class)) {
+			ChangeTracker.snapshot(data, dbModel, documentModel, options, this.db.getDatabase().getCodecRegistry());
+		}
 		return data;
 	}
 
@@ -1776,18 +3374,57 @@ public class DBAccessMongo implements Closeable {
 		try {
 			// Generate the filtering of the data:
 			final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
-			statistic.countCountDocuments++;
-			if (filters != null) {
-				return this.session != null ? collection.countDocuments(this.session, filters)
-						: collection.countDocuments(filters);
+			// estimatedDocumentCount reads the collection metadata: no filter, no transaction
+			final boolean estimated = CountMode.get(options, CountMode.Mode.ESTIMATED) != null
+					&& condition.getFilter() == null && this.session == null;
+			final CountMode capped = CountMode.get(options, CountMode.Mode.CAPPED);
+			final CountMode approximate = this.session == null ? CountMode.get(options, CountMode.Mode.CACHED) : null;
+			final UseCache useCache = this.session == null ? UseCache.get(options) : null;
+			if (approximate == null && useCache == null) {
+				return countDocuments(collection, filters, estimated, capped);
+			}
+			final String kind = (approximate != null ? "approximate-count" : "count") + (estimated ? "-estimated" : "")
+					+ (capped != null ? "-capped-" + capped.getLimit() : "");
+			final String key = fingerprint(kind, collectionName, filters, null, null, null, null);
+			final Long cached = QueryCache.getCount(key);
+			if (cached != null) {
+				return cached;
 			}
-			return this.session != null ? collection.countDocuments(this.session) : collection.countDocuments();
+			if (approximate != null) {
+				final long count = countDocuments(collection, filters, estimated, capped);
+				QueryCache.putApproximateCount(getDatabaseName(), collectionName, key, count, approximate.getTtl());
+				return count;
+			}
+			final long generation = QueryCache.generation(getDatabaseName(), collectionName);
+			final long count = countDocuments(collection, filters, estimated, capped);
+			QueryCache.putCount(getDatabaseName(), collectionName, key, count, useCache.getTtl(), generation);
+			return count;
 		} catch (final Exception ex) {
 			LOGGER.error("Failed to count documents: {}", ex.getMessage(), ex);
 			throw new DataAccessException("Catch an Exception: " + ex.getMessage());
 		}
 	}
 
+	private long countDocuments(
+			final MongoCollection<Document> collection,
+			final Bson filters,
+			final boolean estimated,
+			final CountMode capped) {
+		if (estimated) {
+			statistic.countEstimatedDocumentCount.incrementAndGet();
+			final long count = collection.estimatedDocumentCount();
+			return capped != null ? Math.min(count, capped.getLimit()) : count;
+		}
+		statistic.countCountDocuments.incrementAndGet();
+		final CountOptions countOptions = new CountOptions();
+		if (capped != null) {
+			countOptions.limit((int) Math.min(capped.getLimit(), Integer.MAX_VALUE));
+		}
+		final Bson filter = filters != null ? filters : new Document();
+		return this.session != null ? collection.countDocuments(this.session, filter, countOptions)
+				: collection.countDocuments(filter, countOptions);
+	}
+
 	/**
 	 * Performs a hard (physical) delete of an entity by its unique identifier.
 	 *
@@ -1830,17 +3467,60 @@ public class DBAccessMongo implements Closeable {
 			options.add(new ReadAllColumn());
 			previousData = this.getsRaw(clazz, options);
 		}
-		for (final DbPropertyDescriptor desc : deleteActionFields) {
-			desc.getAddOn().onDelete(this, clazz, desc, previousData, lazyCall);
+		final Map<Class<?>, Set<Object>> parentCascadeDeletes = this.cascadeDeletes;
+		final Map<Class<?>, Set<Object>> collected = new LinkedHashMap<>();
+		this.cascadeDeletes = collected;
+		try {
+			for (final DbPropertyDescriptor desc : deleteActionFields) {
+				desc.getAddOn().onDelete(this, clazz, desc, previousData, lazyCall);
+			}
+		} finally {
+			this.cascadeDeletes = parentCascadeDeletes;
 		}
-		List<LazyGetter> actionsAsync = lazyCall;
-		for (int kkk = 0; kkk < 500 && actionsAsync.size() != 0; kkk++) {
-			final List<LazyGetter> actionsAsyncNew = new ArrayList<>();
-			for (final LazyGetter action : actionsAsync) {
-				action.doRequest(actionsAsyncNew);
+		// One delete per target entity: the children cascade is evaluated on all of them at once
+		for (final Map.Entry<Class<?>, Set<Object>> entry : collected.entrySet()) {
+			final Class<?> targetEntity = entry.getKey();
+			final String pkColumn = DbClassModel.of(targetEntity).getPrimaryKey().getDbFieldName();
+			final List<Object> ids = new ArrayList<>(entry.getValue());
+			for (int offset = 0; offset < ids.size(); offset += MAX_CASCADE_DELETE_BATCH) {
+				final List<Object> batchIds = ids.subList(offset,
+						Math.min(offset + MAX_CASCADE_DELETE_BATCH, ids.size()));
+				lazyCall.add((final List<LazyGetter> actionsAsync) -> {
+					delete(targetEntity, new Condition(Filters.in(pkColumn, batchIds)));
+				});
 			}
-			actionsAsync = actionsAsyncNew;
 		}
+		runWriteActions(lazyCall);
+	}
+
+	/**
+	 * Registers entities to delete in cascade of the current delete.
+	 *
+	 * <p>
+	 * Called by the add-ons from {@link DataAccessAddOn#onDelete}: the ids are grouped per target entity and
+	 * deleted with one {@code $in} request per entity and level, whose own cascade is evaluated from one read of
+	 * all the deleted children.
+	 * </p>
+	 *
+	 * @param targetEntity The class of the entities to delete
+	 * @param ids          Their primary keys
+	 * @param actions      The actions of the current delete (used outside {@link #actionOnDelete})
+	 * @throws Exception if the target entity can not be introspected
+	 */
+	public void deleteInCascade(final Class<?> targetEntity, final Collection<?> ids, final List<LazyGetter> actions)
+			throws Exception {
+		if (ids.isEmpty()) {
+			return;
+		}
+		if (this.cascadeDeletes != null) {
+			this.cascadeDeletes.computeIfAbsent(targetEntity, k -> new LinkedHashSet<>()).addAll(ids);
+			return;
+		}
+		final String pkColumn = DbClassModel.of(targetEntity).getPrimaryKey().getDbFieldName();
+		final List<Object> batchIds = new ArrayList<>(ids);
+		actions.add((final List<LazyGetter> actionsAsync) -> {
+			delete(targetEntity, new Condition(Filters.in(pkColumn, batchIds)));
+		});
 	}
 
 	/**
@@ -1875,41 +3555,46 @@ public class DBAccessMongo implements Closeable {
 		final String collectionName = model.getTableName(options);
 		final String deletedFieldName = model.getDeletedFieldName();
 		final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-		final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
+		invalidateCaches(collectionName);
+		try {
+			final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
 
-		// If the entity has an @DataAsyncHardDeleted field and ForceHardDelete is not requested,
-		// perform an async hard delete (set hardDeleted=true and deleted=true) instead of physical removal.
-		final String asyncHardDeletedFieldName = model.getAsyncHardDeletedFieldName();
-		if (asyncHardDeletedFieldName != null && !options.exist(ForceHardDelete.class)) {
-			final DbPropertyDescriptor updateTsDesc = model.getUpdateTimestamp();
-			final Document setFields = new Document(asyncHardDeletedFieldName, true);
-			if (deletedFieldName != null) {
-				setFields.append(deletedFieldName, true);
-			}
-			if (updateTsDesc != null) {
-				setFields.append(updateTsDesc.getDbFieldName(), Date.from(Instant.now()));
-			}
-			final Document actions = new Document("$set", setFields);
-			if (filters == null) {
-				throw new DataAccessException("Too dangerous to delete element with no filter values !!!");
+			// If the entity has an @DataAsyncHardDeleted field and ForceHardDelete is not requested,
+			// perform an async hard delete (set hardDeleted=true and deleted=true) instead of physical removal.
+			final String asyncHardDeletedFieldName = model.getAsyncHardDeletedFieldName();
+			if (asyncHardDeletedFieldName != null && !options.exist(ForceHardDelete.class)) {
+				final DbPropertyDescriptor updateTsDesc = model.getUpdateTimestamp();
+				final Document setFields = new Document(asyncHardDeletedFieldName, true);
+				if (deletedFieldName != null) {
+					setFields.append(deletedFieldName, true);
+				}
+				if (updateTsDesc != null) {
+					setFields.append(updateTsDesc.getDbFieldName(), Date.from(Instant.now()));
+				}
+				final Document actions = new Document("$set", setFields);
+				if (filters == null) {
+					throw new DataAccessException("Too dangerous to delete element with no filter values !!!");
+				}
+				statistic.countUpdateMany.incrementAndGet();
+				final UpdateResult ret = this.session != null ? collection.updateMany(this.session, filters, actions)
+						: collection.updateMany(filters, actions);
+				return ret.getModifiedCount();
 			}
-			statistic.countUpdateMany++;
-			final UpdateResult ret = this.session != null ? collection.updateMany(this.session, filters, actions)
-					: collection.updateMany(filters, actions);
-			return ret.getModifiedCount();
-		}
 
-		actionOnDelete(clazz, option);
+			actionOnDelete(clazz, option);
 
-		DeleteResult retFind;
-		if (filters != null) {
-			statistic.countDeleteMany++;
-			retFind = this.session != null ? collection.deleteMany(this.session, filters)
-					: collection.deleteMany(filters);
-		} else {
-			throw new DataAccessException("Too dangerous to delete element with no filter values !!!");
+			DeleteResult retFind;
+			if (filters != null) {
+				statistic.countDeleteMany.incrementAndGet();
+				retFind = this.session != null ? collection.deleteMany(this.session, filters)
+						: collection.deleteMany(filters);
+			} else {
+				throw new DataAccessException("Too dangerous to delete element with no filter values !!!");
+			}
+			return retFind.getDeletedCount();
+		} finally {
+			invalidateCaches(collectionName);
 		}
-		return retFind.getDeletedCount();
 	}
 
 	/**
@@ -1968,20 +3653,25 @@ public class DBAccessMongo implements Closeable {
 		final String collectionName = model.getTableName(options);
 		final String deletedFieldName = model.getDeletedFieldName();
 		final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-		final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
-		final DbPropertyDescriptor updateTsDesc = model.getUpdateTimestamp();
-		Document actions = null;
-		if (updateTsDesc == null) {
-			actions = new Document("$set", new Document(deletedFieldName, true));
-		} else {
-			actions = new Document("$set", new Document(deletedFieldName, true).append(updateTsDesc.getDbFieldName(),
-					Date.from(Instant.now())));
+		invalidateCaches(collectionName);
+		try {
+			final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
+			final DbPropertyDescriptor updateTsDesc = model.getUpdateTimestamp();
+			Document actions = null;
+			if (updateTsDesc == null) {
+				actions = new Document("$set", new Document(deletedFieldName, true));
+			} else {
+				actions = new Document("$set", new Document(deletedFieldName, true)
+						.append(updateTsDesc.getDbFieldName(), Date.from(Instant.now())));
+			}
+			actionOnDelete(clazz, option);
+			statistic.countUpdateMany.incrementAndGet();
+			final UpdateResult ret = this.session != null ? collection.updateMany(this.session, filters, actions)
+					: collection.updateMany(filters, actions);
+			return ret.getModifiedCount();
+		} finally {
+			invalidateCaches(collectionName);
 		}
-		actionOnDelete(clazz, option);
-		statistic.countUpdateMany++;
-		final UpdateResult ret = this.session != null ? collection.updateMany(this.session, filters, actions)
-				: collection.updateMany(filters, actions);
-		return ret.getModifiedCount();
 	}
 
 	/**
@@ -2084,12 +3774,17 @@ public class DBAccessMongo implements Closeable {
 			throw new DataAccessException("The class " + clazz.getCanonicalName() + " has no deleted field");
 		}
 		final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-		final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
-		final Document actions = new Document("$set", new Document(deletedFieldName, false));
-		statistic.countUpdateMany++;
-		final UpdateResult ret = this.session != null ? collection.updateMany(this.session, filters, actions)
-				: collection.updateMany(filters, actions);
-		return ret.getModifiedCount();
+		invalidateCaches(collectionName);
+		try {
+			final Bson filters = condition.getFilter(collectionName, options, deletedFieldName);
+			final Document actions = new Document("$set", new Document(deletedFieldName, false));
+			statistic.countUpdateMany.incrementAndGet();
+			final UpdateResult ret = this.session != null ? collection.updateMany(this.session, filters, actions)
+					: collection.updateMany(filters, actions);
+			return ret.getModifiedCount();
+		} finally {
+			invalidateCaches(collectionName);
+		}
 	}
 
 	/**
@@ -2116,8 +3811,13 @@ public class DBAccessMongo implements Closeable {
 		final QueryOptions options = new QueryOptions(option);
 		final String collectionName = DbClassModel.of(clazz).getTableName(options);
 		final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-		statistic.countDrop++;
-		collection.drop();
+		invalidateCaches(collectionName);
+		try {
+			statistic.countDrop.incrementAndGet();
+			collection.drop();
+		} finally {
+			invalidateCaches(collectionName);
+		}
 	}
 
 	/**
@@ -2144,11 +3844,16 @@ public class DBAccessMongo implements Closeable {
 		final QueryOptions options = new QueryOptions(option);
 		final String collectionName = DbClassModel.of(clazz).getTableName(options);
 		final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-		statistic.countDeleteMany++;
-		if (this.session != null) {
-			collection.deleteMany(this.session, new Document());
-		} else {
-			collection.deleteMany(new Document());
+		invalidateCaches(collectionName);
+		try {
+			statistic.countDeleteMany.incrementAndGet();
+			if (this.session != null) {
+				collection.deleteMany(this.session, new Document());
+			} else {
+				collection.deleteMany(new Document());
+			}
+		} finally {
+			invalidateCaches(collectionName);
 		}
 	}
 
@@ -2187,19 +3892,24 @@ public class DBAccessMongo implements Closeable {
 			throws DataAccessException {
 		try {
 			final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-			statistic.countInsertOne++;
-			final InsertOneResult result = this.session != null ? collection.insertOne(this.session, document)
-					: collection.insertOne(document);
-			final Object insertedId = result.getInsertedId();
-			if (insertedId != null && insertedId instanceof org.bson.BsonObjectId) {
-				return ((org.bson.BsonObjectId) insertedId).getValue();
-			}
-			// If no ID was returned, check if the document has one
-			final Object docId = document.get("_id");
-			if (docId instanceof ObjectId) {
-				return (ObjectId) docId;
-			}
-			throw new DataAccessException("Failed to retrieve inserted document ID");
+			invalidateCaches(collectionName);
+			try {
+				statistic.countInsertOne.incrementAndGet();
+				final InsertOneResult result = this.session != null ? collection.insertOne(this.session, document)
+						: collection.insertOne(document);
+				final Object insertedId = result.getInsertedId();
+				if (insertedId != null && insertedId instanceof org.bson.BsonObjectId) {
+					return ((org.bson.BsonObjectId) insertedId).getValue();
+				}
+				// If no ID was returned, check if the document has one
+				final Object docId = document.get("_id");
+				if (docId instanceof ObjectId) {
+					return (ObjectId) docId;
+				}
+				throw new DataAccessException("Failed to retrieve inserted document ID");
+			} finally {
+				invalidateCaches(collectionName);
+			}
 		} catch (final DataAccessException ex) {
 			throw ex;
 		} catch (final Exception ex) {
@@ -2245,7 +3955,7 @@ public class DBAccessMongo implements Closeable {
 			final Condition condition = conditionFusionOrEmpty(queryOptions, false);
 			final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
 			final Bson filters = condition.getFilter(collectionName, queryOptions, null);
-			statistic.countFind++;
+			statistic.countFind.incrementAndGet();
 			final FindIterable<Document> cursor;
 			if (filters != null) {
 				cursor = this.session != null ? collection.find(this.session, filters) : collection.find(filters);
@@ -2300,7 +4010,7 @@ public class DBAccessMongo implements Closeable {
 			final Condition condition = conditionFusionOrEmpty(queryOptions, false);
 			final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
 			final Bson filters = condition.getFilter(collectionName, queryOptions, null);
-			statistic.countFind++;
+			statistic.countFind.incrementAndGet();
 			FindIterable<Document> cursor;
 			if (filters != null) {
 				cursor = this.session != null ? collection.find(this.session, filters) : collection.find(filters);
@@ -2380,19 +4090,24 @@ public class DBAccessMongo implements Closeable {
 			final QueryOptions queryOptions = new QueryOptions(options);
 			final Condition condition = conditionFusionOrEmpty(queryOptions, false);
 			final MongoCollection<Document> collection = this.db.getDatabase().getCollection(collectionName);
-			final Bson filters = condition.getFilter(collectionName, queryOptions, null);
-			statistic.countUpdateMany++;
-			if (filters != null) {
+			invalidateCaches(collectionName);
+			try {
+				final Bson filters = condition.getFilter(collectionName, queryOptions, null);
+				statistic.countUpdateMany.incrementAndGet();
+				if (filters != null) {
+					final UpdateResult result = this.session != null
+							? collection.updateMany(this.session, filters, updateDocument)
+							: collection.updateMany(filters, updateDocument);
+					return result.getModifiedCount();
+				}
+				// If no filter, update all documents
 				final UpdateResult result = this.session != null
-						? collection.updateMany(this.session, filters, updateDocument)
-						: collection.updateMany(filters, updateDocument);
+						? collection.updateMany(this.session, new Document(), updateDocument)
+						: collection.updateMany(new Document(), updateDocument);
 				return result.getModifiedCount();
+			} finally {
+				invalidateCaches(collectionName);
 			}
-			// If no filter, update all documents
-			final UpdateResult result = this.session != null
-					? collection.updateMany(this.session, new Document(), updateDocument)
-					: collection.updateMany(new Document(), updateDocument);
-			return result.getModifiedCount();
 		} catch (final Exception ex) {
 			LOGGER.error("Failed to update BSON documents: {}", ex.getMessage(), ex);
 			throw new DataAccessException("Failed to update BSON documents: " + ex.getMessage());
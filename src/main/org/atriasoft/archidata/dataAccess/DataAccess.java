@@ -2,6 +2,7 @@ package org.atriasoft.archidata.dataAccess;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.atriasoft.archidata.checker.DataAccessConnectionContext;
 import org.atriasoft.archidata.dataAccess.options.Condition;
@@ -98,7 +99,7 @@ public class DataAccess {
 	 * Inserts multiple entities into the database.
 	 *
 	 * <p>
-	 * Each entity is inserted individually with its auto-generated ID.
+	 * Entities are sent with bulk requests and read back with one grouped query per batch.
 	 * </p>
 	 *
 	 * <p>
@@ -123,6 +124,34 @@ public class DataAccess {
 		}
 	}
 
+	/**
+	 * Inserts multiple entities with bulk requests and returns their generated primary keys.
+	 *
+	 * <p>
+	 * No entity is read back: use it for large imports where only the IDs are needed.
+	 * </p>
+	 *
+	 * <p>
+	 * Example usage:
+	 * </p>
+	 * <pre>
+	 * List&lt;Object&gt; ids = DataAccess.insertMultipleKeys(events, new BatchSize(5000));
+	 * </pre>
+	 *
+	 * @param <T>     The type of entities
+	 * @param data    List of entities to insert
+	 * @param options Optional query options (e.g., BatchSize)
+	 * @return The generated primary keys, in the same order as {@code data}
+	 * @throws Exception if insertion fails
+	 */
+	public static <T> List<Object> insertMultipleKeys(final List<T> data, final QueryOption... options)
+			throws Exception {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.insertMultipleKeys(data, options);
+		}
+	}
+
 	/**
 	 * Inserts a single entity into the database.
 	 *
@@ -274,6 +303,64 @@ public class DataAccess {
 		}
 	}
 
+	/**
+	 * Updates multiple entities, each one identified by its own primary key, with bulk requests.
+	 *
+	 * <pre>
+	 * users.forEach(user -&gt; user.rank = computeRank(user));
+	 * DataAccess.updateMultiple(users, new FilterValue(List.of("rank")));
+	 * </pre>
+	 *
+	 * @param <T>     The type of entity
+	 * @param data    Entities to update (primary key must be set)
+	 * @param options Query options (e.g., FilterValue, BatchSize)
+	 * @return Number of entities modified
+	 * @throws Exception if update fails
+	 * @see DBAccessMongo#updateMultiple(List, QueryOption...)
+	 */
+	public static <T> long updateMultiple(final List<T> data, final QueryOption... options) throws Exception {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.updateMultiple(data, options);
+		}
+	}
+
+	/**
+	 * Updates entities matching a filter with a prepared write plan.
+	 *
+	 * @param <T>    The type of entity
+	 * @param plan   The write plan (see {@link PreparedUpdate#of(Class, QueryOption...)})
+	 * @param data   The entity containing the update values
+	 * @param filter The filter selecting the entities to update
+	 * @return Number of entities updated
+	 * @throws Exception if update fails
+	 * @see DBAccessMongo#update(PreparedUpdate, Object, Bson)
+	 */
+	public static <T> long update(final PreparedUpdate<T> plan, final T data, final Bson filter) throws Exception {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.update(plan, data, filter);
+		}
+	}
+
+	/**
+	 * Updates an entity identified by its primary key with a prepared write plan.
+	 *
+	 * @param <T>  The type of entity
+	 * @param plan The write plan (see {@link PreparedUpdate#of(Class, QueryOption...)})
+	 * @param data The entity containing the update values
+	 * @param id   The primary key of the entity
+	 * @return Number of entities updated (0 or 1)
+	 * @throws Exception if update fails
+	 * @see DBAccessMongo#updateById(PreparedUpdate, Object, Object)
+	 */
+	public static <T> long updateById(final PreparedUpdate<T> plan, final T data, final Object id) throws Exception {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.updateById(plan, data, id);
+		}
+	}
+
 	// ========================================================================
 	// Read/Get methods
 	// ========================================================================
@@ -360,6 +447,44 @@ public class DataAccess {
 		}
 	}
 
+	/**
+	 * Streams all entities matching conditions without loading the whole result in memory.
+	 *
+	 * <p>
+	 * The connection of the current thread is kept until the stream is closed, so the stream must be used in a
+	 * try-with-resources block on the calling thread. Relationships are resolved per window of
+	 * {@link org.atriasoft.archidata.dataAccess.options.BatchSize} rows.
+	 * </p>
+	 * <pre>
+	 * try (Stream&lt;User&gt; users = DataAccess.stream(User.class, new BatchSize(1000))) {
+	 *     users.forEach(exporter::write);
+	 * }
+	 * </pre>
+	 *
+	 * @param <T>     The type of entity
+	 * @param clazz   Entity class
+	 * @param options Query options (e.g., Condition, OrderBy, BatchSize)
+	 * @return Closeable stream of matching entities
+	 * @throws Exception if the request cannot be created
+	 * @see DBAccessMongo#stream(Class, QueryOption...)
+	 */
+	public static <T> Stream<T> stream(final Class<T> clazz, final QueryOption... options) throws Exception {
+		final DataAccessConnectionContext ctx = new DataAccessConnectionContext();
+		try {
+			final DBAccessMongo db = ctx.get();
+			return db.stream(clazz, options).onClose(() -> {
+				try {
+					ctx.close();
+				} catch (final IOException ex) {
+					LOGGER.error("Failed to release the stream connection: {}", ex.getMessage(), ex);
+				}
+			});
+		} catch (final Exception ex) {
+			ctx.close();
+			throw ex;
+		}
+	}
+
 	/**
 	 * Merges multiple conditions from options into a single condition.
 	 *
@@ -400,6 +525,94 @@ public class DataAccess {
 		}
 	}
 
+	/**
+	 * Retrieves the entities matching conditions decoded into a view holding a subset of the entity fields.
+	 *
+	 * <pre>
+	 * public record UserRow(ObjectId id, String name) {}
+	 *
+	 * List&lt;UserRow&gt; rows = DataAccess.getsAs(User.class, UserRow.class, new Limit(50));
+	 * </pre>
+	 *
+	 * @param <E>     The type of entity
+	 * @param <R>     The type of the view
+	 * @param entity  The class of the entity
+	 * @param view    The class of the view (record or class with properties named as entity fields)
+	 * @param options Query options (Condition, OrderBy, Limit...)
+	 * @return List of views of the matching entities
+	 * @throws DataAccessException if a view property does not match an entity field or the read fails
+	 * @throws IOException         if the connection fails
+	 * @see DBAccessMongo#getsAs(Class, Class, QueryOption...)
+	 */
+	public static <E, R> List<R> getsAs(final Class<E> entity, final Class<R> view, final QueryOption... options)
+			throws DataAccessException, IOException {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.getsAs(entity, view, options);
+		}
+	}
+
+	/**
+	 * Runs an aggregation pipeline on the collection of an entity and decodes the results.
+	 *
+	 * @param <R>        The type of the results
+	 * @param source     The entity whose collection is aggregated (soft-deleted entities are filtered out)
+	 * @param pipeline   The aggregation stages
+	 * @param resultType The class of the results (Document, record or entity class)
+	 * @param options    Query options (Condition, OverrideTableName, AllowDiskUse, BatchSize...)
+	 * @return The decoded results
+	 * @throws DataAccessException if the aggregation fails
+	 * @throws IOException         if the connection fails
+	 * @see DBAccessMongo#aggregate(Class, List, Class, QueryOption...)
+	 */
+	public static <R> List<R> aggregate(
+			final Class<?> source,
+			final List<? extends Bson> pipeline,
+			final Class<R> resultType,
+			final QueryOption... options) throws DataAccessException, IOException {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.aggregate(source, pipeline, resultType, options);
+		}
+	}
+
+	/**
+	 * Retrieves the entities matching a filter with a prepared read plan.
+	 *
+	 * @param <T>    The type of entity
+	 * @param plan   The read plan (see {@link PreparedQuery#of(Class, QueryOption...)})
+	 * @param filter The filter of the request, or null
+	 * @return List of matching entities
+	 * @throws DataAccessException if retrieval fails
+	 * @throws IOException         if the connection fails
+	 * @see DBAccessMongo#gets(PreparedQuery, Bson)
+	 */
+	public static <T> List<T> gets(final PreparedQuery<T> plan, final Bson filter)
+			throws DataAccessException, IOException {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.gets(plan, filter);
+		}
+	}
+
+	/**
+	 * Retrieves the first entity matching a filter with a prepared read plan.
+	 *
+	 * @param <T>    The type of entity
+	 * @param plan   The read plan (see {@link PreparedQuery#of(Class, QueryOption...)})
+	 * @param filter The filter of the request, or null
+	 * @return The first matching entity, or null if none
+	 * @throws DataAccessException if retrieval fails
+	 * @throws IOException         if the connection fails
+	 * @see DBAccessMongo#get(PreparedQuery, Bson)
+	 */
+	public static <T> T get(final PreparedQuery<T> plan, final Bson filter) throws DataAccessException, IOException {
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			return db.get(plan, filter);
+		}
+	}
+
 	// ========================================================================
 	// Count methods
 	// ========================================================================
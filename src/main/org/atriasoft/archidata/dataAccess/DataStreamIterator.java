@@ -0,0 +1,125 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoCursor;
+
+/**
+ * Closeable iterator over the result of a query, backed by a MongoDB cursor.
+ *
+ * <p>Documents are read by windows of a fixed number of rows. For each window a dedicated
+ * {@link LazyGetterCollector} is built and resolved before the window entities are returned, so the memory
+ * used stays bounded by the window size whatever the number of matching documents.
+ *
+ * <p>Not thread-safe: use it from the thread that owns the {@link DBAccessMongo} connection.
+ *
+ * @param <T> The type of the entity
+ */
+public class DataStreamIterator<T> implements Iterator<T>, AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DataStreamIterator.class);
+
+	private final DBAccessMongo ioDb;
+	private final MongoCursor<Document> cursor;
+	private final Class<T> clazz;
+	private final QueryOptions options;
+	private final int windowSize;
+	private final ArrayDeque<T> window;
+	private boolean closed = false;
+
+	/**
+	 * Creates an iterator on an opened cursor.
+	 *
+	 * @param ioDb       The database accessor used to resolve relationships
+	 * @param cursor     The opened cursor (closed with this iterator)
+	 * @param clazz      The class of the entity
+	 * @param options    Query options used to decode the documents
+	 * @param windowSize Number of documents decoded and resolved together
+	 */
+	DataStreamIterator(final DBAccessMongo ioDb, final MongoCursor<Document> cursor, final Class<T> clazz,
+			final QueryOptions options, final int windowSize) {
+		this.ioDb = ioDb;
+		this.cursor = cursor;
+		this.clazz = clazz;
+		this.options = options;
+		this.windowSize = windowSize;
+		this.window = new ArrayDeque<>(windowSize);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.window.isEmpty() && !this.closed) {
+			fillWindow();
+		}
+		return !this.window.isEmpty();
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return this.window.poll();
+	}
+
+	/**
+	 * Reads the next window of documents and resolves their relationships.
+	 * The cursor is closed as soon as it is exhausted.
+	 */
+	@SuppressWarnings("unchecked")
+	private void fillWindow() {
+		try {
+			final List<LazyGetter> lazyCall = new ArrayList<>();
+			final LazyGetterCollector batchCollector = new LazyGetterCollector();
+			while (this.window.size() < this.windowSize && this.cursor.hasNext()) {
+				final Document doc = this.cursor.next();
+				this.window.add((T) this.ioDb.createObjectFromDocument(doc, this.clazz, this.options, lazyCall,
+						batchCollector));
+			}
+			if (!batchCollector.isEmpty()) {
+				lazyCall.addAll(batchCollector.buildLazyGetters(this.ioDb));
+			}
+			this.ioDb.resolveLazyGetters(lazyCall);
+			if (this.window.size() < this.windowSize) {
+				close();
+			}
+		} catch (final Exception ex) {
+			LOGGER.error("Failed to read stream window: {}", ex.getMessage(), ex);
+			close();
+			throw new RuntimeException(new DataAccessException("Catch an Exception: " + ex.getMessage(), ex));
+		}
+	}
+
+	/**
+	 * Returns a sequential stream over the remaining entities; closing the stream closes this iterator.
+	 *
+	 * @return The stream of entities
+	 */
+	public Stream<T> stream() {
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(this::close);
+	}
+
+	/** Releases the server cursor. Calling it several times has no effect. */
+	@Override
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.cursor.close();
+	}
+}
@@ -0,0 +1,239 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.atriasoft.archidata.annotation.Cacheable;
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataStreamEvent.ChangeEvent;
+import org.atriasoft.archidata.dataStreamEvent.ChangeNotificationManager;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.model.changestream.FullDocument;
+
+/**
+ * Second-level cache of an entity marked with {@link Cacheable}, shared by all the connections of the node to the
+ * same database (each database has its own caches).
+ *
+ * <p>Keeps the documents read by primary key as {@link RawBsonDocument}s: each hit decodes a fresh
+ * {@link org.bson.Document}, so the entities built from the cache never share mutable state. Entries expire
+ * after the TTL of the annotation and the least recently used ones are evicted beyond its maximum size.
+ *
+ * <p>Invalidation:
+ * <ul>
+ * <li>a write of the collection through {@link DBAccessMongo} drops all the entries of the collection;</li>
+ * <li>an update, replace or delete event of the collection received by the {@link ChangeNotificationManager}
+ * drops the entry of the changed document (the listener is registered when the cache is created). The manager
+ * watches one database: a cache of another database, or created while the manager is not running, logs a warning
+ * and only sees the writes of the other nodes when its entries expire.</li>
+ * </ul>
+ * A read started before an invalidation does not store its documents: see {@link #generation()}.
+ */
+public final class EntityCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EntityCache.class);
+	private static final String MONGO_ID = "_id";
+
+	private static final Map<String, Map<Class<?>, Optional<EntityCache>>> CACHES = new ConcurrentHashMap<>();
+	private static final Map<Scope, List<EntityCache>> BY_COLLECTION = new ConcurrentHashMap<>();
+	/** Collections whose change events are listened to. */
+	private static final Set<String> LISTENED = ConcurrentHashMap.newKeySet();
+
+	/** A collection of a database. */
+	private record Scope(
+			String databaseName,
+			String collectionName) {}
+
+	private record Entry(
+			RawBsonDocument document,
+			long expireNanos) {}
+
+	private final String collectionName;
+	private final boolean keyedByMongoId;
+	private final long ttlNanos;
+	private final int maxSize;
+	private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long generation = 0;
+
+	private EntityCache(final DbClassModel model, final Cacheable config) {
+		this.collectionName = model.getTableName();
+		this.keyedByMongoId = MONGO_ID.equals(model.getPrimaryKey().getDbFieldName());
+		this.ttlNanos = config.unit().toNanos(config.ttl());
+		this.maxSize = config.maxSize();
+	}
+
+	/**
+	 * Returns the cache of an entity in a database.
+	 *
+	 * @param databaseName The database read
+	 * @param model        The model of the entity
+	 * @return The cache, or null if the entity is not marked with {@link Cacheable}
+	 */
+	public static EntityCache of(final String databaseName, final DbClassModel model) {
+		return CACHES.computeIfAbsent(databaseName, name -> new ConcurrentHashMap<>())
+				.computeIfAbsent(model.getClassModel().getClassType(), clazz -> {
+					final Cacheable config = clazz.getAnnotation(Cacheable.class);
+					if (config == null || model.getPrimaryKey() == null) {
+						return Optional.empty();
+					}
+					final EntityCache cache = new EntityCache(model, config);
+					final ChangeNotificationManager manager = ChangeNotificationManager.getInstance();
+					if (LISTENED.add(cache.collectionName)) {
+						manager.registerListener(EntityCache::onChange, cache.collectionName, FullDocument.DEFAULT);
+					}
+					if (!manager.isRunning() || !databaseName.equals(manager.getDatabaseName())) {
+						LOGGER.warn(
+								"ChangeNotificationManager not watching the database {}: the cache of {} only sees the writes of the other nodes when its entries expire ({} {})",
+								databaseName, clazz.getSimpleName(), config.ttl(), config.unit());
+					}
+					BY_COLLECTION.computeIfAbsent(new Scope(databaseName, cache.collectionName),
+							scope -> new CopyOnWriteArrayList<>()).add(cache);
+					return Optional.of(cache);
+				}).orElse(null);
+	}
+
+	/**
+	 * Drops all the cached entries of a collection.
+	 *
+	 * @param databaseName   The database written
+	 * @param collectionName The written collection
+	 */
+	public static void invalidate(final String databaseName, final String collectionName) {
+		final List<EntityCache> caches = BY_COLLECTION.get(new Scope(databaseName, collectionName));
+		if (caches != null) {
+			for (final EntityCache cache : caches) {
+				cache.clear();
+			}
+		}
+	}
+
+	/**
+	 * Drops all the cached entries of all the collections of a database (the database was dropped).
+	 *
+	 * @param databaseName The dropped database
+	 */
+	public static void invalidateAll(final String databaseName) {
+		for (final Map.Entry<Scope, List<EntityCache>> entry : BY_COLLECTION.entrySet()) {
+			if (entry.getKey().databaseName().equals(databaseName)) {
+				for (final EntityCache cache : entry.getValue()) {
+					cache.clear();
+				}
+			}
+		}
+	}
+
+	private static void onChange(final ChangeEvent event) {
+		if (event.isInsert()) {
+			// No negative caching: a new document makes no entry stale
+			return;
+		}
+		// The manager watches a single database
+		final List<EntityCache> caches = BY_COLLECTION
+				.get(new Scope(ChangeNotificationManager.getInstance().getDatabaseName(), event.getCollectionName()));
+		if (caches == null) {
+			return;
+		}
+		final Object id = toJavaId(event.getOid());
+		for (final EntityCache cache : caches) {
+			if (id != null && cache.keyedByMongoId) {
+				cache.remove(id);
+			} else {
+				cache.clear();
+			}
+		}
+		LOGGER.trace("Evicted {}({}) from the entity cache", event.getCollectionName(), id);
+	}
+
+	/** Converts the {@code _id} of a change event to the value stored in the entities. */
+	private static Object toJavaId(final Object oid) {
+		if (!(oid instanceof final BsonValue value)) {
+			return oid;
+		}
+		return switch (value.getBsonType()) {
+			case OBJECT_ID -> value.asObjectId().getValue();
+			case INT64 -> value.asInt64().getValue();
+			case INT32 -> value.asInt32().getValue();
+			case STRING -> value.asString().getValue();
+			case BINARY -> value.asBinary().getType() == 4 ? value.asBinary().asUuid() : null;
+			default -> null;
+		};
+	}
+
+	/**
+	 * Returns the current generation, to pass to {@link #put} once the documents are read: documents read
+	 * before an invalidation are not stored.
+	 *
+	 * @return The number of invalidations of this cache
+	 */
+	public synchronized long generation() {
+		return this.generation;
+	}
+
+	/**
+	 * Returns a cached document.
+	 *
+	 * @param id The primary key of the entity
+	 * @return The document, or null if it is not cached or expired
+	 */
+	public synchronized RawBsonDocument get(final Object id) {
+		final Entry entry = this.entries.get(id);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expireNanos() - System.nanoTime() < 0) {
+			this.entries.remove(id);
+			return null;
+		}
+		DBAccessMongo.statistic.countEntityCacheHit.incrementAndGet();
+		return entry.document();
+	}
+
+	/**
+	 * Stores a document read from the database.
+	 *
+	 * @param id         The primary key of the entity
+	 * @param document   The document
+	 * @param generation The {@link #generation()} taken before the document was read
+	 */
+	public synchronized void put(final Object id, final RawBsonDocument document, final long generation) {
+		if (id == null || generation != this.generation) {
+			return;
+		}
+		this.entries.put(id, new Entry(document, System.nanoTime() + this.ttlNanos));
+		while (this.entries.size() > this.maxSize) {
+			this.entries.remove(this.entries.keySet().iterator().next());
+		}
+	}
+
+	/**
+	 * Drops the entry of an entity.
+	 *
+	 * @param id The primary key of the entity
+	 */
+	public synchronized void remove(final Object id) {
+		this.entries.remove(id);
+		this.generation++;
+	}
+
+	/** Drops all the entries. */
+	public synchronized void clear() {
+		this.entries.clear();
+		this.generation++;
+	}
+
+	/**
+	 * Returns the number of cached entries (expired entries included until they are read).
+	 *
+	 * @return The number of entries
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+}
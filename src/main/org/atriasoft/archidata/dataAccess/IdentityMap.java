@@ -0,0 +1,151 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.model.codec.EntityCodecProvider;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
+import org.atriasoft.archidata.dataAccess.options.QueryOption;
+
+/**
+ * First-level cache of a {@link DBAccessMongo}: maps (collection, primary key) to the entity already decoded on
+ * this connection, so the same entity is read once per request.
+ *
+ * <p>Enabled with {@link DBAccessMongo#enableIdentityMap()}, or per request with
+ * {@code @DataAccessSingleConnection(identityMap = true)}. It serves {@link DBAccessMongo#getById},
+ * {@link DBAccessMongo#existsById} and the relationships loaded by {@link LazyGetterCollector}, when they are
+ * requested without option other than a {@link FetchPlan}.
+ *
+ * <p>The cached instances are returned as is: a caller modifying an entity modifies it for the next readers of
+ * the same connection. Any write through the connection drops the entries of the written collection, and the
+ * entries holding loaded links (they may embed entities of the written collection).
+ *
+ * <p>Thread-safe: the batched relationships of a read may be resolved by several workers.
+ */
+public final class IdentityMap {
+	/** Plan key of the entities read without fetch plan ({@link ConcurrentHashMap} refuses null keys). */
+	private static final Object NO_PLAN = new Object();
+
+	private record Key(
+			String collection,
+			Object id) {}
+
+	private record Entry(
+			Object entity,
+			boolean linked) {}
+
+	private final Map<Key, Map<Object, Entry>> entries = new ConcurrentHashMap<>();
+
+	/** Creates an empty identity map. */
+	public IdentityMap() {}
+
+	/**
+	 * Checks whether a request can be served by the identity map.
+	 *
+	 * @param options The options of the request, without its primary key condition
+	 * @return true if the options hold nothing other than a fetch plan
+	 */
+	public static boolean isCacheable(final QueryOptions options) {
+		for (final QueryOption option : options.getAll()) {
+			if (!(option instanceof FetchPlan)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a cached entity.
+	 *
+	 * @param collection The collection of the entity
+	 * @param id         The primary key of the entity
+	 * @param plan       The fetch plan the entity was read with (null: all the links loaded)
+	 * @return The entity, or null if it is not cached
+	 */
+	public Object get(final String collection, final Object id, final FetchPlan plan) {
+		final Map<Object, Entry> plans = this.entries.get(new Key(collection, id));
+		if (plans == null) {
+			return null;
+		}
+		final Entry entry = plans.get(plan == null ? NO_PLAN : plan);
+		if (entry == null) {
+			return null;
+		}
+		DBAccessMongo.statistic.countIdentityMapHit.incrementAndGet();
+		return entry.entity();
+	}
+
+	/**
+	 * Checks whether an entity is cached, whatever the fetch plan it was read with.
+	 *
+	 * @param collection The collection of the entity
+	 * @param id         The primary key of the entity
+	 * @return true if the entity is cached
+	 */
+	public boolean contains(final String collection, final Object id) {
+		final Map<Object, Entry> plans = this.entries.get(new Key(collection, id));
+		if (plans == null || plans.isEmpty()) {
+			return false;
+		}
+		DBAccessMongo.statistic.countIdentityMapHit.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Caches an entity read from the database.
+	 *
+	 * @param model      The model of the entity
+	 * @param collection The collection of the entity
+	 * @param id         The primary key of the entity
+	 * @param plan       The fetch plan the entity was read with (null: all the links loaded)
+	 * @param entity     The decoded entity
+	 */
+	public void put(
+			final DbClassModel model,
+			final String collection,
+			final Object id,
+			final FetchPlan plan,
+			final Object entity) {
+		if (id == null || entity == null) {
+			return;
+		}
+		final boolean linked = !FetchPlan.idsOnly().equals(plan) && !EntityCodecProvider.isDirectDecodable(model);
+		this.entries.computeIfAbsent(new Key(collection, id), k -> new ConcurrentHashMap<>())
+				.put(plan == null ? NO_PLAN : plan, new Entry(entity, linked));
+	}
+
+	/**
+	 * Drops the entries a write to a collection may have made stale: the entities of the collection and the
+	 * entities holding loaded links.
+	 *
+	 * @param collection The written collection
+	 */
+	public void invalidate(final String collection) {
+		this.entries.entrySet().removeIf(entry -> {
+			if (entry.getKey().collection().equals(collection)) {
+				return true;
+			}
+			entry.getValue().values().removeIf(Entry::linked);
+			return entry.getValue().isEmpty();
+		});
+	}
+
+	/** Drops all the entries. */
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Returns the number of cached entities.
+	 *
+	 * @return The number of (collection, primary key, fetch plan) entries
+	 */
+	public int size() {
+		int out = 0;
+		for (final Map<Object, Entry> plans : this.entries.values()) {
+			out += plans.size();
+		}
+		return out;
+	}
+}
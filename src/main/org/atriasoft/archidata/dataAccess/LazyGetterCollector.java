@@ -9,9 +9,7 @@ import java.util.Set;
 
 import org.atriasoft.archidata.bean.PropertyDescriptor;
 import org.atriasoft.archidata.dataAccess.model.DbClassModel;
-import org.atriasoft.archidata.dataAccess.options.Condition;
-
-import com.mongodb.client.model.Filters;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
 
 /**
  * Collects entity-reference loading requests across multiple rows and produces
@@ -25,10 +23,11 @@ public final class LazyGetterCollector {
 	/** Creates a new empty LazyGetterCollector. */
 	public LazyGetterCollector() {}
 
-	/** Grouping key: target entity class + the PK column used for lookup. */
+	/** Grouping key: target entity class + the PK column used for lookup + the fetch plan of the targets. */
 	private record BatchKey(
 			Class<?> targetEntity,
-			String idFieldColumn) {}
+			String idFieldColumn,
+			FetchPlan fetchPlan) {}
 
 	/** A single-value registration (ManyToOne: one ID -> one object). */
 	private record SingleRegistration(
@@ -61,7 +60,27 @@ public final class LazyGetterCollector {
 			final Object idValue,
 			final PropertyDescriptor prop,
 			final Object targetObject) {
-		final BatchKey key = new BatchKey(targetEntity, idFieldColumn);
+		registerSingle(targetEntity, idFieldColumn, idValue, prop, targetObject, null);
+	}
+
+	/**
+	 * Register a single-value entity reference (ManyToOne) read with a fetch plan.
+	 *
+	 * @param targetEntity  The entity class to look up
+	 * @param idFieldColumn The database column name of the primary key field
+	 * @param idValue       The ID value to look up
+	 * @param prop          The property descriptor used to set the resolved entity on the target object
+	 * @param targetObject  The object whose property will be populated with the resolved entity
+	 * @param fetchPlan     The fetch plan used to read the target entity (null: all its links are loaded)
+	 */
+	public void registerSingle(
+			final Class<?> targetEntity,
+			final String idFieldColumn,
+			final Object idValue,
+			final PropertyDescriptor prop,
+			final Object targetObject,
+			final FetchPlan fetchPlan) {
+		final BatchKey key = new BatchKey(targetEntity, idFieldColumn, fetchPlan);
 		this.singleRegs.computeIfAbsent(key, k -> new ArrayList<>())
 				.add(new SingleRegistration(idValue, prop, targetObject));
 	}
@@ -82,7 +101,27 @@ public final class LazyGetterCollector {
 			final List<Object> idValues,
 			final PropertyDescriptor prop,
 			final Object targetObject) {
-		final BatchKey key = new BatchKey(targetEntity, idFieldColumn);
+		registerMultiple(targetEntity, idFieldColumn, idValues, prop, targetObject, null);
+	}
+
+	/**
+	 * Register a multi-value entity reference (ManyToMany / OneToMany) read with a fetch plan.
+	 *
+	 * @param targetEntity  The entity class to look up
+	 * @param idFieldColumn The database column name of the primary key field
+	 * @param idValues      The list of ID values to look up
+	 * @param prop          The property descriptor used to set the resolved entity list on the target object
+	 * @param targetObject  The object whose property will be populated with the resolved entity list
+	 * @param fetchPlan     The fetch plan used to read the target entities (null: all their links are loaded)
+	 */
+	public void registerMultiple(
+			final Class<?> targetEntity,
+			final String idFieldColumn,
+			final List<Object> idValues,
+			final PropertyDescriptor prop,
+			final Object targetObject,
+			final FetchPlan fetchPlan) {
+		final BatchKey key = new BatchKey(targetEntity, idFieldColumn, fetchPlan);
 		this.multiRegs.computeIfAbsent(key, k -> new ArrayList<>())
 				.add(new MultiRegistration(idValues, prop, targetObject));
 	}
@@ -90,8 +129,8 @@ public final class LazyGetterCollector {
 	/**
 	 * Build batched LazyGetters from all accumulated registrations.
 	 * Each (targetEntity, idFieldColumn) pair produces ONE LazyGetter that:
-	 * 1. Collects all IDs (deduplicated)
-	 * 2. Executes one {@code $in} query
+	 * 1. Collects all IDs (deduplicated), taking the entities already in the {@link IdentityMap} of the connection
+	 * 2. Executes one {@code $in} query for the others
 	 * 3. Indexes results by PK
 	 * 4. Distributes to each registration's target object
 	 *
@@ -127,21 +166,43 @@ public final class LazyGetterCollector {
 			}
 
 			final Class<?> targetEntity = key.targetEntity();
-			final String idFieldColumn = key.idFieldColumn();
+			final FetchPlan fetchPlan = key.fetchPlan();
 
 			final LazyGetter batchGetter = (final List<LazyGetter> actionsAsync) -> {
-				// One grouped query for all IDs
-				final List<Object> resultList = ioDb.getsRaw(targetEntity,
-						new Condition(Filters.in(idFieldColumn, allIds)));
-
-				// Index results by PK
 				final DbClassModel entityModel = DbClassModel.of(targetEntity);
 				final Map<Object, Object> resultIndex = new HashMap<>();
-				if (resultList != null) {
-					for (final Object entity : resultList) {
-						final Object pkValue = entityModel.getPrimaryKey().getProperty().getValue(entity);
-						if (pkValue != null) {
-							resultIndex.put(pkValue, entity);
+				// Entities already read on this connection
+				final IdentityMap identityMap = ioDb.getIdentityMap();
+				final String collectionName = entityModel.getTableName();
+				Set<Object> missingIds = allIds;
+				if (identityMap != null) {
+					missingIds = new LinkedHashSet<>();
+					for (final Object id : allIds) {
+						final Object cached = identityMap.get(collectionName, id, fetchPlan);
+						if (cached != null) {
+							resultIndex.put(id, cached);
+						} else {
+							missingIds.add(id);
+						}
+					}
+				}
+
+				// One grouped query for all the other IDs
+				if (!missingIds.isEmpty()) {
+					final List<Object> resultList = fetchPlan == null
+							? ioDb.getsRawByIds(targetEntity, missingIds, new QueryOptions())
+							: ioDb.getsRawByIds(targetEntity, missingIds, new QueryOptions(fetchPlan));
+
+					// Index results by PK
+					if (resultList != null) {
+						for (final Object entity : resultList) {
+							final Object pkValue = entityModel.getPrimaryKey().getProperty().getValue(entity);
+							if (pkValue != null) {
+								resultIndex.put(pkValue, entity);
+								if (identityMap != null) {
+									identityMap.put(entityModel, collectionName, pkValue, fetchPlan, entity);
+								}
+							}
 						}
 					}
 				}
@@ -0,0 +1,120 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.atriasoft.archidata.dataAccess.options.BatchSize;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
+import org.atriasoft.archidata.dataAccess.options.FilterOmit;
+import org.atriasoft.archidata.dataAccess.options.FilterValue;
+import org.atriasoft.archidata.dataAccess.options.Limit;
+import org.atriasoft.archidata.dataAccess.options.Offset;
+import org.atriasoft.archidata.dataAccess.options.OptionRenameColumn;
+import org.atriasoft.archidata.dataAccess.options.OptionSpecifyType;
+import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.OrderItem;
+import org.atriasoft.archidata.dataAccess.options.OverrideTableName;
+import org.atriasoft.archidata.dataAccess.options.QueryOption;
+
+/**
+ * Computes the "shape" of a set of options: a value comparable with {@code equals} that identifies the options
+ * affecting a query or write plan, used as cache key for {@link PreparedQuery} and {@link PreparedUpdate}.
+ *
+ * <p>Flag options (without value) are identified by their class. Options with a value known to this class are
+ * identified by class and value. Other options are identified by instance, which keeps the plans correct but
+ * prevents sharing them.
+ */
+final class OptionShape {
+	/** Cache key of a plan. */
+	record Key(
+			Class<?> clazz,
+			List<Object> shape) {}
+
+	private static final Set<Class<?>> FLAG_OPTIONS = ConcurrentHashMap.newKeySet();
+
+	private OptionShape() {
+		// Utility class
+	}
+
+	/**
+	 * Builds the cache key of a plan.
+	 *
+	 * @param clazz   The entity class
+	 * @param options The options of the plan
+	 * @param ignored Option classes bound at execution time, not part of the shape
+	 * @return The key
+	 */
+	static Key of(final Class<?> clazz, final QueryOptions options, final Set<Class<?>> ignored) {
+		final List<Object> shape = new ArrayList<>();
+		for (final QueryOption option : options.getAll()) {
+			if (ignored.contains(option.getClass())) {
+				continue;
+			}
+			shape.add(shapeOf(option));
+		}
+		return new Key(clazz, shape);
+	}
+
+	private static Object shapeOf(final QueryOption option) {
+		if (option instanceof final OrderBy order) {
+			final List<Object> out = new ArrayList<>();
+			out.add(OrderBy.class);
+			for (final OrderItem item : order.getChilds()) {
+				out.add(item.value);
+				out.add(item.order);
+			}
+			return out;
+		}
+		if (option instanceof final Limit limit) {
+			return List.of(Limit.class, limit.getValue());
+		}
+		if (option instanceof final Offset offset) {
+			return List.of(Offset.class, offset.getValue());
+		}
+		if (option instanceof final BatchSize size) {
+			return List.of(BatchSize.class, size.getValue());
+		}
+		if (option instanceof final OverrideTableName table) {
+			return List.of(OverrideTableName.class, table.getName());
+		}
+		if (option instanceof final OptionRenameColumn rename) {
+			return List.of(OptionRenameColumn.class, rename.columnName, rename.ColumnNewName);
+		}
+		if (option instanceof final OptionSpecifyType specify) {
+			return List.of(OptionSpecifyType.class, specify.name, specify.clazz, specify.isList);
+		}
+		if (option instanceof final FilterValue filter) {
+			return List.of(FilterValue.class, List.copyOf(filter.filterValue));
+		}
+		if (option instanceof final FilterOmit filter) {
+			return List.of(FilterOmit.class, List.copyOf(filter.getValues()));
+		}
+		if (option instanceof final FetchPlan plan) {
+			// value-based equality
+			return plan;
+		}
+		if (isFlag(option.getClass())) {
+			return option.getClass();
+		}
+		return option;
+	}
+
+	private static boolean isFlag(final Class<?> clazz) {
+		if (FLAG_OPTIONS.contains(clazz)) {
+			return true;
+		}
+		for (Class<?> current = clazz; current != QueryOption.class; current = current.getSuperclass()) {
+			for (final Field field : current.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					return false;
+				}
+			}
+		}
+		FLAG_OPTIONS.add(clazz);
+		return true;
+	}
+}
@@ -0,0 +1,182 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.atriasoft.archidata.bean.exception.IntrospectionException;
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.Limit;
+import org.atriasoft.archidata.dataAccess.options.Offset;
+import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.PageAfter;
+import org.atriasoft.archidata.dataAccess.options.QueryOption;
+import org.atriasoft.archidata.dataAccess.options.TransmitKey;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+
+/**
+ * Read plan of an entity for a given set of options, computed once and reused.
+ *
+ * <p>The collection name, projection, sort, soft-delete filter, offset and limit are derived when the plan is
+ * created; executing it only binds the filter of the request:
+ *
+ * <pre>{@code
+ * private static final PreparedQuery<User> BY_TEAM = PreparedQuery.of(User.class, OrderBy.asc(User::getName),
+ *         new Limit(50));
+ *
+ * List<User> users = DataAccess.gets(BY_TEAM, Filters.eq("teamId", teamId));
+ * }</pre>
+ *
+ * <p>Plans are immutable and cached per (class, options): calling {@link #of(Class, QueryOption...)} on each
+ * request with the same options returns the same plan.
+ *
+ * @param <T> The type of the entity
+ */
+public final class PreparedQuery<T> {
+	private static final int MAX_CACHED_PLANS = 1024;
+	private static final Map<OptionShape.Key, PreparedQuery<?>> CACHE = new ConcurrentHashMap<>();
+
+	private final Class<T> clazz;
+	private final QueryOptions options;
+	private final String collectionName;
+	private final Bson projection;
+	private final Bson sort;
+	private final Bson deletedFilter;
+	private final int skip;
+	private final int limit;
+
+	private PreparedQuery(final Class<T> clazz, final QueryOptions options) throws DataAccessException {
+		final DbClassModel model;
+		try {
+			model = DbClassModel.of(clazz);
+		} catch (final IntrospectionException e) {
+			throw new DataAccessException("Failed to introspect class: " + clazz.getSimpleName(), e);
+		}
+		this.clazz = clazz;
+		this.options = options;
+		this.collectionName = model.getTableName(options);
+		final List<String> listFields = model.generateSelectFields(QueryOptions.readAllColumn(options), options);
+		listFields.add("_id");
+		this.projection = Projections.include(listFields);
+		final List<OrderBy> orders = options.get(OrderBy.class);
+		if (orders.isEmpty()) {
+			this.sort = null;
+		} else {
+			final Document sorts = new Document();
+			for (final OrderBy order : orders) {
+				order.generateSort(sorts);
+			}
+			this.sort = sorts;
+		}
+		this.deletedFilter = new Condition().getFilter(this.collectionName, options, model.getDeletedFieldName());
+		final List<Offset> offsets = options.get(Offset.class);
+		if (offsets.size() > 1) {
+			throw new DataAccessException("Request with multiple 'offset'...");
+		}
+		this.skip = offsets.isEmpty() ? 0 : (int) offsets.get(0).getValue();
+		final List<Limit> limits = options.get(Limit.class);
+		if (limits.size() > 1) {
+			throw new DataAccessException("Request with multiple 'limit'...");
+		}
+		this.limit = limits.isEmpty() ? 0 : (int) limits.get(0).getValue();
+	}
+
+	/**
+	 * Returns the read plan of an entity for the given options.
+	 *
+	 * @param <T>    The type of the entity
+	 * @param clazz  The class of the entity
+	 * @param option Options of the plan (OrderBy, Limit, Offset, ReadAllColumn, OverrideTableName...); the
+	 *               filter is given at execution
+	 * @return The plan (shared with the other callers using the same options)
+	 * @throws DataAccessException if an option can not be part of a plan or the options are inconsistent
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> PreparedQuery<T> of(final Class<T> clazz, final QueryOption... option)
+			throws DataAccessException {
+		final QueryOptions options = new QueryOptions(option);
+		for (final Class<?> bound : Set.of(Condition.class, TransmitKey.class, PageAfter.class)) {
+			if (options.exist(bound)) {
+				throw new DataAccessException(
+						"Option " + bound.getSimpleName() + " can not be prepared: give the filter at execution");
+			}
+		}
+		final OptionShape.Key key = OptionShape.of(clazz, options, Set.of());
+		final PreparedQuery<?> cached = CACHE.get(key);
+		if (cached != null) {
+			return (PreparedQuery<T>) cached;
+		}
+		final PreparedQuery<T> plan = new PreparedQuery<>(clazz, options);
+		if (CACHE.size() >= MAX_CACHED_PLANS) {
+			CACHE.clear();
+		}
+		CACHE.put(key, plan);
+		return plan;
+	}
+
+	/**
+	 * Returns the class of the entity read.
+	 *
+	 * @return The entity class
+	 */
+	public Class<T> getEntityClass() {
+		return this.clazz;
+	}
+
+	/**
+	 * Returns the options of the plan.
+	 *
+	 * @return The options
+	 */
+	public QueryOptions getOptions() {
+		return this.options;
+	}
+
+	/**
+	 * Returns the collection read.
+	 *
+	 * @return The collection name
+	 */
+	public String getCollectionName() {
+		return this.collectionName;
+	}
+
+	Bson getProjection() {
+		return this.projection;
+	}
+
+	Bson getSort() {
+		return this.sort;
+	}
+
+	int getSkip() {
+		return this.skip;
+	}
+
+	int getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * Combines the filter of a request with the soft-delete filter of the plan.
+	 *
+	 * @param filter The filter of the request (may be null)
+	 * @return The filter to send, or null when there is none
+	 */
+	Bson filter(final Bson filter) {
+		if (filter == null) {
+			return this.deletedFilter;
+		}
+		if (this.deletedFilter == null) {
+			return filter;
+		}
+		return Filters.and(this.deletedFilter, filter);
+	}
+}
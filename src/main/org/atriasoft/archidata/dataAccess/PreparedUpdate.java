@@ -0,0 +1,222 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.atriasoft.archidata.annotation.AnnotationTools.FieldName;
+import org.atriasoft.archidata.bean.exception.IntrospectionException;
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.DirectData;
+import org.atriasoft.archidata.dataAccess.options.FilterOmit;
+import org.atriasoft.archidata.dataAccess.options.FilterValue;
+import org.atriasoft.archidata.dataAccess.options.ForceReadOnlyField;
+import org.atriasoft.archidata.dataAccess.options.QueryOption;
+import org.atriasoft.archidata.dataAccess.options.TransmitKey;
+import org.atriasoft.archidata.exception.DataAccessException;
+
+/**
+ * Write plan of an entity for a given set of options, computed once and reused.
+ *
+ * <p>The fields written (after {@link FilterValue}, {@link FilterOmit} and read-only filtering), their names in
+ * the collection, the update timestamp field and the collection name are derived when the plan is created;
+ * executing it only encodes the values of the entity:
+ *
+ * <pre>{@code
+ * private static final PreparedUpdate<User> RENAME = PreparedUpdate.of(User.class,
+ *         new FilterValue(List.of("name")));
+ *
+ * DataAccess.updateById(RENAME, user, user.getId());
+ * }</pre>
+ *
+ * <p>{@link DBAccessMongo#update(Object, QueryOptions)} uses the same cached plans, so repeated updates with
+ * the same options do not re-evaluate the filters per field.
+ *
+ * @param <T> The type of the entity
+ */
+public final class PreparedUpdate<T> {
+	private static final int MAX_CACHED_PLANS = 1024;
+	private static final Map<OptionShape.Key, PreparedUpdate<?>> CACHE = new ConcurrentHashMap<>();
+	/** Options bound at execution time, not part of a plan. */
+	private static final Set<Class<?>> BOUND_OPTIONS = Set.of(Condition.class, TransmitKey.class);
+
+	/**
+	 * Field written by the plan.
+	 *
+	 * @param desc      The field descriptor
+	 * @param fieldName The name of the field in the collection
+	 */
+	record WriteField(
+			DbPropertyDescriptor desc,
+			String fieldName) {}
+
+	private final Class<T> clazz;
+	private final QueryOptions options;
+	private final DbClassModel model;
+	private final String collectionName;
+	private final String deletedFieldName;
+	private final boolean directData;
+	private final List<WriteField> addonFields = new ArrayList<>();
+	private final List<WriteField> regularFields = new ArrayList<>();
+	private final String updateTimestampField;
+
+	private PreparedUpdate(final Class<T> clazz, final QueryOptions options) throws DataAccessException {
+		try {
+			this.model = DbClassModel.of(clazz);
+		} catch (final IntrospectionException e) {
+			throw new DataAccessException("Failed to introspect class: " + clazz.getSimpleName(), e);
+		}
+		this.clazz = clazz;
+		this.options = options;
+		this.collectionName = this.model.getTableName(options);
+		this.deletedFieldName = this.model.getDeletedFieldName();
+		this.directData = options.exist(DirectData.class);
+		final boolean forceReadOnlyField = options.exist(ForceReadOnlyField.class);
+		final List<FilterValue> filterKeys = options.get(FilterValue.class);
+		if (filterKeys.size() != 1) {
+			throw new DataAccessException("request a gets without/or with more 1 FilterValue of values");
+		}
+		final List<String> values = filterKeys.get(0).getValues();
+		final List<FilterOmit> filterOmitKeys = options.get(FilterOmit.class);
+		if (filterOmitKeys.size() > 1) {
+			throw new DataAccessException("request a gets without/or with more 1 FilterOmit of values");
+		}
+		final List<String> omitted = filterOmitKeys.isEmpty() ? List.of() : filterOmitKeys.get(0).getValues();
+		for (final DbPropertyDescriptor desc : this.model.getAddonFields()) {
+			final FieldName fieldName = desc.getFieldName(options);
+			if (omitted.contains(fieldName.inStruct()) || !values.contains(fieldName.inStruct())) {
+				continue;
+			}
+			if (!forceReadOnlyField && desc.isApiReadOnly()) {
+				continue;
+			}
+			this.addonFields.add(new WriteField(desc, fieldName.inTable()));
+		}
+		for (final DbPropertyDescriptor desc : this.model.getRegularFields()) {
+			final FieldName fieldName = desc.getFieldName(options);
+			if (omitted.contains(fieldName.inStruct()) || !values.contains(fieldName.inStruct())) {
+				continue;
+			}
+			if ((!forceReadOnlyField && desc.isApiReadOnly()) || desc.getCodec() == null) {
+				continue;
+			}
+			this.regularFields.add(new WriteField(desc, fieldName.inTable()));
+		}
+		final DbPropertyDescriptor updateTsDesc = this.model.getUpdateTimestamp();
+		this.updateTimestampField = updateTsDesc != null && !this.directData
+				? updateTsDesc.getFieldName(options).inTable()
+				: null;
+	}
+
+	/**
+	 * Returns the write plan of an entity for the given options.
+	 *
+	 * <p>Without {@link FilterValue}, all the editable fields are written (same default as
+	 * {@link DBAccessMongo#updateById(Object, Object, QueryOption...)}).
+	 *
+	 * @param <T>    The type of the entity
+	 * @param clazz  The class of the entity
+	 * @param option Options of the plan (FilterValue, FilterOmit, OverrideTableName...); the target is given at
+	 *               execution
+	 * @return The plan (shared with the other callers using the same options)
+	 * @throws DataAccessException if an option can not be part of a plan or the options are inconsistent
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> PreparedUpdate<T> of(final Class<T> clazz, final QueryOption... option)
+			throws DataAccessException {
+		final QueryOptions options = new QueryOptions(option);
+		for (final Class<?> bound : BOUND_OPTIONS) {
+			if (options.exist(bound)) {
+				throw new DataAccessException(
+						"Option " + bound.getSimpleName() + " can not be prepared: give the target at execution");
+			}
+		}
+		if (!options.exist(FilterValue.class)) {
+			options.add(FilterValue.getEditableFieldsNames(clazz));
+		}
+		return (PreparedUpdate<T>) plan(clazz, options);
+	}
+
+	/**
+	 * Returns the cached write plan matching the options of an update request.
+	 *
+	 * @param clazz   The class of the entity
+	 * @param options The options of the request ({@link Condition} and {@link TransmitKey} are ignored)
+	 * @return The plan
+	 * @throws DataAccessException if the options are inconsistent
+	 */
+	static PreparedUpdate<?> plan(final Class<?> clazz, final QueryOptions options) throws DataAccessException {
+		final OptionShape.Key key = OptionShape.of(clazz, options, BOUND_OPTIONS);
+		final PreparedUpdate<?> cached = CACHE.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		final QueryOptions planOptions = new QueryOptions();
+		for (final QueryOption elem : options.getAll()) {
+			if (!BOUND_OPTIONS.contains(elem.getClass())) {
+				planOptions.add(elem);
+			}
+		}
+		final PreparedUpdate<?> plan = new PreparedUpdate<>(clazz, planOptions);
+		if (CACHE.size() >= MAX_CACHED_PLANS) {
+			CACHE.clear();
+		}
+		CACHE.put(key, plan);
+		return plan;
+	}
+
+	/**
+	 * Returns the class of the entity written.
+	 *
+	 * @return The entity class
+	 */
+	public Class<T> getEntityClass() {
+		return this.clazz;
+	}
+
+	/**
+	 * Returns the options of the plan.
+	 *
+	 * @return The options
+	 */
+	public QueryOptions getOptions() {
+		return this.options;
+	}
+
+	/**
+	 * Returns the collection written.
+	 *
+	 * @return The collection name
+	 */
+	public String getCollectionName() {
+		return this.collectionName;
+	}
+
+	DbClassModel getModel() {
+		return this.model;
+	}
+
+	String getDeletedFieldName() {
+		return this.deletedFieldName;
+	}
+
+	boolean isDirectData() {
+		return this.directData;
+	}
+
+	List<WriteField> getAddonFields() {
+		return this.addonFields;
+	}
+
+	List<WriteField> getRegularFields() {
+		return this.regularFields;
+	}
+
+	String getUpdateTimestampField() {
+		return this.updateTimestampField;
+	}
+}
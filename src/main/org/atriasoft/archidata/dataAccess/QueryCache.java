@@ -0,0 +1,316 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.atriasoft.archidata.dataAccess.options.UseCache;
+import org.atriasoft.archidata.dataStreamEvent.ChangeEvent;
+import org.atriasoft.archidata.dataStreamEvent.ChangeNotificationManager;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.model.changestream.FullDocument;
+
+/**
+ * Cache of the results of the {@code gets} and {@code count} requested with {@link UseCache}, shared by all the
+ * connections of the node (the fingerprint and the invalidations include the database).
+ *
+ * <p>Results are keyed by the fingerprint of their request (see {@link DBAccessMongo}): the documents are kept as
+ * {@link RawBsonDocument}s and decoded again at each hit, so the returned entities never share mutable state.
+ * The memory is bounded by {@link #MAX_ENTRIES} and {@link #MAX_BYTES}: the least recently used results are
+ * evicted first, and a result larger than {@link #MAX_RESULT_BYTES} is not stored.
+ *
+ * <p>Invalidation is per collection: any write of the collection through {@link DBAccessMongo}, and any event of
+ * the collection received by the {@link ChangeNotificationManager} (the listener is registered when the
+ * collection is first cached), drops all its results. A request started before an invalidation does not store
+ * its result: see {@link #generation(String, String)}. The approximate counts of
+ * {@link org.atriasoft.archidata.dataAccess.options.CountMode#cached} are the exception: they are only dropped by
+ * their time to live.
+ */
+public final class QueryCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(QueryCache.class);
+
+	/** Maximum number of cached results. */
+	public static final int MAX_ENTRIES = 10_000;
+	/** Maximum size of the cached documents and keys, in bytes. */
+	public static final long MAX_BYTES = 64L * 1024 * 1024;
+	/** Maximum size of one cached result, in bytes. */
+	public static final long MAX_RESULT_BYTES = MAX_BYTES / 16;
+	/** Size accounted for a count result or an empty list. */
+	private static final long ENTRY_OVERHEAD = 64;
+
+	/** A collection of a database. */
+	private record Scope(
+			String databaseName,
+			String collectionName) {}
+
+	private record Entry(
+			Scope scope,
+			List<RawBsonDocument> documents,
+			long count,
+			long bytes,
+			long expireNanos,
+			boolean approximate) {}
+
+	private static final Object LOCK = new Object();
+	private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+	private static final Map<Scope, Long> GENERATIONS = new HashMap<>();
+	/** Keys of the invalidable (not approximate) entries of each collection. */
+	private static final Map<Scope, Set<String>> KEYS_BY_COLLECTION = new HashMap<>();
+	/** Collections a generation was taken for (only they can have entries). */
+	private static final Set<Scope> CACHED = ConcurrentHashMap.newKeySet();
+	/** Collections whose change events are listened to. */
+	private static final Set<String> LISTENED = ConcurrentHashMap.newKeySet();
+	private static long totalBytes = 0;
+
+	private QueryCache() {
+		// Utility class
+	}
+
+	/**
+	 * Returns the generation of a collection, to pass to the {@code put} methods once the result is read: results
+	 * read before an invalidation are not stored. Registers the invalidation listener of the collection on the
+	 * first call.
+	 *
+	 * @param databaseName   The database of the request
+	 * @param collectionName The collection of the request
+	 * @return The number of invalidations of the collection
+	 */
+	public static long generation(final String databaseName, final String collectionName) {
+		if (LISTENED.add(collectionName)) {
+			ChangeNotificationManager.getInstance().registerListener(QueryCache::onChange, collectionName,
+					FullDocument.DEFAULT);
+		}
+		final Scope scope = new Scope(databaseName, collectionName);
+		CACHED.add(scope);
+		synchronized (LOCK) {
+			return GENERATIONS.getOrDefault(scope, 0L);
+		}
+	}
+
+	/**
+	 * Returns the cached documents of a {@code gets}.
+	 *
+	 * @param key The fingerprint of the request
+	 * @return The documents, or null if the result is not cached or expired
+	 */
+	public static List<RawBsonDocument> getDocuments(final String key) {
+		final Entry entry = get(key);
+		return entry == null ? null : entry.documents();
+	}
+
+	/**
+	 * Returns the cached result of a {@code count}.
+	 *
+	 * @param key The fingerprint of the request
+	 * @return The number of documents, or null if the result is not cached or expired
+	 */
+	public static Long getCount(final String key) {
+		final Entry entry = get(key);
+		return entry == null ? null : entry.count();
+	}
+
+	/**
+	 * Stores the documents of a {@code gets}.
+	 *
+	 * @param databaseName   The database of the request
+	 * @param collectionName The collection of the request
+	 * @param key            The fingerprint of the request
+	 * @param documents      The documents read (not modified afterwards)
+	 * @param ttl            The time to live of the result
+	 * @param generation     The {@link #generation(String, String)} taken before the request
+	 */
+	public static void putDocuments(
+			final String databaseName,
+			final String collectionName,
+			final String key,
+			final List<RawBsonDocument> documents,
+			final Duration ttl,
+			final long generation) {
+		long bytes = ENTRY_OVERHEAD + 2L * key.length();
+		for (final RawBsonDocument document : documents) {
+			bytes += document.getByteBuffer().remaining();
+		}
+		put(key, new Entry(new Scope(databaseName, collectionName), List.copyOf(documents), documents.size(), bytes,
+				System.nanoTime() + ttl.toNanos(), false), generation);
+	}
+
+	/**
+	 * Stores the result of a {@code count}.
+	 *
+	 * @param databaseName   The database of the request
+	 * @param collectionName The collection of the request
+	 * @param key            The fingerprint of the request
+	 * @param count          The number of documents
+	 * @param ttl            The time to live of the result
+	 * @param generation     The {@link #generation(String, String)} taken before the request
+	 */
+	public static void putCount(
+			final String databaseName,
+			final String collectionName,
+			final String key,
+			final long count,
+			final Duration ttl,
+			final long generation) {
+		put(key, new Entry(new Scope(databaseName, collectionName), null, count, ENTRY_OVERHEAD + 2L * key.length(),
+				System.nanoTime() + ttl.toNanos(), false), generation);
+	}
+
+	/**
+	 * Stores the result of an approximate {@code count}: it is served until its time to live expires, whatever the
+	 * writes of the collection.
+	 *
+	 * @param databaseName   The database of the request
+	 * @param collectionName The collection of the request
+	 * @param key            The fingerprint of the request
+	 * @param count          The number of documents
+	 * @param ttl            The time to live of the result
+	 */
+	public static void putApproximateCount(
+			final String databaseName,
+			final String collectionName,
+			final String key,
+			final long count,
+			final Duration ttl) {
+		final Scope scope = new Scope(databaseName, collectionName);
+		final long generation;
+		synchronized (LOCK) {
+			generation = GENERATIONS.getOrDefault(scope, 0L);
+		}
+		put(key, new Entry(scope, null, count, ENTRY_OVERHEAD + 2L * key.length(), System.nanoTime() + ttl.toNanos(),
+				true), generation);
+	}
+
+	/**
+	 * Drops all the cached results of a collection (except the approximate counts).
+	 *
+	 * @param databaseName   The database written
+	 * @param collectionName The written collection
+	 */
+	public static void invalidate(final String databaseName, final String collectionName) {
+		final Scope scope = new Scope(databaseName, collectionName);
+		if (!CACHED.contains(scope)) {
+			// Never cached: no entry and no generation taken (generation() registers the collection first)
+			return;
+		}
+		synchronized (LOCK) {
+			GENERATIONS.merge(scope, 1L, Long::sum);
+			final Set<String> keys = KEYS_BY_COLLECTION.remove(scope);
+			if (keys == null) {
+				return;
+			}
+			for (final String key : keys) {
+				final Entry entry = ENTRIES.remove(key);
+				if (entry != null) {
+					totalBytes -= entry.bytes();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops all the cached results of a database (the database was dropped).
+	 *
+	 * @param databaseName The dropped database
+	 */
+	public static void invalidateAll(final String databaseName) {
+		synchronized (LOCK) {
+			for (final Scope scope : CACHED) {
+				if (scope.databaseName().equals(databaseName)) {
+					GENERATIONS.merge(scope, 1L, Long::sum);
+				}
+			}
+			final Iterator<Map.Entry<String, Entry>> it = ENTRIES.entrySet().iterator();
+			while (it.hasNext()) {
+				final Map.Entry<String, Entry> entry = it.next();
+				if (entry.getValue().scope().databaseName().equals(databaseName)) {
+					unindex(entry.getKey(), entry.getValue());
+					totalBytes -= entry.getValue().bytes();
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cached results (expired results included until they are read).
+	 *
+	 * @return The number of entries
+	 */
+	public static int size() {
+		synchronized (LOCK) {
+			return ENTRIES.size();
+		}
+	}
+
+	private static Entry get(final String key) {
+		synchronized (LOCK) {
+			final Entry entry = ENTRIES.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expireNanos() - System.nanoTime() < 0) {
+				ENTRIES.remove(key);
+				unindex(key, entry);
+				totalBytes -= entry.bytes();
+				return null;
+			}
+			DBAccessMongo.statistic.countQueryCacheHit.incrementAndGet();
+			return entry;
+		}
+	}
+
+	private static void put(final String key, final Entry entry, final long generation) {
+		if (entry.bytes() > MAX_RESULT_BYTES) {
+			LOGGER.debug("Result of {} too large to be cached: {} bytes", entry.scope().collectionName(),
+					entry.bytes());
+			return;
+		}
+		synchronized (LOCK) {
+			if (generation != GENERATIONS.getOrDefault(entry.scope(), 0L)) {
+				return;
+			}
+			final Entry previous = ENTRIES.put(key, entry);
+			if (previous != null) {
+				unindex(key, previous);
+				totalBytes -= previous.bytes();
+			}
+			if (!entry.approximate()) {
+				KEYS_BY_COLLECTION.computeIfAbsent(entry.scope(), k -> new HashSet<>()).add(key);
+			}
+			totalBytes += entry.bytes();
+			final Iterator<Map.Entry<String, Entry>> it = ENTRIES.entrySet().iterator();
+			while ((ENTRIES.size() > MAX_ENTRIES || totalBytes > MAX_BYTES) && it.hasNext()) {
+				final Map.Entry<String, Entry> eldest = it.next();
+				unindex(eldest.getKey(), eldest.getValue());
+				totalBytes -= eldest.getValue().bytes();
+				it.remove();
+			}
+		}
+	}
+
+	/** Removes a dropped entry from {@link #KEYS_BY_COLLECTION} (called under {@link #LOCK}). */
+	private static void unindex(final String key, final Entry entry) {
+		if (entry.approximate()) {
+			return;
+		}
+		final Set<String> keys = KEYS_BY_COLLECTION.get(entry.scope());
+		if (keys != null && keys.remove(key) && keys.isEmpty()) {
+			KEYS_BY_COLLECTION.remove(entry.scope());
+		}
+	}
+
+	private static void onChange(final ChangeEvent event) {
+		// The manager watches a single database
+		invalidate(ChangeNotificationManager.getInstance().getDatabaseName(), event.getCollectionName());
+		LOGGER.trace("Dropped the cached results of {}", event.getCollectionName());
+	}
+}
@@ -1,6 +1,7 @@
 package org.atriasoft.archidata.dataAccess;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.atriasoft.archidata.dataAccess.options.QueryOption;
@@ -75,17 +76,21 @@ public class QueryOptions {
 	 *
 	 * @param <T>  The type of options to retrieve
 	 * @param type The class of the option type to filter by
-	 * @return A list of matching options (empty if none found)
+	 * @return A list of matching options (empty and unmodifiable if none found)
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> List<T> get(final Class<T> type) {
-		final List<T> out = new ArrayList<>();
+		List<T> out = null;
 		for (final QueryOption elem : this.options) {
 			if (elem.getClass() == type) {
+				if (out == null) {
+					out = new ArrayList<>();
+				}
 				out.add((T) elem);
 			}
 		}
-		return out;
+		// Most options are absent: do not allocate for them
+		return out != null ? out : Collections.emptyList();
 	}
 
 	/**
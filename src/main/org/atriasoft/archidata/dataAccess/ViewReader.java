@@ -0,0 +1,147 @@
+package org.atriasoft.archidata.dataAccess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.atriasoft.archidata.bean.ClassModel;
+import org.atriasoft.archidata.bean.PropertyDescriptor;
+import org.atriasoft.archidata.bean.exception.IntrospectionException;
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.model.DbFieldAction;
+import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.atriasoft.archidata.dataAccess.model.codec.MongoCodecFactory;
+import org.atriasoft.archidata.dataAccess.model.codec.MongoTypeReader;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.bson.Document;
+
+/**
+ * Pre-compiled reader decoding the documents of an entity collection into a view (a record or a class whose
+ * properties are a subset of the entity ones).
+ *
+ * <p>Each view property is matched by name with an entity field and decoded with a reader built by
+ * {@link MongoCodecFactory} for the view property type. Only these fields are requested from the database.
+ *
+ * <p>Link fields stored in the entity document (for example the id of a ManyToOne) are read as their stored
+ * value: the view property must then have the type of the stored id(s), the linked entities are not loaded.
+ *
+ * <p>One instance per (entity, view) pair, cached for the lifetime of the application.
+ *
+ * @param <R> The type of the view
+ */
+final class ViewReader<R> {
+	private static final Map<List<Class<?>>, ViewReader<?>> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * A property of the view with the entity field it is read from.
+	 *
+	 * @param entityDesc The entity field descriptor
+	 * @param viewName   The name of the view property
+	 * @param reader     Converter from the MongoDB value to the view property type
+	 * @param primitive  {@code true} if the view property is a Java primitive
+	 */
+	private record ViewField(
+			DbPropertyDescriptor entityDesc,
+			String viewName,
+			MongoTypeReader reader,
+			boolean primitive) {}
+
+	private final ClassModel viewModel;
+	private final List<ViewField> fields = new ArrayList<>();
+
+	private ViewReader(final Class<?> entity, final Class<R> view) throws DataAccessException {
+		final DbClassModel entityModel;
+		try {
+			entityModel = DbClassModel.of(entity);
+			this.viewModel = ClassModel.of(view);
+		} catch (final IntrospectionException e) {
+			throw new DataAccessException("Failed to introspect view: " + view.getSimpleName(), e);
+		}
+		final Map<String, DbPropertyDescriptor> entityFields = new LinkedHashMap<>();
+		for (final DbPropertyDescriptor desc : entityModel.getAllFields()) {
+			entityFields.put(desc.getProperty().getName(), desc);
+		}
+		for (final PropertyDescriptor prop : this.viewModel.getProperties()) {
+			if (!prop.canWrite()) {
+				continue;
+			}
+			final DbPropertyDescriptor desc = entityFields.get(prop.getName());
+			if (desc == null) {
+				throw new DataAccessException("View " + view.getSimpleName() + " property '" + prop.getName()
+						+ "' does not exist in " + entity.getSimpleName());
+			}
+			if (desc.getAction() == DbFieldAction.ADDON && !desc.canInsert()) {
+				throw new DataAccessException("View " + view.getSimpleName() + " property '" + prop.getName()
+						+ "' is a link not stored in " + entity.getSimpleName() + ", read the entity instead");
+			}
+			this.fields.add(new ViewField(desc, prop.getName(), MongoCodecFactory.buildReader(prop.getTypeInfo()),
+					prop.getType().isPrimitive()));
+		}
+		if (this.fields.isEmpty()) {
+			throw new DataAccessException("View " + view.getSimpleName() + " has no writable property");
+		}
+	}
+
+	/**
+	 * Returns the reader of a view of an entity.
+	 *
+	 * @param <R>    The type of the view
+	 * @param entity The entity class (defines the collection and the field names)
+	 * @param view   The view class
+	 * @return The cached reader
+	 * @throws DataAccessException if a view property does not match a readable entity field
+	 */
+	@SuppressWarnings("unchecked")
+	static <R> ViewReader<R> of(final Class<?> entity, final Class<R> view) throws DataAccessException {
+		final List<Class<?>> key = List.of(entity, view);
+		final ViewReader<?> cached = CACHE.get(key);
+		if (cached != null) {
+			return (ViewReader<R>) cached;
+		}
+		final ViewReader<R> reader = new ViewReader<>(entity, view);
+		CACHE.put(key, reader);
+		return reader;
+	}
+
+	/**
+	 * Returns the database fields read by the view.
+	 *
+	 * @param options The query options (for column renaming)
+	 * @return The field names to project
+	 */
+	List<String> selectFields(final QueryOptions options) {
+		final List<String> out = new ArrayList<>(this.fields.size());
+		for (final ViewField field : this.fields) {
+			out.add(field.entityDesc().getFieldName(options).inTable());
+		}
+		return out;
+	}
+
+	/**
+	 * Decodes a document into a view instance.
+	 *
+	 * @param doc        The document read from the entity collection
+	 * @param fieldNames The database fields, as returned by {@link #selectFields(QueryOptions)}
+	 * @return The view instance
+	 * @throws Exception if a value cannot be converted or the view cannot be instantiated
+	 */
+	@SuppressWarnings("unchecked")
+	R read(final Document doc, final List<String> fieldNames) throws Exception {
+		final Map<String, Object> values = new LinkedHashMap<>();
+		for (int iii = 0; iii < this.fields.size(); iii++) {
+			final ViewField field = this.fields.get(iii);
+			final Object mongoValue = doc.get(fieldNames.get(iii));
+			if (mongoValue == null) {
+				if (field.primitive()) {
+					continue;
+				}
+				values.put(field.viewName(), null);
+				continue;
+			}
+			values.put(field.viewName(), field.reader().fromMongo(mongoValue));
+		}
+		return (R) this.viewModel.newInstance(values);
+	}
+}
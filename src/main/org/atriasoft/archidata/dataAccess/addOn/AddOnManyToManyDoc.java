@@ -3,6 +3,7 @@ package org.atriasoft.archidata.dataAccess.addOn;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.atriasoft.archidata.annotation.AnnotationTools.FieldName;
@@ -18,6 +19,7 @@ import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
 import org.atriasoft.archidata.dataAccess.model.codec.MongoFieldCodec;
 import org.atriasoft.archidata.dataAccess.mongo.MongoLinkManager;
 import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
 import org.atriasoft.archidata.exception.SystemException;
 import org.bson.Document;
 import org.bson.types.ObjectId;
@@ -228,12 +230,33 @@ public class AddOnManyToManyDoc implements DataAccessAddOn {
 			if (idList == null || idList.isEmpty()) {
 				return;
 			}
+			final FetchPlan fetchPlan = FetchPlan.get(options);
+			if (fetchPlan != null && !fetchPlan.expands(prop.getName())) {
+				prop.setValue(data, ctx.newReferences(idList));
+				return;
+			}
+			final FetchPlan nestedPlan = fetchPlan == null ? null : fetchPlan.nested(prop.getName());
+			final Map<Object, Object> joined = ioDb.readJoined(doc, fieldName, ctx, nestedPlan, lazyCall,
+					batchCollector);
+			if (joined != null) {
+				// Already loaded by a JoinStrategy.LOOKUP request (keep the order of the ids)
+				final List<Object> ordered = new ArrayList<>();
+				for (final Object id : idList) {
+					final Object entity = joined.get(id);
+					if (entity != null) {
+						ordered.add(entity);
+					}
+				}
+				prop.setValue(data, ordered.isEmpty() ? null : ordered);
+				return;
+			}
 			if (batchCollector != null) {
-				batchCollector.registerMultiple(targetEntity, idFieldColumn, idList, prop, data);
+				batchCollector.registerMultiple(targetEntity, idFieldColumn, idList, prop, data, nestedPlan);
 			} else {
 				final LazyGetter lambda = (final List<LazyGetter> actionsAsync) -> {
-					final Object foreignData = ioDb.getsRaw(targetEntity,
-							new Condition(Filters.in(idFieldColumn, idList)));
+					final Condition condition = new Condition(Filters.in(idFieldColumn, idList));
+					final Object foreignData = nestedPlan == null ? ioDb.getsRaw(targetEntity, condition)
+							: ioDb.getsRaw(targetEntity, condition, nestedPlan);
 					if (foreignData == null) {
 						return;
 					}
@@ -2,6 +2,7 @@ package org.atriasoft.archidata.dataAccess.addOn;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -19,6 +20,7 @@ import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
 import org.atriasoft.archidata.dataAccess.model.codec.MongoFieldCodec;
 import org.atriasoft.archidata.dataAccess.mongo.MongoLinkManager;
 import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
@@ -184,12 +186,29 @@ public class AddOnManyToOneDoc implements DataAccessAddOn {
 			if (dataRetrieve == null) {
 				return;
 			}
+			final FetchPlan fetchPlan = FetchPlan.get(options);
+			if (fetchPlan != null && !fetchPlan.expands(prop.getName())) {
+				prop.setValue(data, ctx.newReference(dataRetrieve));
+				return;
+			}
+			final FetchPlan nestedPlan = fetchPlan == null ? null : fetchPlan.nested(prop.getName());
+			final Map<Object, Object> joined = ioDb.readJoined(doc, fieldName, ctx, nestedPlan, lazyCall,
+					batchCollector);
+			if (joined != null) {
+				// Already loaded by a JoinStrategy.LOOKUP request
+				final Object foreignData = joined.get(dataRetrieve);
+				if (foreignData != null) {
+					prop.setValue(data, foreignData);
+				}
+				return;
+			}
 			if (batchCollector != null) {
-				batchCollector.registerSingle(targetEntity, idFieldColumn, dataRetrieve, prop, data);
+				batchCollector.registerSingle(targetEntity, idFieldColumn, dataRetrieve, prop, data, nestedPlan);
 			} else {
 				final LazyGetter lambda = (final List<LazyGetter> actionsAsync) -> {
-					final Object foreignData = ioDb.getRaw(targetEntity,
-							new Condition(Filters.eq(idFieldColumn, dataRetrieve)));
+					final Condition condition = new Condition(Filters.eq(idFieldColumn, dataRetrieve));
+					final Object foreignData = nestedPlan == null ? ioDb.getRaw(targetEntity, condition)
+							: ioDb.getRaw(targetEntity, condition, nestedPlan);
 					if (foreignData == null) {
 						return;
 					}
@@ -3,6 +3,7 @@ package org.atriasoft.archidata.dataAccess.addOn;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.atriasoft.archidata.annotation.AnnotationTools.FieldName;
@@ -19,6 +20,7 @@ import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
 import org.atriasoft.archidata.dataAccess.model.codec.MongoFieldCodec;
 import org.atriasoft.archidata.dataAccess.mongo.MongoLinkManager;
 import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
 import org.atriasoft.archidata.exception.FailException;
 import org.atriasoft.archidata.exception.SystemException;
 import org.bson.Document;
@@ -116,17 +118,11 @@ public class AddOnOneToManyDoc implements DataAccessAddOn {
 				continue;
 			}
 			actions.add((final List<LazyGetter> actionsAsync) -> {
-				// Atomically set the remote field and get the previous value
-				final Object previousValue = MongoLinkManager.setFieldAndGetPrevious(ioDb, targetEntity, value,
-						remoteFieldColumn, primaryKeyValue);
-				// If the child was previously owned by another parent, remove the child from
-				// that parent's list
-				if (previousValue != null) {
-					actionsAsync.add((final List<LazyGetter> actionsAsync2) -> {
-						MongoLinkManager.removeFromList(ioDb, previousData.getClass(), previousValue, localFieldColumn,
-								value);
-					});
-				}
+				// Set the remote field; if the child was previously owned by another parent, remove the child
+				// from that parent's list
+				MongoLinkManager.setFieldAndThen(ioDb, targetEntity, value, remoteFieldColumn, primaryKeyValue,
+						previousValue -> MongoLinkManager.removeFromList(ioDb, previousData.getClass(), previousValue,
+								localFieldColumn, value));
 			});
 		}
 		// remove old values:
@@ -178,15 +174,10 @@ public class AddOnOneToManyDoc implements DataAccessAddOn {
 				final String localFieldColumn = desc.getFieldName(null).inTable();
 				for (final Object value : insertedDataCollection) {
 					actions.add((final List<LazyGetter> actionsAsync) -> {
-						// Atomically set the remote field and get the previous owner
-						final Object previousValue = MongoLinkManager.setFieldAndGetPrevious(ioDb, targetEntity, value,
-								remoteFieldColumn, primaryKeyValue);
-						// If was owned by another parent, clean up that parent's list
-						if (previousValue != null) {
-							actionsAsync.add((final List<LazyGetter> actionsAsync2) -> {
-								MongoLinkManager.removeFromList(ioDb, clazz, previousValue, localFieldColumn, value);
-							});
-						}
+						// Set the remote field; if was owned by another parent, clean up that parent's list
+						MongoLinkManager.setFieldAndThen(ioDb, targetEntity, value, remoteFieldColumn, primaryKeyValue,
+								previousValue -> MongoLinkManager.removeFromList(ioDb, clazz, previousValue,
+										localFieldColumn, value));
 					});
 				}
 			}
@@ -239,14 +230,35 @@ public class AddOnOneToManyDoc implements DataAccessAddOn {
 				if (idList == null || idList.isEmpty()) {
 					return;
 				}
+				final FetchPlan fetchPlan = FetchPlan.get(options);
+				if (fetchPlan != null && !fetchPlan.expands(prop.getName())) {
+					prop.setValue(data, ctx.newReferences(idList));
+					return;
+				}
+				final FetchPlan nestedPlan = fetchPlan == null ? null : fetchPlan.nested(prop.getName());
+				final Map<Object, Object> joined = ioDb.readJoined(doc, fieldName, ctx, nestedPlan, lazyCall,
+						batchCollector);
+				if (joined != null) {
+					// Already loaded by a JoinStrategy.LOOKUP request (keep the order of the ids)
+					final List<Object> ordered = new ArrayList<>();
+					for (final Object id : idList) {
+						final Object entity = joined.get(id);
+						if (entity != null) {
+							ordered.add(entity);
+						}
+					}
+					prop.setValue(data, ordered.isEmpty() ? null : ordered);
+					return;
+				}
 				final Class<?> targetEntity = ctx.getTargetEntity();
 				final String idFieldColumn = ctx.getTargetPkColumn();
 				if (batchCollector != null) {
-					batchCollector.registerMultiple(targetEntity, idFieldColumn, idList, prop, data);
+					batchCollector.registerMultiple(targetEntity, idFieldColumn, idList, prop, data, nestedPlan);
 				} else {
 					final LazyGetter lambda = (final List<LazyGetter> actionsAsync) -> {
-						final Object foreignData = ioDb.getsRaw(targetEntity,
-								new Condition(Filters.in(idFieldColumn, idList)));
+						final Condition condition = new Condition(Filters.in(idFieldColumn, idList));
+						final Object foreignData = nestedPlan == null ? ioDb.getsRaw(targetEntity, condition)
+								: ioDb.getsRaw(targetEntity, condition, nestedPlan);
 						if (foreignData == null) {
 							return;
 						}
@@ -287,21 +299,20 @@ public class AddOnOneToManyDoc implements DataAccessAddOn {
 				continue;
 			}
 			if (childKeys instanceof final Collection childCollection) {
-				for (final Object childKey : childCollection) {
-					switch (cascadeDelete) {
-						case CascadeMode.DELETE:
-							actions.add((final List<LazyGetter> actionsAsync) -> {
-								ioDb.deleteById(targetEntity, childKey);
-							});
-							break;
-						case CascadeMode.SET_NULL:
+				switch (cascadeDelete) {
+					case CascadeMode.DELETE:
+						// Grouped with the other children of the level: one delete per target entity
+						ioDb.deleteInCascade(targetEntity, childCollection, actions);
+						break;
+					case CascadeMode.SET_NULL:
+						for (final Object childKey : childCollection) {
 							actions.add((final List<LazyGetter> actionsAsync) -> {
 								MongoLinkManager.setField(ioDb, targetEntity, childKey, remoteFieldColumn, null);
 							});
-							break;
-						case CascadeMode.IGNORE:
-							break;
-					}
+						}
+						break;
+					case CascadeMode.IGNORE:
+						break;
 				}
 			} else {
 				throw new FailException("can not remove a remote kes stored in other than a Collection<T>");
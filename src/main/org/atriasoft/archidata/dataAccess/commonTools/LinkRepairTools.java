@@ -2,9 +2,12 @@ package org.atriasoft.archidata.dataAccess.commonTools;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.atriasoft.archidata.annotation.ManyToManyDoc;
 import org.atriasoft.archidata.annotation.ManyToOneDoc;
@@ -12,16 +15,21 @@ import org.atriasoft.archidata.annotation.OneToManyDoc;
 import org.atriasoft.archidata.bean.PropertyDescriptor;
 import org.atriasoft.archidata.checker.DataAccessConnectionContext;
 import org.atriasoft.archidata.dataAccess.DBAccessMongo;
-import org.atriasoft.archidata.dataAccess.DataAccess;
 import org.atriasoft.archidata.dataAccess.model.DbClassModel;
 import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
-import org.atriasoft.archidata.dataAccess.mongo.MongoLinkManager;
-import org.atriasoft.archidata.dataAccess.options.AccessDeletedItems;
-import org.atriasoft.archidata.dataAccess.options.QueryOption;
+import org.atriasoft.archidata.dataAccess.mongo.LinkOperationBuffer;
 import org.atriasoft.archidata.exception.DataAccessException;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
 /**
  * Utility to repair bidirectional relationship links that may become inconsistent
  * due to race conditions (e.g., simultaneous commits).
@@ -29,14 +37,53 @@ import org.slf4j.LoggerFactory;
  * <p>Supports {@link ManyToManyDoc}, {@link OneToManyDoc}, and {@link ManyToOneDoc} relationships.
  * The repair process reads the annotation on the given field to automatically discover the
  * remote class and remote field, then ensures both sides are consistent.
+ *
+ * <p>The repair streams the collections: the source collection then the remote collection are walked with a
+ * cursor in primary key order, reading only the primary key and the link field. For each batch of
+ * {@link #BATCH_SIZE} documents, the referenced documents are checked with one {@code $in} request and the
+ * fixes are written with one {@code bulkWrite} per collection. The memory used is bounded by the batch size
+ * whatever the size of the collections, and an interrupted repair can resume from the
+ * {@link RepairReport#getCheckpoint() checkpoint} of its last written batch.
  */
 public class LinkRepairTools {
 	private static final Logger LOGGER = LoggerFactory.getLogger(LinkRepairTools.class);
+	/** Number of documents checked and fixed together. */
+	public static final int BATCH_SIZE = 1000;
+	/** Number of batches between two progress logs. */
+	private static final int PROGRESS_LOG_INTERVAL = 100;
 
 	private LinkRepairTools() {
 		// Utility class
 	}
 
+	/** One side of a relationship: the collection and its link field. */
+	private record Side(
+			Class<?> clazz,
+			String collectionName,
+			String pkColumn,
+			String fieldColumn,
+			String fieldName,
+			String deletedFieldName,
+			boolean includeDeleted) {
+		static Side of(final Class<?> clazz, final DbPropertyDescriptor fieldDesc, final boolean includeDeleted)
+				throws Exception {
+			final DbClassModel model = DbClassModel.of(clazz);
+			return new Side(clazz, model.getTableName(), model.getPrimaryKey().getDbFieldName(),
+					fieldDesc.getFieldName(null).inTable(), fieldDesc.getProperty().getName(),
+					model.getDeletedFieldName(), includeDeleted);
+		}
+
+		String name() {
+			return this.clazz.getSimpleName();
+		}
+	}
+
+	/** Checks a batch of documents and queues the fixes. */
+	@FunctionalInterface
+	private interface BatchChecker {
+		void check(List<Document> batch, LinkOperationBuffer buffer) throws Exception;
+	}
+
 	/**
 	 * Repair bidirectional links for a given class and field.
 	 *
@@ -53,6 +100,35 @@ public class LinkRepairTools {
 			final String fieldName,
 			final boolean includeDeletedSource,
 			final boolean includeDeletedRemote) throws Exception {
+		return repairLinks(clazz, fieldName, includeDeletedSource, includeDeletedRemote, null, null);
+	}
+
+	/**
+	 * Repair bidirectional links for a given class and field, resuming an interrupted repair.
+	 *
+	 * <pre>{@code
+	 * LinkRepairTools.repairLinks(Post.class, "tags", false, false, loadCheckpoint(),
+	 * 		report -> saveCheckpoint(report.getCheckpoint()));
+	 * }</pre>
+	 *
+	 * @param <T>                  The entity type
+	 * @param clazz                The source class containing the annotated field
+	 * @param fieldName            The Java property name of the relationship field
+	 * @param includeDeletedSource If true, also scan soft-deleted source documents
+	 * @param includeDeletedRemote If true, also update links on soft-deleted remote documents
+	 * @param resumeFrom           The checkpoint of the interrupted repair (null to start from the beginning)
+	 * @param onBatch              Called after the fixes of each batch are written, with the report in progress
+	 *                             (may be null)
+	 * @return A {@link RepairReport} summarizing what was found and fixed since {@code resumeFrom}
+	 * @throws Exception if any DB operation fails
+	 */
+	public static <T> RepairReport repairLinks(
+			final Class<T> clazz,
+			final String fieldName,
+			final boolean includeDeletedSource,
+			final boolean includeDeletedRemote,
+			final RepairCheckpoint resumeFrom,
+			final Consumer<RepairReport> onBatch) throws Exception {
 		final DbClassModel model = DbClassModel.of(clazz);
 		final DbPropertyDescriptor fieldDesc = model.findByPropertyName(fieldName);
 		if (fieldDesc == null) {
@@ -64,372 +140,362 @@ public class LinkRepairTools {
 		final OneToManyDoc o2m = prop.getAnnotation(OneToManyDoc.class);
 		final ManyToOneDoc m2o = prop.getAnnotation(ManyToOneDoc.class);
 
+		final Class<?> remoteClass;
+		final String remoteFieldName;
 		if (m2m != null) {
-			return repairManyToMany(clazz, model, fieldDesc, m2m, includeDeletedSource, includeDeletedRemote);
+			remoteClass = m2m.targetEntity();
+			remoteFieldName = m2m.remoteField();
 		} else if (o2m != null) {
-			return repairOneToMany(clazz, model, fieldDesc, o2m, includeDeletedSource, includeDeletedRemote);
+			remoteClass = o2m.targetEntity();
+			remoteFieldName = o2m.remoteField();
 		} else if (m2o != null) {
-			return repairManyToOne(clazz, model, fieldDesc, m2o, includeDeletedSource, includeDeletedRemote);
+			remoteClass = m2o.targetEntity();
+			remoteFieldName = m2o.remoteField();
 		} else {
 			throw new DataAccessException("Field '" + fieldName + "' in " + clazz.getCanonicalName()
 					+ " has no @ManyToManyDoc, @OneToManyDoc or @ManyToOneDoc annotation");
 		}
-	}
-
-	// ========== ManyToMany repair ==========
-
-	@SuppressWarnings("unchecked")
-	private static <T> RepairReport repairManyToMany(
-			final Class<T> clazz,
-			final DbClassModel model,
-			final DbPropertyDescriptor fieldDesc,
-			final ManyToManyDoc annotation,
-			final boolean includeDeletedSource,
-			final boolean includeDeletedRemote) throws Exception {
-		final RepairReport report = new RepairReport();
-		final Class<?> remoteClass = annotation.targetEntity();
-		final String remoteFieldName = annotation.remoteField();
-
-		final DbClassModel remoteModel = DbClassModel.of(remoteClass);
-		final DbPropertyDescriptor remoteFieldDesc = remoteModel.findByPropertyName(remoteFieldName);
+		final DbPropertyDescriptor remoteFieldDesc = DbClassModel.of(remoteClass).findByPropertyName(remoteFieldName);
 		if (remoteFieldDesc == null) {
 			throw new DataAccessException(
 					"Cannot find remote field '" + remoteFieldName + "' in " + remoteClass.getCanonicalName());
 		}
+		final Side source = Side.of(clazz, fieldDesc, includeDeletedSource);
+		final Side remote = Side.of(remoteClass, remoteFieldDesc, includeDeletedRemote);
 
-		final PropertyDescriptor localProp = fieldDesc.getProperty();
-		final PropertyDescriptor localPkProp = model.getPrimaryKey().getProperty();
-		final String localFieldColumn = fieldDesc.getFieldName(null).inTable();
-
-		final PropertyDescriptor remoteProp = remoteFieldDesc.getProperty();
-		final PropertyDescriptor remotePkProp = remoteModel.getPrimaryKey().getProperty();
-		final String remoteFieldColumn = remoteFieldDesc.getFieldName(null).inTable();
-
+		final RepairReport report = new RepairReport();
 		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
 			final DBAccessMongo db = ctx.get();
+			if (m2m != null) {
+				repairManyToMany(db, source, remote, report, resumeFrom, onBatch);
+			} else if (o2m != null) {
+				repairOneToMany(db, source, remote, report, resumeFrom, onBatch);
+			} else {
+				repairManyToOne(db, source, remote, report, resumeFrom, onBatch);
+			}
+		}
+		LOGGER.info("{} repair for {}.{}: {}", m2m != null ? "ManyToMany" : o2m != null ? "OneToMany" : "ManyToOne",
+				clazz.getSimpleName(), fieldName, report);
+		return report;
+	}
 
-			// Step 1: Scan all source documents
-			final List<T> sourceDocuments = DataAccess.gets(clazz, buildOptions(includeDeletedSource));
-			for (final T sourceDoc : sourceDocuments) {
-				report.incrementDocumentsScanned();
-				final Object sourcePk = localPkProp.getValue(sourceDoc);
-				final Object localValue = localProp.getValue(sourceDoc);
-				if (!(localValue instanceof final Collection<?> localCollection)) {
+	// ========== ManyToMany repair ==========
+
+	private static void repairManyToMany(
+			final DBAccessMongo db,
+			final Side source,
+			final Side remote,
+			final RepairReport report,
+			final RepairCheckpoint resumeFrom,
+			final Consumer<RepairReport> onBatch) throws Exception {
+		// Step 1: Scan source documents: each listed remote must exist and list the source back
+		scan(db, source, RepairCheckpoint.PHASE_SOURCE, report, resumeFrom, onBatch, (batch, buffer) -> {
+			final Map<Object, Object> remotes = lookup(db, remote, collectIds(batch, source.fieldColumn()));
+			for (final Document sourceDoc : batch) {
+				final Object sourcePk = sourceDoc.get(source.pkColumn());
+				if (!(sourceDoc.get(source.fieldColumn()) instanceof final Collection<?> localCollection)) {
 					continue;
 				}
-				final List<Object> toRemove = new ArrayList<>();
 				for (final Object remoteId : localCollection) {
 					report.incrementLinksChecked();
-					// Check if remote document exists
-					final Object remoteDoc = getByIdWithDeleted(remoteClass, remoteId, includeDeletedRemote);
-					if (remoteDoc == null) {
-						// Remote doesn't exist => mark for removal
-						toRemove.add(remoteId);
+					if (!remotes.containsKey(remoteId)) {
+						// Remote doesn't exist => remove it from the source list
+						buffer.removeFromList(source.clazz(), sourcePk, source.fieldColumn(), remoteId);
 						report.incrementBrokenLinksRemoved();
-						report.addDetail("M2M: Removed broken ref " + remoteId + " from " + clazz.getSimpleName() + "("
-								+ sourcePk + ")." + fieldDesc.getProperty().getName());
-					} else {
-						// Remote exists, check if it contains source PK in its list
-						final Object remoteValue = remoteProp.getValue(remoteDoc);
-						if (!collectionContains(remoteValue, sourcePk)) {
-							// Add source PK to remote list
-							MongoLinkManager.addToList(db, remoteClass, remoteId, remoteFieldColumn, sourcePk);
-							report.incrementMissingLinksAdded();
-							report.addDetail("M2M: Added missing reverse link " + sourcePk + " to "
-									+ remoteClass.getSimpleName() + "(" + remoteId + ")." + remoteFieldName);
-						}
+						report.addDetail("M2M: Removed broken ref " + remoteId + " from " + source.name() + "("
+								+ sourcePk + ")." + source.fieldName());
+					} else if (!collectionContains(remotes.get(remoteId), sourcePk)) {
+						// Remote exists but does not list the source => add source PK to remote list
+						buffer.addToList(remote.clazz(), remoteId, remote.fieldColumn(), sourcePk);
+						report.incrementMissingLinksAdded();
+						report.addDetail("M2M: Added missing reverse link " + sourcePk + " to " + remote.name() + "("
+								+ remoteId + ")." + remote.fieldName());
 					}
 				}
-				// Remove broken refs from local list
-				for (final Object brokenId : toRemove) {
-					MongoLinkManager.removeFromList(db, clazz, sourcePk, localFieldColumn, brokenId);
-				}
-			}
-
-			// Step 2: Scan all remote documents for orphaned reverse links
-			final List<?> remoteDocuments = DataAccess.gets(remoteClass, buildOptions(includeDeletedRemote));
-			// Build a set of source PKs for fast lookup
-			final Set<Object> sourcePkSet = new HashSet<>();
-			for (final T sourceDoc : sourceDocuments) {
-				sourcePkSet.add(localPkProp.getValue(sourceDoc));
 			}
-			for (final Object remoteDoc : remoteDocuments) {
-				report.incrementDocumentsScanned();
-				final Object remotePk = remotePkProp.getValue(remoteDoc);
-				final Object remoteValue = remoteProp.getValue(remoteDoc);
-				if (!(remoteValue instanceof final Collection<?> remoteCollection)) {
+		});
+
+		// Step 2: Scan remote documents for orphaned reverse links
+		scan(db, remote, RepairCheckpoint.PHASE_REMOTE, report, resumeFrom, onBatch, (batch, buffer) -> {
+			final Map<Object, Object> sources = lookup(db, source, collectIds(batch, remote.fieldColumn()));
+			for (final Document remoteDoc : batch) {
+				final Object remotePk = remoteDoc.get(remote.pkColumn());
+				if (!(remoteDoc.get(remote.fieldColumn()) instanceof final Collection<?> remoteCollection)) {
 					continue;
 				}
-				final List<Object> toRemoveFromRemote = new ArrayList<>();
 				for (final Object sourceId : remoteCollection) {
 					report.incrementLinksChecked();
-					if (!sourcePkSet.contains(sourceId)) {
-						// Source doesn't exist => mark for removal
-						toRemoveFromRemote.add(sourceId);
+					if (!sources.containsKey(sourceId)) {
+						// Source doesn't exist => remove it from the remote list
+						buffer.removeFromList(remote.clazz(), remotePk, remote.fieldColumn(), sourceId);
 						report.incrementBrokenLinksRemoved();
-						report.addDetail("M2M: Removed broken reverse ref " + sourceId + " from "
-								+ remoteClass.getSimpleName() + "(" + remotePk + ")." + remoteFieldName);
-					} else {
-						// Source exists, check it still lists this remote
-						final Object sourceDoc = getByIdWithDeleted(clazz, sourceId, includeDeletedSource);
-						if (sourceDoc != null) {
-							final Object srcValue = localProp.getValue(sourceDoc);
-							if (!collectionContains(srcValue, remotePk)) {
-								toRemoveFromRemote.add(remotePk);
-								report.incrementInconsistentLinksFixed();
-								report.addDetail("M2M: Removed orphaned reverse ref " + remotePk + " from "
-										+ remoteClass.getSimpleName() + "(" + remotePk + ")." + remoteFieldName
-										+ " (source " + sourceId + " no longer lists it)");
-							}
-						}
+						report.addDetail("M2M: Removed broken reverse ref " + sourceId + " from " + remote.name() + "("
+								+ remotePk + ")." + remote.fieldName());
+					} else if (!collectionContains(sources.get(sourceId), remotePk)) {
+						// Source exists but no longer lists this remote
+						buffer.removeFromList(remote.clazz(), remotePk, remote.fieldColumn(), sourceId);
+						report.incrementInconsistentLinksFixed();
+						report.addDetail("M2M: Removed orphaned reverse ref " + sourceId + " from " + remote.name()
+								+ "(" + remotePk + ")." + remote.fieldName() + " (source " + sourceId
+								+ " no longer lists it)");
 					}
 				}
-				for (final Object orphanId : toRemoveFromRemote) {
-					MongoLinkManager.removeFromList(db, remoteClass, remotePk, remoteFieldColumn, orphanId);
-				}
 			}
-		}
-
-		LOGGER.info("ManyToMany repair for {}.{}: {}", clazz.getSimpleName(), fieldDesc.getProperty().getName(),
-				report);
-		return report;
+		});
 	}
 
 	// ========== OneToMany repair ==========
 
-	@SuppressWarnings("unchecked")
-	private static <T> RepairReport repairOneToMany(
-			final Class<T> clazz,
-			final DbClassModel model,
-			final DbPropertyDescriptor fieldDesc,
-			final OneToManyDoc annotation,
-			final boolean includeDeletedSource,
-			final boolean includeDeletedRemote) throws Exception {
-		final RepairReport report = new RepairReport();
-		final Class<?> remoteClass = annotation.targetEntity();
-		final String remoteFieldName = annotation.remoteField();
-
-		final DbClassModel remoteModel = DbClassModel.of(remoteClass);
-		final DbPropertyDescriptor remoteFieldDesc = remoteModel.findByPropertyName(remoteFieldName);
-		if (remoteFieldDesc == null) {
-			throw new DataAccessException(
-					"Cannot find remote field '" + remoteFieldName + "' in " + remoteClass.getCanonicalName());
-		}
-
-		final PropertyDescriptor localProp = fieldDesc.getProperty();
-		final PropertyDescriptor localPkProp = model.getPrimaryKey().getProperty();
-		final String localFieldColumn = fieldDesc.getFieldName(null).inTable();
-
-		final PropertyDescriptor remoteProp = remoteFieldDesc.getProperty();
-		final PropertyDescriptor remotePkProp = remoteModel.getPrimaryKey().getProperty();
-		final String remoteFieldColumn = remoteFieldDesc.getFieldName(null).inTable();
-
-		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
-			final DBAccessMongo db = ctx.get();
-
-			// Step 1: Scan parent documents (source has List, remote has scalar)
-			final List<T> parentDocuments = DataAccess.gets(clazz, buildOptions(includeDeletedSource));
-			for (final T parentDoc : parentDocuments) {
-				report.incrementDocumentsScanned();
-				final Object parentPk = localPkProp.getValue(parentDoc);
-				final Object localValue = localProp.getValue(parentDoc);
-				if (!(localValue instanceof final Collection<?> childIdCollection)) {
+	private static void repairOneToMany(
+			final DBAccessMongo db,
+			final Side source,
+			final Side remote,
+			final RepairReport report,
+			final RepairCheckpoint resumeFrom,
+			final Consumer<RepairReport> onBatch) throws Exception {
+		// Step 1: Scan parent documents (source has List, remote has scalar)
+		scan(db, source, RepairCheckpoint.PHASE_SOURCE, report, resumeFrom, onBatch, (batch, buffer) -> {
+			final Map<Object, Object> children = lookup(db, remote, collectIds(batch, source.fieldColumn()));
+			for (final Document parentDoc : batch) {
+				final Object parentPk = parentDoc.get(source.pkColumn());
+				if (!(parentDoc.get(source.fieldColumn()) instanceof final Collection<?> childIdCollection)) {
 					continue;
 				}
-				final List<Object> toRemove = new ArrayList<>();
 				for (final Object childId : childIdCollection) {
 					report.incrementLinksChecked();
-					final Object childDoc = getByIdWithDeleted(remoteClass, childId, includeDeletedRemote);
-					if (childDoc == null) {
+					if (!children.containsKey(childId)) {
 						// Child doesn't exist => remove from parent list
-						toRemove.add(childId);
+						buffer.removeFromList(source.clazz(), parentPk, source.fieldColumn(), childId);
 						report.incrementBrokenLinksRemoved();
-						report.addDetail("O2M: Removed broken child ref " + childId + " from " + clazz.getSimpleName()
-								+ "(" + parentPk + ")." + fieldDesc.getProperty().getName());
+						report.addDetail("O2M: Removed broken child ref " + childId + " from " + source.name() + "("
+								+ parentPk + ")." + source.fieldName());
 					} else {
 						// Child exists, check that its parent field points to this parent
-						final Object childParentValue = remoteProp.getValue(childDoc);
+						final Object childParentValue = children.get(childId);
 						if (!parentPk.equals(childParentValue)) {
-							// Fix child's parent field
-							MongoLinkManager.setField(db, remoteClass, childId, remoteFieldColumn, parentPk);
+							buffer.setField(remote.clazz(), childId, remote.fieldColumn(), parentPk, null);
 							report.incrementInconsistentLinksFixed();
-							report.addDetail("O2M: Fixed child " + remoteClass.getSimpleName() + "(" + childId + ")."
-									+ remoteFieldName + " from " + childParentValue + " to " + parentPk);
+							report.addDetail("O2M: Fixed child " + remote.name() + "(" + childId + ")."
+									+ remote.fieldName() + " from " + childParentValue + " to " + parentPk);
 						}
 					}
 				}
-				for (final Object brokenId : toRemove) {
-					MongoLinkManager.removeFromList(db, clazz, parentPk, localFieldColumn, brokenId);
-				}
-			}
-
-			// Step 2: Scan children for orphaned references
-			final List<?> childDocuments = DataAccess.gets(remoteClass, buildOptions(includeDeletedRemote));
-			final Set<Object> parentPkSet = new HashSet<>();
-			for (final T parentDoc : parentDocuments) {
-				parentPkSet.add(localPkProp.getValue(parentDoc));
 			}
-			for (final Object childDoc : childDocuments) {
-				report.incrementDocumentsScanned();
-				final Object childPk = remotePkProp.getValue(childDoc);
-				final Object childParentValue = remoteProp.getValue(childDoc);
+		});
+
+		// Step 2: Scan children for orphaned references
+		scan(db, remote, RepairCheckpoint.PHASE_REMOTE, report, resumeFrom, onBatch, (batch, buffer) -> {
+			final Map<Object, Object> parents = lookup(db, source, collectIds(batch, remote.fieldColumn()));
+			for (final Document childDoc : batch) {
+				final Object childPk = childDoc.get(remote.pkColumn());
+				final Object childParentValue = childDoc.get(remote.fieldColumn());
 				if (childParentValue == null) {
 					continue;
 				}
 				report.incrementLinksChecked();
-				if (!parentPkSet.contains(childParentValue)) {
+				if (!parents.containsKey(childParentValue)) {
 					// Parent doesn't exist => set child's parent to null
-					MongoLinkManager.setField(db, remoteClass, childPk, remoteFieldColumn, null);
+					buffer.setField(remote.clazz(), childPk, remote.fieldColumn(), null, null);
 					report.incrementBrokenLinksRemoved();
-					report.addDetail("O2M: Nullified parent ref on child " + remoteClass.getSimpleName() + "(" + childPk
-							+ ")." + remoteFieldName + " (parent " + childParentValue + " not found)");
-				} else {
-					// Parent exists, check if it lists this child
-					final Object parentDoc = getByIdWithDeleted(clazz, childParentValue, includeDeletedSource);
-					if (parentDoc != null) {
-						final Object parentListValue = localProp.getValue(parentDoc);
-						if (!collectionContains(parentListValue, childPk)) {
-							// Add child to parent's list
-							MongoLinkManager.addToList(db, clazz, childParentValue, localFieldColumn, childPk);
-							report.incrementMissingLinksAdded();
-							report.addDetail("O2M: Added missing child " + childPk + " to " + clazz.getSimpleName()
-									+ "(" + childParentValue + ")." + fieldDesc.getProperty().getName());
-						}
-					}
+					report.addDetail("O2M: Nullified parent ref on child " + remote.name() + "(" + childPk + ")."
+							+ remote.fieldName() + " (parent " + childParentValue + " not found)");
+				} else if (!collectionContains(parents.get(childParentValue), childPk)) {
+					// Parent exists but does not list this child => add child to parent's list
+					buffer.addToList(source.clazz(), childParentValue, source.fieldColumn(), childPk);
+					report.incrementMissingLinksAdded();
+					report.addDetail("O2M: Added missing child " + childPk + " to " + source.name() + "("
+							+ childParentValue + ")." + source.fieldName());
 				}
 			}
-		}
-
-		LOGGER.info("OneToMany repair for {}.{}: {}", clazz.getSimpleName(), fieldDesc.getProperty().getName(), report);
-		return report;
+		});
 	}
 
 	// ========== ManyToOne repair ==========
 
-	@SuppressWarnings("unchecked")
-	private static <T> RepairReport repairManyToOne(
-			final Class<T> clazz,
-			final DbClassModel model,
-			final DbPropertyDescriptor fieldDesc,
-			final ManyToOneDoc annotation,
-			final boolean includeDeletedSource,
-			final boolean includeDeletedRemote) throws Exception {
-		final RepairReport report = new RepairReport();
-		final Class<?> remoteClass = annotation.targetEntity();
-		final String remoteFieldName = annotation.remoteField();
-
-		final DbClassModel remoteModel = DbClassModel.of(remoteClass);
-		final DbPropertyDescriptor remoteFieldDesc = remoteModel.findByPropertyName(remoteFieldName);
-		if (remoteFieldDesc == null) {
-			throw new DataAccessException(
-					"Cannot find remote field '" + remoteFieldName + "' in " + remoteClass.getCanonicalName());
-		}
-
-		final PropertyDescriptor localProp = fieldDesc.getProperty();
-		final PropertyDescriptor localPkProp = model.getPrimaryKey().getProperty();
-		final String localFieldColumn = fieldDesc.getFieldName(null).inTable();
-
-		final PropertyDescriptor remoteProp = remoteFieldDesc.getProperty();
-		final PropertyDescriptor remotePkProp = remoteModel.getPrimaryKey().getProperty();
-		final String remoteFieldColumn = remoteFieldDesc.getFieldName(null).inTable();
-
-		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
-			final DBAccessMongo db = ctx.get();
-
-			// Step 1: Scan children (source has scalar, remote has List)
-			final List<T> childDocuments = DataAccess.gets(clazz, buildOptions(includeDeletedSource));
-			for (final T childDoc : childDocuments) {
-				report.incrementDocumentsScanned();
-				final Object childPk = localPkProp.getValue(childDoc);
-				final Object parentId = localProp.getValue(childDoc);
+	private static void repairManyToOne(
+			final DBAccessMongo db,
+			final Side source,
+			final Side remote,
+			final RepairReport report,
+			final RepairCheckpoint resumeFrom,
+			final Consumer<RepairReport> onBatch) throws Exception {
+		// Step 1: Scan children (source has scalar, remote has List)
+		scan(db, source, RepairCheckpoint.PHASE_SOURCE, report, resumeFrom, onBatch, (batch, buffer) -> {
+			final Map<Object, Object> parents = lookup(db, remote, collectIds(batch, source.fieldColumn()));
+			for (final Document childDoc : batch) {
+				final Object childPk = childDoc.get(source.pkColumn());
+				final Object parentId = childDoc.get(source.fieldColumn());
 				if (parentId == null) {
 					continue;
 				}
 				report.incrementLinksChecked();
-				final Object parentDoc = getByIdWithDeleted(remoteClass, parentId, includeDeletedRemote);
-				if (parentDoc == null) {
+				if (!parents.containsKey(parentId)) {
 					// Parent doesn't exist => set child's parent to null
-					MongoLinkManager.setField(db, clazz, childPk, localFieldColumn, null);
+					buffer.setField(source.clazz(), childPk, source.fieldColumn(), null, null);
 					report.incrementBrokenLinksRemoved();
-					report.addDetail("M2O: Nullified parent ref on " + clazz.getSimpleName() + "(" + childPk + ")."
-							+ fieldDesc.getProperty().getName() + " (parent " + parentId + " not found)");
-				} else {
-					// Parent exists, check if it lists this child in its remote list
-					final Object parentListValue = remoteProp.getValue(parentDoc);
-					if (!collectionContains(parentListValue, childPk)) {
-						// Add child to parent's list
-						MongoLinkManager.addToList(db, remoteClass, parentId, remoteFieldColumn, childPk);
-						report.incrementMissingLinksAdded();
-						report.addDetail("M2O: Added missing child " + childPk + " to " + remoteClass.getSimpleName()
-								+ "(" + parentId + ")." + remoteFieldName);
-					}
+					report.addDetail("M2O: Nullified parent ref on " + source.name() + "(" + childPk + ")."
+							+ source.fieldName() + " (parent " + parentId + " not found)");
+				} else if (!collectionContains(parents.get(parentId), childPk)) {
+					// Parent exists but does not list this child => add child to parent's list
+					buffer.addToList(remote.clazz(), parentId, remote.fieldColumn(), childPk);
+					report.incrementMissingLinksAdded();
+					report.addDetail("M2O: Added missing child " + childPk + " to " + remote.name() + "(" + parentId
+							+ ")." + remote.fieldName());
 				}
 			}
-
-			// Step 2: Scan parents for orphaned child refs
-			final List<?> parentDocuments = DataAccess.gets(remoteClass, buildOptions(includeDeletedRemote));
-			final Set<Object> childPkSet = new HashSet<>();
-			for (final T childDoc : childDocuments) {
-				childPkSet.add(localPkProp.getValue(childDoc));
-			}
-			for (final Object parentDoc : parentDocuments) {
-				report.incrementDocumentsScanned();
-				final Object parentPk = remotePkProp.getValue(parentDoc);
-				final Object parentListValue = remoteProp.getValue(parentDoc);
-				if (!(parentListValue instanceof final Collection<?> childIdCollection)) {
+		});
+
+		// Step 2: Scan parents for orphaned child refs
+		scan(db, remote, RepairCheckpoint.PHASE_REMOTE, report, resumeFrom, onBatch, (batch, buffer) -> {
+			final Map<Object, Object> children = lookup(db, source, collectIds(batch, remote.fieldColumn()));
+			for (final Document parentDoc : batch) {
+				final Object parentPk = parentDoc.get(remote.pkColumn());
+				if (!(parentDoc.get(remote.fieldColumn()) instanceof final Collection<?> childIdCollection)) {
 					continue;
 				}
-				final List<Object> toRemove = new ArrayList<>();
 				for (final Object childId : childIdCollection) {
 					report.incrementLinksChecked();
-					if (!childPkSet.contains(childId)) {
-						// Child doesn't exist => mark for removal
-						toRemove.add(childId);
+					if (!children.containsKey(childId)) {
+						// Child doesn't exist => remove it from the parent list
+						buffer.removeFromList(remote.clazz(), parentPk, remote.fieldColumn(), childId);
 						report.incrementBrokenLinksRemoved();
-						report.addDetail("M2O: Removed broken child ref " + childId + " from "
-								+ remoteClass.getSimpleName() + "(" + parentPk + ")." + remoteFieldName);
+						report.addDetail("M2O: Removed broken child ref " + childId + " from " + remote.name() + "("
+								+ parentPk + ")." + remote.fieldName());
 					} else {
 						// Child exists, check that its parent field points to this parent
-						final Object childDoc = getByIdWithDeleted(clazz, childId, includeDeletedSource);
-						if (childDoc != null) {
-							final Object childParentValue = localProp.getValue(childDoc);
-							if (!parentPk.equals(childParentValue)) {
-								toRemove.add(childId);
-								report.incrementInconsistentLinksFixed();
-								report.addDetail("M2O: Removed orphaned ref " + childId + " from "
-										+ remoteClass.getSimpleName() + "(" + parentPk + ")." + remoteFieldName
-										+ " (child points to " + childParentValue + ")");
-							}
+						final Object childParentValue = children.get(childId);
+						if (!parentPk.equals(childParentValue)) {
+							buffer.removeFromList(remote.clazz(), parentPk, remote.fieldColumn(), childId);
+							report.incrementInconsistentLinksFixed();
+							report.addDetail("M2O: Removed orphaned ref " + childId + " from " + remote.name() + "("
+									+ parentPk + ")." + remote.fieldName() + " (child points to " + childParentValue
+									+ ")");
 						}
 					}
 				}
-				for (final Object orphanId : toRemove) {
-					MongoLinkManager.removeFromList(db, remoteClass, parentPk, remoteFieldColumn, orphanId);
-				}
 			}
+		});
+	}
+
+	// ========== Helpers ==========
+
+	private static Bson notDeletedFilter(final Side side) {
+		if (side.includeDeleted() || side.deletedFieldName() == null) {
+			return null;
 		}
+		return Filters.or(Filters.eq(side.deletedFieldName(), false), Filters.exists(side.deletedFieldName(), false));
+	}
 
-		LOGGER.info("ManyToOne repair for {}.{}: {}", clazz.getSimpleName(), fieldDesc.getProperty().getName(), report);
-		return report;
+	/**
+	 * Walks a collection in primary key order by batches of {@link #BATCH_SIZE} documents. The fixes queued by
+	 * the checker are written before the checkpoint moves past the batch.
+	 */
+	private static void scan(
+			final DBAccessMongo db,
+			final Side side,
+			final int phase,
+			final RepairReport report,
+			final RepairCheckpoint resumeFrom,
+			final Consumer<RepairReport> onBatch,
+			final BatchChecker checker) throws Exception {
+		final List<Bson> filters = new ArrayList<>();
+		if (resumeFrom != null) {
+			if (resumeFrom.phase() > phase) {
+				// Phase already completed
+				return;
+			}
+			if (resumeFrom.phase() == phase && resumeFrom.lastId() != null) {
+				filters.add(Filters.gt(side.pkColumn(), resumeFrom.lastId()));
+			}
+		}
+		final Bson notDeleted = notDeletedFilter(side);
+		if (notDeleted != null) {
+			filters.add(notDeleted);
+		}
+		final MongoCollection<Document> collection = db.getInterface().getDatabase()
+				.getCollection(side.collectionName());
+		final LinkOperationBuffer buffer = new LinkOperationBuffer(db);
+		final List<Document> batch = new ArrayList<>(BATCH_SIZE);
+		DBAccessMongo.statistic.countFind.incrementAndGet();
+		try (MongoCursor<Document> cursor = collection.find(filters.isEmpty() ? new Document() : Filters.and(filters))
+				.projection(Projections.include(side.pkColumn(), side.fieldColumn()))
+				.sort(Sorts.ascending(side.pkColumn())).batchSize(BATCH_SIZE).cursor()) {
+			while (cursor.hasNext()) {
+				batch.add(cursor.next());
+				if (batch.size() == BATCH_SIZE) {
+					writeBatch(side, phase, report, onBatch, checker, buffer, batch);
+				}
+			}
+			if (!batch.isEmpty()) {
+				writeBatch(side, phase, report, onBatch, checker, buffer, batch);
+			}
+		}
 	}
 
-	// ========== Helpers ==========
+	private static void writeBatch(
+			final Side side,
+			final int phase,
+			final RepairReport report,
+			final Consumer<RepairReport> onBatch,
+			final BatchChecker checker,
+			final LinkOperationBuffer buffer,
+			final List<Document> batch) throws Exception {
+		for (int iii = 0; iii < batch.size(); iii++) {
+			report.incrementDocumentsScanned();
+		}
+		checker.check(batch, buffer);
+		buffer.flush();
+		report.batchWritten(new RepairCheckpoint(phase, batch.get(batch.size() - 1).get(side.pkColumn())));
+		batch.clear();
+		if (report.getBatchesWritten() % PROGRESS_LOG_INTERVAL == 0) {
+			LOGGER.info("Link repair of {}.{} in progress: {}", side.name(), side.fieldName(), report);
+		}
+		if (onBatch != null) {
+			onBatch.accept(report);
+		}
+	}
 
-	private static QueryOption[] buildOptions(final boolean includeDeleted) {
-		if (includeDeleted) {
-			return new QueryOption[] { new AccessDeletedItems() };
+	/** Collects the ids referenced by a link field (scalar or list) in a batch of documents. */
+	private static Set<Object> collectIds(final List<Document> batch, final String fieldColumn) {
+		final Set<Object> ids = new LinkedHashSet<>();
+		for (final Document doc : batch) {
+			final Object value = doc.get(fieldColumn);
+			if (value instanceof final Collection<?> collection) {
+				for (final Object id : collection) {
+					if (id != null) {
+						ids.add(id);
+					}
+				}
+			} else if (value != null) {
+				ids.add(value);
+			}
 		}
-		return new QueryOption[0];
+		return ids;
 	}
 
-	private static <ID_TYPE> Object getByIdWithDeleted(
-			final Class<?> clazz,
-			final ID_TYPE id,
-			final boolean includeDeleted) throws Exception {
-		if (includeDeleted) {
-			return DataAccess.getById(clazz, id, new AccessDeletedItems());
+	/**
+	 * Reads the link field of the existing documents among the given ids, with one {@code $in} request.
+	 *
+	 * @return The link field value (possibly null) of each existing document, by primary key
+	 */
+	private static Map<Object, Object> lookup(final DBAccessMongo db, final Side side, final Set<Object> ids) {
+		final Map<Object, Object> out = new HashMap<>();
+		if (ids.isEmpty()) {
+			return out;
+		}
+		Bson filter = Filters.in(side.pkColumn(), ids);
+		final Bson notDeleted = notDeletedFilter(side);
+		if (notDeleted != null) {
+			filter = Filters.and(filter, notDeleted);
+		}
+		final MongoCollection<Document> collection = db.getInterface().getDatabase()
+				.getCollection(side.collectionName());
+		DBAccessMongo.statistic.countFind.incrementAndGet();
+		for (final Document doc : collection.find(filter)
+				.projection(Projections.include(side.pkColumn(), side.fieldColumn()))) {
+			out.put(doc.get(side.pkColumn()), doc.get(side.fieldColumn()));
 		}
-		return DataAccess.getById(clazz, id);
+		return out;
 	}
 
 	private static boolean collectionContains(final Object value, final Object target) {
@@ -0,0 +1,20 @@
+package org.atriasoft.archidata.dataAccess.commonTools;
+
+/**
+ * Position reached by a {@link LinkRepairTools#repairLinks} run, used to resume it after an interruption.
+ *
+ * <p>A repair walks the source collection (phase 1), then the remote collection (phase 2), both in ascending
+ * primary key order. The checkpoint is only moved once the fixes of a batch are written: resuming from it never
+ * skips a document.
+ *
+ * @param phase  The phase in progress (1: source collection, 2: remote collection)
+ * @param lastId The primary key of the last document of the phase whose fixes are written
+ */
+public record RepairCheckpoint(
+		int phase,
+		Object lastId) {
+	/** Phase checking the links of the source collection. */
+	public static final int PHASE_SOURCE = 1;
+	/** Phase checking the reverse links of the remote collection. */
+	public static final int PHASE_REMOTE = 2;
+}
@@ -5,16 +5,26 @@ import java.util.List;
 
 /**
  * Report returned by {@link LinkRepairTools#repairLinks} summarizing what was found and fixed.
+ *
+ * <p>Also tracks the progress of a running repair: the {@link #getCheckpoint() checkpoint} to resume from, the
+ * number of batches written and the throughput. Only the first {@link #MAX_DETAILS} detail messages are kept.
  */
 public class RepairReport {
+	/** Maximum number of detail messages kept in the report. */
+	public static final int MAX_DETAILS = 1000;
+
 	/** Creates a new RepairReport with all counters initialized to zero. */
 	public RepairReport() {}
 
+	private final long startNanos = System.nanoTime();
 	private int documentsScanned;
 	private int linksChecked;
 	private int brokenLinksRemoved;
 	private int missingLinksAdded;
 	private int inconsistentLinksFixed;
+	private int batchesWritten;
+	private int detailsDropped;
+	private RepairCheckpoint checkpoint;
 	private final List<String> details = new ArrayList<>();
 
 	/**
@@ -71,6 +81,55 @@ public class RepairReport {
 		return this.details;
 	}
 
+	/**
+	 * Returns the number of detail messages not kept because the report already held {@link #MAX_DETAILS}.
+	 *
+	 * @return The count of dropped detail messages
+	 */
+	public int getDetailsDropped() {
+		return this.detailsDropped;
+	}
+
+	/**
+	 * Returns the number of batches whose fixes were written.
+	 *
+	 * @return The count of batches
+	 */
+	public int getBatchesWritten() {
+		return this.batchesWritten;
+	}
+
+	/**
+	 * Returns the position to resume the repair from.
+	 *
+	 * @return The checkpoint of the last written batch, or null if no batch was written
+	 */
+	public RepairCheckpoint getCheckpoint() {
+		return this.checkpoint;
+	}
+
+	/**
+	 * Returns the time spent since the repair started.
+	 *
+	 * @return The elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return (System.nanoTime() - this.startNanos) / 1_000_000L;
+	}
+
+	/**
+	 * Returns the number of documents scanned per second since the repair started.
+	 *
+	 * @return The scan throughput
+	 */
+	public double getDocumentsPerSecond() {
+		final long elapsedNanos = System.nanoTime() - this.startNanos;
+		if (elapsedNanos <= 0) {
+			return 0.0;
+		}
+		return this.documentsScanned * 1_000_000_000.0 / elapsedNanos;
+	}
+
 	/**
 	 * Returns the total number of fixes applied (broken removed + missing added + inconsistent fixed).
 	 *
@@ -111,13 +170,28 @@ public class RepairReport {
 	 * @param detail The detail message to add
 	 */
 	public void addDetail(final String detail) {
-		this.details.add(detail);
+		if (this.details.size() < MAX_DETAILS) {
+			this.details.add(detail);
+		} else {
+			this.detailsDropped++;
+		}
+	}
+
+	/**
+	 * Records a batch whose fixes are written.
+	 *
+	 * @param checkpoint The position to resume from after this batch
+	 */
+	public void batchWritten(final RepairCheckpoint checkpoint) {
+		this.batchesWritten++;
+		this.checkpoint = checkpoint;
 	}
 
 	@Override
 	public String toString() {
 		return "RepairReport{scanned=" + this.documentsScanned + ", checked=" + this.linksChecked + ", brokenRemoved="
 				+ this.brokenLinksRemoved + ", missingAdded=" + this.missingLinksAdded + ", inconsistentFixed="
-				+ this.inconsistentLinksFixed + ", totalFixes=" + getTotalFixes() + "}";
+				+ this.inconsistentLinksFixed + ", totalFixes=" + getTotalFixes() + ", batches=" + this.batchesWritten
+				+ ", docsPerSecond=" + String.format("%.1f", getDocumentsPerSecond()) + "}";
 	}
 }
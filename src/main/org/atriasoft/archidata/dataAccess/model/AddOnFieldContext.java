@@ -1,5 +1,10 @@
 package org.atriasoft.archidata.dataAccess.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import org.atriasoft.archidata.annotation.ManyToManyDoc;
 import org.atriasoft.archidata.annotation.ManyToOneDoc;
 import org.atriasoft.archidata.annotation.OneToManyDoc;
@@ -159,6 +164,36 @@ public final class AddOnFieldContext {
 		return this.cascadeDelete;
 	}
 
+	// ========== References ==========
+
+	/**
+	 * Creates an instance of the target entity holding only its primary key, set in place of the loaded entity
+	 * when a link is not expanded.
+	 *
+	 * @param id the primary key of the linked entity
+	 * @return the reference
+	 * @throws IntrospectionException if the target entity can not be instantiated
+	 */
+	public Object newReference(final Object id) throws IntrospectionException {
+		return DbClassModel.of(this.targetEntity).getClassModel()
+				.newInstance(Map.of(this.targetPk.getProperty().getName(), id));
+	}
+
+	/**
+	 * Creates the references of a list of linked entities (see {@link #newReference(Object)}).
+	 *
+	 * @param ids the primary keys of the linked entities
+	 * @return the references, in the order of the ids
+	 * @throws IntrospectionException if the target entity can not be instantiated
+	 */
+	public List<Object> newReferences(final Collection<?> ids) throws IntrospectionException {
+		final List<Object> out = new ArrayList<>(ids.size());
+		for (final Object id : ids) {
+			out.add(newReference(id));
+		}
+		return out;
+	}
+
 	// ========== Factory methods ==========
 
 	static AddOnFieldContext buildFor(final DbPropertyDescriptor desc) throws IntrospectionException {
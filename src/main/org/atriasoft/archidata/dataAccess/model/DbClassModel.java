@@ -11,6 +11,7 @@ import org.atriasoft.archidata.bean.PropertyDescriptor;
 import org.atriasoft.archidata.bean.exception.IntrospectionException;
 import org.atriasoft.archidata.dataAccess.QueryOptions;
 import org.atriasoft.archidata.dataAccess.addOn.DataAccessAddOn;
+import org.atriasoft.archidata.dataAccess.options.OverrideTableName;
 import org.atriasoft.archidata.exception.DataAccessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -146,7 +147,13 @@ public final class DbClassModel {
 	 * @throws DataAccessException if the table name cannot be resolved
 	 */
 	public String getTableName(final QueryOptions options) throws DataAccessException {
-		return AnnotationTools.getTableName(this.classModel.getClassType(), options);
+		if (options != null) {
+			final List<OverrideTableName> data = options.get(OverrideTableName.class);
+			if (data.size() == 1) {
+				return data.get(0).getName();
+			}
+		}
+		return this.tableName;
 	}
 
 	/**
@@ -0,0 +1,141 @@
+package org.atriasoft.archidata.dataAccess.model.codec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.UuidCodec;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Driver codec decoding an entity straight from the {@link BsonReader}, without building the intermediate
+ * {@link org.bson.Document} of the row.
+ *
+ * <p>Each field value is read with the codec the driver would use inside a Document (so the
+ * {@link MongoTypeReader}s receive the same values), then converted and set by the pre-compiled
+ * {@link MongoFieldCodec} of the field. Fields absent from the document are set to {@code null} like in
+ * {@code DBAccessMongo.createObjectFromDocument}, except the {@code @DataNotRead} ones which keep their
+ * default value.
+ *
+ * <p>Only built by {@link EntityCodecProvider} for entities without retrievable add-on fields: links need the
+ * database access and the request options to be resolved. Encoding is delegated to the POJO codec.
+ *
+ * @param <T> The type of the entity
+ */
+public final class EntityCodec<T> implements Codec<T> {
+	private static final BsonTypeClassMap BSON_TYPE_CLASS_MAP = new BsonTypeClassMap();
+	private static final UuidCodec UUID_CODEC = new UuidCodec(UuidRepresentation.STANDARD);
+
+	private final Class<T> clazz;
+	private final DbClassModel model;
+	private final Codec<T> encoder;
+	private final CodecRegistry registry;
+	private final Map<String, Integer> fieldIndexes = new HashMap<>();
+	private final List<DbPropertyDescriptor> fields = new ArrayList<>();
+
+	/**
+	 * Creates the codec of an entity.
+	 *
+	 * @param clazz    The entity class
+	 * @param model    The model of the entity
+	 * @param encoder  The codec used to encode the entity (may be null when the entity is never encoded)
+	 * @param registry The registry used to decode the field values
+	 */
+	EntityCodec(final Class<T> clazz, final DbClassModel model, final Codec<T> encoder, final CodecRegistry registry) {
+		this.clazz = clazz;
+		this.model = model;
+		this.encoder = encoder;
+		this.registry = registry;
+		for (final DbPropertyDescriptor desc : model.getAllFields()) {
+			if (desc.getCodec() == null) {
+				continue;
+			}
+			this.fieldIndexes.put(desc.getDbFieldName(), this.fields.size());
+			this.fields.add(desc);
+		}
+	}
+
+	@Override
+	public Class<T> getEncoderClass() {
+		return this.clazz;
+	}
+
+	@Override
+	public void encode(final BsonWriter writer, final T value, final EncoderContext encoderContext) {
+		if (this.encoder == null) {
+			throw new CodecConfigurationException("No encoder for " + this.clazz.getCanonicalName());
+		}
+		this.encoder.encode(writer, value, encoderContext);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T decode(final BsonReader reader, final DecoderContext decoderContext) {
+		try {
+			final T data = (T) this.model.getClassModel().newInstance();
+			final boolean[] seen = new boolean[this.fields.size()];
+			reader.readStartDocument();
+			while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+				final Integer index = this.fieldIndexes.get(reader.readName());
+				if (index == null) {
+					reader.skipValue();
+					continue;
+				}
+				seen[index] = true;
+				this.fields.get(index).getCodec().readFromValue(readValue(reader, decoderContext), data);
+			}
+			reader.readEndDocument();
+			for (int iii = 0; iii < seen.length; iii++) {
+				final DbPropertyDescriptor desc = this.fields.get(iii);
+				if (!seen[iii] && !desc.isNotRead()) {
+					desc.getCodec().readFromValue(null, data);
+				}
+			}
+			return data;
+		} catch (final RuntimeException ex) {
+			throw ex;
+		} catch (final Exception ex) {
+			throw new CodecConfigurationException(
+					"Failed to decode " + this.clazz.getSimpleName() + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Reads the current value as the driver {@code DocumentCodec} does (Document for sub-documents, List for
+	 * arrays, UUID for standard UUID binaries...).
+	 */
+	private Object readValue(final BsonReader reader, final DecoderContext decoderContext) {
+		final BsonType bsonType = reader.getCurrentBsonType();
+		if (bsonType == BsonType.NULL) {
+			reader.readNull();
+			return null;
+		}
+		if (bsonType == BsonType.ARRAY) {
+			final List<Object> list = new ArrayList<>();
+			reader.readStartArray();
+			while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+				list.add(readValue(reader, decoderContext));
+			}
+			reader.readEndArray();
+			return list;
+		}
+		if (bsonType == BsonType.BINARY && reader.peekBinarySize() == 16
+				&& reader.peekBinarySubType() == BsonBinarySubType.UUID_STANDARD.getValue()) {
+			return UUID_CODEC.decode(reader, decoderContext);
+		}
+		return this.registry.get(BSON_TYPE_CLASS_MAP.get(bsonType)).decode(reader, decoderContext);
+	}
+}
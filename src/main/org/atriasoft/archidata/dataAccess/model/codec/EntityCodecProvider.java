@@ -0,0 +1,64 @@
+package org.atriasoft.archidata.dataAccess.model.codec;
+
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.model.DbFieldAction;
+import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Provides an {@link EntityCodec} for the entity classes that can be decoded without the database access: a
+ * class with a primary key, a default constructor and no retrievable add-on field (links).
+ *
+ * <p>Other classes are left to the next providers of the registry. Encoding is delegated to the codec of the
+ * fallback provider (the POJO provider), so writes keep the same format.
+ */
+public class EntityCodecProvider implements CodecProvider {
+	private final CodecProvider fallback;
+
+	/**
+	 * Creates the provider.
+	 *
+	 * @param fallback The provider used to encode the entities
+	 */
+	public EntityCodecProvider(final CodecProvider fallback) {
+		this.fallback = fallback;
+	}
+
+	@Override
+	public <T> Codec<T> get(final Class<T> clazz, final CodecRegistry registry) {
+		if (clazz.isRecord() || clazz.isEnum() || clazz.isInterface() || clazz.isPrimitive() || clazz.isArray()
+				|| clazz.getName().startsWith("java.") || clazz.getName().startsWith("org.bson.")) {
+			return null;
+		}
+		final DbClassModel model;
+		try {
+			model = DbClassModel.of(clazz);
+		} catch (final Exception ex) {
+			return null;
+		}
+		if (!isDirectDecodable(model)) {
+			return null;
+		}
+		return new EntityCodec<>(clazz, model, this.fallback.get(clazz, registry), registry);
+	}
+
+	/**
+	 * Checks if an entity can be decoded by an {@link EntityCodec}.
+	 *
+	 * @param model The model of the entity
+	 * @return {@code true} if the entity has a primary key, a default constructor and no link to resolve
+	 */
+	public static boolean isDirectDecodable(final DbClassModel model) {
+		if (model.getPrimaryKey() == null || model.getClassModel().getDefaultConstructor() == null) {
+			return false;
+		}
+		for (final DbPropertyDescriptor desc : model.getAllFields()) {
+			if (desc.getAction() == DbFieldAction.ADDON && desc.canRetrieve()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -136,6 +136,17 @@ public final class MongoFieldCodec {
 		readFromDocInternal(doc, overrideFieldName, overrideReader, instance);
 	}
 
+	/**
+	 * READER from a value already decoded from BSON (used by {@link EntityCodec}, without Document).
+	 *
+	 * @param mongoValue the MongoDB value of the field, {@code null} if absent or null
+	 * @param instance the Java bean instance to populate
+	 */
+	public void readFromValue(final Object mongoValue, final Object instance) throws Exception {
+		checkSetter(instance);
+		readFromValueInternal(mongoValue, this.reader, instance);
+	}
+
 	/**
 	 * Convert a Java value to its MongoDB form (standalone, without field context).
 	 * Useful for AddOns and collection element conversion.
@@ -215,19 +226,23 @@ public final class MongoFieldCodec {
 			final String fieldName,
 			final MongoTypeReader readerToUse,
 			final Object instance) throws Exception {
+		checkSetter(instance);
+		readFromValueInternal(doc.get(fieldName), readerToUse, instance);
+	}
+
+	private void checkSetter(final Object instance) {
 		if (this.setter == null) {
 			throw new IllegalStateException("Cannot read field '" + this.dbFieldName
 					+ "' from DB: no setter available on class " + instance.getClass().getSimpleName()
 					+ ". If the field is 'private final', either add a setter method or remove the getter"
 					+ " so the field is not mapped by the codec.");
 		}
-		if (!doc.containsKey(fieldName)) {
-			if (!this.primitive) {
-				setFieldValue(instance, null);
-			}
-			return;
-		}
-		final Object mongoValue = doc.get(fieldName);
+	}
+
+	private void readFromValueInternal(
+			final Object mongoValue,
+			final MongoTypeReader readerToUse,
+			final Object instance) throws Exception {
 		if (mongoValue == null) {
 			if (!this.primitive) {
 				setFieldValue(instance, null);
@@ -0,0 +1,403 @@
+package org.atriasoft.archidata.dataAccess.mongo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Buffer of link operations ({@code $addToSet}, {@code $pull}, {@code $set}) collected during one write of
+ * {@link DBAccessMongo} and sent grouped by target collection.
+ *
+ * <p>While a buffer is active on a {@link DBAccessMongo} (see {@link DBAccessMongo#getLinkBuffer()}), the
+ * {@link MongoLinkManager} operations are queued instead of being executed. On {@link #flush()}, each target
+ * collection receives one unordered {@code bulkWrite}:
+ * <ul>
+ * <li>one {@code $addToSet $each} per document for the values added to its lists,</li>
+ * <li>one {@code $pull $in} per document for the values removed from its lists,</li>
+ * <li>one {@code updateMany} with {@code $in} per (field, value) for the scalar fields set to the same value.</li>
+ * </ul>
+ * The update timestamp of the target entity is set by every update, as for the direct operations.
+ *
+ * <p>Adding then removing a value (or the reverse) on the same list keeps only the last operation. Setting a
+ * scalar field already pending on the same document flushes the buffer first, so the operations keep their
+ * order.
+ *
+ * <p>The scalar fields set with a {@link PreviousValueConsumer} stay atomic: their previous values are read with
+ * one {@code $in} request, and each update only applies if the field still holds the value read. The documents
+ * changed in between by another writer are updated again one by one with {@code findOneAndUpdate}, and the
+ * consumer receives the value that update really replaced.
+ */
+public final class LinkOperationBuffer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LinkOperationBuffer.class);
+
+	/**
+	 * Callback receiving the previous value of a field set by
+	 * {@link MongoLinkManager#setFieldAndThen(DBAccessMongo, Class, Object, String, Object, PreviousValueConsumer)}.
+	 */
+	@FunctionalInterface
+	public interface PreviousValueConsumer {
+		/**
+		 * Receives the previous value.
+		 *
+		 * @param previousValue the value of the field before the update (never null, different from the new value)
+		 * @throws Exception if the follow-up operation fails
+		 */
+		void accept(Object previousValue) throws Exception;
+	}
+
+	private record PendingSet(
+			Object value,
+			PreviousValueConsumer onPrevious) {}
+
+	private record Callback(
+			PreviousValueConsumer onPrevious,
+			Object previousValue) {}
+
+	/** Update of a scalar field guarded by the value read before it. */
+	private record Transition(
+			Object previousValue,
+			Object value) {}
+
+	/** Pending operations of one target collection. */
+	private static final class Group {
+		final DbClassModel model;
+		/** pk → list field → values to add. */
+		final Map<Object, Map<String, Set<Object>>> added = new LinkedHashMap<>();
+		/** pk → list field → values to remove. */
+		final Map<Object, Map<String, Set<Object>>> removed = new LinkedHashMap<>();
+		/** scalar field → pk → value to set (null: unset). */
+		final Map<String, Map<Object, PendingSet>> sets = new LinkedHashMap<>();
+
+		Group(final DbClassModel model) {
+			this.model = model;
+		}
+	}
+
+	private final DBAccessMongo ioDb;
+	private Map<Class<?>, Group> groups = new LinkedHashMap<>();
+
+	/**
+	 * Creates an empty buffer.
+	 *
+	 * @param ioDb the DB access the operations are sent with
+	 */
+	public LinkOperationBuffer(final DBAccessMongo ioDb) {
+		this.ioDb = ioDb;
+	}
+
+	/**
+	 * Checks whether operations are pending.
+	 *
+	 * @return true if nothing is pending
+	 */
+	public boolean isEmpty() {
+		return this.groups.isEmpty();
+	}
+
+	private Group group(final Class<?> clazz) throws Exception {
+		Group group = this.groups.get(clazz);
+		if (group == null) {
+			group = new Group(DbClassModel.of(clazz));
+			this.groups.put(clazz, group);
+		}
+		return group;
+	}
+
+	private static void moveValue(
+			final Map<Object, Map<String, Set<Object>>> from,
+			final Map<Object, Map<String, Set<Object>>> to,
+			final Object primaryKeyValue,
+			final String fieldColumnName,
+			final Object value) {
+		final Map<String, Set<Object>> fromFields = from.get(primaryKeyValue);
+		if (fromFields != null) {
+			final Set<Object> values = fromFields.get(fieldColumnName);
+			if (values != null) {
+				values.remove(value);
+			}
+		}
+		to.computeIfAbsent(primaryKeyValue, k -> new LinkedHashMap<>())
+				.computeIfAbsent(fieldColumnName, k -> new LinkedHashSet<>()).add(value);
+	}
+
+	/**
+	 * Queues the addition of a value to an array field.
+	 *
+	 * @param clazz the target entity class
+	 * @param primaryKeyValue the primary key of the document to update
+	 * @param fieldColumnName the DB column name of the array field
+	 * @param value the value to add
+	 * @throws Exception if the target class can not be introspected
+	 */
+	public void addToList(
+			final Class<?> clazz,
+			final Object primaryKeyValue,
+			final String fieldColumnName,
+			final Object value) throws Exception {
+		final Group group = group(clazz);
+		moveValue(group.removed, group.added, primaryKeyValue, fieldColumnName, value);
+	}
+
+	/**
+	 * Queues the removal of a value from an array field.
+	 *
+	 * @param clazz the target entity class
+	 * @param primaryKeyValue the primary key of the document to update
+	 * @param fieldColumnName the DB column name of the array field
+	 * @param value the value to remove
+	 * @throws Exception if the target class can not be introspected
+	 */
+	public void removeFromList(
+			final Class<?> clazz,
+			final Object primaryKeyValue,
+			final String fieldColumnName,
+			final Object value) throws Exception {
+		final Group group = group(clazz);
+		moveValue(group.added, group.removed, primaryKeyValue, fieldColumnName, value);
+	}
+
+	/**
+	 * Queues the update of a scalar field.
+	 *
+	 * @param clazz the target entity class
+	 * @param primaryKeyValue the primary key of the document to update
+	 * @param fieldColumnName the DB column name of the field
+	 * @param value the value to set (null to unset the field)
+	 * @param onPrevious called after the flush with the previous value when it changed (may be null)
+	 * @throws Exception if pending operations must be flushed first and fail
+	 */
+	public void setField(
+			final Class<?> clazz,
+			final Object primaryKeyValue,
+			final String fieldColumnName,
+			final Object value,
+			final PreviousValueConsumer onPrevious) throws Exception {
+		Group group = this.groups.get(clazz);
+		if (group != null) {
+			final Map<Object, PendingSet> pending = group.sets.get(fieldColumnName);
+			if (pending != null && pending.containsKey(primaryKeyValue)) {
+				// Keep the order of the updates of the same field
+				flush();
+			}
+		}
+		group = group(clazz);
+		group.sets.computeIfAbsent(fieldColumnName, k -> new LinkedHashMap<>()).put(primaryKeyValue,
+				new PendingSet(value, onPrevious));
+	}
+
+	/**
+	 * Sends the pending operations, then the operations queued by the {@link PreviousValueConsumer}s, until
+	 * nothing is pending.
+	 *
+	 * @throws Exception if a write fails
+	 */
+	public void flush() throws Exception {
+		while (!this.groups.isEmpty()) {
+			final Map<Class<?>, Group> current = this.groups;
+			this.groups = new LinkedHashMap<>();
+			final List<Callback> callbacks = new ArrayList<>();
+			for (final Group group : current.values()) {
+				flushGroup(group, callbacks);
+			}
+			// The callbacks may queue new operations, sent by the next iteration
+			for (final Callback callback : callbacks) {
+				callback.onPrevious().accept(callback.previousValue());
+			}
+		}
+	}
+
+	private void flushGroup(final Group group, final List<Callback> callbacks) throws Exception {
+		final DbClassModel model = group.model;
+		final String collectionName = model.getTableName();
+		final String pkColumn = model.getPrimaryKey().getDbFieldName();
+		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+		final Date now = new Date();
+		final MongoCollection<Document> collection = this.ioDb.getInterface().getDatabase()
+				.getCollection(collectionName);
+		this.ioDb.invalidateCaches(collectionName);
+		try {
+			final ClientSession session = this.ioDb.getSession();
+			final List<WriteModel<Document>> requests = new ArrayList<>();
+			// Scalar fields: one updateMany per (field, value), guarded by the previous value when it is needed
+			for (final Map.Entry<String, Map<Object, PendingSet>> fieldEntry : group.sets.entrySet()) {
+				final String fieldColumnName = fieldEntry.getKey();
+				final Map<Object, PendingSet> pending = fieldEntry.getValue();
+				final List<Object> withCallback = new ArrayList<>();
+				final Map<Object, List<Object>> byValue = new LinkedHashMap<>();
+				for (final Map.Entry<Object, PendingSet> entry : pending.entrySet()) {
+					if (entry.getValue().onPrevious() != null) {
+						withCallback.add(entry.getKey());
+					} else {
+						byValue.computeIfAbsent(entry.getValue().value(), k -> new ArrayList<>()).add(entry.getKey());
+					}
+				}
+				if (!withCallback.isEmpty()) {
+					flushGuarded(collection, session, pkColumn, fieldColumnName, pending, withCallback, updateTs, now,
+							callbacks);
+				}
+				for (final Map.Entry<Object, List<Object>> entry : byValue.entrySet()) {
+					requests.add(new UpdateManyModel<>(Filters.in(pkColumn, entry.getValue()),
+							withTimestamp(setOrUnset(fieldColumnName, entry.getKey()), updateTs, now)));
+				}
+			}
+			// Lists: one $pull $in and one $addToSet $each per document
+			addListRequests(requests, group.removed, pkColumn, updateTs, now, false);
+			addListRequests(requests, group.added, pkColumn, updateTs, now, true);
+			if (requests.isEmpty()) {
+				return;
+			}
+			final BulkWriteOptions bulkOptions = new BulkWriteOptions().ordered(false);
+			DBAccessMongo.statistic.countBulkWrite.incrementAndGet();
+			if (session != null) {
+				collection.bulkWrite(session, requests, bulkOptions);
+			} else {
+				collection.bulkWrite(requests, bulkOptions);
+			}
+			LOGGER.trace("flush links: {} updates on {}", requests.size(), collectionName);
+		} finally {
+			this.ioDb.invalidateCaches(collectionName);
+		}
+	}
+
+	/**
+	 * Sets the scalar fields whose previous value is needed, atomically: each update is conditioned by the value
+	 * read, and the documents modified in between are updated again with {@code findOneAndUpdate}.
+	 */
+	private static void flushGuarded(
+			final MongoCollection<Document> collection,
+			final ClientSession session,
+			final String pkColumn,
+			final String fieldColumnName,
+			final Map<Object, PendingSet> pending,
+			final List<Object> primaryKeys,
+			final DbPropertyDescriptor updateTs,
+			final Date now,
+			final List<Callback> callbacks) {
+		final Map<Object, Object> previousValues = readField(collection, session, pkColumn, fieldColumnName,
+				primaryKeys);
+		final Map<Transition, List<Object>> byTransition = new LinkedHashMap<>();
+		for (final Object primaryKeyValue : primaryKeys) {
+			byTransition.computeIfAbsent(
+					new Transition(previousValues.get(primaryKeyValue), pending.get(primaryKeyValue).value()),
+					k -> new ArrayList<>()).add(primaryKeyValue);
+		}
+		final List<WriteModel<Document>> requests = new ArrayList<>();
+		for (final Map.Entry<Transition, List<Object>> entry : byTransition.entrySet()) {
+			final Bson filter = Filters.and(Filters.in(pkColumn, entry.getValue()),
+					Filters.eq(fieldColumnName, entry.getKey().previousValue()));
+			requests.add(new UpdateManyModel<>(filter,
+					withTimestamp(setOrUnset(fieldColumnName, entry.getKey().value()), updateTs, now)));
+		}
+		DBAccessMongo.statistic.countBulkWrite.incrementAndGet();
+		final BulkWriteOptions bulkOptions = new BulkWriteOptions().ordered(false);
+		final BulkWriteResult result = session != null ? collection.bulkWrite(session, requests, bulkOptions)
+				: collection.bulkWrite(requests, bulkOptions);
+		// Documents changed by another writer since the read (or missing): not updated by their guarded request
+		final Set<Object> missed = new HashSet<>();
+		if (result.getMatchedCount() < primaryKeys.size()) {
+			final Map<Object, Object> currentValues = readField(collection, session, pkColumn, fieldColumnName,
+					primaryKeys);
+			for (final Object primaryKeyValue : primaryKeys) {
+				if (!Objects.equals(currentValues.get(primaryKeyValue), pending.get(primaryKeyValue).value())) {
+					missed.add(primaryKeyValue);
+				}
+			}
+		}
+		for (final Object primaryKeyValue : primaryKeys) {
+			final PendingSet set = pending.get(primaryKeyValue);
+			Object previousValue = previousValues.get(primaryKeyValue);
+			if (missed.contains(primaryKeyValue)) {
+				DBAccessMongo.statistic.countFindOneAndUpdate.incrementAndGet();
+				final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
+				final Bson update = withTimestamp(setOrUnset(fieldColumnName, set.value()), updateTs, now);
+				final Document previousDoc = session != null ? collection.findOneAndUpdate(session, filter, update)
+						: collection.findOneAndUpdate(filter, update);
+				previousValue = previousDoc == null ? null : previousDoc.get(fieldColumnName);
+			}
+			if (previousValue == null || previousValue.equals(set.value())) {
+				continue;
+			}
+			callbacks.add(new Callback(set.onPrevious(), previousValue));
+		}
+	}
+
+	private static Map<Object, Object> readField(
+			final MongoCollection<Document> collection,
+			final ClientSession session,
+			final String pkColumn,
+			final String fieldColumnName,
+			final List<Object> primaryKeys) {
+		final Map<Object, Object> out = new HashMap<>();
+		DBAccessMongo.statistic.countFind.incrementAndGet();
+		final Bson filter = Filters.in(pkColumn, primaryKeys);
+		final FindIterable<Document> found = session != null ? collection.find(session, filter)
+				: collection.find(filter);
+		for (final Document doc : found.projection(Projections.include(pkColumn, fieldColumnName))) {
+			out.put(doc.get(pkColumn), doc.get(fieldColumnName));
+		}
+		return out;
+	}
+
+	private static Bson setOrUnset(final String fieldColumnName, final Object value) {
+		return value != null ? Updates.set(fieldColumnName, value) : Updates.unset(fieldColumnName);
+	}
+
+	private static void addListRequests(
+			final List<WriteModel<Document>> requests,
+			final Map<Object, Map<String, Set<Object>>> operations,
+			final String pkColumn,
+			final DbPropertyDescriptor updateTs,
+			final Date now,
+			final boolean add) {
+		for (final Map.Entry<Object, Map<String, Set<Object>>> entry : operations.entrySet()) {
+			final List<Bson> updates = new ArrayList<>();
+			for (final Map.Entry<String, Set<Object>> fieldEntry : entry.getValue().entrySet()) {
+				if (fieldEntry.getValue().isEmpty()) {
+					continue;
+				}
+				final List<Object> values = new ArrayList<>(fieldEntry.getValue());
+				updates.add(add ? Updates.addEachToSet(fieldEntry.getKey(), values)
+						: Updates.pullByFilter(Filters.in(fieldEntry.getKey(), values)));
+			}
+			if (updates.isEmpty()) {
+				continue;
+			}
+			requests.add(new UpdateOneModel<>(Filters.eq(pkColumn, entry.getKey()),
+					withTimestamp(Updates.combine(updates), updateTs, now)));
+		}
+	}
+
+	private static Bson withTimestamp(final Bson update, final DbPropertyDescriptor updateTs, final Date now) {
+		if (updateTs == null) {
+			return update;
+		}
+		return Updates.combine(update, Updates.set(updateTs.getDbFieldName(), now));
+	}
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import org.atriasoft.archidata.dataAccess.DBAccessMongo;
 import org.atriasoft.archidata.dataAccess.model.DbClassModel;
 import org.atriasoft.archidata.dataAccess.model.DbPropertyDescriptor;
+import org.atriasoft.archidata.dataAccess.mongo.LinkOperationBuffer.PreviousValueConsumer;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.slf4j.Logger;
@@ -24,6 +25,9 @@ import com.mongodb.client.model.Updates;
  *
  * <p>Used by {@code ManyToManyTools}, {@code ListInDbTools}, {@code FieldTools},
  * and the AddOn classes for single-round-trip link operations.
+ *
+ * <p>During the writes of {@link DBAccessMongo}, the list and scalar operations are queued in the
+ * {@link LinkOperationBuffer} of the call and sent grouped by collection.
  */
 public final class MongoLinkManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MongoLinkManager.class);
@@ -51,28 +55,38 @@ public final class MongoLinkManager {
 			final Object primaryKeyValue,
 			final String fieldColumnName,
 			final Object valueToAdd) throws Exception {
+		final LinkOperationBuffer buffer = ioDb.getLinkBuffer();
+		if (buffer != null) {
+			buffer.addToList(clazz, primaryKeyValue, fieldColumnName, valueToAdd);
+			return;
+		}
 		final DbClassModel model = DbClassModel.of(clazz);
 		final String collectionName = model.getTableName();
 		final String pkColumn = model.getPrimaryKey().getDbFieldName();
 
 		final MongoCollection<Document> collection = ioDb.getInterface().getDatabase().getCollection(collectionName);
-
-		final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
-		Bson update = Updates.addToSet(fieldColumnName, valueToAdd);
-
-		// Also update the updateAt timestamp if present
-		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
-		if (updateTs != null) {
-			update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
-		}
-
-		final ClientSession session = ioDb.getSession();
-		if (session != null) {
-			collection.updateOne(session, filter, update);
-		} else {
-			collection.updateOne(filter, update);
+		ioDb.invalidateCaches(collectionName);
+		try {
+			final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
+			Bson update = Updates.addToSet(fieldColumnName, valueToAdd);
+
+			// Also update the updateAt timestamp if present
+			final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+			if (updateTs != null) {
+				update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+			}
+
+			final ClientSession session = ioDb.getSession();
+			if (session != null) {
+				collection.updateOne(session, filter, update);
+			} else {
+				collection.updateOne(filter, update);
+			}
+			LOGGER.trace("addToList: {}.{} += {} (pk={})", collectionName, fieldColumnName, valueToAdd,
+					primaryKeyValue);
+		} finally {
+			ioDb.invalidateCaches(collectionName);
 		}
-		LOGGER.trace("addToList: {}.{} += {} (pk={})", collectionName, fieldColumnName, valueToAdd, primaryKeyValue);
 	}
 
 	/**
@@ -94,28 +108,37 @@ public final class MongoLinkManager {
 			final Object primaryKeyValue,
 			final String fieldColumnName,
 			final Object valueToRemove) throws Exception {
+		final LinkOperationBuffer buffer = ioDb.getLinkBuffer();
+		if (buffer != null) {
+			buffer.removeFromList(clazz, primaryKeyValue, fieldColumnName, valueToRemove);
+			return;
+		}
 		final DbClassModel model = DbClassModel.of(clazz);
 		final String collectionName = model.getTableName();
 		final String pkColumn = model.getPrimaryKey().getDbFieldName();
 
 		final MongoCollection<Document> collection = ioDb.getInterface().getDatabase().getCollection(collectionName);
-
-		final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
-		Bson update = Updates.pull(fieldColumnName, valueToRemove);
-
-		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
-		if (updateTs != null) {
-			update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+		ioDb.invalidateCaches(collectionName);
+		try {
+			final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
+			Bson update = Updates.pull(fieldColumnName, valueToRemove);
+
+			final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+			if (updateTs != null) {
+				update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+			}
+
+			final ClientSession session = ioDb.getSession();
+			if (session != null) {
+				collection.updateOne(session, filter, update);
+			} else {
+				collection.updateOne(filter, update);
+			}
+			LOGGER.trace("removeFromList: {}.{} -= {} (pk={})", collectionName, fieldColumnName, valueToRemove,
+					primaryKeyValue);
+		} finally {
+			ioDb.invalidateCaches(collectionName);
 		}
-
-		final ClientSession session = ioDb.getSession();
-		if (session != null) {
-			collection.updateOne(session, filter, update);
-		} else {
-			collection.updateOne(filter, update);
-		}
-		LOGGER.trace("removeFromList: {}.{} -= {} (pk={})", collectionName, fieldColumnName, valueToRemove,
-				primaryKeyValue);
 	}
 
 	// ========== Scalar operations (for ManyToOne / OneToMany single values) ==========
@@ -139,32 +162,41 @@ public final class MongoLinkManager {
 			final Object primaryKeyValue,
 			final String fieldColumnName,
 			final Object value) throws Exception {
+		final LinkOperationBuffer buffer = ioDb.getLinkBuffer();
+		if (buffer != null) {
+			buffer.setField(clazz, primaryKeyValue, fieldColumnName, value, null);
+			return;
+		}
 		final DbClassModel model = DbClassModel.of(clazz);
 		final String collectionName = model.getTableName();
 		final String pkColumn = model.getPrimaryKey().getDbFieldName();
 
 		final MongoCollection<Document> collection = ioDb.getInterface().getDatabase().getCollection(collectionName);
-
-		final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
-		Bson update;
-		if (value != null) {
-			update = Updates.set(fieldColumnName, value);
-		} else {
-			update = Updates.unset(fieldColumnName);
-		}
-
-		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
-		if (updateTs != null) {
-			update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+		ioDb.invalidateCaches(collectionName);
+		try {
+			final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
+			Bson update;
+			if (value != null) {
+				update = Updates.set(fieldColumnName, value);
+			} else {
+				update = Updates.unset(fieldColumnName);
+			}
+
+			final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+			if (updateTs != null) {
+				update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+			}
+
+			final ClientSession session = ioDb.getSession();
+			if (session != null) {
+				collection.updateOne(session, filter, update);
+			} else {
+				collection.updateOne(filter, update);
+			}
+			LOGGER.trace("setField: {}.{} = {} (pk={})", collectionName, fieldColumnName, value, primaryKeyValue);
+		} finally {
+			ioDb.invalidateCaches(collectionName);
 		}
-
-		final ClientSession session = ioDb.getSession();
-		if (session != null) {
-			collection.updateOne(session, filter, update);
-		} else {
-			collection.updateOne(filter, update);
-		}
-		LOGGER.trace("setField: {}.{} = {} (pk={})", collectionName, fieldColumnName, value, primaryKeyValue);
 	}
 
 	/**
@@ -185,38 +217,81 @@ public final class MongoLinkManager {
 			final Object primaryKeyValue,
 			final String fieldColumnName,
 			final Object newValue) throws Exception {
+		final LinkOperationBuffer buffer = ioDb.getLinkBuffer();
+		if (buffer != null) {
+			// Read the value written by the pending operations
+			buffer.flush();
+		}
 		final DbClassModel model = DbClassModel.of(clazz);
 		final String collectionName = model.getTableName();
 		final String pkColumn = model.getPrimaryKey().getDbFieldName();
 
 		final MongoCollection<Document> collection = ioDb.getInterface().getDatabase().getCollection(collectionName);
-
-		final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
-		Bson update;
-		if (newValue != null) {
-			update = Updates.set(fieldColumnName, newValue);
-		} else {
-			update = Updates.unset(fieldColumnName);
-		}
-
-		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
-		if (updateTs != null) {
-			update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+		ioDb.invalidateCaches(collectionName);
+		try {
+			final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
+			Bson update;
+			if (newValue != null) {
+				update = Updates.set(fieldColumnName, newValue);
+			} else {
+				update = Updates.unset(fieldColumnName);
+			}
+
+			final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+			if (updateTs != null) {
+				update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+			}
+
+			// findOneAndUpdate returns the document BEFORE the update by default
+			final ClientSession session = ioDb.getSession();
+			final Document previousDoc = session != null ? collection.findOneAndUpdate(session, filter, update)
+					: collection.findOneAndUpdate(filter, update);
+			if (previousDoc == null) {
+				return null;
+			}
+			final Object previousValue = previousDoc.get(fieldColumnName);
+			if (previousValue != null && previousValue.equals(newValue)) {
+				// Value unchanged, return null to indicate no change
+				return null;
+			}
+			return previousValue;
+		} finally {
+			ioDb.invalidateCaches(collectionName);
 		}
+	}
 
-		// findOneAndUpdate returns the document BEFORE the update by default
-		final ClientSession session = ioDb.getSession();
-		final Document previousDoc = session != null ? collection.findOneAndUpdate(session, filter, update)
-				: collection.findOneAndUpdate(filter, update);
-		if (previousDoc == null) {
-			return null;
+	/**
+	 * Set a scalar field to a new value and give the previous value to a follow-up operation.
+	 *
+	 * <p>Outside a {@link LinkOperationBuffer}, this is {@link #setFieldAndGetPrevious} followed by the call of
+	 * {@code onPrevious}. In a buffer, the update is grouped with the other ones of the collection and
+	 * {@code onPrevious} is called after the flush (the previous values are read with one {@code $in} request
+	 * before the update, which only applies if the value did not change in between).
+	 *
+	 * @param ioDb the DB access instance
+	 * @param clazz the target entity class
+	 * @param primaryKeyValue the primary key of the document to update
+	 * @param fieldColumnName the DB column name of the field
+	 * @param newValue the new value to set
+	 * @param onPrevious called with the previous value, when it was set and different from the new one
+	 * @throws Exception if the update operation fails
+	 */
+	public static void setFieldAndThen(
+			final DBAccessMongo ioDb,
+			final Class<?> clazz,
+			final Object primaryKeyValue,
+			final String fieldColumnName,
+			final Object newValue,
+			final PreviousValueConsumer onPrevious) throws Exception {
+		final LinkOperationBuffer buffer = ioDb.getLinkBuffer();
+		if (buffer != null) {
+			buffer.setField(clazz, primaryKeyValue, fieldColumnName, newValue, onPrevious);
+			return;
 		}
-		final Object previousValue = previousDoc.get(fieldColumnName);
-		if (previousValue != null && previousValue.equals(newValue)) {
-			// Value unchanged, return null to indicate no change
-			return null;
+		final Object previousValue = setFieldAndGetPrevious(ioDb, clazz, primaryKeyValue, fieldColumnName, newValue);
+		if (previousValue != null) {
+			onPrevious.accept(previousValue);
 		}
-		return previousValue;
 	}
 
 	/**
@@ -242,24 +317,28 @@ public final class MongoLinkManager {
 		final String collectionName = model.getTableName();
 
 		final MongoCollection<Document> collection = ioDb.getInterface().getDatabase().getCollection(collectionName);
-
-		final Bson filter = filterFieldName != null ? Filters.eq(filterFieldName, filterValue) : new Document();
-		Bson update = Updates.unset(fieldToNullify);
-
-		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
-		if (updateTs != null) {
-			update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+		ioDb.invalidateCaches(collectionName);
+		try {
+			final Bson filter = filterFieldName != null ? Filters.eq(filterFieldName, filterValue) : new Document();
+			Bson update = Updates.unset(fieldToNullify);
+
+			final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+			if (updateTs != null) {
+				update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+			}
+
+			// Use updateMany in case multiple documents match
+			final ClientSession session = ioDb.getSession();
+			if (session != null) {
+				collection.updateMany(session, filter, update);
+			} else {
+				collection.updateMany(filter, update);
+			}
+			LOGGER.trace("setFieldToNullWhere: {}.{} where {}={}", collectionName, fieldToNullify, filterFieldName,
+					filterValue);
+		} finally {
+			ioDb.invalidateCaches(collectionName);
 		}
-
-		// Use updateMany in case multiple documents match
-		final ClientSession session = ioDb.getSession();
-		if (session != null) {
-			collection.updateMany(session, filter, update);
-		} else {
-			collection.updateMany(filter, update);
-		}
-		LOGGER.trace("setFieldToNullWhere: {}.{} where {}={}", collectionName, fieldToNullify, filterFieldName,
-				filterValue);
 	}
 
 	// ========== Batch operations ==========
@@ -284,28 +363,39 @@ public final class MongoLinkManager {
 		if (valuesToAdd == null || valuesToAdd.isEmpty()) {
 			return;
 		}
+		final LinkOperationBuffer buffer = ioDb.getLinkBuffer();
+		if (buffer != null) {
+			for (final Object value : valuesToAdd) {
+				buffer.addToList(clazz, primaryKeyValue, fieldColumnName, value);
+			}
+			return;
+		}
 		final DbClassModel model = DbClassModel.of(clazz);
 		final String collectionName = model.getTableName();
 		final String pkColumn = model.getPrimaryKey().getDbFieldName();
 
 		final MongoCollection<Document> collection = ioDb.getInterface().getDatabase().getCollection(collectionName);
-
-		final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
-		Bson update = Updates.addEachToSet(fieldColumnName, valuesToAdd);
-
-		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
-		if (updateTs != null) {
-			update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
-		}
-
-		final ClientSession session = ioDb.getSession();
-		if (session != null) {
-			collection.updateOne(session, filter, update);
-		} else {
-			collection.updateOne(filter, update);
+		ioDb.invalidateCaches(collectionName);
+		try {
+			final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
+			Bson update = Updates.addEachToSet(fieldColumnName, valuesToAdd);
+
+			final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+			if (updateTs != null) {
+				update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+			}
+
+			final ClientSession session = ioDb.getSession();
+			if (session != null) {
+				collection.updateOne(session, filter, update);
+			} else {
+				collection.updateOne(filter, update);
+			}
+			LOGGER.trace("addAllToList: {}.{} += {} values (pk={})", collectionName, fieldColumnName,
+					valuesToAdd.size(), primaryKeyValue);
+		} finally {
+			ioDb.invalidateCaches(collectionName);
 		}
-		LOGGER.trace("addAllToList: {}.{} += {} values (pk={})", collectionName, fieldColumnName, valuesToAdd.size(),
-				primaryKeyValue);
 	}
 
 	/**
@@ -328,27 +418,38 @@ public final class MongoLinkManager {
 		if (valuesToRemove == null || valuesToRemove.isEmpty()) {
 			return;
 		}
+		final LinkOperationBuffer buffer = ioDb.getLinkBuffer();
+		if (buffer != null) {
+			for (final Object value : valuesToRemove) {
+				buffer.removeFromList(clazz, primaryKeyValue, fieldColumnName, value);
+			}
+			return;
+		}
 		final DbClassModel model = DbClassModel.of(clazz);
 		final String collectionName = model.getTableName();
 		final String pkColumn = model.getPrimaryKey().getDbFieldName();
 
 		final MongoCollection<Document> collection = ioDb.getInterface().getDatabase().getCollection(collectionName);
-
-		final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
-		Bson update = Updates.pullAll(fieldColumnName, valuesToRemove);
-
-		final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
-		if (updateTs != null) {
-			update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
-		}
-
-		final ClientSession session = ioDb.getSession();
-		if (session != null) {
-			collection.updateOne(session, filter, update);
-		} else {
-			collection.updateOne(filter, update);
+		ioDb.invalidateCaches(collectionName);
+		try {
+			final Bson filter = Filters.eq(pkColumn, primaryKeyValue);
+			Bson update = Updates.pullAll(fieldColumnName, valuesToRemove);
+
+			final DbPropertyDescriptor updateTs = model.getUpdateTimestamp();
+			if (updateTs != null) {
+				update = Updates.combine(update, Updates.set(updateTs.getDbFieldName(), new Date()));
+			}
+
+			final ClientSession session = ioDb.getSession();
+			if (session != null) {
+				collection.updateOne(session, filter, update);
+			} else {
+				collection.updateOne(filter, update);
+			}
+			LOGGER.trace("removeAllFromList: {}.{} -= {} values (pk={})", collectionName, fieldColumnName,
+					valuesToRemove.size(), primaryKeyValue);
+		} finally {
+			ioDb.invalidateCaches(collectionName);
 		}
-		LOGGER.trace("removeAllFromList: {}.{} -= {} values (pk={})", collectionName, fieldColumnName,
-				valuesToRemove.size(), primaryKeyValue);
 	}
 }
@@ -0,0 +1,12 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+/**
+ * Aggregation option allowing the server to write temporary files when a stage ($group, $sort...) exceeds its
+ * memory limit, instead of failing the request.
+ */
+public class AllowDiskUse extends QueryOption {
+	/** Constructs an option allowing the aggregation to use the disk. */
+	public AllowDiskUse() {
+		// default constructor
+	}
+}
@@ -0,0 +1,53 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.QueryOptions;
+
+/**
+ * Query option that sets the number of documents sent to (or read from) the database in a single round trip
+ * for bulk operations.
+ */
+public class BatchSize extends QueryOption {
+	/** The number of documents per batch. */
+	protected final int size;
+
+	/**
+	 * Constructs a BatchSize option.
+	 *
+	 * @param size the number of documents per batch (must be strictly positive)
+	 */
+	public BatchSize(final int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("BatchSize must be > 0, got " + size);
+		}
+		this.size = size;
+	}
+
+	/**
+	 * Returns the batch size value.
+	 *
+	 * @return the number of documents per batch
+	 */
+	public int getValue() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the batch size requested in the options, or the default value if none is present.
+	 *
+	 * @param options      the query options to inspect (may be null)
+	 * @param defaultValue the value to use when no {@link BatchSize} option is present
+	 * @return the batch size to apply
+	 */
+	public static int getOrDefault(final QueryOptions options, final int defaultValue) {
+		if (options == null) {
+			return defaultValue;
+		}
+		final List<BatchSize> sizes = options.get(BatchSize.class);
+		if (sizes.isEmpty()) {
+			return defaultValue;
+		}
+		return sizes.get(0).getValue();
+	}
+}
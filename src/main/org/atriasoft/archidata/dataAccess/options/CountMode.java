@@ -0,0 +1,130 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+import java.time.Duration;
+
+import org.atriasoft.archidata.dataAccess.QueryOptions;
+
+/**
+ * Count option trading the exactness of a {@code count} for its cost on large collections.
+ *
+ * <ul>
+ * <li>{@link #ESTIMATED}: uses the collection metadata ({@code estimatedDocumentCount}) when the request has no
+ * {@link Condition}. The soft-deleted entities are then counted. With a condition or in a transaction, the count is
+ * exact.</li>
+ * <li>{@link #capped(long)}: stops counting after the given number of matches. A result equal to the limit means
+ * "at least the limit".</li>
+ * <li>{@link #cached(Duration)}: keeps the result per request for the given time, even if the collection is
+ * written meanwhile (use {@link UseCache} for a result dropped at each write). Ignored in a transaction.</li>
+ * </ul>
+ * {@link #cached(Duration)} can be combined with one of the other modes:
+ *
+ * <pre>{@code
+ * // The pager only shows "more than 10,000"
+ * long total = db.count(Event.class, condition, CountMode.capped(10_000), CountMode.cached(Duration.ofSeconds(30)));
+ * }</pre>
+ */
+public class CountMode extends QueryOption {
+	/** Ways to count the entities. */
+	public enum Mode {
+		/** Collection metadata when no condition is given. */
+		ESTIMATED,
+		/** Count stopped after a number of matches. */
+		CAPPED,
+		/** Result kept for a time to live. */
+		CACHED
+	}
+
+	/** Count from the collection metadata when the request has no condition. */
+	public static final CountMode ESTIMATED = new CountMode(Mode.ESTIMATED, 0, null);
+
+	private final Mode mode;
+	private final long limit;
+	private final Duration ttl;
+
+	private CountMode(final Mode mode, final long limit, final Duration ttl) {
+		this.mode = mode;
+		this.limit = limit;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Creates a count stopped after a number of matches.
+	 *
+	 * @param limit The maximum number of counted entities (strictly positive)
+	 * @return The count option
+	 */
+	public static CountMode capped(final long limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("CountMode.capped needs a strictly positive limit, got " + limit);
+		}
+		return new CountMode(Mode.CAPPED, limit, null);
+	}
+
+	/**
+	 * Creates a count whose result is kept for a time, whatever the writes of the collection.
+	 *
+	 * @param ttl The time a result is served after it was counted (strictly positive)
+	 * @return The count option
+	 */
+	public static CountMode cached(final Duration ttl) {
+		if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("CountMode.cached needs a strictly positive time to live, got " + ttl);
+		}
+		return new CountMode(Mode.CACHED, 0, ttl);
+	}
+
+	/**
+	 * Returns the way to count.
+	 *
+	 * @return The count mode
+	 */
+	public Mode getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Returns the maximum number of counted entities of a {@link Mode#CAPPED} count.
+	 *
+	 * @return The limit, or 0 for the other modes
+	 */
+	public long getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * Returns the time to live of a {@link Mode#CACHED} count.
+	 *
+	 * @return The time to live, or null for the other modes
+	 */
+	public Duration getTtl() {
+		return this.ttl;
+	}
+
+	/**
+	 * Returns the count option of a mode in a request.
+	 *
+	 * @param options The query options to inspect (may be null)
+	 * @param mode    The requested mode
+	 * @return The first option of this mode, or null if none
+	 */
+	public static CountMode get(final QueryOptions options, final Mode mode) {
+		if (options == null) {
+			return null;
+		}
+		for (final CountMode option : options.get(CountMode.class)) {
+			if (option.mode == mode) {
+				return option;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return switch (this.mode) {
+			case ESTIMATED -> "CountMode.ESTIMATED";
+			case CAPPED -> "CountMode.capped(" + this.limit + ")";
+			case CACHED -> "CountMode.cached(" + this.ttl + ")";
+		};
+	}
+}
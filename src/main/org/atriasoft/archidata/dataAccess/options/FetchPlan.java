@@ -0,0 +1,165 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.atriasoft.archidata.dataAccess.QueryOptions;
+
+/**
+ * Read option selecting the relationships loaded with the entities.
+ *
+ * <p>By default every link field holding entities (ManyToOne, OneToMany, ManyToMany typed with the target
+ * entity) is expanded, recursively. With a fetch plan, only the listed paths are expanded; the other link
+ * fields receive references holding only the primary key of the linked entities, without any request:
+ *
+ * <pre>{@code
+ * // Load the author and the tags of each post, the links of the author and of the tags stay ids
+ * DataAccess.gets(Post.class, FetchPlan.of("author", "tags"));
+ *
+ * // Also load the team of the author
+ * DataAccess.gets(Post.class, FetchPlan.of("author.team", "tags"));
+ *
+ * // Load nothing: list endpoints only needing the ids
+ * DataAccess.gets(Post.class, FetchPlan.idsOnly());
+ *
+ * // Load every link, two levels deep
+ * DataAccess.gets(Post.class, FetchPlan.depth(2));
+ * }</pre>
+ *
+ * <p>Paths use the property names of the entities. Link fields declared with the id type are not affected:
+ * they always hold the stored ids.
+ */
+public class FetchPlan extends QueryOption {
+	private static final FetchPlan IDS_ONLY = new FetchPlan(0, Map.of());
+
+	private final int depth;
+	private final Map<String, FetchPlan> paths;
+
+	private FetchPlan(final int depth, final Map<String, FetchPlan> paths) {
+		this.depth = depth;
+		this.paths = paths;
+	}
+
+	/**
+	 * Creates a plan expanding the given relationship paths only.
+	 *
+	 * @param paths Property names of the links to load, dot-separated for the links of the loaded entities
+	 *              (a path also expands all its prefixes)
+	 * @return The fetch plan
+	 */
+	public static FetchPlan of(final String... paths) {
+		return of(List.of(paths));
+	}
+
+	/**
+	 * Creates a plan expanding the given relationship paths only.
+	 *
+	 * @param paths Property names of the links to load, dot-separated for the links of the loaded entities
+	 *              (a path also expands all its prefixes)
+	 * @return The fetch plan
+	 */
+	public static FetchPlan of(final List<String> paths) {
+		final Map<String, List<String>> children = new HashMap<>();
+		for (final String path : paths) {
+			if (path == null || path.isBlank()) {
+				throw new IllegalArgumentException("FetchPlan path can not be empty");
+			}
+			final int dot = path.indexOf('.');
+			final String head = dot < 0 ? path : path.substring(0, dot);
+			final List<String> tails = children.computeIfAbsent(head, k -> new ArrayList<>());
+			if (dot >= 0) {
+				tails.add(path.substring(dot + 1));
+			}
+		}
+		final Map<String, FetchPlan> out = new HashMap<>();
+		for (final Map.Entry<String, List<String>> entry : children.entrySet()) {
+			out.put(entry.getKey(), entry.getValue().isEmpty() ? IDS_ONLY : of(entry.getValue()));
+		}
+		return new FetchPlan(0, Map.copyOf(out));
+	}
+
+	/**
+	 * Creates a plan expanding no relationship: link fields only hold the primary keys of the linked entities.
+	 *
+	 * @return The fetch plan
+	 */
+	public static FetchPlan idsOnly() {
+		return IDS_ONLY;
+	}
+
+	/**
+	 * Creates a plan expanding every relationship down to a maximum depth.
+	 *
+	 * @param depth Number of levels loaded (1: the links of the requested entities only, 0: same as
+	 *              {@link #idsOnly()})
+	 * @return The fetch plan
+	 */
+	public static FetchPlan depth(final int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("FetchPlan depth must be positive: " + depth);
+		}
+		return depth == 0 ? IDS_ONLY : new FetchPlan(depth, Map.of());
+	}
+
+	/**
+	 * Returns the fetch plan of a request.
+	 *
+	 * @param options The options of the request
+	 * @return The fetch plan, or null when all the relationships are loaded
+	 */
+	public static FetchPlan get(final QueryOptions options) {
+		if (options == null) {
+			return null;
+		}
+		final List<FetchPlan> plans = options.get(FetchPlan.class);
+		return plans.isEmpty() ? null : plans.get(0);
+	}
+
+	/**
+	 * Checks whether a link field is loaded.
+	 *
+	 * @param propertyName The property name of the link field
+	 * @return true if the linked entities are loaded, false if only their primary keys are set
+	 */
+	public boolean expands(final String propertyName) {
+		return this.depth > 0 || this.paths.containsKey(propertyName);
+	}
+
+	/**
+	 * Returns the plan used to read the entities of an expanded link field.
+	 *
+	 * @param propertyName The property name of the link field
+	 * @return The plan of the next level
+	 */
+	public FetchPlan nested(final String propertyName) {
+		final FetchPlan child = this.paths.get(propertyName);
+		if (child != null) {
+			return child;
+		}
+		return depth(Math.max(0, this.depth - 1));
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof final FetchPlan other)) {
+			return false;
+		}
+		return this.depth == other.depth && this.paths.equals(other.paths);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.depth, this.paths);
+	}
+
+	@Override
+	public String toString() {
+		return "FetchPlan[depth=" + this.depth + ", paths=" + this.paths + "]";
+	}
+}
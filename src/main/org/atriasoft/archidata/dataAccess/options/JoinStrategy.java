@@ -0,0 +1,81 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.QueryOptions;
+
+/**
+ * Read option selecting how the linked entities (ManyToOne, OneToMany, ManyToMany typed with the target entity)
+ * are loaded.
+ *
+ * <ul>
+ * <li>{@link #BATCH} (default): the entities are read first, then one {@code $in} request is sent per target
+ * entity and level.</li>
+ * <li>{@link #LOOKUP}: the request becomes one aggregation with a {@code $lookup} stage per link field, so the
+ * linked documents come back in the same cursor. Only the first level is joined: the links of the linked
+ * entities are loaded in batch.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * DataAccess.gets(Post.class, JoinStrategy.LOOKUP, new Limit(50));
+ * }</pre>
+ *
+ * <p>{@link FetchPlan} is honoured: links not expanded by the plan are not joined.
+ */
+public class JoinStrategy extends QueryOption {
+	/** Strategies to load the linked entities. */
+	public enum Mode {
+		/** One {@code $in} request per target entity after the main read. */
+		BATCH,
+		/** {@code $lookup} stages in the main request. */
+		LOOKUP
+	}
+
+	/** Load the linked entities with batched {@code $in} requests (default). */
+	public static final JoinStrategy BATCH = new JoinStrategy(Mode.BATCH);
+	/** Load the linked entities with {@code $lookup} stages in the main request. */
+	public static final JoinStrategy LOOKUP = new JoinStrategy(Mode.LOOKUP);
+
+	private static final String JOINED_FIELD_PREFIX = "__join_";
+
+	private final Mode mode;
+
+	private JoinStrategy(final Mode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Returns the strategy.
+	 *
+	 * @return the strategy mode
+	 */
+	public Mode getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Checks whether a request joins its links with {@code $lookup} stages.
+	 *
+	 * @param options The options of the request
+	 * @return true if the request has the {@link #LOOKUP} strategy
+	 */
+	public static boolean isLookup(final QueryOptions options) {
+		final List<JoinStrategy> strategies = options.get(JoinStrategy.class);
+		return !strategies.isEmpty() && strategies.get(0).mode == Mode.LOOKUP;
+	}
+
+	/**
+	 * Returns the name of the field receiving the documents joined for a link field.
+	 *
+	 * @param fieldName The name of the link field in the collection
+	 * @return The name of the joined field in the result documents
+	 */
+	public static String joinedFieldName(final String fieldName) {
+		return JOINED_FIELD_PREFIX + fieldName;
+	}
+
+	@Override
+	public String toString() {
+		return "JoinStrategy." + this.mode;
+	}
+}
@@ -0,0 +1,15 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+/**
+ * Insert option that skips the read-back request done after an insert.
+ *
+ * <p>The generated primary key, timestamps and default values are copied into the object given to the insert,
+ * which is returned as-is: the insert costs a single server call. Fields computed by add-ons (links, etc.)
+ * are not refreshed.
+ */
+public class NoReadBack extends QueryOption {
+	/** Constructs an option to skip the read-back after an insert. */
+	public NoReadBack() {
+		// default constructor
+	}
+}
@@ -0,0 +1,32 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+/**
+ * Query option that skips the first results of a database query (mapped to {@code skip}).
+ *
+ * <p>The server still walks the skipped documents: for deep pages prefer {@link PageAfter}.
+ */
+public class Offset extends QueryOption {
+	/** The number of results to skip. */
+	protected final long offset;
+
+	/**
+	 * Constructs an Offset option with the specified number of results to skip.
+	 *
+	 * @param offset the number of results to skip (must be positive or zero)
+	 */
+	public Offset(final long offset) {
+		if (offset < 0) {
+			throw new IllegalArgumentException("Offset must be >= 0, got " + offset);
+		}
+		this.offset = offset;
+	}
+
+	/**
+	 * Returns the offset value.
+	 *
+	 * @return the number of results to skip
+	 */
+	public long getValue() {
+		return this.offset;
+	}
+}
@@ -129,6 +129,15 @@ public class OrderBy extends QueryOption {
 		return new OrderBy(new OrderItem(MethodReferenceResolver.resolveFieldName(setter), Order.DESC));
 	}
 
+	/**
+	 * Returns the sort criteria.
+	 *
+	 * @return the list of {@link OrderItem} sort criteria
+	 */
+	public List<OrderItem> getChilds() {
+		return this.childs;
+	}
+
 	/**
 	 * Populates a MongoDB sort document with the sort criteria.
 	 *
@@ -0,0 +1,167 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.options.OrderItem.Order;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import com.mongodb.client.model.Filters;
+
+/**
+ * Keyset pagination option: returns the results located after the last element of the previous page.
+ *
+ * <p>The token is opaque for the caller; it encodes the {@link OrderBy} keys of the last returned element plus
+ * its {@code _id} (always used as final sort key to make the order total). Unlike {@link Offset}, the server
+ * starts directly at the requested position, so deep pages cost the same as the first one on an indexed sort.
+ *
+ * <pre>{@code
+ * PageAfter page = new PageAfter(requestToken); // null for the first page
+ * List<User> users = da.gets(User.class, OrderBy.asc(User::getName), new Limit(50), page);
+ * String next = page.getNextToken(); // null when there is no more result
+ * }</pre>
+ *
+ * <p>The sort keys of the paginated entities must not be null.
+ */
+public class PageAfter extends QueryOption {
+	private static final String TOKEN_KEYS = "k";
+	private static final String TOKEN_VALUES = "v";
+	private static final String ID_FIELD = "_id";
+
+	/** The decoded token (null for the first page). */
+	protected final Document position;
+	/** The token to request the next page, filled by the query. */
+	protected String nextToken = null;
+
+	/** Constructs an option requesting the first page. */
+	public PageAfter() {
+		this.position = null;
+	}
+
+	/**
+	 * Constructs an option requesting the page after the given token.
+	 *
+	 * @param token token returned by {@link #getNextToken()} on the previous page (null or empty for the first page)
+	 * @throws IllegalArgumentException if the token is malformed
+	 */
+	public PageAfter(final String token) {
+		if (token == null || token.isEmpty()) {
+			this.position = null;
+			return;
+		}
+		try {
+			this.position = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+		} catch (final RuntimeException ex) {
+			throw new IllegalArgumentException("Malformed PageAfter token", ex);
+		}
+		if (!(this.position.get(TOKEN_KEYS) instanceof List<?>)
+				|| !(this.position.get(TOKEN_VALUES) instanceof List<?>)) {
+			throw new IllegalArgumentException("Malformed PageAfter token");
+		}
+	}
+
+	/**
+	 * Returns the token of the next page, available after the query has been executed.
+	 *
+	 * @return the token, or null if the last page has been reached
+	 */
+	public String getNextToken() {
+		return this.nextToken;
+	}
+
+	/**
+	 * Computes the sort keys used by the pagination: the {@link OrderBy} keys followed by {@code _id}.
+	 *
+	 * @param orders the OrderBy options of the query
+	 * @return the ordered list of sort keys
+	 */
+	public static List<OrderItem> keysetOrder(final List<OrderBy> orders) {
+		final List<OrderItem> keys = new ArrayList<>();
+		boolean hasId = false;
+		for (final OrderBy order : orders) {
+			for (final OrderItem item : order.getChilds()) {
+				keys.add(item);
+				hasId = hasId || ID_FIELD.equals(item.value);
+			}
+		}
+		if (!hasId) {
+			keys.add(new OrderItem(ID_FIELD, Order.ASC));
+		}
+		return keys;
+	}
+
+	/**
+	 * Generates the filter selecting the elements located after the token position.
+	 *
+	 * @param keys the sort keys of the query (see {@link #keysetOrder(List)})
+	 * @return the filter, or null for the first page
+	 * @throws DataAccessException if the token was generated with other sort keys
+	 */
+	public Bson generateFilter(final List<OrderItem> keys) throws DataAccessException {
+		if (this.position == null) {
+			return null;
+		}
+		final List<?> names = (List<?>) this.position.get(TOKEN_KEYS);
+		final List<?> values = (List<?>) this.position.get(TOKEN_VALUES);
+		if (names.size() != keys.size() || values.size() != keys.size()) {
+			throw new DataAccessException("PageAfter token does not match the OrderBy of the request");
+		}
+		for (int iii = 0; iii < keys.size(); iii++) {
+			if (!keys.get(iii).value.equals(names.get(iii))) {
+				throw new DataAccessException("PageAfter token does not match the OrderBy of the request");
+			}
+		}
+		// (k0 > v0) OR (k0 == v0 AND k1 > v1) OR ... (direction aware)
+		final List<Bson> alternatives = new ArrayList<>();
+		for (int iii = 0; iii < keys.size(); iii++) {
+			final List<Bson> terms = new ArrayList<>();
+			for (int jjj = 0; jjj < iii; jjj++) {
+				terms.add(Filters.eq(keys.get(jjj).value, values.get(jjj)));
+			}
+			final OrderItem key = keys.get(iii);
+			terms.add(key.order == Order.ASC ? Filters.gt(key.value, values.get(iii))
+					: Filters.lt(key.value, values.get(iii)));
+			alternatives.add(terms.size() == 1 ? terms.get(0) : Filters.and(terms));
+		}
+		return alternatives.size() == 1 ? alternatives.get(0) : Filters.or(alternatives);
+	}
+
+	/**
+	 * Sets the next token from the last document of the page.
+	 *
+	 * @param keys    the sort keys of the query (see {@link #keysetOrder(List)})
+	 * @param lastDoc the last document returned, or null if there is no next page
+	 */
+	public void updateNextToken(final List<OrderItem> keys, final Document lastDoc) {
+		if (lastDoc == null) {
+			this.nextToken = null;
+			return;
+		}
+		final List<String> names = new ArrayList<>();
+		final List<Object> values = new ArrayList<>();
+		for (final OrderItem key : keys) {
+			names.add(key.value);
+			values.add(getPath(lastDoc, key.value));
+		}
+		final String json = new Document(TOKEN_KEYS, names).append(TOKEN_VALUES, values)
+				.toJson(JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build());
+		this.nextToken = Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Object getPath(final Document doc, final String path) {
+		Object current = doc;
+		for (final String part : path.split("\\.")) {
+			if (!(current instanceof final Document sub)) {
+				return null;
+			}
+			current = sub.get(part);
+		}
+		return current;
+	}
+}
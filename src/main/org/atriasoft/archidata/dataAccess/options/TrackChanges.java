@@ -0,0 +1,16 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+/**
+ * Read option that keeps a snapshot of the values read for each returned entity.
+ *
+ * <p>A later {@code updateById} on one of these entities only sends the fields that differ from the snapshot
+ * ({@code $set}/{@code $unset}), and sends nothing at all when no field changed.
+ *
+ * @see org.atriasoft.archidata.dataAccess.ChangeTracker
+ */
+public class TrackChanges extends QueryOption {
+	/** Constructs an option to track changes on the entities read. */
+	public TrackChanges() {
+		// default constructor
+	}
+}
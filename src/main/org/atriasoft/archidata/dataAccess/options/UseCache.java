@@ -0,0 +1,61 @@
+package org.atriasoft.archidata.dataAccess.options;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.QueryOptions;
+
+/**
+ * Query option serving a {@code gets} or a {@code count} from the query result cache of the node.
+ *
+ * <p>The result is stored under a fingerprint of the request (collection, filter, sort, offset, limit and
+ * projection) and served again, without request, to the identical requests until the time to live expires or the
+ * collection is written (through this node, or by another node when the {@code ChangeNotificationManager} is
+ * started). The linked entities are loaded again at each hit.
+ *
+ * <p>Ignored in a transaction and with {@link JoinStrategy#LOOKUP} (the joined documents belong to other
+ * collections).
+ *
+ * <pre>{@code
+ * List<User> users = db.gets(User.class, new Condition(Filters.eq("team", teamId)), new UseCache(Duration.ofSeconds(5)));
+ * }</pre>
+ */
+public class UseCache extends QueryOption {
+	/** Time a result is served after it was read. */
+	protected final Duration ttl;
+
+	/**
+	 * Constructs a UseCache option.
+	 *
+	 * @param ttl The time a result is served after it was read (strictly positive)
+	 */
+	public UseCache(final Duration ttl) {
+		if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("UseCache needs a strictly positive time to live, got " + ttl);
+		}
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Returns the time to live of the cached result.
+	 *
+	 * @return The time a result is served after it was read
+	 */
+	public Duration getTtl() {
+		return this.ttl;
+	}
+
+	/**
+	 * Returns the UseCache option of a request.
+	 *
+	 * @param options The query options to inspect (may be null)
+	 * @return The first UseCache option, or null if the result must not be cached
+	 */
+	public static UseCache get(final QueryOptions options) {
+		if (options == null) {
+			return null;
+		}
+		final List<UseCache> values = options.get(UseCache.class);
+		return values.isEmpty() ? null : values.get(0);
+	}
+}
@@ -359,6 +359,16 @@ public class ChangeNotificationManager {
 		return this.running;
 	}
 
+	/**
+	 * Returns the name of the watched database.
+	 *
+	 * @return The database name, or null if the manager was never started
+	 */
+	public String getDatabaseName() {
+		final MongoDatabase current = this.database;
+		return current == null ? null : current.getName();
+	}
+
 	/**
 	 * Check if a collection is being watched
 	 *
@@ -2,8 +2,12 @@ package org.atriasoft.archidata.db;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.atriasoft.archidata.converter.mongo.OffsetDateTimeCodec;
+import org.atriasoft.archidata.dataAccess.model.codec.EntityCodecProvider;
+import org.bson.Document;
 import org.bson.UuidRepresentation;
 import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.codecs.configuration.CodecRegistry;
@@ -15,6 +19,7 @@ import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 
 /**
@@ -30,6 +35,8 @@ public class DbIoMongo extends DbIo implements Closeable {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DbIoMongo.class);
 	private MongoClient mongoClient = null;
 	private MongoDatabase dataBase = null;
+	// Collection handles are immutable: keep one per name while the database is opened
+	private final Map<String, MongoCollection<Document>> collections = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructs a DbIoMongo with the given database configuration.
@@ -50,6 +57,17 @@ public class DbIoMongo extends DbIo implements Closeable {
 		return this.dataBase;
 	}
 
+	/**
+	 * Returns the handle of a collection of the database (cached until the connection is closed).
+	 *
+	 * @param name the collection name
+	 * @return the {@link MongoCollection} instance
+	 */
+	public MongoCollection<Document> getCollection(final String name) {
+		final MongoDatabase database = this.dataBase;
+		return this.collections.computeIfAbsent(name, key -> database.getCollection(key));
+	}
+
 	/**
 	 * Returns the underlying MongoDB client.
 	 *
@@ -69,6 +87,26 @@ public class DbIoMongo extends DbIo implements Closeable {
 		this.mongoClient.close();
 		this.mongoClient = null;
 		this.dataBase = null;
+		this.collections.clear();
+	}
+
+	/**
+	 * Builds the codec registry of the connections: driver defaults, standard UUID, direct entity decoding
+	 * ({@link EntityCodecProvider}), POJOs and {@link OffsetDateTimeCodec}.
+	 *
+	 * @return The codec registry
+	 */
+	public static CodecRegistry createCodecRegistry() {
+		final CodecRegistry OffsetDateTimeCodecRegistry = CodecRegistries.fromCodecs(new OffsetDateTimeCodec());
+		final PojoCodecProvider pojoCodecProvider = PojoCodecProvider.builder().automatic(true).build();
+		final CodecRegistry pojoCodecRegistry = CodecRegistries.fromProviders(pojoCodecProvider);
+		// Ajouter le CodecRegistry par défaut, le codec UUID et celui pour POJOs
+		//final CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+		//		MongoClientSettings.getDefaultCodecRegistry(), /*uuidCodecRegistry, */ pojoCodecRegistry);
+		return CodecRegistries.fromRegistries(MongoClientSettings.getDefaultCodecRegistry(),
+				CodecRegistries.fromCodecs(new org.bson.codecs.UuidCodec(UuidRepresentation.STANDARD)),
+				CodecRegistries.fromProviders(new EntityCodecProvider(pojoCodecProvider)), pojoCodecRegistry,
+				OffsetDateTimeCodecRegistry);
 	}
 
 	/**
@@ -82,17 +120,7 @@ public class DbIoMongo extends DbIo implements Closeable {
 		final String dbName = this.config.getDbName();
 		// Connect to MongoDB (complex form):
 		final ConnectionString connectionString = new ConnectionString(dbUrl);
-		final CodecRegistry OffsetDateTimeCodecRegistry = CodecRegistries.fromCodecs(new OffsetDateTimeCodec());
-		final CodecRegistry pojoCodecRegistry = CodecRegistries
-				.fromProviders(PojoCodecProvider.builder().automatic(true).build());
-		// Ajouter le CodecRegistry par défaut, le codec UUID et celui pour POJOs
-		//final CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
-		//		MongoClientSettings.getDefaultCodecRegistry(), /*uuidCodecRegistry, */ pojoCodecRegistry);
-
-		final CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
-				MongoClientSettings.getDefaultCodecRegistry(),
-				CodecRegistries.fromCodecs(new org.bson.codecs.UuidCodec(UuidRepresentation.STANDARD)),
-				pojoCodecRegistry, OffsetDateTimeCodecRegistry);
+		final CodecRegistry codecRegistry = createCodecRegistry();
 		// Configure MongoClientSettings with connection pool settings
 		final MongoClientSettings clientSettings = MongoClientSettings.builder() //
 				.applyConnectionString(connectionString)//
@@ -34,6 +34,11 @@ import jakarta.ws.rs.ext.Provider;
  * </p>
  *
  * <p>
+ * With {@code @DataAccessSingleConnection(identityMap = true)}, the connection of the request also keeps the
+ * entities it reads by primary key (see {@link DBAccessMongo#enableIdentityMap()}).
+ * </p>
+ *
+ * <p>
  * <strong>Virtual Thread Support:</strong> This filter uses ThreadLocal for connection
  * storage. Each virtual thread has its own ThreadLocal storage (not shared with carrier
  * thread), so connections are safely isolated between virtual threads.
@@ -56,8 +61,18 @@ public class DataAccessRetentionConnectionFilter implements ContainerRequestFilt
 	 * @throws IOException if connection fails
 	 */
 	public void lock() throws IOException {
+		lock(false);
+	}
+
+	/**
+	 * Opens a database connection for the current thread.
+	 *
+	 * @param identityMap true to enable the first-level entity cache of the connection
+	 * @throws IOException if connection fails
+	 */
+	public void lock(final boolean identityMap) throws IOException {
 		try {
-			contextHolder.set(new DataAccessConnectionContext());
+			contextHolder.set(new DataAccessConnectionContext(identityMap));
 		} catch (final InternalServerErrorException | IOException | DataAccessException ex) {
 			LOGGER.error("Failed to open database connection: {}", ex.getMessage(), ex);
 			throw new IOException("Failed to access the database: " + ex.getMessage(), ex);
@@ -88,9 +103,9 @@ public class DataAccessRetentionConnectionFilter implements ContainerRequestFilt
 	 */
 	@Override
 	public void filter(final ContainerRequestContext requestContext) throws IOException {
-		lock();
-		// Check if transactional mode is requested
 		final DataAccessSingleConnection annotation = getMatchedAnnotation();
+		lock(annotation != null && annotation.identityMap());
+		// Check if transactional mode is requested
 		if (annotation != null && annotation.transactional()) {
 			try {
 				final DBAccessMongo db = DataAccessConnectionContext.getConnection();
@@ -1,5 +1,7 @@
 package org.atriasoft.archidata.tools;
 
+import java.util.Arrays;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +45,8 @@ public class ConfigBaseVariable {
 	private static String eMailPassword;
 	private static String thumbnailFormat;
 	private static String thumbnailWidth;
+	private static String thumbnailWidths;
+	private static String thumbnailWorkers;
 	private static Class<?>[] dbInterfacesClasses;
 
 	/**
@@ -209,6 +213,24 @@ public class ConfigBaseVariable {
 		thumbnailWidth = value;
 	}
 
+	/**
+	 * Sets the widths of the thumbnails stored for each image (see {@link #getThumbnailWidths()}).
+	 * @param value The comma-separated widths in pixels (e.g. {@code "128,256,512"}), or {@code null} for the default.
+	 */
+	public static void setThumbnailWidths(final String value) {
+		checkNotLocked("thumbnailWidths");
+		thumbnailWidths = value;
+	}
+
+	/**
+	 * Sets the number of threads generating the thumbnails (see {@link #getThumbnailWorkers()}).
+	 * @param value The thread count, or {@code null} for the default.
+	 */
+	public static void setThumbnailWorkers(final String value) {
+		checkNotLocked("thumbnailWorkers");
+		thumbnailWorkers = value;
+	}
+
 	/**
 	 * Reloads all configuration values from environment variables and unlocks the configuration.
 	 * Only works if reconfiguration is allowed. Primarily used for testing.
@@ -238,6 +260,8 @@ public class ConfigBaseVariable {
 		eMailPassword = System.getenv("EMAIL_PASSWORD");
 		thumbnailFormat = System.getenv("THUMBNAIL_FORMAT");
 		thumbnailWidth = System.getenv("THUMBNAIL_WIDTH");
+		thumbnailWidths = System.getenv("THUMBNAIL_WIDTHS");
+		thumbnailWorkers = System.getenv("THUMBNAIL_WORKERS");
 		dbInterfacesClasses = new Class<?>[0];
 	}
 
@@ -443,4 +467,34 @@ public class ConfigBaseVariable {
 		}
 		return Integer.parseInt(thumbnailWidth);
 	}
+
+	/**
+	 * Returns the widths of the thumbnails stored for each image, in pixels, defaulting to
+	 * {@link #getThumbnailWidth()} (also used when no configured width is positive).
+	 * @return The distinct thumbnail widths, in ascending order (e.g. {@code "128,256,512"}).
+	 */
+	public static int[] getThumbnailWidths() {
+		if (thumbnailWidths == null || thumbnailWidths.isBlank()) {
+			return new int[] { getThumbnailWidth() };
+		}
+		final int[] widths = Arrays.stream(thumbnailWidths.split(",")).map(String::trim)
+				.filter(value -> !value.isEmpty()).mapToInt(Integer::parseInt).filter(value -> value > 0).distinct()
+				.sorted().toArray();
+		if (widths.length == 0) {
+			// Only zero or negative widths: keep one thumbnail
+			return new int[] { getThumbnailWidth() };
+		}
+		return widths;
+	}
+
+	/**
+	 * Returns the number of threads generating the thumbnails of the uploaded images, defaulting to {@code 2}.
+	 * @return The thumbnail worker count.
+	 */
+	public static int getThumbnailWorkers() {
+		if (thumbnailWorkers == null || thumbnailWorkers.isEmpty()) {
+			return 2;
+		}
+		return Integer.parseInt(thumbnailWorkers);
+	}
 }
@@ -178,6 +178,7 @@ public class DataTools {
 		final String mediaPath = DataResource.getFileData(out.getOid());
 		LOGGER.info("src = {}", tmpPath);
 		LOGGER.info("dst = {}", mediaPath);
+		ThumbnailTools.deleteThumbnails(out.getOid());
 		try {
 			Files.move(Paths.get(tmpPath), Paths.get(mediaPath), StandardCopyOption.ATOMIC_MOVE);
 			LOGGER.info("Atomic-move done");
@@ -186,6 +187,7 @@ public class DataTools {
 			LOGGER.info("Move done");
 		}
 		// all is done the file is correctly installed...
+		ThumbnailTools.generateAsync(out.getOid(), mimeType);
 		return out;
 	}
 
@@ -0,0 +1,171 @@
+package org.atriasoft.archidata.tools;
+
+import java.io.File;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Helpers for the HTTP validators (ETag, Last-Modified) and the conditional requests of the file endpoints.
+ *
+ * <p>
+ * Typical use in a resource method, before any access to the file content:
+ * </p>
+ * <pre>
+ * final Response.ResponseBuilder notModified = HttpCacheTools.evaluatePreconditions(request, lastModified, etag);
+ * if (notModified != null) {
+ * 	return notModified.cacheControl(cc).build(); // 304 (or 412)
+ * }
+ * </pre>
+ */
+public final class HttpCacheTools {
+	/** Header of the conditional range requests. */
+	public static final String IF_RANGE = "If-Range";
+	/** One year: the {@code max-age} of the immutable resources. */
+	public static final int ONE_YEAR_SECONDS = 365 * 24 * 3600;
+
+	private HttpCacheTools() {
+		// Utility class
+	}
+
+	/**
+	 * Creates the strong entity tag of a content.
+	 * @param value The opaque identifier of the content (a hash...), or {@code null}.
+	 * @return The entity tag, or {@code null} if the value is {@code null} or empty.
+	 */
+	public static EntityTag strongTag(final String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		return new EntityTag(value);
+	}
+
+	/**
+	 * Creates the entity tag of a file from its size and modification time (no content read).
+	 * @param file The file.
+	 * @return The entity tag.
+	 */
+	public static EntityTag fileTag(final File file) {
+		return new EntityTag(Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()));
+	}
+
+	/**
+	 * Truncates a date to the second, the precision of the HTTP dates (so a date sent back in
+	 * {@code If-Modified-Since} compares equal).
+	 * @param date The date, or {@code null}.
+	 * @return The truncated date, or {@code null}.
+	 */
+	public static Date toHttpDate(final Date date) {
+		if (date == null) {
+			return null;
+		}
+		return new Date(date.getTime() / 1000 * 1000);
+	}
+
+	/**
+	 * Evaluates the {@code If-None-Match}, {@code If-Modified-Since}, {@code If-Match} and
+	 * {@code If-Unmodified-Since} headers of a request.
+	 * @param request The request.
+	 * @param lastModified The modification date of the resource, or {@code null}.
+	 * @param etag The entity tag of the resource, or {@code null}.
+	 * @return The builder of the 304 (or 412) response, or {@code null} if the resource must be sent.
+	 */
+	public static Response.ResponseBuilder evaluatePreconditions(
+			final Request request,
+			final Date lastModified,
+			final EntityTag etag) {
+		if (request == null) {
+			return null;
+		}
+		final Date date = toHttpDate(lastModified);
+		Response.ResponseBuilder out = null;
+		if (date != null && etag != null) {
+			out = request.evaluatePreconditions(date, etag);
+		} else if (etag != null) {
+			out = request.evaluatePreconditions(etag);
+		} else if (date != null) {
+			out = request.evaluatePreconditions(date);
+		}
+		if (out != null) {
+			if (etag != null) {
+				out.tag(etag);
+			}
+			if (date != null) {
+				out.lastModified(date);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Checks whether the {@code Range} of a request applies: without {@code If-Range}, or when it matches the
+	 * current representation (same strong entity tag, or exactly the same modification date). Otherwise the whole
+	 * content must be sent.
+	 * @param headers The headers of the request (may be {@code null}).
+	 * @param lastModified The modification date of the resource, or {@code null}.
+	 * @param etag The entity tag of the resource, or {@code null}.
+	 * @return {@code true} if the range can be served.
+	 */
+	public static boolean rangeApplies(final HttpHeaders headers, final Date lastModified, final EntityTag etag) {
+		final String ifRange = headers == null ? null : headers.getHeaderString(IF_RANGE);
+		if (ifRange == null || ifRange.isBlank()) {
+			return true;
+		}
+		final String value = ifRange.trim();
+		if (value.startsWith("\"") || value.startsWith("W/")) {
+			// Weak tags never match (strong comparison)
+			return etag != null && !etag.isWeak() && value.equals("\"" + etag.getValue() + "\"");
+		}
+		final Date date = toHttpDate(lastModified);
+		if (date == null) {
+			return false;
+		}
+		try {
+			final ZonedDateTime since = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+			return since.toInstant().toEpochMilli() == date.getTime();
+		} catch (final DateTimeParseException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a {@code Cache-Control: max-age=<seconds>} policy.
+	 * @param seconds The time the response can be reused without revalidation.
+	 * @return The cache policy.
+	 */
+	public static CacheControl maxAge(final int seconds) {
+		final CacheControl cc = new CacheControl();
+		cc.setMaxAge(seconds);
+		cc.setNoTransform(false);
+		return cc;
+	}
+
+	/**
+	 * Creates a {@code Cache-Control: no-cache} policy: the response is stored but revalidated (ETag) at each use.
+	 * @return The cache policy.
+	 */
+	public static CacheControl revalidate() {
+		final CacheControl cc = new CacheControl();
+		cc.setNoCache(true);
+		cc.setNoTransform(false);
+		return cc;
+	}
+
+	/**
+	 * Creates a {@code Cache-Control: max-age=31536000, immutable} policy, for the resources whose URL changes
+	 * with their content (hashed bundles).
+	 * @return The cache policy.
+	 */
+	public static CacheControl immutable() {
+		final CacheControl cc = maxAge(ONE_YEAR_SECONDS);
+		cc.getCacheExtension().put("immutable", null);
+		return cc;
+	}
+}
@@ -0,0 +1,142 @@
+package org.atriasoft.archidata.tools;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parser of the HTTP {@code Range} header (RFC 7233, byte ranges only).
+ *
+ * <p>
+ * The result of {@link #parse(String, long)} tells how to answer:
+ * </p>
+ * <ul>
+ * <li>{@code null}: the header is absent, invalid, or asks too many ranges: send the whole content (200);</li>
+ * <li>an empty list: no range is satisfiable: 416, with a {@code Content-Range} giving the size;</li>
+ * <li>one range: a single part (206 with {@code Content-Range});</li>
+ * <li>several ranges: a {@code multipart/byteranges} response (206).</li>
+ * </ul>
+ */
+public final class HttpRangeTools {
+	/** Maximum number of ranges served in one response (after coalescing), above it the whole content is sent. */
+	public static final int MAX_RANGES = 32;
+
+	private HttpRangeTools() {
+		// Utility class
+	}
+
+	/**
+	 * A satisfiable byte range, bounds included.
+	 * @param from The position of the first byte.
+	 * @param to The position of the last byte.
+	 */
+	public record ByteRange(
+			long from,
+			long to) {
+		/**
+		 * Returns the number of bytes of the range.
+		 * @return The length.
+		 */
+		public long length() {
+			return this.to - this.from + 1;
+		}
+
+		/**
+		 * Formats the value of the {@code Content-Range} header of this range.
+		 * @param size The size of the complete content.
+		 * @return The header value, like {@code bytes 0-499/1234}.
+		 */
+		public String toContentRange(final long size) {
+			return "bytes " + this.from + "-" + this.to + "/" + size;
+		}
+	}
+
+	/**
+	 * Parses a {@code Range} header against the size of the content. The satisfiable ranges are clipped to the
+	 * content, sorted, and the overlapping or adjacent ones are coalesced.
+	 * @param header The value of the header, or {@code null}.
+	 * @param size The size of the content.
+	 * @return The ranges to send, an empty list if none is satisfiable, or {@code null} to send the whole content.
+	 */
+	public static List<ByteRange> parse(final String header, final long size) {
+		if (header == null) {
+			return null;
+		}
+		final int equal = header.indexOf('=');
+		if (equal < 0 || !"bytes".equalsIgnoreCase(header.substring(0, equal).trim())) {
+			return null;
+		}
+		final List<ByteRange> ranges = new ArrayList<>();
+		int specCount = 0;
+		for (final String element : header.substring(equal + 1).split(",", -1)) {
+			final String spec = element.trim();
+			if (spec.isEmpty()) {
+				// Empty elements of a list are allowed
+				continue;
+			}
+			specCount++;
+			final int dash = spec.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+			final String first = spec.substring(0, dash).trim();
+			final String last = spec.substring(dash + 1).trim();
+			final long from;
+			final long to;
+			try {
+				if (first.isEmpty()) {
+					// Suffix range: the last N bytes
+					final long suffix = parsePosition(last);
+					if (suffix == 0 || size == 0) {
+						continue;
+					}
+					from = Math.max(0, size - suffix);
+					to = size - 1;
+				} else {
+					from = parsePosition(first);
+					final long end = last.isEmpty() ? Long.MAX_VALUE : parsePosition(last);
+					if (end < from) {
+						return null;
+					}
+					if (from >= size) {
+						continue;
+					}
+					to = Math.min(end, size - 1);
+				}
+			} catch (final NumberFormatException ex) {
+				return null;
+			}
+			ranges.add(new ByteRange(from, to));
+		}
+		if (specCount == 0) {
+			return null;
+		}
+		if (ranges.size() <= 1) {
+			return ranges;
+		}
+		ranges.sort(Comparator.comparingLong(ByteRange::from));
+		final List<ByteRange> out = new ArrayList<>();
+		ByteRange current = ranges.get(0);
+		for (int iii = 1; iii < ranges.size(); iii++) {
+			final ByteRange next = ranges.get(iii);
+			if (next.from() <= current.to() + 1) {
+				current = new ByteRange(current.from(), Math.max(current.to(), next.to()));
+			} else {
+				out.add(current);
+				current = next;
+			}
+		}
+		out.add(current);
+		if (out.size() > MAX_RANGES) {
+			return null;
+		}
+		return out;
+	}
+
+	private static long parsePosition(final String value) {
+		if (value.isEmpty() || value.charAt(0) == '+' || value.charAt(0) == '-') {
+			throw new NumberFormatException("Wrong range position: '" + value + "'");
+		}
+		return Long.parseLong(value);
+	}
+}
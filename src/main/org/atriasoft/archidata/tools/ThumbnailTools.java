@@ -0,0 +1,344 @@
+package org.atriasoft.archidata.tools;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.atriasoft.archidata.api.DataResource;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates and stores the thumbnails of the uploaded images.
+ *
+ * <p>Thumbnails are sidecar files next to the data ({@code <data>.thumb-<width>.<format>}), one per width of
+ * {@link ConfigBaseVariable#getThumbnailWidths()}, in the {@link ConfigBaseVariable#getThumbnailFormat()} format.
+ * They are generated once:</p>
+ * <ul>
+ * <li>in the background when the data is uploaded ({@link #generateAsync}), by a bounded pool of
+ * {@link ConfigBaseVariable#getThumbnailWorkers()} threads: when its queue is full, the generation is skipped;</li>
+ * <li>on the first request of a missing thumbnail ({@link #getOrGenerate}), for the data uploaded before or whose
+ * background generation was skipped.</li>
+ * </ul>
+ * <p>The thumbnails of a data are deleted ({@link #deleteThumbnails}) when its file is replaced.</p>
+ * <p>A data is generated by one thread at a time: a request for a thumbnail in generation waits for it. The images
+ * are decoded subsampled close to the thumbnail size, never at full resolution.</p>
+ */
+public final class ThumbnailTools {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailTools.class);
+
+	/** Image MIME types that can be thumbnailed. */
+	public static final String[] SUPPORTED_MIME_TYPE = { "image/jpeg", "image/png" };
+	/** Maximum number of uploads waiting for their thumbnails. */
+	private static final int QUEUE_SIZE = 1000;
+
+	private static final Map<ObjectId, CompletableFuture<Void>> PENDING = new ConcurrentHashMap<>();
+	private static ThreadPoolExecutor executor = null;
+	private static Semaphore decodePermits = null;
+
+	private ThumbnailTools() {
+		// Utility class
+	}
+
+	/**
+	 * Checks whether thumbnails can be generated for a data.
+	 * @param mimeType The MIME type of the data.
+	 * @return {@code true} for the supported images.
+	 */
+	public static boolean isSupported(final String mimeType) {
+		return mimeType != null && Arrays.asList(SUPPORTED_MIME_TYPE).contains(mimeType);
+	}
+
+	/**
+	 * Returns the path of the thumbnail of a data.
+	 * @param oid The ObjectId of the data.
+	 * @param width The width of the thumbnail.
+	 * @return The absolute path of the sidecar file.
+	 */
+	public static String getThumbnailPath(final ObjectId oid, final int width) {
+		return DataResource.getFileData(oid) + ".thumb-" + width + "." + ConfigBaseVariable.getThumbnailFormat();
+	}
+
+	/**
+	 * Deletes all the thumbnails of a data, whatever their width and format: to call when the data file is removed
+	 * or replaced, so an old thumbnail is never served for new content.
+	 * @param oid The ObjectId of the data.
+	 * @throws IOException If a thumbnail cannot be deleted.
+	 */
+	public static void deleteThumbnails(final ObjectId oid) throws IOException {
+		final Path data = Paths.get(DataResource.getFileData(oid));
+		final Path folder = data.getParent();
+		if (folder == null || !Files.isDirectory(folder)) {
+			return;
+		}
+		try (DirectoryStream<Path> thumbnails = Files.newDirectoryStream(folder,
+				data.getFileName().toString() + ".thumb-*")) {
+			for (final Path thumbnail : thumbnails) {
+				Files.deleteIfExists(thumbnail);
+				LOGGER.debug("Removed the thumbnail {}", thumbnail);
+			}
+		}
+	}
+
+	/**
+	 * Selects the stored width serving a requested width: the smallest configured width large enough, or the
+	 * largest one.
+	 * @param requested The width requested by the client, or {@code null} for the default width.
+	 * @return One of {@link ConfigBaseVariable#getThumbnailWidths()}.
+	 */
+	public static int selectWidth(final Integer requested) {
+		final int[] widths = ConfigBaseVariable.getThumbnailWidths();
+		final int target = requested != null ? requested : ConfigBaseVariable.getThumbnailWidth();
+		for (final int width : widths) {
+			if (width >= target) {
+				return width;
+			}
+		}
+		return widths[widths.length - 1];
+	}
+
+	/**
+	 * Queues the generation of the thumbnails of a data (the missing ones only).
+	 * @param oid The ObjectId of the data.
+	 * @param mimeType The MIME type of the data (ignored when not {@link #isSupported}).
+	 */
+	public static void generateAsync(final ObjectId oid, final String mimeType) {
+		if (!isSupported(mimeType)) {
+			return;
+		}
+		try {
+			getExecutor().execute(() -> {
+				try {
+					generateOnce(oid);
+				} catch (final IOException | RuntimeException ex) {
+					LOGGER.error("Fail to generate the thumbnails of {}: {}", oid, ex.getMessage(), ex);
+				}
+			});
+		} catch (final RejectedExecutionException ex) {
+			LOGGER.warn("Thumbnail queue full: the thumbnails of {} will be generated on first request", oid);
+		}
+	}
+
+	/**
+	 * Returns the thumbnail of a data, generating the thumbnails of the data when it is missing.
+	 * @param oid The ObjectId of the data (its MIME type must be {@link #isSupported}).
+	 * @param width One of {@link ConfigBaseVariable#getThumbnailWidths()}.
+	 * @return The path of the thumbnail.
+	 * @throws IOException If the image cannot be read or the thumbnail cannot be written.
+	 */
+	public static String getOrGenerate(final ObjectId oid, final int width) throws IOException {
+		final String path = getThumbnailPath(oid, width);
+		if (Files.exists(Paths.get(path))) {
+			return path;
+		}
+		generateOnce(oid);
+		if (!Files.exists(Paths.get(path))) {
+			// The widths were reconfigured since the generation
+			generate(oid);
+		}
+		return path;
+	}
+
+	/**
+	 * Generates the missing thumbnails of a data in the current thread, or waits for the thread generating them.
+	 */
+	private static void generateOnce(final ObjectId oid) throws IOException {
+		final CompletableFuture<Void> created = new CompletableFuture<>();
+		final CompletableFuture<Void> running = PENDING.putIfAbsent(oid, created);
+		if (running != null) {
+			try {
+				running.join();
+				return;
+			} catch (final CompletionException ex) {
+				throw new IOException("Fail to generate the thumbnails of " + oid, ex.getCause());
+			}
+		}
+		try {
+			generate(oid);
+			created.complete(null);
+		} catch (final IOException | RuntimeException ex) {
+			created.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			PENDING.remove(oid, created);
+		}
+	}
+
+	/**
+	 * Generates the missing thumbnails of a data.
+	 *
+	 * <p>The image is decoded once, subsampled close to the largest missing width (see {@link #decode}), then each
+	 * thumbnail is downscaled from the previous one. At most {@link ConfigBaseVariable#getThumbnailWorkers()}
+	 * generations run at once, whatever the threads requesting them, so the decoded images bound the heap.</p>
+	 * @param oid The ObjectId of the data.
+	 * @throws IOException If the image cannot be read or a thumbnail cannot be written.
+	 */
+	public static void generate(final ObjectId oid) throws IOException {
+		final String format = ConfigBaseVariable.getThumbnailFormat();
+		final int[] widths = ConfigBaseVariable.getThumbnailWidths();
+		final List<Integer> missing = new ArrayList<>();
+		for (int iii = widths.length - 1; iii >= 0; iii--) {
+			if (!Files.exists(Paths.get(getThumbnailPath(oid, widths[iii])))) {
+				missing.add(widths[iii]);
+			}
+		}
+		if (missing.isEmpty()) {
+			return;
+		}
+		final Semaphore permits = getDecodePermits();
+		try {
+			permits.acquire();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to generate the thumbnails of " + oid);
+		}
+		try {
+			BufferedImage image = decode(new File(DataResource.getFileData(oid)), missing.get(0));
+			for (final int width : missing) {
+				image = downscale(image, width, format);
+				write(image, format, getThumbnailPath(oid, width));
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Decodes an image at close to a width: the reader skips the pixels with a source subsampling, so the decoded
+	 * image is between once and twice the target width (never smaller) instead of the full resolution.
+	 * @param file The image file.
+	 * @param targetWidth The width of the largest thumbnail to generate.
+	 * @return The decoded image.
+	 * @throws IOException If the file is not a readable image.
+	 */
+	public static BufferedImage decode(final File file, final int targetWidth) throws IOException {
+		try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+			if (input == null) {
+				throw new IOException("Can not open the image " + file);
+			}
+			final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				throw new IOException("No image reader for " + file);
+			}
+			final ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				final int sourceWidth = reader.getWidth(0);
+				final int step = Math.max(1, sourceWidth / targetWidth);
+				final ImageReadParam param = reader.getDefaultReadParam();
+				if (step > 1) {
+					param.setSourceSubsampling(step, step, 0, 0);
+				}
+				final BufferedImage image = reader.read(0, param);
+				LOGGER.debug("decoded image: {}x{} -> {}x{} (subsampling {})", sourceWidth, reader.getHeight(0),
+						image.getWidth(), image.getHeight(), step);
+				return image;
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Scales an image to a width, keeping its ratio (never upscaled). The image is halved while it is more than
+	 * twice the width, then scaled to it: a single bilinear step from a large image would skip pixels and alias.
+	 */
+	private static BufferedImage downscale(final BufferedImage inputImage, final int width, final String format) {
+		// The JPEG writer refuses the alpha channel
+		final boolean opaque = "jpg".equalsIgnoreCase(format) || "jpeg".equalsIgnoreCase(format)
+				|| !inputImage.getColorModel().hasAlpha();
+		final int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+		final int targetWidth = Math.min(width, inputImage.getWidth());
+		BufferedImage image = inputImage;
+		while (image.getWidth() / 2 >= targetWidth) {
+			image = resize(image, image.getWidth() / 2, type);
+		}
+		if (image.getWidth() != targetWidth || image.getType() != type) {
+			image = resize(image, targetWidth, type);
+		}
+		return image;
+	}
+
+	private static BufferedImage resize(final BufferedImage inputImage, final int width, final int type) {
+		final int height = Math.max(1, (int) ((float) inputImage.getHeight() / (float) inputImage.getWidth() * width));
+		final BufferedImage outputImage = new BufferedImage(width, height, type);
+		final Graphics2D g2d = outputImage.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g2d.drawImage(inputImage, 0, 0, width, height, null);
+		g2d.dispose();
+		return outputImage;
+	}
+
+	/**
+	 * Writes a thumbnail in a temporary file moved in place, so a reader never sees a partial file.
+	 */
+	private static void write(final BufferedImage image, final String format, final String path) throws IOException {
+		final Path target = Paths.get(path);
+		final Path tmp = Paths.get(path + ".tmp-" + Thread.currentThread().threadId());
+		try {
+			if (!ImageIO.write(image, format, tmp.toFile())) {
+				throw new IOException("No image writer for the thumbnail format '" + format + "'");
+			}
+			try {
+				Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (final AtomicMoveNotSupportedException ex) {
+				Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			LOGGER.debug("Thumbnail written: {} ({}x{})", path, image.getWidth(), image.getHeight());
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private static synchronized Semaphore getDecodePermits() {
+		if (decodePermits == null) {
+			decodePermits = new Semaphore(Math.max(1, ConfigBaseVariable.getThumbnailWorkers()), true);
+		}
+		return decodePermits;
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			final int workers = Math.max(1, ConfigBaseVariable.getThumbnailWorkers());
+			final AtomicInteger count = new AtomicInteger();
+			executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+						final Thread thread = new Thread(runnable, "thumbnail-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+}
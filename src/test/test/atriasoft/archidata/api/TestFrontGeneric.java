@@ -0,0 +1,47 @@
+package test.atriasoft.archidata.api;
+
+import java.util.List;
+
+import org.atriasoft.archidata.api.FrontGeneric;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.core.CacheControl;
+
+class TestFrontGeneric {
+
+	/** Exposes the cache policy of the files. */
+	private static class Front extends FrontGeneric {
+		CacheControl cacheControl(final String fileName, final String mimeType) {
+			return getCacheControl("/data/front/" + fileName, mimeType);
+		}
+	}
+
+	private static boolean isImmutable(final String fileName) {
+		final CacheControl cc = new Front().cacheControl(fileName, "application/javascript");
+		return cc.getCacheExtension().containsKey("immutable");
+	}
+
+	@Test
+	void testHashedBundles() {
+		for (final String fileName : List.of("main.3f2a9b1c.js", "polyfills.9c1e0d2b8a7f6e5d.js", "chunk-5XK3UQ2D.css",
+				"styles-ABC12DEF.css", "logo.0a1b2c3d.svg")) {
+			Assertions.assertTrue(isImmutable(fileName), fileName);
+		}
+	}
+
+	@Test
+	void testNotHashed() {
+		for (final String fileName : List.of("img-background2.png", "theme-version2.css", "logo-2024dark.svg",
+				"build-20240101.js", "chunk-ABCDEFGH.js", "main.deadbeef.js", "app.js", "favicon.ico")) {
+			Assertions.assertFalse(isImmutable(fileName), fileName);
+		}
+	}
+
+	@Test
+	void testHtmlRevalidated() {
+		final CacheControl cc = new Front().cacheControl("index.html", "text/html");
+		Assertions.assertTrue(cc.isNoCache());
+		Assertions.assertEquals(60, new Front().cacheControl("app.js", "application/javascript").getMaxAge());
+	}
+}
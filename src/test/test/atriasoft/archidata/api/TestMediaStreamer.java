@@ -0,0 +1,139 @@
+package test.atriasoft.archidata.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.atriasoft.archidata.api.MediaStreamer;
+import org.atriasoft.archidata.api.MultiRangeStreamer;
+import org.atriasoft.archidata.tools.HttpRangeTools.ByteRange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jakarta.ws.rs.InternalServerErrorException;
+
+class TestMediaStreamer {
+	@TempDir
+	Path folder;
+	File file;
+	byte[] content;
+
+	@BeforeEach
+	void setup() throws IOException {
+		// Larger than a copy buffer, not a multiple of it
+		this.content = new byte[200_000];
+		for (int iii = 0; iii < this.content.length; iii++) {
+			this.content[iii] = (byte) (iii * 31);
+		}
+		this.file = this.folder.resolve("media.bin").toFile();
+		Files.write(this.file.toPath(), this.content);
+	}
+
+	@Test
+	void testFullCopy() throws IOException {
+		final MediaStreamer streamer = new MediaStreamer(this.file, 0, this.content.length);
+		Assertions.assertEquals(this.content.length, streamer.getLenth());
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		streamer.write(out);
+		Assertions.assertArrayEquals(this.content, out.toByteArray());
+		Assertions.assertEquals(0, streamer.getLenth());
+	}
+
+	@Test
+	void testRangeCopy() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new MediaStreamer(this.file, 1000, 150_000).write(out);
+		Assertions.assertArrayEquals(Arrays.copyOfRange(this.content, 1000, 151_000), out.toByteArray());
+	}
+
+	@Test
+	void testOpenedOnWrite() throws IOException {
+		// Nothing is opened until the body is written
+		final MediaStreamer streamer = new MediaStreamer(this.folder.resolve("missing.bin").toFile(), 0, 10);
+		Assertions.assertThrows(InternalServerErrorException.class, () -> streamer.write(new ByteArrayOutputStream()));
+	}
+
+	@Test
+	void testMultiRange() throws IOException {
+		final MultiRangeStreamer streamer = new MultiRangeStreamer(this.file,
+				List.of(new ByteRange(0, 9), new ByteRange(100_000, 199_999)), "video/webm");
+		final String boundary = streamer.getContentType().substring("multipart/byteranges; boundary=".length());
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		streamer.write(out);
+		final byte[] body = out.toByteArray();
+		Assertions.assertEquals(streamer.getLength(), body.length);
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.write(("\r\n--" + boundary + "\r\nContent-Type: video/webm\r\nContent-Range: bytes 0-9/200000\r\n\r\n")
+				.getBytes(StandardCharsets.US_ASCII));
+		expected.write(this.content, 0, 10);
+		expected.write(("\r\n--" + boundary
+				+ "\r\nContent-Type: video/webm\r\nContent-Range: bytes 100000-199999/200000\r\n\r\n")
+						.getBytes(StandardCharsets.US_ASCII));
+		expected.write(this.content, 100_000, 100_000);
+		expected.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+		Assertions.assertArrayEquals(expected.toByteArray(), body);
+	}
+
+	/** Output whose client disconnects after a given number of bytes. */
+	private static class DisconnectingOutputStream extends OutputStream {
+		final int limit;
+		int written = 0;
+		int writesAfterDisconnect = 0;
+
+		DisconnectingOutputStream(final int limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public void write(final int value) throws IOException {
+			write(new byte[] { (byte) value }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] data, final int offset, final int len) throws IOException {
+			if (this.written + len > this.limit) {
+				if (this.written > this.limit) {
+					this.writesAfterDisconnect++;
+				}
+				this.written = this.limit + 1;
+				throw new IOException("Broken pipe");
+			}
+			this.written += len;
+		}
+	}
+
+	@Test
+	void testDisconnectReported() throws IOException {
+		final DisconnectingOutputStream out = new DisconnectingOutputStream(100_000);
+		Assertions.assertFalse(new MediaStreamer(this.file, 0, this.content.length).stream(out));
+		Assertions.assertTrue(new MediaStreamer(this.file, 0, 1000).stream(new ByteArrayOutputStream()));
+	}
+
+	@Test
+	void testMultiRangeStopsOnDisconnect() {
+		final List<ByteRange> ranges = new ArrayList<>();
+		for (int iii = 0; iii < 10; iii++) {
+			ranges.add(new ByteRange(iii * 20_000, iii * 20_000 + 9_999));
+		}
+		final MultiRangeStreamer streamer = new MultiRangeStreamer(this.file, ranges, "video/webm");
+		// Disconnected in the middle of the second part
+		final DisconnectingOutputStream out = new DisconnectingOutputStream(15_000);
+		streamer.write(out);
+		Assertions.assertEquals(0, out.writesAfterDisconnect);
+	}
+
+	@Test
+	void testInvalidRange() {
+		Assertions.assertThrows(IOException.class, () -> new MediaStreamer(this.file, 0, -1));
+		Assertions.assertThrows(IOException.class, () -> new MediaStreamer(this.file, -1, 10));
+	}
+}
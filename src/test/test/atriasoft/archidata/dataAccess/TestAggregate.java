@@ -0,0 +1,91 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.options.AccessDeletedItems;
+import org.atriasoft.archidata.dataAccess.options.AllowDiskUse;
+import org.atriasoft.archidata.dataAccess.options.BatchSize;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+
+import jakarta.persistence.Column;
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTableSoftDelete;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestAggregate {
+	public record DataCount(
+			@Column(name = "_id") String data,
+			Long count) {}
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	private static final List<Document> GROUP_BY_DATA = List.of(
+			new Document("$group", new Document("_id", "$data").append("count", new Document("$sum", 1))),
+			new Document("$sort", new Document("_id", 1)));
+
+	@Order(1)
+	@Test
+	void testGroupIntoRecord() throws Exception {
+		for (final String value : List.of("a", "b", "a", "c", "a", "b")) {
+			final SimpleTableSoftDelete elem = new SimpleTableSoftDelete();
+			elem.data = value;
+			ConfigureDb.da.insert(elem);
+		}
+		final List<DataCount> counts = ConfigureDb.da.aggregate(SimpleTableSoftDelete.class, GROUP_BY_DATA,
+				DataCount.class, new AllowDiskUse(), new BatchSize(2));
+		Assertions.assertEquals(List.of(new DataCount("a", 3L), new DataCount("b", 2L), new DataCount("c", 1L)),
+				counts);
+	}
+
+	@Order(2)
+	@Test
+	void testSoftDeletedFiltered() throws Exception {
+		final List<SimpleTableSoftDelete> elements = ConfigureDb.da.gets(SimpleTableSoftDelete.class,
+				new Condition(Filters.eq("data", "c")));
+		ConfigureDb.da.deleteById(SimpleTableSoftDelete.class, elements.get(0).getId());
+		final List<DataCount> counts = ConfigureDb.da.aggregate(SimpleTableSoftDelete.class, GROUP_BY_DATA,
+				DataCount.class);
+		Assertions.assertEquals(2, counts.size());
+		final List<DataCount> all = ConfigureDb.da.aggregate(SimpleTableSoftDelete.class, GROUP_BY_DATA,
+				DataCount.class, new AccessDeletedItems());
+		Assertions.assertEquals(3, all.size());
+	}
+
+	@Order(3)
+	@Test
+	void testConditionAndEntityResult() throws Exception {
+		final List<SimpleTableSoftDelete> entities = ConfigureDb.da.aggregate(SimpleTableSoftDelete.class,
+				List.of(Aggregates.sort(Sorts.ascending("_id"))), SimpleTableSoftDelete.class,
+				new Condition(Filters.eq("data", "b")));
+		Assertions.assertEquals(2, entities.size());
+		Assertions.assertEquals("b", entities.get(0).data);
+		final List<Document> docs = ConfigureDb.da.aggregate(SimpleTableSoftDelete.class,
+				List.of(Aggregates.group(null, Accumulators.sum("total", 1))), Document.class);
+		Assertions.assertEquals(5, docs.get(0).getInteger("total"));
+	}
+}
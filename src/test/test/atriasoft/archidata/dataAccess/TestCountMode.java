@@ -0,0 +1,86 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.CountMode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+
+/**
+ * Tests the estimated, capped and cached counts of {@link CountMode}.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestCountMode {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	private static void insert(final String data) throws Exception {
+		final SimpleTable test = new SimpleTable();
+		test.data = data;
+		ConfigureDb.da.insert(test);
+	}
+
+	@Order(1)
+	@Test
+	void testEstimated() throws Exception {
+		insert("count_a");
+		insert("count_a");
+		insert("count_b");
+		final long estimated = DBAccessMongo.statistic.countEstimatedDocumentCount.get();
+		final long exact = DBAccessMongo.statistic.countCountDocuments.get();
+		Assertions.assertEquals(3, ConfigureDb.da.count(SimpleTable.class, CountMode.ESTIMATED));
+		Assertions.assertEquals(estimated + 1, DBAccessMongo.statistic.countEstimatedDocumentCount.get());
+		// A condition needs an exact count
+		Assertions.assertEquals(2, ConfigureDb.da.count(SimpleTable.class, new Condition(Filters.eq("data", "count_a")),
+				CountMode.ESTIMATED));
+		Assertions.assertEquals(estimated + 1, DBAccessMongo.statistic.countEstimatedDocumentCount.get());
+		Assertions.assertEquals(exact + 1, DBAccessMongo.statistic.countCountDocuments.get());
+	}
+
+	@Order(2)
+	@Test
+	void testCapped() throws Exception {
+		Assertions.assertEquals(2, ConfigureDb.da.count(SimpleTable.class, CountMode.capped(2)));
+		Assertions.assertEquals(3, ConfigureDb.da.count(SimpleTable.class, CountMode.capped(10)));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> CountMode.capped(0));
+	}
+
+	@Order(3)
+	@Test
+	void testCachedSurvivesWrites() throws Exception {
+		final CountMode cached = CountMode.cached(Duration.ofMinutes(1));
+		final long exact = DBAccessMongo.statistic.countCountDocuments.get();
+		Assertions.assertEquals(3, ConfigureDb.da.count(SimpleTable.class, cached));
+		insert("count_c");
+		// Approximate: the cached count is served until it expires
+		Assertions.assertEquals(3, ConfigureDb.da.count(SimpleTable.class, cached));
+		Assertions.assertEquals(exact + 1, DBAccessMongo.statistic.countCountDocuments.get());
+		// Another mode is another entry
+		Assertions.assertEquals(2, ConfigureDb.da.count(SimpleTable.class, cached, CountMode.capped(2)));
+		Assertions.assertEquals(4, ConfigureDb.da.count(SimpleTable.class));
+	}
+}
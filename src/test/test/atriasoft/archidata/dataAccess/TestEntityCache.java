@@ -0,0 +1,141 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.EntityCache;
+import org.atriasoft.archidata.dataAccess.model.DbClassModel;
+import org.atriasoft.archidata.dataAccess.options.FilterValue;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+import test.atriasoft.archidata.dataAccess.model.SimpleTableCached;
+
+/**
+ * Tests the second-level cache of the entities marked with {@code @Cacheable}.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestEntityCache {
+	private static Long idOfTheObject;
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	private static String databaseName() {
+		return ConfigureDb.da.getInterface().getDatabase().getName();
+	}
+
+	@Order(1)
+	@Test
+	void testCacheOnlyMarkedEntities() throws Exception {
+		Assertions.assertNull(EntityCache.of(databaseName(), DbClassModel.of(SimpleTable.class)));
+		Assertions.assertNotNull(EntityCache.of(databaseName(), DbClassModel.of(SimpleTableCached.class)));
+	}
+
+	@Order(2)
+	@Test
+	void testCachePerDatabase() throws Exception {
+		final DbClassModel model = DbClassModel.of(SimpleTableCached.class);
+		final EntityCache cache = EntityCache.of(databaseName(), model);
+		final EntityCache other = EntityCache.of(databaseName() + "_other", model);
+		Assertions.assertSame(cache, EntityCache.of(databaseName(), model));
+		Assertions.assertNotSame(cache, other);
+		other.put(42L, RawBsonDocument.parse("{\"_id\": 42}"), other.generation());
+		Assertions.assertNull(cache.get(42L));
+		// A write of the same collection in another database keeps the entries
+		EntityCache.invalidate(databaseName(), model.getTableName());
+		Assertions.assertNotNull(other.get(42L));
+		EntityCache.invalidate(databaseName() + "_other", model.getTableName());
+		Assertions.assertNull(other.get(42L));
+	}
+
+	@Order(3)
+	@Test
+	void testGetByIdServedFromCache() throws Exception {
+		final SimpleTable test = new SimpleTable();
+		test.data = "cached_data";
+		idOfTheObject = ConfigureDb.da.insert(test).getId();
+
+		final long find = DBAccessMongo.statistic.countFind.get();
+		final SimpleTableCached first = ConfigureDb.da.getById(SimpleTableCached.class, idOfTheObject);
+		final SimpleTableCached second = ConfigureDb.da.getById(SimpleTableCached.class, idOfTheObject);
+		Assertions.assertEquals("cached_data", first.data);
+		Assertions.assertEquals("cached_data", second.data);
+		// Each hit decodes a new entity
+		Assertions.assertNotSame(first, second);
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+	}
+
+	@Order(4)
+	@Test
+	void testWriteEvicts() throws Exception {
+		final SimpleTable update = new SimpleTable();
+		update.data = "cached_data_updated";
+		ConfigureDb.da.updateById(update, idOfTheObject, new FilterValue("data"));
+		final long find = DBAccessMongo.statistic.countFind.get();
+		final SimpleTableCached retrieved = ConfigureDb.da.getById(SimpleTableCached.class, idOfTheObject);
+		Assertions.assertEquals("cached_data_updated", retrieved.data);
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+	}
+
+	@Order(5)
+	@Test
+	void testMaxSize() throws Exception {
+		final List<Long> ids = new ArrayList<>();
+		for (int iii = 0; iii < 3; iii++) {
+			final SimpleTable test = new SimpleTable();
+			test.data = "cached_size_" + iii;
+			ids.add(ConfigureDb.da.insert(test).getId());
+		}
+		for (final Long id : ids) {
+			ConfigureDb.da.getById(SimpleTableCached.class, id);
+		}
+		Assertions.assertEquals(2, EntityCache.of(databaseName(), DbClassModel.of(SimpleTableCached.class)).size());
+	}
+
+	@Order(6)
+	@Test
+	void testTransactionCommitEvicts() throws Exception {
+		Assertions.assertEquals("cached_data_updated",
+				ConfigureDb.da.getById(SimpleTableCached.class, idOfTheObject).data);
+		try (final DBAccessMongo other = DBAccessMongo.createInterface()) {
+			ConfigureDb.da.startTransaction();
+			try {
+				final SimpleTable update = new SimpleTable();
+				update.data = "cached_data_transaction";
+				ConfigureDb.da.updateById(update, idOfTheObject, new FilterValue("data"));
+				// Another connection still reads (and caches) the document as before the transaction
+				Assertions.assertEquals("cached_data_updated",
+						other.getById(SimpleTableCached.class, idOfTheObject).data);
+			} catch (final Exception ex) {
+				ConfigureDb.da.abortTransaction();
+				throw ex;
+			}
+			ConfigureDb.da.commitTransaction();
+			Assertions.assertEquals("cached_data_transaction",
+					other.getById(SimpleTableCached.class, idOfTheObject).data);
+			Assertions.assertEquals("cached_data_transaction",
+					ConfigureDb.da.getById(SimpleTableCached.class, idOfTheObject).data);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Date;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.model.codec.EntityCodec;
+import org.atriasoft.archidata.db.DbIoMongo;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocOIDRoot;
+import test.atriasoft.archidata.dataAccess.model.TypesTable;
+
+/**
+ * Tests for {@link EntityCodec} — verifies that entities are decoded directly from BSON with the same values as
+ * the Document path.
+ */
+class TestEntityCodec {
+	private static final CodecRegistry REGISTRY = DbIoMongo.createCodecRegistry();
+
+	@BeforeAll
+	static void setup() {
+		// Loading DBAccessMongo registers the default add-ons before the models are introspected
+		Assertions.assertNotNull(DBAccessMongo.statistic);
+	}
+
+	private static BsonDocument toBson(final Document doc) {
+		final BsonDocument out = new BsonDocument();
+		REGISTRY.get(Document.class).encode(new BsonDocumentWriter(out), doc, EncoderContext.builder().build());
+		return out;
+	}
+
+	@Test
+	void testDecodeTypes() throws Exception {
+		final Codec<TypesTable> codec = REGISTRY.get(TypesTable.class);
+		Assertions.assertInstanceOf(EntityCodec.class, codec);
+		final Date now = new Date();
+		final BsonDocument bson = toBson(new Document("_id", new ObjectId()).append("id", 12L).append("doubleData", 1.5)
+				.append("floatData", 2.5).append("intData", 42).append("longData", 7).append("textData", "text")
+				.append("booleanData", true).append("dateFullData", now).append("dateData", "2024-02-29")
+				.append("timeData", LocalTime.of(12, 34, 56).toNanoOfDay()).append("unknown", "ignored"));
+		final TypesTable data = codec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+		Assertions.assertEquals(12L, data.id);
+		Assertions.assertEquals(1.5, data.doubleData);
+		Assertions.assertEquals(2.5f, data.floatData);
+		Assertions.assertEquals(42, data.intData);
+		Assertions.assertEquals(7L, data.longData);
+		Assertions.assertEquals("text", data.textData);
+		Assertions.assertNull(data.varcharData);
+		Assertions.assertEquals(true, data.booleanData);
+		Assertions.assertEquals(now, data.dateFullData);
+		Assertions.assertEquals(LocalDate.of(2024, 2, 29), data.dateData);
+		Assertions.assertEquals(LocalTime.of(12, 34, 56), data.timeData);
+	}
+
+	@Test
+	void testEntityWithLinksUsesDocumentPath() throws Exception {
+		Assertions.assertFalse(REGISTRY.get(TypeManyToManyDocOIDRoot.class) instanceof EntityCodec);
+	}
+}
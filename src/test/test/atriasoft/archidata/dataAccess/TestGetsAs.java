@@ -0,0 +1,88 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.Limit;
+import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.OrderItem;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestGetsAs {
+	public record SimpleRow(
+			Long id,
+			String data) {}
+
+	public static class SimpleDataOnly {
+		public String data;
+	}
+
+	public record UnknownRow(
+			Long id,
+			String notAField) {}
+
+	private static List<SimpleTable> inserted;
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testReadRecordView() throws Exception {
+		final List<SimpleTable> data = new ArrayList<>();
+		for (int iii = 0; iii < 5; iii++) {
+			final SimpleTable elem = new SimpleTable();
+			elem.data = "row_" + iii;
+			data.add(elem);
+		}
+		inserted = ConfigureDb.da.insertMultiple(data);
+		final List<SimpleRow> rows = ConfigureDb.da.getsAs(SimpleTable.class, SimpleRow.class,
+				new OrderBy(new OrderItem("data", OrderItem.Order.ASC)), new Limit(3));
+		Assertions.assertEquals(3, rows.size());
+		for (int iii = 0; iii < rows.size(); iii++) {
+			Assertions.assertEquals(inserted.get(iii).getId(), rows.get(iii).id());
+			Assertions.assertEquals("row_" + iii, rows.get(iii).data());
+		}
+	}
+
+	@Order(2)
+	@Test
+	void testReadClassView() throws Exception {
+		final List<SimpleDataOnly> rows = ConfigureDb.da.getsAs(SimpleTable.class, SimpleDataOnly.class,
+				new Condition(Filters.eq("data", "row_4")));
+		Assertions.assertEquals(1, rows.size());
+		Assertions.assertEquals("row_4", rows.get(0).data);
+	}
+
+	@Order(3)
+	@Test
+	void testUnknownProperty() throws Exception {
+		Assertions.assertThrows(DataAccessException.class,
+				() -> ConfigureDb.da.getsAs(SimpleTable.class, UnknownRow.class));
+	}
+}
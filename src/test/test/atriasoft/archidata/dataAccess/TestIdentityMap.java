@@ -0,0 +1,120 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.atriasoft.archidata.checker.DataAccessConnectionContext;
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.FilterValue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongChildExpand;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongChildTTT;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongParentIgnore;
+
+/**
+ * Tests the first-level cache of a connection: entities read by primary key are served again without request
+ * until a write of their collection.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestIdentityMap {
+	private static TypeManyToOneDocLongParentIgnore parent;
+	private static TypeManyToOneDocLongChildTTT child;
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.da.disableIdentityMap();
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testSetup() throws Exception {
+		final TypeManyToOneDocLongParentIgnore parentData = new TypeManyToOneDocLongParentIgnore();
+		parentData.data = "identity_parent";
+		parent = ConfigureDb.da.insert(parentData);
+		child = ConfigureDb.da.insert(new TypeManyToOneDocLongChildTTT("identity_child", parent.getId()));
+		ConfigureDb.da.enableIdentityMap();
+	}
+
+	@Order(2)
+	@Test
+	void testGetByIdReadOnce() throws Exception {
+		final long find = DBAccessMongo.statistic.countFind.get();
+		final TypeManyToOneDocLongParentIgnore first = ConfigureDb.da.getById(TypeManyToOneDocLongParentIgnore.class,
+				parent.getId());
+		final TypeManyToOneDocLongParentIgnore second = ConfigureDb.da.getById(TypeManyToOneDocLongParentIgnore.class,
+				parent.getId());
+		Assertions.assertEquals("identity_parent", first.data);
+		Assertions.assertSame(first, second);
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+		Assertions.assertTrue(ConfigureDb.da.existsById(TypeManyToOneDocLongParentIgnore.class, parent.getId()));
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+	}
+
+	@Order(3)
+	@Test
+	void testRelationshipServedFromMap() throws Exception {
+		final TypeManyToOneDocLongParentIgnore cached = ConfigureDb.da.getById(TypeManyToOneDocLongParentIgnore.class,
+				parent.getId());
+		final long find = DBAccessMongo.statistic.countFind.get();
+		final List<TypeManyToOneDocLongChildExpand> children = ConfigureDb.da
+				.gets(TypeManyToOneDocLongChildExpand.class, new Condition(Filters.eq("_id", child.getId())));
+		Assertions.assertEquals(1, children.size());
+		Assertions.assertSame(cached, children.get(0).parent);
+		// Only the children were requested
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+	}
+
+	@Order(4)
+	@Test
+	void testWriteInvalidates() throws Exception {
+		final TypeManyToOneDocLongParentIgnore update = new TypeManyToOneDocLongParentIgnore();
+		update.data = "identity_parent_updated";
+		ConfigureDb.da.updateById(update, parent.getId(), new FilterValue("data"));
+		final long find = DBAccessMongo.statistic.countFind.get();
+		final TypeManyToOneDocLongParentIgnore retrieved = ConfigureDb.da
+				.getById(TypeManyToOneDocLongParentIgnore.class, parent.getId());
+		Assertions.assertEquals("identity_parent_updated", retrieved.data);
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+	}
+
+	@Order(5)
+	@Test
+	void testNestedContextRestoresIdentityMap() throws Exception {
+		try (DataAccessConnectionContext outer = new DataAccessConnectionContext()) {
+			Assertions.assertNull(outer.get().getIdentityMap());
+			try (DataAccessConnectionContext inner = new DataAccessConnectionContext(true)) {
+				Assertions.assertSame(outer.get(), inner.get());
+				Assertions.assertNotNull(inner.get().getIdentityMap());
+			}
+			// Dropped with the scope that asked for it
+			Assertions.assertNull(outer.get().getIdentityMap());
+		}
+		try (DataAccessConnectionContext outer = new DataAccessConnectionContext(true)) {
+			try (DataAccessConnectionContext inner = new DataAccessConnectionContext(true)) {
+				Assertions.assertNotNull(inner.get().getIdentityMap());
+			}
+			// Enabled by the enclosing scope: kept
+			Assertions.assertNotNull(outer.get().getIdentityMap());
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.options.BatchSize;
+import org.atriasoft.archidata.dataAccess.options.DirectPrimaryKey;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocOIDChildTTT;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocOIDParentIgnore;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestInsertMultiple {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testInsertMultipleKeysLong() throws Exception {
+		final List<SimpleTable> data = new ArrayList<>();
+		for (int iii = 0; iii < 25; iii++) {
+			final SimpleTable elem = new SimpleTable();
+			elem.data = "bulk_" + iii;
+			data.add(elem);
+		}
+		final List<Object> ids = ConfigureDb.da.insertMultipleKeys(data, new BatchSize(10));
+		Assertions.assertEquals(25, ids.size());
+		// Keys are reserved per batch: they must be unique and sequential
+		for (int iii = 1; iii < ids.size(); iii++) {
+			Assertions.assertEquals((Long) ids.get(iii - 1) + 1, (Long) ids.get(iii));
+		}
+		final SimpleTable retrieved = ConfigureDb.da.getById(SimpleTable.class, ids.get(24));
+		Assertions.assertNotNull(retrieved);
+		Assertions.assertEquals("bulk_24", retrieved.data);
+		Assertions.assertEquals(25, ConfigureDb.da.count(SimpleTable.class));
+
+		// A single insert after the bulk keeps using the same sequence
+		final SimpleTable single = new SimpleTable();
+		single.data = "single";
+		final SimpleTable inserted = ConfigureDb.da.insert(single);
+		Assertions.assertEquals((Long) ids.get(24) + 1, inserted.getId());
+	}
+
+	@Order(2)
+	@Test
+	void testInsertMultipleReadBack() throws Exception {
+		final List<SimpleTable> data = new ArrayList<>();
+		for (int iii = 0; iii < 7; iii++) {
+			final SimpleTable elem = new SimpleTable();
+			elem.data = "read_back_" + iii;
+			data.add(elem);
+		}
+		final List<SimpleTable> inserted = ConfigureDb.da.insertMultiple(data, new BatchSize(3));
+		Assertions.assertEquals(7, inserted.size());
+		for (int iii = 0; iii < 7; iii++) {
+			Assertions.assertNotNull(inserted.get(iii));
+			Assertions.assertNotNull(inserted.get(iii).getId());
+			Assertions.assertEquals("read_back_" + iii, inserted.get(iii).data);
+		}
+	}
+
+	@Order(3)
+	@Test
+	void testInsertMultipleUpdateLinks() throws Exception {
+		final TypeManyToOneDocOIDParentIgnore parent = ConfigureDb.da
+				.insert(new TypeManyToOneDocOIDParentIgnore("parent", List.of()));
+		final List<TypeManyToOneDocOIDChildTTT> children = new ArrayList<>();
+		for (int iii = 0; iii < 5; iii++) {
+			children.add(new TypeManyToOneDocOIDChildTTT("child_" + iii, parent.getOid()));
+		}
+		final List<Object> ids = ConfigureDb.da.insertMultipleKeys(children);
+		Assertions.assertEquals(5, ids.size());
+
+		final TypeManyToOneDocOIDParentIgnore parentRetrieved = ConfigureDb.da
+				.getById(TypeManyToOneDocOIDParentIgnore.class, parent.getOid());
+		Assertions.assertNotNull(parentRetrieved.childOids);
+		Assertions.assertEquals(5, parentRetrieved.childOids.size());
+		for (final Object id : ids) {
+			Assertions.assertTrue(parentRetrieved.childOids.contains((ObjectId) id));
+		}
+	}
+
+	@Order(4)
+	@Test
+	void testInsertMultiplePartialFailureKeepsLinks() throws Exception {
+		final TypeManyToOneDocOIDParentIgnore other = ConfigureDb.da
+				.insert(new TypeManyToOneDocOIDParentIgnore("other", List.of()));
+		final TypeManyToOneDocOIDChildTTT existing = ConfigureDb.da
+				.insert(new TypeManyToOneDocOIDChildTTT("existing", other.getOid()));
+		final TypeManyToOneDocOIDParentIgnore parent = ConfigureDb.da
+				.insert(new TypeManyToOneDocOIDParentIgnore("parent_partial", List.of()));
+		final List<TypeManyToOneDocOIDChildTTT> children = new ArrayList<>();
+		for (int iii = 0; iii < 5; iii++) {
+			final TypeManyToOneDocOIDChildTTT child = new TypeManyToOneDocOIDChildTTT("partial_" + iii,
+					parent.getOid());
+			child.setOid(new ObjectId());
+			children.add(child);
+		}
+		// Duplicate key in the middle of the batch
+		children.get(2).setOid(existing.getOid());
+		Assertions.assertThrows(DataAccessException.class,
+				() -> ConfigureDb.da.insertMultipleKeys(children, new DirectPrimaryKey()));
+
+		// The inserted documents are linked, the rejected one is not
+		final TypeManyToOneDocOIDParentIgnore parentRetrieved = ConfigureDb.da
+				.getById(TypeManyToOneDocOIDParentIgnore.class, parent.getOid());
+		Assertions.assertNotNull(parentRetrieved.childOids);
+		Assertions.assertEquals(4, parentRetrieved.childOids.size());
+		Assertions.assertFalse(parentRetrieved.childOids.contains(existing.getOid()));
+		for (final int iii : new int[] { 0, 1, 3, 4 }) {
+			Assertions.assertTrue(parentRetrieved.childOids.contains(children.get(iii).getOid()));
+		}
+		Assertions.assertEquals("existing",
+				ConfigureDb.da.getById(TypeManyToOneDocOIDChildTTT.class, existing.getOid()).otherData);
+	}
+}
@@ -0,0 +1,159 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.LazyGetter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+
+/**
+ * Tests the concurrent resolution of the relationship loaders of {@link DBAccessMongo#resolveLazyGetters}.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestLazyGetterResolution {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	/** Tracks the loaders running at the same time. */
+	private static class Concurrency {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger max = new AtomicInteger();
+
+		void run(final long sleepMs) throws InterruptedException {
+			this.max.accumulateAndGet(this.running.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(sleepMs);
+			} finally {
+				this.running.decrementAndGet();
+			}
+		}
+	}
+
+	/** Loaders of 3 levels: each value n of the first 2 levels adds the follow-ups 1000n+1 and 1000n+2. */
+	private static List<LazyGetter> tree(final ConcurrentLinkedQueue<Long> values, final Set<Thread> threads) {
+		final List<LazyGetter> out = new ArrayList<>();
+		for (int iii = 1; iii <= 20; iii++) {
+			out.add(node(iii, 0, values, threads));
+		}
+		return out;
+	}
+
+	private static LazyGetter node(
+			final long value,
+			final int depth,
+			final ConcurrentLinkedQueue<Long> values,
+			final Set<Thread> threads) {
+		return actions -> {
+			threads.add(Thread.currentThread());
+			values.add(value);
+			if (depth < 2) {
+				actions.add(node(value * 1000 + 1, depth + 1, values, threads));
+				actions.add(node(value * 1000 + 2, depth + 1, values, threads));
+			}
+		};
+	}
+
+	private static void serial(final List<LazyGetter> actions) throws Exception {
+		List<LazyGetter> level = actions;
+		while (!level.isEmpty()) {
+			final List<LazyGetter> next = new ArrayList<>();
+			for (final LazyGetter action : level) {
+				action.doRequest(next);
+			}
+			level = next;
+		}
+	}
+
+	@Order(1)
+	@Test
+	void testSameResultsAsSerial() throws Exception {
+		final ConcurrentLinkedQueue<Long> expected = new ConcurrentLinkedQueue<>();
+		serial(tree(expected, ConcurrentHashMap.newKeySet()));
+		final ConcurrentLinkedQueue<Long> values = new ConcurrentLinkedQueue<>();
+		ConfigureDb.da.resolveLazyGetters(tree(values, ConcurrentHashMap.newKeySet()));
+		Assertions.assertEquals(expected.stream().sorted().toList(), values.stream().sorted().toList());
+		Assertions.assertEquals(20 + 40 + 80, values.size());
+	}
+
+	@Order(2)
+	@Test
+	void testBoundedPerCall() throws Exception {
+		final Concurrency single = new Concurrency();
+		final List<LazyGetter> actions = new ArrayList<>();
+		for (int iii = 0; iii < 4 * DBAccessMongo.MAX_PARALLEL_LAZY_GETTERS; iii++) {
+			actions.add(next -> single.run(20));
+		}
+		ConfigureDb.da.resolveLazyGetters(actions);
+		Assertions.assertTrue(single.max.get() <= DBAccessMongo.MAX_PARALLEL_LAZY_GETTERS, "max=" + single.max.get());
+
+		// Two reads at the same time do not share their limit
+		final Concurrency both = new Concurrency();
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> readers = new ArrayList<>();
+		final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		for (int rrr = 0; rrr < 2; rrr++) {
+			readers.add(Thread.startVirtualThread(() -> {
+				final List<LazyGetter> read = new ArrayList<>();
+				for (int iii = 0; iii < DBAccessMongo.MAX_PARALLEL_LAZY_GETTERS; iii++) {
+					read.add(next -> both.run(200));
+				}
+				try {
+					start.await();
+					ConfigureDb.da.resolveLazyGetters(read);
+				} catch (final Exception ex) {
+					failures.add(ex);
+				}
+			}));
+		}
+		start.countDown();
+		for (final Thread reader : readers) {
+			reader.join();
+		}
+		Assertions.assertTrue(failures.isEmpty(), () -> failures.toString());
+		Assertions.assertTrue(both.max.get() > DBAccessMongo.MAX_PARALLEL_LAZY_GETTERS, "max=" + both.max.get());
+	}
+
+	@Order(3)
+	@Test
+	void testSerialInTransaction() throws Exception {
+		final ConcurrentLinkedQueue<Long> values = new ConcurrentLinkedQueue<>();
+		final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		ConfigureDb.da.startTransaction();
+		try {
+			ConfigureDb.da.resolveLazyGetters(tree(values, threads));
+		} finally {
+			ConfigureDb.da.abortTransaction();
+		}
+		// The session can not be shared: everything runs on the calling thread, level by level
+		Assertions.assertEquals(Set.of(Thread.currentThread()), threads);
+		final List<Long> order = new ArrayList<>(values);
+		Assertions.assertEquals(List.of(1L, 2L, 3L), order.subList(0, 3));
+		Assertions.assertEquals(20 + 40 + 80, order.size());
+	}
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import org.atriasoft.archidata.dataAccess.DataAccess;
 import org.atriasoft.archidata.dataAccess.commonTools.LinkRepairTools;
 import org.atriasoft.archidata.dataAccess.commonTools.ManyToManyTools;
+import org.atriasoft.archidata.dataAccess.commonTools.RepairCheckpoint;
 import org.atriasoft.archidata.dataAccess.commonTools.RepairReport;
 import org.atriasoft.archidata.dataAccess.mongo.MongoLinkManager;
 import org.atriasoft.archidata.dataAccess.model.DbClassModel;
@@ -319,6 +320,40 @@ public class TestLinkRepairTools {
 		ConfigureDb.da.deleteById(TypeManyToOneDocOIDParentIgnore.class, insertedParent.getOid());
 	}
 
+	// ==================== Resume tests ====================
+
+	@Order(8)
+	@Test
+	public void testRepairResumeFromCheckpoint() throws Exception {
+		final TypeManyToManyDocOIDRoot root1 = ConfigureDb.da.insert(createM2MRoot("root_m2m_resume"));
+		final ObjectId fakeId = new ObjectId();
+		try (DataAccessConnectionContext ctx = new DataAccessConnectionContext()) {
+			final DBAccessMongo db = ctx.get();
+			final String fieldColumn = DbClassModel.of(TypeManyToManyDocOIDRoot.class).findByPropertyName("remote")
+					.getFieldName(null).inTable();
+			MongoLinkManager.addToList(db, TypeManyToManyDocOIDRoot.class, root1.getOid(), fieldColumn, fakeId);
+		}
+
+		// Resuming in the remote phase skips the source documents
+		final RepairReport skipped = LinkRepairTools.repairLinks(TypeManyToManyDocOIDRoot.class, "remote", false, false,
+				new RepairCheckpoint(RepairCheckpoint.PHASE_REMOTE, null), null);
+		Assertions.assertEquals(0, skipped.getBrokenLinksRemoved());
+
+		// A full run reports each written batch
+		final List<RepairCheckpoint> checkpoints = new ArrayList<>();
+		final RepairReport report = LinkRepairTools.repairLinks(TypeManyToManyDocOIDRoot.class, "remote", false, false,
+				null, progress -> checkpoints.add(progress.getCheckpoint()));
+		LOGGER.info("M2M resume report: {}", report);
+		Assertions.assertEquals(1, report.getBrokenLinksRemoved());
+		Assertions.assertEquals(report.getBatchesWritten(), checkpoints.size());
+		Assertions.assertEquals(RepairCheckpoint.PHASE_SOURCE, checkpoints.get(0).phase());
+		Assertions.assertEquals(root1.getOid(), checkpoints.get(0).lastId());
+		Assertions.assertEquals(report.getCheckpoint(), checkpoints.get(checkpoints.size() - 1));
+
+		// Cleanup
+		ConfigureDb.da.deleteById(TypeManyToManyDocOIDRoot.class, root1.getOid());
+	}
+
 	// ==================== Helpers ====================
 
 	private static TypeManyToManyDocOIDRoot createM2MRoot(final String data) {
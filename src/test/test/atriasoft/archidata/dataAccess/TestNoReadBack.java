@@ -0,0 +1,87 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import org.atriasoft.archidata.dataAccess.options.NoReadBack;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.Enum1ForTest;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+import test.atriasoft.archidata.dataAccess.model.SimpleTableDefaultValue;
+import test.atriasoft.archidata.dataAccess.model.SimpleTableSoftDelete;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestNoReadBack {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testInsertNoReadBack() throws Exception {
+		final SimpleTable test = new SimpleTable();
+		test.data = "no_read_back";
+		final SimpleTable inserted = ConfigureDb.da.insert(test, new NoReadBack());
+		// The caller's object is returned, filled with the generated values
+		Assertions.assertSame(test, inserted);
+		Assertions.assertNotNull(inserted.getId());
+		Assertions.assertNotNull(inserted.getCreatedAt());
+		Assertions.assertNotNull(inserted.getUpdatedAt());
+		Assertions.assertEquals("no_read_back", inserted.data);
+
+		final SimpleTable retrieved = ConfigureDb.da.getById(SimpleTable.class, inserted.getId());
+		Assertions.assertNotNull(retrieved);
+		Assertions.assertEquals("no_read_back", retrieved.data);
+	}
+
+	@Order(2)
+	@Test
+	void testInsertNoReadBackDefaultValue() throws Exception {
+		final SimpleTableSoftDelete test = new SimpleTableSoftDelete();
+		test.data = "no_read_back_default";
+		final SimpleTableSoftDelete inserted = ConfigureDb.da.insert(test, new NoReadBack());
+		Assertions.assertNotNull(inserted.getId());
+		// The deleted flag default value is set from the inserted document
+		Assertions.assertEquals(false, inserted.getDeleted());
+	}
+
+	@Order(3)
+	@Test
+	void testInsertNoReadBackEnumAndInstantDefaultValue() throws Exception {
+		final SimpleTableDefaultValue test = new SimpleTableDefaultValue();
+		test.data = "no_read_back_typed_default";
+		final SimpleTableDefaultValue inserted = ConfigureDb.da.insert(test, new NoReadBack());
+		Assertions.assertNotNull(inserted.getId());
+		Assertions.assertEquals(Enum1ForTest.ENUM_VALUE_3, inserted.kind);
+		Assertions.assertEquals(Instant.parse("2024-01-02T03:04:05Z"), inserted.since);
+	}
+
+	@Order(4)
+	@Test
+	void testInsertNoReadBackKeepsExplicitValue() throws Exception {
+		final SimpleTableDefaultValue test = new SimpleTableDefaultValue();
+		test.kind = Enum1ForTest.ENUM_VALUE_1;
+		test.since = Instant.parse("2020-05-06T07:08:09Z");
+		final SimpleTableDefaultValue inserted = ConfigureDb.da.insert(test, new NoReadBack());
+		Assertions.assertEquals(Enum1ForTest.ENUM_VALUE_1, inserted.kind);
+		Assertions.assertEquals(Instant.parse("2020-05-06T07:08:09Z"), inserted.since);
+	}
+}
@@ -0,0 +1,99 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.atriasoft.archidata.dataAccess.options.Limit;
+import org.atriasoft.archidata.dataAccess.options.Offset;
+import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.OrderItem;
+import org.atriasoft.archidata.dataAccess.options.PageAfter;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestPagination {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testOffset() throws Exception {
+		final List<SimpleTable> data = new ArrayList<>();
+		for (int iii = 0; iii < 12; iii++) {
+			final SimpleTable elem = new SimpleTable();
+			// 4 elements share the same sort key to check the _id tie-breaker of the keyset pagination
+			elem.data = iii < 4 ? "page_dup" : String.format("page_%02d", iii);
+			data.add(elem);
+		}
+		ConfigureDb.da.insertMultipleKeys(data);
+		final List<SimpleTable> page = ConfigureDb.da.gets(SimpleTable.class,
+				new OrderBy(new OrderItem("data", OrderItem.Order.ASC)), new Offset(2), new Limit(3));
+		Assertions.assertEquals(3, page.size());
+		Assertions.assertEquals("page_06", page.get(0).data);
+		Assertions.assertEquals("page_07", page.get(1).data);
+		Assertions.assertEquals("page_08", page.get(2).data);
+	}
+
+	@Order(2)
+	@Test
+	void testPageAfter() throws Exception {
+		final Set<Long> seen = new HashSet<>();
+		final List<String> values = new ArrayList<>();
+		String token = null;
+		int pageCount = 0;
+		do {
+			final PageAfter pageAfter = new PageAfter(token);
+			final List<SimpleTable> page = ConfigureDb.da.gets(SimpleTable.class,
+					new OrderBy(new OrderItem("data", OrderItem.Order.DESC)), new Limit(5), pageAfter);
+			for (final SimpleTable elem : page) {
+				Assertions.assertTrue(seen.add(elem.getId()));
+				values.add(elem.data);
+			}
+			token = pageAfter.getNextToken();
+			pageCount++;
+		} while (token != null && pageCount < 10);
+		Assertions.assertEquals(3, pageCount);
+		Assertions.assertEquals(12, values.size());
+		Assertions.assertEquals("page_dup", values.get(0));
+		Assertions.assertEquals("page_dup", values.get(3));
+		Assertions.assertEquals("page_11", values.get(4));
+		Assertions.assertEquals("page_04", values.get(11));
+	}
+
+	@Order(3)
+	@Test
+	void testPageAfterTokenMismatch() throws Exception {
+		final PageAfter first = new PageAfter();
+		ConfigureDb.da.gets(SimpleTable.class, new OrderBy(new OrderItem("data", OrderItem.Order.ASC)), new Limit(2),
+				first);
+		Assertions.assertNotNull(first.getNextToken());
+		// A token can only be used with the sort keys that generated it
+		Assertions.assertThrows(DataAccessException.class,
+				() -> ConfigureDb.da.gets(SimpleTable.class, new Limit(2), new PageAfter(first.getNextToken())));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new PageAfter("not a token"));
+	}
+}
@@ -0,0 +1,107 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.PreparedQuery;
+import org.atriasoft.archidata.dataAccess.PreparedUpdate;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.FilterValue;
+import org.atriasoft.archidata.dataAccess.options.Limit;
+import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.OrderItem;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestPreparedQuery {
+	private static List<SimpleTable> inserted;
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testPlanCache() throws Exception {
+		final PreparedQuery<SimpleTable> plan1 = PreparedQuery.of(SimpleTable.class,
+				new OrderBy(new OrderItem("data", OrderItem.Order.ASC)), new Limit(3));
+		final PreparedQuery<SimpleTable> plan2 = PreparedQuery.of(SimpleTable.class,
+				new OrderBy(new OrderItem("data", OrderItem.Order.ASC)), new Limit(3));
+		final PreparedQuery<SimpleTable> plan3 = PreparedQuery.of(SimpleTable.class,
+				new OrderBy(new OrderItem("data", OrderItem.Order.ASC)), new Limit(4));
+		Assertions.assertSame(plan1, plan2);
+		Assertions.assertNotSame(plan1, plan3);
+		Assertions.assertThrows(DataAccessException.class,
+				() -> PreparedQuery.of(SimpleTable.class, new Condition(Filters.eq("data", "x"))));
+	}
+
+	@Order(2)
+	@Test
+	void testPreparedGets() throws Exception {
+		final List<SimpleTable> data = new ArrayList<>();
+		for (int iii = 0; iii < 6; iii++) {
+			final SimpleTable elem = new SimpleTable();
+			elem.data = "value_" + iii;
+			data.add(elem);
+		}
+		inserted = ConfigureDb.da.insertMultiple(data);
+		final PreparedQuery<SimpleTable> plan = PreparedQuery.of(SimpleTable.class,
+				new OrderBy(new OrderItem("data", OrderItem.Order.DESC)), new Limit(2));
+		final List<SimpleTable> retrieved = ConfigureDb.da.gets(plan, null);
+		Assertions.assertEquals(2, retrieved.size());
+		Assertions.assertEquals("value_5", retrieved.get(0).data);
+		Assertions.assertEquals("value_4", retrieved.get(1).data);
+		final SimpleTable one = ConfigureDb.da.get(plan, Filters.eq("data", "value_1"));
+		Assertions.assertNotNull(one);
+		Assertions.assertEquals(inserted.get(1).getId(), one.getId());
+	}
+
+	@Order(3)
+	@Test
+	void testPreparedGetsAfterDelete() throws Exception {
+		ConfigureDb.da.deleteById(SimpleTable.class, inserted.get(5).getId());
+		final PreparedQuery<SimpleTable> plan = PreparedQuery.of(SimpleTable.class,
+				new OrderBy(new OrderItem("data", OrderItem.Order.DESC)), new Limit(2));
+		final List<SimpleTable> retrieved = ConfigureDb.da.gets(plan, null);
+		Assertions.assertEquals("value_4", retrieved.get(0).data);
+	}
+
+	@Order(4)
+	@Test
+	void testPreparedUpdate() throws Exception {
+		final PreparedUpdate<SimpleTable> plan = PreparedUpdate.of(SimpleTable.class, new FilterValue(List.of("data")));
+		Assertions.assertSame(plan, PreparedUpdate.of(SimpleTable.class, new FilterValue(List.of("data"))));
+		final SimpleTable elem = inserted.get(0);
+		elem.data = "updated";
+		Assertions.assertEquals(1, ConfigureDb.da.updateById(plan, elem, elem.getId()));
+		Assertions.assertEquals("updated", ConfigureDb.da.getById(SimpleTable.class, elem.getId()).data);
+
+		final SimpleTable values = new SimpleTable();
+		values.data = "renamed";
+		final long modified = ConfigureDb.da.update(plan, values, Filters.in("data", List.of("value_2", "value_3")));
+		Assertions.assertEquals(2, modified);
+		Assertions.assertEquals("renamed", ConfigureDb.da.getById(SimpleTable.class, inserted.get(2).getId()).data);
+	}
+}
@@ -0,0 +1,156 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.QueryCache;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.UseCache;
+import org.atriasoft.archidata.db.DbConfig;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+
+/**
+ * Tests the query result cache of the gets and counts requested with {@link UseCache}.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestQueryCache {
+	private static final UseCache CACHE = new UseCache(Duration.ofMinutes(1));
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	private static SimpleTable insert(final String data) throws Exception {
+		final SimpleTable test = new SimpleTable();
+		test.data = data;
+		return ConfigureDb.da.insert(test);
+	}
+
+	@Order(1)
+	@Test
+	void testGetsServedFromCache() throws Exception {
+		insert("query_a");
+		insert("query_b");
+		final long find = DBAccessMongo.statistic.countFind.get();
+		final List<SimpleTable> first = ConfigureDb.da.gets(SimpleTable.class,
+				new Condition(Filters.eq("data", "query_a")), CACHE);
+		final List<SimpleTable> second = ConfigureDb.da.gets(SimpleTable.class,
+				new Condition(Filters.eq("data", "query_a")), CACHE);
+		Assertions.assertEquals(1, first.size());
+		Assertions.assertEquals(1, second.size());
+		Assertions.assertEquals("query_a", second.get(0).data);
+		// Each hit decodes a new entity
+		Assertions.assertNotSame(first.get(0), second.get(0));
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+		// Another filter is another entry
+		final List<SimpleTable> other = ConfigureDb.da.gets(SimpleTable.class,
+				new Condition(Filters.eq("data", "query_b")), CACHE);
+		Assertions.assertEquals("query_b", other.get(0).data);
+		Assertions.assertEquals(find + 2, DBAccessMongo.statistic.countFind.get());
+		// Without the option the request is always sent
+		ConfigureDb.da.gets(SimpleTable.class, new Condition(Filters.eq("data", "query_a")));
+		Assertions.assertEquals(find + 3, DBAccessMongo.statistic.countFind.get());
+	}
+
+	@Order(2)
+	@Test
+	void testCountServedFromCache() throws Exception {
+		final long count = DBAccessMongo.statistic.countCountDocuments.get();
+		Assertions.assertEquals(2, ConfigureDb.da.count(SimpleTable.class, CACHE));
+		Assertions.assertEquals(2, ConfigureDb.da.count(SimpleTable.class, CACHE));
+		Assertions.assertEquals(count + 1, DBAccessMongo.statistic.countCountDocuments.get());
+	}
+
+	@Order(3)
+	@Test
+	void testWriteInvalidates() throws Exception {
+		insert("query_a");
+		final long find = DBAccessMongo.statistic.countFind.get();
+		final long count = DBAccessMongo.statistic.countCountDocuments.get();
+		Assertions.assertEquals(2,
+				ConfigureDb.da.gets(SimpleTable.class, new Condition(Filters.eq("data", "query_a")), CACHE).size());
+		Assertions.assertEquals(3, ConfigureDb.da.count(SimpleTable.class, CACHE));
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+		Assertions.assertEquals(count + 1, DBAccessMongo.statistic.countCountDocuments.get());
+	}
+
+	@Order(4)
+	@Test
+	void testFilterKeyOrder() throws Exception {
+		final long find = DBAccessMongo.statistic.countFind.get();
+		// The order of the fields of the filter does not change the entry
+		ConfigureDb.da.gets(SimpleTable.class,
+				new Condition(new Document("data", "query_a").append("_id", new Document("$exists", true))), CACHE);
+		ConfigureDb.da.gets(SimpleTable.class,
+				new Condition(new Document("_id", new Document("$exists", true)).append("data", "query_a")), CACHE);
+		Assertions.assertEquals(find + 1, DBAccessMongo.statistic.countFind.get());
+		// The order of the keys of an embedded document compared by equality does
+		ConfigureDb.da.gets(SimpleTable.class, new Condition(new Document("data", new Document("a", 1).append("b", 2))),
+				CACHE);
+		ConfigureDb.da.gets(SimpleTable.class, new Condition(new Document("data", new Document("b", 2).append("a", 1))),
+				CACHE);
+		Assertions.assertEquals(find + 3, DBAccessMongo.statistic.countFind.get());
+	}
+
+	@Order(5)
+	@Test
+	void testInvalidateOnlyTheCollection() throws Exception {
+		final String database = ConfigureDb.da.getInterface().getDatabase().getName();
+		final String first = "query_cache_first";
+		final String second = "query_cache_second";
+		QueryCache.putCount(database, first, "first_key", 1, Duration.ofMinutes(1),
+				QueryCache.generation(database, first));
+		QueryCache.putCount(database, second, "second_key", 2, Duration.ofMinutes(1),
+				QueryCache.generation(database, second));
+		final int size = QueryCache.size();
+		QueryCache.invalidate(database, "query_cache_never_cached");
+		// Same collection name in another database
+		QueryCache.invalidate(database + "_other", first);
+		Assertions.assertEquals(size, QueryCache.size());
+		QueryCache.invalidate(database, first);
+		Assertions.assertEquals(size - 1, QueryCache.size());
+		Assertions.assertNull(QueryCache.getCount("first_key"));
+		Assertions.assertEquals(2, QueryCache.getCount("second_key"));
+		QueryCache.invalidate(database, second);
+		Assertions.assertNull(QueryCache.getCount("second_key"));
+	}
+
+	@Order(6)
+	@Test
+	void testKeyPerDatabase() throws Exception {
+		final String database = ConfigureDb.da.getInterface().getDatabase().getName();
+		final DbConfig config = new DbConfig();
+		config.setDbName(database + "_query_cache_other");
+		try (final DBAccessMongo other = DBAccessMongo.createInterface(config)) {
+			final long count = DBAccessMongo.statistic.countCountDocuments.get();
+			Assertions.assertEquals(3, ConfigureDb.da.count(SimpleTable.class, CACHE));
+			// The same request on another database is not served the result of the first one
+			Assertions.assertEquals(0, other.count(SimpleTable.class, CACHE));
+			Assertions.assertEquals(count + 1, DBAccessMongo.statistic.countCountDocuments.get());
+			other.deleteDatabase(database + "_query_cache_other");
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.atriasoft.archidata.dataAccess.DataStreamIterator;
+import org.atriasoft.archidata.dataAccess.options.BatchSize;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.OrderItem;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocOIDChildExpand;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocOIDChildTTT;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocOIDParentIgnore;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestStream {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testStreamWindows() throws Exception {
+		final List<SimpleTable> data = new ArrayList<>();
+		for (int iii = 0; iii < 23; iii++) {
+			final SimpleTable elem = new SimpleTable();
+			elem.data = String.format("stream_%02d", iii);
+			data.add(elem);
+		}
+		ConfigureDb.da.insertMultipleKeys(data);
+		try (Stream<SimpleTable> stream = ConfigureDb.da.stream(SimpleTable.class, new BatchSize(5),
+				new OrderBy(new OrderItem("data", OrderItem.Order.ASC)))) {
+			final List<String> values = stream.map(elem -> elem.data).toList();
+			Assertions.assertEquals(23, values.size());
+			for (int iii = 0; iii < 23; iii++) {
+				Assertions.assertEquals(String.format("stream_%02d", iii), values.get(iii));
+			}
+		}
+	}
+
+	@Order(2)
+	@Test
+	void testIteratorCondition() throws Exception {
+		int count = 0;
+		try (DataStreamIterator<SimpleTable> it = ConfigureDb.da.iterate(SimpleTable.class, new BatchSize(4),
+				new Condition(Filters.in("data", "stream_03", "stream_10", "stream_22")))) {
+			while (it.hasNext()) {
+				Assertions.assertNotNull(it.next().getId());
+				count++;
+			}
+			Assertions.assertFalse(it.hasNext());
+		}
+		Assertions.assertEquals(3, count);
+	}
+
+	@Order(3)
+	@Test
+	void testStreamResolveRelationships() throws Exception {
+		final TypeManyToOneDocOIDParentIgnore parentA = ConfigureDb.da
+				.insert(new TypeManyToOneDocOIDParentIgnore("parentA", null));
+		final TypeManyToOneDocOIDParentIgnore parentB = ConfigureDb.da
+				.insert(new TypeManyToOneDocOIDParentIgnore("parentB", null));
+		for (int iii = 0; iii < 7; iii++) {
+			ConfigureDb.da.insert(
+					new TypeManyToOneDocOIDChildTTT("child_" + iii, (iii % 2 == 0 ? parentA : parentB).getOid()));
+		}
+		try (Stream<TypeManyToOneDocOIDChildExpand> stream = ConfigureDb.da.stream(TypeManyToOneDocOIDChildExpand.class,
+				new BatchSize(3))) {
+			final List<TypeManyToOneDocOIDChildExpand> children = stream.toList();
+			Assertions.assertEquals(7, children.size());
+			for (final TypeManyToOneDocOIDChildExpand child : children) {
+				Assertions.assertNotNull(child.parent);
+				final int index = Integer.parseInt(child.otherData.substring("child_".length()));
+				Assertions.assertEquals(index % 2 == 0 ? "parentA" : "parentB", child.parent.data);
+			}
+		}
+	}
+}
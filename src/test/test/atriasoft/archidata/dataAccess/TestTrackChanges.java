@@ -0,0 +1,92 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.options.FilterValue;
+import org.atriasoft.archidata.dataAccess.options.ReadAllColumn;
+import org.atriasoft.archidata.dataAccess.options.TrackChanges;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+import test.atriasoft.archidata.dataAccess.model.TypesTable;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestTrackChanges {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testNoChangeNoWrite() throws Exception {
+		final SimpleTable test = new SimpleTable();
+		test.data = "tracked";
+		final SimpleTable inserted = ConfigureDb.da.insert(test);
+		final SimpleTable before = ConfigureDb.da.getById(SimpleTable.class, inserted.getId(), new ReadAllColumn());
+
+		final SimpleTable tracked = ConfigureDb.da.getById(SimpleTable.class, inserted.getId(), new TrackChanges());
+		Assertions.assertEquals(0, ConfigureDb.da.updateById(tracked, tracked.getId()));
+
+		// The update timestamp is not touched when nothing is written
+		final SimpleTable after = ConfigureDb.da.getById(SimpleTable.class, inserted.getId(), new ReadAllColumn());
+		Assertions.assertEquals(before.getUpdatedAt(), after.getUpdatedAt());
+
+		tracked.data = "tracked_modified";
+		Assertions.assertEquals(1, ConfigureDb.da.updateById(tracked, tracked.getId()));
+		// The snapshot follows the written values
+		Assertions.assertEquals(0, ConfigureDb.da.updateById(tracked, tracked.getId()));
+		final SimpleTable retrieved = ConfigureDb.da.getById(SimpleTable.class, inserted.getId());
+		Assertions.assertEquals("tracked_modified", retrieved.data);
+	}
+
+	@Order(2)
+	@Test
+	void testOnlyChangedFieldsWritten() throws Exception {
+		final TypesTable test = new TypesTable();
+		test.intData = 42;
+		test.textData = "text";
+		test.dateFullData = new Date();
+		test.dateData = LocalDate.now();
+		final TypesTable inserted = ConfigureDb.da.insert(test);
+
+		final TypesTable tracked = ConfigureDb.da.getById(TypesTable.class, inserted.id, new TrackChanges());
+
+		// Concurrent modification of another field
+		final TypesTable other = new TypesTable();
+		other.textData = "concurrent";
+		ConfigureDb.da.updateById(other, inserted.id, new FilterValue(List.of("textData")));
+
+		// Only intData differs from the snapshot: textData keeps the concurrent value
+		tracked.intData = 43;
+		Assertions.assertEquals(1, ConfigureDb.da.updateById(tracked, tracked.id));
+		final TypesTable retrieved = ConfigureDb.da.getById(TypesTable.class, inserted.id);
+		Assertions.assertEquals(43, retrieved.intData);
+		Assertions.assertEquals("concurrent", retrieved.textData);
+
+		// Setting a field to null generates an $unset
+		tracked.textData = null;
+		Assertions.assertEquals(1, ConfigureDb.da.updateById(tracked, tracked.id));
+		final TypesTable retrieved2 = ConfigureDb.da.getById(TypesTable.class, inserted.id);
+		Assertions.assertNull(retrieved2.textData);
+	}
+}
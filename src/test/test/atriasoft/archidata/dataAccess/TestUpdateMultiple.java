@@ -0,0 +1,104 @@
+package test.atriasoft.archidata.dataAccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.options.BatchSize;
+import org.atriasoft.archidata.dataAccess.options.FilterValue;
+import org.atriasoft.archidata.exception.DataAccessException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.SimpleTable;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocOIDRemote;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocOIDRoot;
+
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestUpdateMultiple {
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testUpdateDifferentValues() throws Exception {
+		final List<SimpleTable> data = new ArrayList<>();
+		for (int iii = 0; iii < 10; iii++) {
+			final SimpleTable elem = new SimpleTable();
+			elem.data = "before_" + iii;
+			data.add(elem);
+		}
+		final List<SimpleTable> inserted = ConfigureDb.da.insertMultiple(data);
+		for (int iii = 0; iii < inserted.size(); iii++) {
+			inserted.get(iii).data = "after_" + iii;
+		}
+		final long modified = ConfigureDb.da.updateMultiple(inserted, new BatchSize(3),
+				new FilterValue(List.of("data")));
+		Assertions.assertEquals(10, modified);
+		for (int iii = 0; iii < inserted.size(); iii++) {
+			final SimpleTable retrieved = ConfigureDb.da.getById(SimpleTable.class, inserted.get(iii).getId());
+			Assertions.assertEquals("after_" + iii, retrieved.data);
+		}
+	}
+
+	@Order(2)
+	@Test
+	void testUpdateWithoutKey() throws Exception {
+		final SimpleTable elem = new SimpleTable();
+		elem.data = "no key";
+		Assertions.assertThrows(DataAccessException.class, () -> ConfigureDb.da.updateMultiple(List.of(elem)));
+	}
+
+	@Order(3)
+	@Test
+	void testUpdateLinks() throws Exception {
+		final TypeManyToManyDocOIDRemote remote1 = new TypeManyToManyDocOIDRemote();
+		remote1.data = "remote1";
+		final TypeManyToManyDocOIDRemote insertedRemote1 = ConfigureDb.da.insert(remote1);
+		final TypeManyToManyDocOIDRemote remote2 = new TypeManyToManyDocOIDRemote();
+		remote2.data = "remote2";
+		final TypeManyToManyDocOIDRemote insertedRemote2 = ConfigureDb.da.insert(remote2);
+
+		final List<TypeManyToManyDocOIDRoot> roots = new ArrayList<>();
+		for (int iii = 0; iii < 4; iii++) {
+			final TypeManyToManyDocOIDRoot root = new TypeManyToManyDocOIDRoot();
+			root.otherData = "root_" + iii;
+			root.remote = List.of(insertedRemote1.getOid());
+			roots.add(ConfigureDb.da.insert(root));
+		}
+		// Move every root from remote1 to remote2
+		for (final TypeManyToManyDocOIDRoot root : roots) {
+			root.remote = List.of(insertedRemote2.getOid());
+		}
+		Assertions.assertEquals(4, ConfigureDb.da.updateMultiple(roots));
+
+		final TypeManyToManyDocOIDRemote retrieve1 = ConfigureDb.da.getById(TypeManyToManyDocOIDRemote.class,
+				insertedRemote1.getOid());
+		Assertions.assertTrue(retrieve1.remoteToParent == null || retrieve1.remoteToParent.isEmpty());
+		final TypeManyToManyDocOIDRemote retrieve2 = ConfigureDb.da.getById(TypeManyToManyDocOIDRemote.class,
+				insertedRemote2.getOid());
+		Assertions.assertNotNull(retrieve2.remoteToParent);
+		Assertions.assertEquals(4, retrieve2.remoteToParent.size());
+		for (final TypeManyToManyDocOIDRoot root : roots) {
+			Assertions.assertTrue(retrieve2.remoteToParent.contains((ObjectId) root.getOid()));
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package test.atriasoft.archidata.dataAccess.model;
+
+import org.atriasoft.archidata.annotation.Cacheable;
+import org.atriasoft.archidata.model.GenericData;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Table;
+
+@Table(name = "SimpleTable")
+@Cacheable(ttl = 60, maxSize = 2)
+public class SimpleTableCached extends GenericData {
+	@Column(length = 0)
+	public String data;
+
+}
@@ -0,0 +1,17 @@
+package test.atriasoft.archidata.dataAccess.model;
+
+import java.time.Instant;
+
+import org.atriasoft.archidata.model.GenericData;
+
+import jakarta.persistence.Column;
+import jakarta.ws.rs.DefaultValue;
+
+public class SimpleTableDefaultValue extends GenericData {
+	@Column(length = 0)
+	public String data;
+	@DefaultValue("'ENUM_VALUE_3'")
+	public Enum1ForTest kind;
+	@DefaultValue("'2024-01-02T03:04:05Z'")
+	public Instant since;
+}
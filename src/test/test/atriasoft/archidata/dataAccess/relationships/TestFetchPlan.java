@@ -0,0 +1,134 @@
+package test.atriasoft.archidata.dataAccess.relationships;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.commonTools.ManyToManyTools;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocLongRemote;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocLongRoot;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocLongRootExpand;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongChildExpand;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongChildTTT;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongParentIgnore;
+
+/**
+ * Tests the {@link FetchPlan} option: only the listed links are loaded, the others hold references with the
+ * primary key only.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestFetchPlan {
+	private static TypeManyToOneDocLongParentIgnore parent;
+	private static TypeManyToOneDocLongChildTTT child;
+	private static TypeManyToManyDocLongRoot root;
+	private static TypeManyToManyDocLongRemote remote1;
+	private static TypeManyToManyDocLongRemote remote2;
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testPlanPaths() {
+		final FetchPlan plan = FetchPlan.of("author.team", "tags");
+		Assertions.assertTrue(plan.expands("author"));
+		Assertions.assertTrue(plan.expands("tags"));
+		Assertions.assertFalse(plan.expands("reviewer"));
+		Assertions.assertTrue(plan.nested("author").expands("team"));
+		Assertions.assertFalse(plan.nested("tags").expands("team"));
+		Assertions.assertEquals(FetchPlan.of("tags", "author.team"), plan);
+		Assertions.assertFalse(FetchPlan.idsOnly().expands("author"));
+		Assertions.assertTrue(FetchPlan.depth(2).nested("author").expands("team"));
+		Assertions.assertFalse(FetchPlan.depth(2).nested("author").nested("team").expands("owner"));
+	}
+
+	@Order(2)
+	@Test
+	void testSetup() throws Exception {
+		final TypeManyToOneDocLongParentIgnore parentData = new TypeManyToOneDocLongParentIgnore();
+		parentData.data = "fetch_parent";
+		parent = ConfigureDb.da.insert(parentData);
+		child = ConfigureDb.da.insert(new TypeManyToOneDocLongChildTTT("fetch_child", parent.getId()));
+
+		final TypeManyToManyDocLongRoot rootData = new TypeManyToManyDocLongRoot();
+		rootData.otherData = "fetch_root";
+		root = ConfigureDb.da.insert(rootData);
+		TypeManyToManyDocLongRemote remote = new TypeManyToManyDocLongRemote();
+		remote.data = "fetch_remote1";
+		remote1 = ConfigureDb.da.insert(remote);
+		remote = new TypeManyToManyDocLongRemote();
+		remote.data = "fetch_remote2";
+		remote2 = ConfigureDb.da.insert(remote);
+		ManyToManyTools.addLink(ConfigureDb.da, TypeManyToManyDocLongRoot.class, root.getId(), "remote",
+				remote1.getId());
+		ManyToManyTools.addLink(ConfigureDb.da, TypeManyToManyDocLongRoot.class, root.getId(), "remote",
+				remote2.getId());
+	}
+
+	@Order(3)
+	@Test
+	void testManyToOneIdsOnly() throws Exception {
+		final List<TypeManyToOneDocLongChildExpand> children = ConfigureDb.da.gets(
+				TypeManyToOneDocLongChildExpand.class, new Condition(Filters.eq("_id", child.getId())),
+				FetchPlan.idsOnly());
+		Assertions.assertEquals(1, children.size());
+		Assertions.assertNotNull(children.get(0).parent);
+		Assertions.assertEquals(parent.getId(), children.get(0).parent.getId());
+		Assertions.assertNull(children.get(0).parent.data);
+	}
+
+	@Order(4)
+	@Test
+	void testManyToOneExpanded() throws Exception {
+		final List<TypeManyToOneDocLongChildExpand> children = ConfigureDb.da.gets(
+				TypeManyToOneDocLongChildExpand.class, new Condition(Filters.eq("_id", child.getId())),
+				FetchPlan.of("parent"));
+		Assertions.assertEquals(1, children.size());
+		Assertions.assertEquals(parent.getId(), children.get(0).parent.getId());
+		Assertions.assertEquals("fetch_parent", children.get(0).parent.data);
+	}
+
+	@Order(5)
+	@Test
+	void testManyToManyIdsOnly() throws Exception {
+		final TypeManyToManyDocLongRootExpand retrieved = ConfigureDb.da.getById(TypeManyToManyDocLongRootExpand.class,
+				root.getId(), FetchPlan.of("other"));
+		Assertions.assertNotNull(retrieved.remote);
+		Assertions.assertEquals(2, retrieved.remote.size());
+		Assertions.assertEquals(remote1.getId(), retrieved.remote.get(0).getId());
+		Assertions.assertNull(retrieved.remote.get(0).data);
+		Assertions.assertEquals(remote2.getId(), retrieved.remote.get(1).getId());
+	}
+
+	@Order(6)
+	@Test
+	void testManyToManyDepth() throws Exception {
+		final TypeManyToManyDocLongRootExpand retrieved = ConfigureDb.da.getById(TypeManyToManyDocLongRootExpand.class,
+				root.getId(), FetchPlan.depth(1));
+		Assertions.assertEquals(2, retrieved.remote.size());
+		Assertions.assertEquals("fetch_remote1", retrieved.remote.get(0).data);
+		Assertions.assertEquals("fetch_remote2", retrieved.remote.get(1).data);
+	}
+}
@@ -0,0 +1,125 @@
+package test.atriasoft.archidata.dataAccess.relationships;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.atriasoft.archidata.dataAccess.commonTools.ManyToManyTools;
+import org.atriasoft.archidata.dataAccess.options.Condition;
+import org.atriasoft.archidata.dataAccess.options.FetchPlan;
+import org.atriasoft.archidata.dataAccess.options.JoinStrategy;
+import org.atriasoft.archidata.dataAccess.options.Limit;
+import org.atriasoft.archidata.dataAccess.options.OrderBy;
+import org.atriasoft.archidata.dataAccess.options.OrderItem;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.mongodb.client.model.Filters;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocLongRemote;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocLongRoot;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToManyDocLongRootExpand;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongChildExpand;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongChildTTT;
+import test.atriasoft.archidata.dataAccess.model.TypeManyToOneDocLongParentIgnore;
+
+/**
+ * Tests the {@link JoinStrategy#LOOKUP} read: the linked entities are loaded by the same aggregation.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestJoinStrategy {
+	private static TypeManyToOneDocLongParentIgnore parent1;
+	private static TypeManyToOneDocLongParentIgnore parent2;
+	private static TypeManyToManyDocLongRoot root;
+	private static TypeManyToManyDocLongRemote remote1;
+	private static TypeManyToManyDocLongRemote remote2;
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testSetup() throws Exception {
+		TypeManyToOneDocLongParentIgnore parent = new TypeManyToOneDocLongParentIgnore();
+		parent.data = "join_parent1";
+		parent1 = ConfigureDb.da.insert(parent);
+		parent = new TypeManyToOneDocLongParentIgnore();
+		parent.data = "join_parent2";
+		parent2 = ConfigureDb.da.insert(parent);
+		ConfigureDb.da.insert(new TypeManyToOneDocLongChildTTT("join_child1", parent1.getId()));
+		ConfigureDb.da.insert(new TypeManyToOneDocLongChildTTT("join_child2", parent2.getId()));
+		ConfigureDb.da.insert(new TypeManyToOneDocLongChildTTT("join_child3", parent1.getId()));
+
+		final TypeManyToManyDocLongRoot rootData = new TypeManyToManyDocLongRoot();
+		rootData.otherData = "join_root";
+		root = ConfigureDb.da.insert(rootData);
+		TypeManyToManyDocLongRemote remote = new TypeManyToManyDocLongRemote();
+		remote.data = "join_remote1";
+		remote1 = ConfigureDb.da.insert(remote);
+		remote = new TypeManyToManyDocLongRemote();
+		remote.data = "join_remote2";
+		remote2 = ConfigureDb.da.insert(remote);
+		// Linked in the reverse order of the ids
+		ManyToManyTools.addLink(ConfigureDb.da, TypeManyToManyDocLongRoot.class, root.getId(), "remote",
+				remote2.getId());
+		ManyToManyTools.addLink(ConfigureDb.da, TypeManyToManyDocLongRoot.class, root.getId(), "remote",
+				remote1.getId());
+	}
+
+	@Order(2)
+	@Test
+	void testManyToOneLookup() throws Exception {
+		final long finds = DBAccessMongo.statistic.countFind.get();
+		final long aggregates = DBAccessMongo.statistic.countAggregate.get();
+		final List<TypeManyToOneDocLongChildExpand> children = ConfigureDb.da.gets(
+				TypeManyToOneDocLongChildExpand.class, JoinStrategy.LOOKUP,
+				new OrderBy(new OrderItem("otherData", OrderItem.Order.ASC)), new Limit(2));
+		Assertions.assertEquals(finds, DBAccessMongo.statistic.countFind.get());
+		Assertions.assertEquals(aggregates + 1, DBAccessMongo.statistic.countAggregate.get());
+		Assertions.assertEquals(2, children.size());
+		Assertions.assertEquals("join_child1", children.get(0).otherData);
+		Assertions.assertEquals(parent1.getId(), children.get(0).parent.getId());
+		Assertions.assertEquals("join_parent1", children.get(0).parent.data);
+		Assertions.assertEquals("join_child2", children.get(1).otherData);
+		Assertions.assertEquals("join_parent2", children.get(1).parent.data);
+	}
+
+	@Order(3)
+	@Test
+	void testManyToManyLookupKeepsOrder() throws Exception {
+		final List<TypeManyToManyDocLongRootExpand> roots = ConfigureDb.da.gets(TypeManyToManyDocLongRootExpand.class,
+				new Condition(Filters.eq("_id", root.getId())), JoinStrategy.LOOKUP);
+		Assertions.assertEquals(1, roots.size());
+		Assertions.assertEquals(2, roots.get(0).remote.size());
+		Assertions.assertEquals(remote2.getId(), roots.get(0).remote.get(0).getId());
+		Assertions.assertEquals("join_remote2", roots.get(0).remote.get(0).data);
+		Assertions.assertEquals(remote1.getId(), roots.get(0).remote.get(1).getId());
+		Assertions.assertEquals("join_remote1", roots.get(0).remote.get(1).data);
+	}
+
+	@Order(4)
+	@Test
+	void testLookupWithFetchPlan() throws Exception {
+		final TypeManyToManyDocLongRootExpand retrieved = ConfigureDb.da.getById(TypeManyToManyDocLongRootExpand.class,
+				root.getId(), JoinStrategy.LOOKUP, FetchPlan.idsOnly());
+		Assertions.assertEquals(2, retrieved.remote.size());
+		Assertions.assertEquals(remote2.getId(), retrieved.remote.get(0).getId());
+		Assertions.assertNull(retrieved.remote.get(0).data);
+	}
+}
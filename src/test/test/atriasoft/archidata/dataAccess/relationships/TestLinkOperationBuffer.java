@@ -0,0 +1,90 @@
+package test.atriasoft.archidata.dataAccess.relationships;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import test.atriasoft.archidata.ConfigureDb;
+import test.atriasoft.archidata.StepwiseExtension;
+import test.atriasoft.archidata.dataAccess.model.TypeOneToManyDocLongParentIgnore;
+import test.atriasoft.archidata.dataAccess.model.TypeOneToManyDocLongRemote;
+
+/**
+ * Tests the grouping of the link operations of a write: the children of a parent are linked with one
+ * bulkWrite instead of one update per child.
+ */
+@ExtendWith(StepwiseExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TestLinkOperationBuffer {
+	private static final int CHILD_COUNT = 50;
+	private static final int MOVED_COUNT = 20;
+	private static List<Long> remoteIds = new ArrayList<>();
+	private static TypeOneToManyDocLongParentIgnore parent1;
+	private static TypeOneToManyDocLongParentIgnore parent2;
+
+	@BeforeAll
+	static void setup() throws Exception {
+		ConfigureDb.configure();
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		ConfigureDb.clear();
+	}
+
+	@Order(1)
+	@Test
+	void testCreateRemotes() throws Exception {
+		final List<TypeOneToManyDocLongRemote> remotes = new ArrayList<>();
+		for (int iii = 0; iii < CHILD_COUNT; iii++) {
+			remotes.add(new TypeOneToManyDocLongRemote("remote_" + iii, null));
+		}
+		for (final TypeOneToManyDocLongRemote remote : ConfigureDb.da.insertMultiple(remotes)) {
+			remoteIds.add(remote.getId());
+		}
+		Assertions.assertEquals(CHILD_COUNT, remoteIds.size());
+	}
+
+	@Order(2)
+	@Test
+	void testInsertParentGroupsLinks() throws Exception {
+		final long bulkWrites = DBAccessMongo.statistic.countBulkWrite.get();
+		final long findOneAndUpdates = DBAccessMongo.statistic.countFindOneAndUpdate.get();
+		parent1 = ConfigureDb.da.insert(new TypeOneToManyDocLongParentIgnore("parent1", remoteIds));
+		Assertions.assertEquals(bulkWrites + 1, DBAccessMongo.statistic.countBulkWrite.get());
+		Assertions.assertEquals(findOneAndUpdates, DBAccessMongo.statistic.countFindOneAndUpdate.get());
+		for (final Long id : remoteIds) {
+			final TypeOneToManyDocLongRemote remote = ConfigureDb.da.getById(TypeOneToManyDocLongRemote.class, id);
+			Assertions.assertEquals(parent1.getId(), remote.parentId);
+		}
+	}
+
+	@Order(3)
+	@Test
+	void testMoveChildrenToOtherParent() throws Exception {
+		final List<Long> moved = remoteIds.subList(0, MOVED_COUNT);
+		final long findOneAndUpdates = DBAccessMongo.statistic.countFindOneAndUpdate.get();
+		parent2 = ConfigureDb.da.insert(new TypeOneToManyDocLongParentIgnore("parent2", moved));
+		// No concurrent writer: every guarded update applies, none is retried one by one
+		Assertions.assertEquals(findOneAndUpdates, DBAccessMongo.statistic.countFindOneAndUpdate.get());
+		for (final Long id : moved) {
+			final TypeOneToManyDocLongRemote remote = ConfigureDb.da.getById(TypeOneToManyDocLongRemote.class, id);
+			Assertions.assertEquals(parent2.getId(), remote.parentId);
+		}
+		// The previous parent lost the moved children
+		final TypeOneToManyDocLongParentIgnore parentCheck = ConfigureDb.da
+				.getById(TypeOneToManyDocLongParentIgnore.class, parent1.getId());
+		Assertions.assertEquals(CHILD_COUNT - MOVED_COUNT, parentCheck.remoteIds.size());
+		Assertions.assertEquals(remoteIds.subList(MOVED_COUNT, CHILD_COUNT), parentCheck.remoteIds);
+	}
+}
@@ -1,9 +1,12 @@
 package test.atriasoft.archidata.dataAccess.relationships;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.atriasoft.archidata.dataAccess.DBAccessMongo;
 import org.atriasoft.archidata.dataAccess.options.AccessDeletedItems;
+import org.atriasoft.archidata.dataAccess.options.Condition;
 import org.atriasoft.archidata.dataAccess.options.ReadAllColumn;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
@@ -14,6 +17,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import com.mongodb.client.model.Filters;
+
 import test.atriasoft.archidata.ConfigureDb;
 import test.atriasoft.archidata.StepwiseExtension;
 import test.atriasoft.archidata.dataAccess.model.TypeOneToManyDocLongParentCascadeDeleteDelete;
@@ -75,4 +80,30 @@ class TestOneToManyCascadeDeleteDelete {
 				insertedRemote2.getId(), new AccessDeletedItems(), new ReadAllColumn());
 		Assertions.assertNull(r2);
 	}
+
+	@Order(4)
+	@Test
+	void testDeleteParentsDeletesChildrenInOneRequest() throws Exception {
+		final List<Long> parentIds = new ArrayList<>();
+		final List<Long> childIds = new ArrayList<>();
+		for (int iii = 0; iii < 2; iii++) {
+			final List<Long> remoteIds = new ArrayList<>();
+			for (int jjj = 0; jjj < 30; jjj++) {
+				remoteIds.add(ConfigureDb.da
+						.insert(new TypeOneToManyDocLongRemote("remote_cdd_" + iii + "_" + jjj, null)).getId());
+			}
+			childIds.addAll(remoteIds);
+			parentIds.add(ConfigureDb.da
+					.insert(new TypeOneToManyDocLongParentCascadeDeleteDelete("parent_cdd_" + iii, remoteIds)).getId());
+		}
+		final long deleteMany = DBAccessMongo.statistic.countDeleteMany.get();
+		final long count = ConfigureDb.da.delete(TypeOneToManyDocLongParentCascadeDeleteDelete.class,
+				new Condition(Filters.in("_id", parentIds)));
+		Assertions.assertEquals(2, count);
+		// One request for the parents, one for all their children
+		Assertions.assertEquals(deleteMany + 2, DBAccessMongo.statistic.countDeleteMany.get());
+		final List<TypeOneToManyDocLongRemote> remaining = ConfigureDb.da.gets(TypeOneToManyDocLongRemote.class,
+				new Condition(Filters.in("_id", childIds)), new AccessDeletedItems());
+		Assertions.assertEquals(0, remaining.size());
+	}
 }
@@ -172,6 +172,28 @@ class TestConfigBaseVariable {
 		Assertions.assertEquals(512, ConfigBaseVariable.getThumbnailWidth());
 	}
 
+	@Test
+	void testGetThumbnailWidthsDefault() {
+		ConfigBaseVariable.setThumbnailWidths(null);
+		ConfigBaseVariable.setThumbnailWidth("300");
+		Assertions.assertArrayEquals(new int[] { 300 }, ConfigBaseVariable.getThumbnailWidths());
+	}
+
+	@Test
+	void testGetThumbnailWidthsCustom() {
+		ConfigBaseVariable.setThumbnailWidths("512, 128,256,128");
+		Assertions.assertArrayEquals(new int[] { 128, 256, 512 }, ConfigBaseVariable.getThumbnailWidths());
+	}
+
+	@Test
+	void testGetThumbnailWidthsNoPositive() {
+		ConfigBaseVariable.setThumbnailWidth("300");
+		ConfigBaseVariable.setThumbnailWidths("0");
+		Assertions.assertArrayEquals(new int[] { 300 }, ConfigBaseVariable.getThumbnailWidths());
+		ConfigBaseVariable.setThumbnailWidths("0, -64, ,");
+		Assertions.assertArrayEquals(new int[] { 300 }, ConfigBaseVariable.getThumbnailWidths());
+	}
+
 	@Test
 	void testGetEMailConfigNull() {
 		ConfigBaseVariable.setEMailFrom(null);
@@ -0,0 +1,79 @@
+package test.atriasoft.archidata.tools;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+import org.atriasoft.archidata.tools.HttpCacheTools;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+
+class TestHttpCacheTools {
+
+	private static HttpHeaders ifRange(final String value) {
+		return (HttpHeaders) Proxy.newProxyInstance(TestHttpCacheTools.class.getClassLoader(),
+				new Class<?>[] { HttpHeaders.class }, (proxy, method, args) -> {
+					if ("getHeaderString".equals(method.getName()) && HttpCacheTools.IF_RANGE.equals(args[0])) {
+						return value;
+					}
+					return null;
+				});
+	}
+
+	@Test
+	void testStrongTag() {
+		Assertions.assertNull(HttpCacheTools.strongTag(null));
+		Assertions.assertNull(HttpCacheTools.strongTag(""));
+		final EntityTag tag = HttpCacheTools.strongTag("abc");
+		Assertions.assertEquals("abc", tag.getValue());
+		Assertions.assertFalse(tag.isWeak());
+	}
+
+	@Test
+	void testToHttpDate() {
+		Assertions.assertNull(HttpCacheTools.toHttpDate(null));
+		Assertions.assertEquals(new Date(1_700_000_000_000L), HttpCacheTools.toHttpDate(new Date(1_700_000_000_789L)));
+	}
+
+	@Test
+	void testRangeAppliesWithoutIfRange() {
+		Assertions.assertTrue(HttpCacheTools.rangeApplies(null, null, null));
+		Assertions.assertTrue(HttpCacheTools.rangeApplies(ifRange(null), new Date(), new EntityTag("abc")));
+	}
+
+	@Test
+	void testRangeAppliesEntityTag() {
+		final EntityTag etag = new EntityTag("abc");
+		Assertions.assertTrue(HttpCacheTools.rangeApplies(ifRange("\"abc\""), null, etag));
+		Assertions.assertFalse(HttpCacheTools.rangeApplies(ifRange("\"abd\""), null, etag));
+		// Strong comparison: a weak tag never matches
+		Assertions.assertFalse(HttpCacheTools.rangeApplies(ifRange("W/\"abc\""), null, etag));
+		Assertions.assertFalse(HttpCacheTools.rangeApplies(ifRange("\"abc\""), null, null));
+	}
+
+	@Test
+	void testRangeAppliesDate() {
+		final Date lastModified = new Date(1_700_000_000_789L);
+		final String same = DateTimeFormatter.RFC_1123_DATE_TIME
+				.format(Instant.ofEpochSecond(1_700_000_000L).atZone(ZoneOffset.UTC));
+		final String older = DateTimeFormatter.RFC_1123_DATE_TIME
+				.format(Instant.ofEpochSecond(1_699_999_999L).atZone(ZoneOffset.UTC));
+		Assertions.assertTrue(HttpCacheTools.rangeApplies(ifRange(same), lastModified, null));
+		Assertions.assertFalse(HttpCacheTools.rangeApplies(ifRange(older), lastModified, null));
+		Assertions.assertFalse(HttpCacheTools.rangeApplies(ifRange("not a date"), lastModified, null));
+		Assertions.assertFalse(HttpCacheTools.rangeApplies(ifRange(same), null, null));
+	}
+
+	@Test
+	void testCachePolicies() {
+		Assertions.assertEquals(60, HttpCacheTools.maxAge(60).getMaxAge());
+		Assertions.assertTrue(HttpCacheTools.revalidate().isNoCache());
+		Assertions.assertEquals(HttpCacheTools.ONE_YEAR_SECONDS, HttpCacheTools.immutable().getMaxAge());
+		Assertions.assertTrue(HttpCacheTools.immutable().getCacheExtension().containsKey("immutable"));
+	}
+}
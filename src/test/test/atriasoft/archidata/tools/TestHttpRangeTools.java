@@ -0,0 +1,64 @@
+package test.atriasoft.archidata.tools;
+
+import java.util.List;
+
+import org.atriasoft.archidata.tools.HttpRangeTools;
+import org.atriasoft.archidata.tools.HttpRangeTools.ByteRange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TestHttpRangeTools {
+
+	@Test
+	void testIgnored() {
+		Assertions.assertNull(HttpRangeTools.parse(null, 1000));
+		Assertions.assertNull(HttpRangeTools.parse("items=0-10", 1000));
+		Assertions.assertNull(HttpRangeTools.parse("bytes=", 1000));
+		Assertions.assertNull(HttpRangeTools.parse("bytes=abc", 1000));
+		Assertions.assertNull(HttpRangeTools.parse("bytes=10-5", 1000));
+		Assertions.assertNull(HttpRangeTools.parse("bytes=-5-10", 1000));
+	}
+
+	@Test
+	void testSingle() {
+		Assertions.assertEquals(List.of(new ByteRange(0, 499)), HttpRangeTools.parse("bytes=0-499", 1000));
+		Assertions.assertEquals(List.of(new ByteRange(500, 999)), HttpRangeTools.parse("bytes=500-", 1000));
+		// Clipped to the content
+		Assertions.assertEquals(List.of(new ByteRange(900, 999)), HttpRangeTools.parse("bytes=900-5000", 1000));
+		Assertions.assertEquals("bytes 900-999/1000", new ByteRange(900, 999).toContentRange(1000));
+		Assertions.assertEquals(100, new ByteRange(900, 999).length());
+	}
+
+	@Test
+	void testSuffix() {
+		Assertions.assertEquals(List.of(new ByteRange(900, 999)), HttpRangeTools.parse("bytes=-100", 1000));
+		Assertions.assertEquals(List.of(new ByteRange(0, 999)), HttpRangeTools.parse("bytes=-5000", 1000));
+	}
+
+	@Test
+	void testUnsatisfiable() {
+		Assertions.assertEquals(List.of(), HttpRangeTools.parse("bytes=1000-", 1000));
+		Assertions.assertEquals(List.of(), HttpRangeTools.parse("bytes=-0", 1000));
+		Assertions.assertEquals(List.of(), HttpRangeTools.parse("bytes=0-10", 0));
+		// Only the satisfiable ranges are kept
+		Assertions.assertEquals(List.of(new ByteRange(0, 9)), HttpRangeTools.parse("bytes=2000-3000, 0-9", 1000));
+	}
+
+	@Test
+	void testMultiple() {
+		Assertions.assertEquals(List.of(new ByteRange(0, 9), new ByteRange(500, 599), new ByteRange(950, 999)),
+				HttpRangeTools.parse("bytes=500-599, -50, 0-9", 1000));
+		// Overlapping and adjacent ranges are coalesced
+		Assertions.assertEquals(List.of(new ByteRange(0, 199)),
+				HttpRangeTools.parse("bytes=0-99,100-150,120-199", 1000));
+	}
+
+	@Test
+	void testTooManyRanges() {
+		final StringBuilder header = new StringBuilder("bytes=");
+		for (int iii = 0; iii <= HttpRangeTools.MAX_RANGES; iii++) {
+			header.append(iii * 10).append('-').append(iii * 10 + 1).append(',');
+		}
+		Assertions.assertNull(HttpRangeTools.parse(header.toString(), 10_000));
+	}
+}
@@ -0,0 +1,124 @@
+package test.atriasoft.archidata.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.imageio.ImageIO;
+
+import org.atriasoft.archidata.api.DataResource;
+import org.atriasoft.archidata.tools.ConfigBaseVariable;
+import org.atriasoft.archidata.tools.ThumbnailTools;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestThumbnailTools {
+	@TempDir
+	Path dataFolder;
+
+	@BeforeEach
+	void setup() {
+		ConfigBaseVariable.clearAllValue();
+		ConfigBaseVariable.setDataFolder(this.dataFolder.toString());
+		ConfigBaseVariable.setThumbnailWidths("32,64");
+	}
+
+	@AfterEach
+	void teardown() {
+		ConfigBaseVariable.clearAllValue();
+	}
+
+	private static ObjectId storeImage(final int width, final int height) throws IOException {
+		final ObjectId oid = new ObjectId();
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		ImageIO.write(image, "png", new File(DataResource.getFileData(oid)));
+		return oid;
+	}
+
+	@Test
+	void testSupportedMimeTypes() {
+		Assertions.assertTrue(ThumbnailTools.isSupported("image/jpeg"));
+		Assertions.assertTrue(ThumbnailTools.isSupported("image/png"));
+		Assertions.assertFalse(ThumbnailTools.isSupported("video/webm"));
+		Assertions.assertFalse(ThumbnailTools.isSupported(null));
+	}
+
+	@Test
+	void testSelectWidth() {
+		Assertions.assertEquals(32, ThumbnailTools.selectWidth(10));
+		Assertions.assertEquals(64, ThumbnailTools.selectWidth(33));
+		// Larger than all the widths: the largest one
+		Assertions.assertEquals(64, ThumbnailTools.selectWidth(1000));
+		// Default width (256) larger than all the widths
+		Assertions.assertEquals(64, ThumbnailTools.selectWidth(null));
+	}
+
+	@Test
+	void testGenerateAllWidths() throws Exception {
+		final ObjectId oid = storeImage(200, 100);
+		ThumbnailTools.generate(oid);
+		final BufferedImage small = ImageIO.read(new File(ThumbnailTools.getThumbnailPath(oid, 32)));
+		final BufferedImage large = ImageIO.read(new File(ThumbnailTools.getThumbnailPath(oid, 64)));
+		Assertions.assertEquals(32, small.getWidth());
+		Assertions.assertEquals(16, small.getHeight());
+		Assertions.assertEquals(64, large.getWidth());
+		Assertions.assertEquals(32, large.getHeight());
+	}
+
+	@Test
+	void testDecodeSubsampled() throws Exception {
+		final ObjectId oid = storeImage(2000, 1000);
+		final BufferedImage decoded = ThumbnailTools.decode(new File(DataResource.getFileData(oid)), 256);
+		// Never smaller than the target, far from the full resolution
+		Assertions.assertTrue(decoded.getWidth() >= 256 && decoded.getWidth() < 512, "width=" + decoded.getWidth());
+		Assertions.assertEquals(decoded.getWidth() / 2, decoded.getHeight(), 1);
+	}
+
+	@Test
+	void testNeverUpscaled() throws Exception {
+		final ObjectId oid = storeImage(40, 40);
+		ThumbnailTools.generate(oid);
+		Assertions.assertEquals(40, ImageIO.read(new File(ThumbnailTools.getThumbnailPath(oid, 64))).getWidth());
+	}
+
+	@Test
+	void testGeneratedLazilyOnMiss() throws Exception {
+		final ObjectId oid = storeImage(200, 100);
+		final String expected = ThumbnailTools.getThumbnailPath(oid, 64);
+		Assertions.assertFalse(Files.exists(Paths.get(expected)));
+		final String path = ThumbnailTools.getOrGenerate(oid, 64);
+		Assertions.assertEquals(expected, path);
+		Assertions.assertTrue(Files.exists(Paths.get(path)));
+		Assertions.assertTrue(Files.exists(Paths.get(ThumbnailTools.getThumbnailPath(oid, 32))));
+	}
+
+	@Test
+	void testDeleteThumbnails() throws Exception {
+		final ObjectId oid = storeImage(200, 100);
+		final ObjectId other = storeImage(200, 100);
+		ThumbnailTools.generate(oid);
+		ThumbnailTools.generate(other);
+		// A thumbnail of a previous configuration
+		ConfigBaseVariable.setThumbnailWidths("16");
+		ThumbnailTools.generate(oid);
+		ThumbnailTools.deleteThumbnails(oid);
+		for (final int width : new int[] { 16, 32, 64 }) {
+			Assertions.assertFalse(Files.exists(Paths.get(ThumbnailTools.getThumbnailPath(oid, width))));
+		}
+		Assertions.assertTrue(Files.exists(Paths.get(DataResource.getFileData(oid))));
+		ConfigBaseVariable.setThumbnailWidths("32,64");
+		Assertions.assertTrue(Files.exists(Paths.get(ThumbnailTools.getThumbnailPath(other, 64))));
+		// The replaced content gets new thumbnails
+		ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png",
+				new File(DataResource.getFileData(oid)));
+		final BufferedImage square = ImageIO.read(new File(ThumbnailTools.getOrGenerate(oid, 64)));
+		Assertions.assertEquals(64, square.getHeight());
+	}
+}